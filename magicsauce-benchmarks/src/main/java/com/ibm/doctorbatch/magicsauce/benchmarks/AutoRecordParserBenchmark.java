@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ibm.doctorbatch.magicsauce.auto.AutoRecordParser;
+import com.ibm.doctorbatch.magicsauce.auto.BatchRecord;
+
+/**
+ * Measures AutoRecordParser creating a record object for each record of a unit of work, 
+ * and then serializing and releasing each object, as a reader and writer pair do. With a 
+ * poolSize greater than zero, released objects are reused for later records.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BenchmarkData.RECORDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutoRecordParserBenchmark {
+	@Param({"80", "1024", "4096"})
+	public int recordSize;
+	
+	@Param({"1", "100", "1000"})
+	public int unitOfWorkSize;
+	
+	@Param({"0", "1000"})
+	public int poolSize;
+	
+	private byte[][] records;
+	private AutoRecordParser<BytesRecord, byte[]> parser;
+	private final List<BytesRecord> unit = new ArrayList<BytesRecord>();
+	
+	@Setup
+	public void setUp() {
+		byte[] block = BenchmarkData.fixedLengthRecords( BenchmarkData.RECORDS, recordSize );
+		records = new byte[BenchmarkData.RECORDS][];
+		for ( int i = 0; i < records.length; ++i ) {
+			records[i] = new byte[recordSize];
+			System.arraycopy(block, i * recordSize, records[i], 0, recordSize);
+		}
+		
+		Properties props = new Properties();
+		props.setProperty( "AUTO_RECORD_PARSER_CLASSNAME", BytesRecord.class.getName() );
+		props.setProperty( "AUTO_RECORD_PARSER_POOL_SIZE", Integer.toString(poolSize) );
+		parser = new AutoRecordParser<BytesRecord, byte[]>();
+		parser.initialize( props );
+	}
+	
+	@Benchmark
+	public int parseAndRelease( Blackhole blackhole ) {
+		int total = 0;
+		for ( int from = 0; from < BenchmarkData.RECORDS; from += unitOfWorkSize ) {
+			int to = Math.min( from + unitOfWorkSize, BenchmarkData.RECORDS );
+			
+			unit.clear();
+			for ( int i = from; i < to; ++i )
+				unit.add( parser.parseRecordToObject(records[i]) );
+			
+			for ( int i = 0; i < unit.size(); ++i ) {
+				BytesRecord record = unit.get(i);
+				blackhole.consume( parser.parseObjectToRecord(record) );
+				parser.release( record );
+			}
+			total += unit.size();
+		}
+		return total;
+	}
+	
+	/**
+	 * A record which keeps the bytes it was read from, and decodes one field.
+	 */
+	public static class BytesRecord implements BatchRecord<byte[]> {
+		private byte[] data;
+		private int key;
+		
+		@Override
+		public void setRecordData( byte[] data ) {
+			this.data = data;
+			this.key = ((data[0] & 0xFF) << 24) | ((data[1] & 0xFF) << 16) | ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+		}
+		
+		@Override
+		public byte[] getRecordData() {
+			return data;
+		}
+		
+		public int getKey() {
+			return key;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.benchmarks;
+
+import java.nio.charset.Charset;
+import java.util.Random;
+
+/**
+ * Generates the records read and written by the benchmarks. The data is generated from a
+ * fixed seed, so every run measures the same input.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public final class BenchmarkData {
+	/**
+	 * The number of records each benchmark invocation handles.
+	 */
+	public final static int RECORDS = 8192;
+	
+	public final static Charset CHARSET = Charset.forName("UTF-8");
+	
+	private final static String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789 ,.";
+	
+	private BenchmarkData() {
+	}
+	
+	/**
+	 * Returns count lines of printable ASCII text, each size characters long.
+	 */
+	public static String[] lines( int count, int size ) {
+		Random random = new Random(size);
+		String[] lines = new String[count];
+		char[] chars = new char[size];
+		
+		for ( int i = 0; i < count; ++i ) {
+			for ( int j = 0; j < size; ++j )
+				chars[j] = ALPHABET.charAt( random.nextInt(ALPHABET.length()) );
+			lines[i] = new String(chars);
+		}
+		
+		return lines;
+	}
+	
+	/**
+	 * Returns the records, each followed by the separator, encoded in CHARSET.
+	 */
+	public static byte[] join( String[] records, String separator ) {
+		int length = 0;
+		for ( String record : records )
+			length += record.length() + separator.length();
+		
+		StringBuilder sb = new StringBuilder(length);
+		for ( String record : records )
+			sb.append(record).append(separator);
+		
+		return sb.toString().getBytes(CHARSET);
+	}
+	
+	/**
+	 * Returns count fixed length records of size bytes each, one after another.
+	 */
+	public static byte[] fixedLengthRecords( int count, int size ) {
+		byte[] records = new byte[count * size];
+		new Random(size).nextBytes(records);
+		return records;
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.benchmarks;
+
+import com.ibm.etools.marshall.RecordBytes;
+
+/**
+ * A RecordBytes record which holds its own byte array, as generated record classes do.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class BenchmarkRecordBytes implements RecordBytes {
+	private byte[] bytes;
+	
+	public BenchmarkRecordBytes() {
+	}
+	
+	public BenchmarkRecordBytes( byte[] bytes ) {
+		this.bytes = bytes;
+	}
+	
+	@Override
+	public byte[] getBytes() {
+		return bytes;
+	}
+	
+	@Override
+	public int getSize() {
+		return bytes.length;
+	}
+	
+	@Override
+	public void setBytes( byte[] bytes ) {
+		this.bytes = bytes;
+	}
+}
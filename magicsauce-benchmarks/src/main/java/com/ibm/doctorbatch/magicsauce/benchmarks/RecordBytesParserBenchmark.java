@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.benchmarks;
+
+import static com.ibm.doctorbatch.magicsauce.mvs.Constants.MVS_RECORDBYTES_CLASSNAME;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ibm.doctorbatch.magicsauce.mvs.RecordBytesParser;
+import com.ibm.etools.marshall.RecordBytes;
+
+/**
+ * Measures RecordBytesParser parsing fixed length records from a block buffer, as the MVS 
+ * and RDW readers do: into a new object per record, collected in units of unitOfWorkSize 
+ * records as a bulk read does, and into the parser's reused instance, as a single read 
+ * does. With sliced set, the record class is a SlicedRecordBytes bound to the block; 
+ * otherwise each record is copied out of it.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BenchmarkData.RECORDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordBytesParserBenchmark {
+	@Param({"80", "1024", "4096"})
+	public int recordSize;
+	
+	@Param({"1", "100", "1000"})
+	public int unitOfWorkSize;
+	
+	@Param({"false", "true"})
+	public boolean sliced;
+	
+	private byte[] block;
+	private RecordBytesParser<RecordBytes> parser;
+	private final List<RecordBytes> unit = new ArrayList<RecordBytes>();
+	
+	@Setup
+	public void setUp() {
+		block = BenchmarkData.fixedLengthRecords( BenchmarkData.RECORDS, recordSize );
+		
+		Properties props = new Properties();
+		props.setProperty( MVS_RECORDBYTES_CLASSNAME, (sliced ? SlicedBenchmarkRecordBytes.class : BenchmarkRecordBytes.class).getName() );
+		parser = new RecordBytesParser<RecordBytes>();
+		parser.initialize( props );
+	}
+	
+	@Benchmark
+	public int parseToNewObjects( Blackhole blackhole ) {
+		int total = 0;
+		for ( int from = 0; from < BenchmarkData.RECORDS; from += unitOfWorkSize ) {
+			int to = Math.min( from + unitOfWorkSize, BenchmarkData.RECORDS );
+			
+			unit.clear();
+			for ( int i = from; i < to; ++i )
+				unit.add( parser.parseRecordToNewObject(block, i * recordSize, recordSize) );
+			
+			for ( int i = 0; i < unit.size(); ++i )
+				blackhole.consume( unit.get(i) );
+			total += unit.size();
+		}
+		return total;
+	}
+	
+	@Benchmark
+	public int parseToReusedObject( Blackhole blackhole ) {
+		for ( int i = 0; i < BenchmarkData.RECORDS; ++i )
+			blackhole.consume( parser.parseRecordToObject(block, i * recordSize, recordSize) );
+		return BenchmarkData.RECORDS;
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ibm.doctorbatch.magicsauce.patterns.RegexPatternRecordReader;
+
+/**
+ * Measures RegexPatternRecordReader reading records separated by "&lt;EOR&gt;", in units of 
+ * unitOfWorkSize records. With the LITERAL delimiter the pattern is the plain string, 
+ * which is matched without the regular expression engine; the REGEX delimiter adds an 
+ * alternative which never occurs, so every record boundary is found by the engine.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BenchmarkData.RECORDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegexPatternRecordReaderBenchmark {
+	private final static String SEPARATOR = "<EOR>";
+	
+	@Param({"80", "1024", "4096"})
+	public int recordSize;
+	
+	@Param({"1", "100", "1000"})
+	public int unitOfWorkSize;
+	
+	@Param({"LITERAL", "REGEX"})
+	public String delimiter;
+	
+	private PatternReader reader;
+	private final List<String> unit = new ArrayList<String>();
+	
+	@Setup
+	public void setUp() {
+		reader = new PatternReader( BenchmarkData.join(BenchmarkData.lines(BenchmarkData.RECORDS, recordSize), SEPARATOR) );
+		reader.setPattern( "LITERAL".equals(delimiter) ? SEPARATOR : SEPARATOR + "|<EOF>\\d+" );
+	}
+	
+	@Benchmark
+	public int read( Blackhole blackhole ) {
+		reader.open( null );
+		
+		int total = 0;
+		int count;
+		do {
+			unit.clear();
+			count = reader.read( unitOfWorkSize, unit );
+			for ( int i = 0; i < count; ++i )
+				blackhole.consume( unit.get(i) );
+			total += count;
+		} while ( count == unitOfWorkSize );
+		
+		reader.close();
+		return total;
+	}
+	
+	/*
+	 * Reads records from an in-memory copy of the input.
+	 */
+	static final class PatternReader extends RegexPatternRecordReader {
+		private final byte[] data;
+		
+		PatternReader( byte[] data ) {
+			this.data = data;
+		}
+		
+		@Override
+		public void open( Serializable state ) {
+			setSource( new BufferedReader(new InputStreamReader(new ByteArrayInputStream(data), BenchmarkData.CHARSET)) );
+		}
+		
+		@Override
+		public void close() {
+		}
+		
+		@Override
+		public Serializable getState() {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ibm.doctorbatch.magicsauce.patterns.SingleLineRecordReader;
+
+/**
+ * Measures SingleLineRecordReader reading lines from a byte stream, in units of 
+ * unitOfWorkSize records through read(int, List), and one line at a time through 
+ * readCharSequence(), which does not create a String per line.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BenchmarkData.RECORDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SingleLineRecordReaderBenchmark {
+	@Param({"80", "1024", "4096"})
+	public int recordSize;
+	
+	@Param({"1", "100", "1000"})
+	public int unitOfWorkSize;
+	
+	private LineReader reader;
+	private final List<String> unit = new ArrayList<String>();
+	
+	@Setup
+	public void setUp() {
+		reader = new LineReader( BenchmarkData.join(BenchmarkData.lines(BenchmarkData.RECORDS, recordSize), "\n") );
+	}
+	
+	@Benchmark
+	public int read( Blackhole blackhole ) {
+		reader.open( null );
+		
+		int total = 0;
+		int count;
+		do {
+			unit.clear();
+			count = reader.read( unitOfWorkSize, unit );
+			for ( int i = 0; i < count; ++i )
+				blackhole.consume( unit.get(i) );
+			total += count;
+		} while ( count == unitOfWorkSize );
+		
+		reader.close();
+		return total;
+	}
+	
+	@Benchmark
+	public int readCharSequence( Blackhole blackhole ) {
+		reader.open( null );
+		
+		int total = 0;
+		CharSequence line;
+		while ( (line = reader.readCharSequence()) != null ) {
+			blackhole.consume( line.length() );
+			++total;
+		}
+		
+		reader.close();
+		return total;
+	}
+	
+	/*
+	 * Reads lines from an in-memory copy of the input.
+	 */
+	static final class LineReader extends SingleLineRecordReader {
+		private final byte[] data;
+		
+		LineReader( byte[] data ) {
+			this.data = data;
+		}
+		
+		@Override
+		public void open( Serializable state ) {
+			setSource( new ByteArrayInputStream(data), BenchmarkData.CHARSET );
+			setLineNumber( 0 );
+			seek( state );
+		}
+		
+		@Override
+		public void close() {
+		}
+	}
+}
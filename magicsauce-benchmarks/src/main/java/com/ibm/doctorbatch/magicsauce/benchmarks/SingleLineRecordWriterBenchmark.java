@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.doctorbatch.magicsauce.patterns.LineCheckpoint;
+import com.ibm.doctorbatch.magicsauce.patterns.SingleLineRecordWriter;
+
+/**
+ * Measures SingleLineRecordWriter writing lines in units of unitOfWorkSize records, 
+ * followed by a checkpoint, to a BufferedWriter which discards its output, and to a 
+ * FileChannel through the ChannelLineWriter engine. The file is truncated at the start of 
+ * every invocation.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BenchmarkData.RECORDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SingleLineRecordWriterBenchmark {
+	@Param({"80", "1024", "4096"})
+	public int recordSize;
+	
+	@Param({"1", "100", "1000"})
+	public int unitOfWorkSize;
+	
+	private List<String> records;
+	private LineWriter bufferedWriter;
+	private LineWriter channelWriter;
+	private File file;
+	private RandomAccessFile raf;
+	
+	@Setup
+	public void setUp() throws IOException {
+		records = Arrays.asList( BenchmarkData.lines(BenchmarkData.RECORDS, recordSize) );
+		
+		bufferedWriter = new LineWriter();
+		bufferedWriter.setWriter( new BufferedWriter(new NullWriter(), SingleLineRecordWriter.DEFAULT_BUFFER_SIZE) );
+		
+		file = File.createTempFile("magicsauce-benchmark", ".txt");
+		raf = new RandomAccessFile(file, "rw");
+		channelWriter = new LineWriter();
+		channelWriter.setChannel( raf.getChannel(), BenchmarkData.CHARSET );
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException {
+		raf.close();
+		file.delete();
+	}
+	
+	@Benchmark
+	public Serializable writeBufferedWriter() {
+		bufferedWriter.setLineNumber( 0 );
+		return write( bufferedWriter );
+	}
+	
+	@Benchmark
+	public Serializable writeChannel() {
+		channelWriter.truncate( new LineCheckpoint(0L, 0L) );
+		return write( channelWriter );
+	}
+	
+	private Serializable write( LineWriter writer ) {
+		Serializable state = null;
+		for ( int from = 0; from < records.size(); from += unitOfWorkSize ) {
+			writer.write( records.subList(from, Math.min(from + unitOfWorkSize, records.size())) );
+			state = writer.getState();
+		}
+		return state;
+	}
+	
+	static final class LineWriter extends SingleLineRecordWriter {
+		@Override
+		public void open( Serializable state ) {
+		}
+		
+		@Override
+		public void close() {
+		}
+	}
+	
+	static final class NullWriter extends java.io.Writer {
+		@Override
+		public void write( char[] cbuf, int off, int len ) {
+		}
+		
+		@Override
+		public void flush() {
+		}
+		
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.benchmarks;
+
+import java.util.Arrays;
+
+import com.ibm.doctorbatch.magicsauce.mvs.SlicedRecordBytes;
+
+/**
+ * A SlicedRecordBytes record, which is bound to a slice of a shared buffer rather than 
+ * copied. getBytes() only copies when the slice is not the whole buffer.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class SlicedBenchmarkRecordBytes implements SlicedRecordBytes {
+	private byte[] buffer;
+	private int offset;
+	private int length;
+	
+	public SlicedBenchmarkRecordBytes() {
+	}
+	
+	@Override
+	public byte[] getBytes() {
+		if ( offset == 0 && length == buffer.length )
+			return buffer;
+		return Arrays.copyOfRange(buffer, offset, offset + length);
+	}
+	
+	@Override
+	public int getSize() {
+		return length;
+	}
+	
+	@Override
+	public void setBytes( byte[] bytes ) {
+		setBytes( bytes, 0, bytes.length );
+	}
+	
+	@Override
+	public void setBytes( byte[] buffer, int offset, int length ) {
+		this.buffer = buffer;
+		this.offset = offset;
+		this.length = length;
+	}
+	
+	/**
+	 * Returns a byte of the record without copying it.
+	 */
+	public byte get( int index ) {
+		return buffer[offset + index];
+	}
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * <h1>Benchmarks</h1>
+ * 
+ * <p>JMH microbenchmarks for the framework's record paths: line and pattern delimited 
+ * readers and writers, the record parsers, RDW encoding and decoding, and the ETLJobStep 
+ * unit of work. Each benchmark reads, parses or writes BenchmarkData.RECORDS records per
+ * invocation, and reports one operation per record, so scores are records per second and
+ * are comparable across the recordSize and unitOfWorkSize parameters.</p>
+ * 
+ * <p>The RDW and ETLJobStep benchmarks are in the packages of the classes they measure, 
+ * as they use package-private constructors and test hooks.</p>
+ */
+package com.ibm.doctorbatch.magicsauce.benchmarks;
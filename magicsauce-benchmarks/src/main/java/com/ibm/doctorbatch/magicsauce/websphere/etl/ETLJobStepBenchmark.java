@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.websphere.etl;
+
+import static com.ibm.doctorbatch.magicsauce.Constants.RECORD_PROCESSOR;
+import static com.ibm.doctorbatch.magicsauce.Constants.STEP_METRICS;
+import static com.ibm.doctorbatch.magicsauce.websphere.Constants.UNIT_OF_WORK_SIZE;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.doctorbatch.magicsauce.RecordProcessor;
+import com.ibm.doctorbatch.magicsauce.benchmarks.BenchmarkData;
+import com.ibm.websphere.batch.BatchConstants;
+
+/**
+ * <p>Measures the ETLJobStep unit of work loop: processJobStep is called until the step 
+ * completes, reading from an in-memory reader, passing each record through a processor 
+ * which returns it unchanged, and counting the records written. Only the job step's own 
+ * overhead is measured. With bulkReader set, the reader is BulkReadable, so each unit of 
+ * work is read in one call; otherwise records are read one at a time.</p>
+ * 
+ * <p>As in ETLJobStepTestSuite, the batch data streams are supplied by overriding 
+ * getBatchDataStream, since there is no batch data stream manager outside the 
+ * container.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BenchmarkData.RECORDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ETLJobStepBenchmark {
+	@Param({"80", "1024", "4096"})
+	public int recordSize;
+	
+	@Param({"1", "100", "1000"})
+	public int unitOfWorkSize;
+	
+	@Param({"true", "false"})
+	public boolean bulkReader;
+	
+	private MemoryReader reader;
+	private CountingWriter writer;
+	private BenchmarkJobStep jobStep;
+	
+	@Setup
+	public void setUp() {
+		byte[] block = BenchmarkData.fixedLengthRecords( BenchmarkData.RECORDS, recordSize );
+		byte[][] records = new byte[BenchmarkData.RECORDS][];
+		for ( int i = 0; i < records.length; ++i ) {
+			records[i] = new byte[recordSize];
+			System.arraycopy(block, i * recordSize, records[i], 0, recordSize);
+		}
+		
+		reader = bulkReader ? new BulkMemoryReader(records) : new MemoryReader(records);
+		writer = new CountingWriter();
+		
+		Properties props = new Properties();
+		props.setProperty( RECORD_PROCESSOR, EchoRecordProcessor.class.getName() );
+		props.setProperty( UNIT_OF_WORK_SIZE, Integer.toString(unitOfWorkSize) );
+		props.setProperty( STEP_METRICS, "false" );
+		
+		jobStep = new BenchmarkJobStep( reader, writer );
+		jobStep.setProperties( props );
+		jobStep.createJobStep();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		jobStep.destroyJobStep();
+	}
+	
+	@Benchmark
+	public long processJobStep() {
+		reader.rewind();
+		writer.count = 0L;
+		
+		while ( jobStep.processJobStep() == BatchConstants.STEP_CONTINUE );
+		
+		return writer.count;
+	}
+	
+	static final class BenchmarkJobStep extends ETLJobStep<byte[], byte[]> {
+		private final Object reader;
+		private final Object writer;
+		
+		BenchmarkJobStep( Object reader, Object writer ) {
+			this.reader = reader;
+			this.writer = writer;
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		protected <T> T getBatchDataStream( String dataStreamName ) {
+			return (T) ( "writer".equals(dataStreamName) ? writer : reader );
+		}
+	}
+	
+	static class MemoryReader implements Readable<byte[]> {
+		protected final byte[][] records;
+		protected int next;
+		
+		MemoryReader( byte[][] records ) {
+			this.records = records;
+		}
+		
+		void rewind() {
+			next = 0;
+		}
+		
+		@Override
+		public byte[] read() {
+			return ( next < records.length ? records[next++] : null );
+		}
+	}
+	
+	static final class BulkMemoryReader extends MemoryReader implements BulkReadable<byte[]> {
+		BulkMemoryReader( byte[][] records ) {
+			super( records );
+		}
+		
+		@Override
+		public int read( int max, List<? super byte[]> into ) {
+			int count = 0;
+			while ( count < max && next < records.length ) {
+				into.add( records[next++] );
+				++count;
+			}
+			return count;
+		}
+	}
+	
+	static final class CountingWriter implements Writable<byte[]> {
+		long count;
+		
+		@Override
+		public void write( byte[] record ) {
+			++count;
+		}
+		
+		@Override
+		public void write( List<? extends byte[]> records ) {
+			count += records.size();
+		}
+	}
+	
+	/**
+	 * Returns every record unchanged.
+	 */
+	public static class EchoRecordProcessor implements RecordProcessor<byte[], byte[]> {
+		@Override
+		public void initialize( Properties jobStepProperties ) {
+		}
+		
+		@Override
+		public byte[] process( byte[] record ) {
+			return record;
+		}
+		
+		@Override
+		public int getReturnCode() {
+			return 0;
+		}
+		
+		@Override
+		public void tearDown() {
+		}
+	}
+}
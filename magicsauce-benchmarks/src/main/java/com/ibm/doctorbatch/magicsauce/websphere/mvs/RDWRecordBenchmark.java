@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.websphere.mvs;
+
+import static com.ibm.doctorbatch.magicsauce.mvs.Constants.MVS_RECORDBYTES_CLASSNAME;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ibm.doctorbatch.magicsauce.benchmarks.BenchmarkData;
+import com.ibm.doctorbatch.magicsauce.benchmarks.BenchmarkRecordBytes;
+import com.ibm.doctorbatch.magicsauce.benchmarks.SlicedBenchmarkRecordBytes;
+import com.ibm.doctorbatch.magicsauce.mvs.RecordBytesParser;
+import com.ibm.etools.marshall.RecordBytes;
+
+/**
+ * <p>Measures RDW (record descriptor word) variable block encoding and decoding in memory, 
+ * through RDWRecordWriter and RDWRecordReader: encode writes the records in units of 
+ * unitOfWorkSize records, and decode reads them back in units of the same size. With 
+ * sliced set, decoded records are SlicedRecordBytes bound to shared block buffers, and 
+ * encoded records are copied out of their block by getBytes().</p>
+ * 
+ * <p>This benchmark is in the package of the RDW streams to use their in-memory 
+ * constructors.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BenchmarkData.RECORDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RDWRecordBenchmark {
+	@Param({"80", "1024", "4096"})
+	public int recordSize;
+	
+	@Param({"1", "100", "1000"})
+	public int unitOfWorkSize;
+	
+	@Param({"false", "true"})
+	public boolean sliced;
+	
+	private RecordBytesParser<RecordBytes> parser;
+	private List<RecordBytes> records;
+	private ByteArrayOutputStream out;
+	private byte[] encoded;
+	private final List<RecordBytes> unit = new ArrayList<RecordBytes>();
+	
+	@Setup
+	public void setUp() {
+		Properties props = new Properties();
+		props.setProperty( MVS_RECORDBYTES_CLASSNAME, (sliced ? SlicedBenchmarkRecordBytes.class : BenchmarkRecordBytes.class).getName() );
+		parser = new RecordBytesParser<RecordBytes>();
+		parser.initialize( props );
+		
+		byte[] block = BenchmarkData.fixedLengthRecords( BenchmarkData.RECORDS, recordSize );
+		records = new ArrayList<RecordBytes>( BenchmarkData.RECORDS );
+		for ( int i = 0; i < BenchmarkData.RECORDS; ++i )
+			records.add( parser.parseRecordToNewObject(block, i * recordSize, recordSize) );
+		
+		out = new ByteArrayOutputStream( BenchmarkData.RECORDS * (recordSize + 4) );
+		encode();
+		encoded = out.toByteArray();
+	}
+	
+	@Benchmark
+	public int encode() {
+		out.reset();
+		
+		RDWRecordWriter<RecordBytes> writer = new RDWRecordWriter<RecordBytes>( out, recordSize, parser );
+		for ( int from = 0; from < records.size(); from += unitOfWorkSize )
+			writer.write( records.subList(from, Math.min(from + unitOfWorkSize, records.size())) );
+		writer.close();
+		
+		return out.size();
+	}
+	
+	@Benchmark
+	public int decode( Blackhole blackhole ) {
+		RDWRecordReader<RecordBytes> reader = new RDWRecordReader<RecordBytes>( new ByteArrayInputStream(encoded), recordSize, parser );
+		
+		int total = 0;
+		int count;
+		do {
+			unit.clear();
+			count = reader.read( unitOfWorkSize, unit );
+			for ( int i = 0; i < count; ++i )
+				blackhole.consume( unit.get(i) );
+			total += count;
+		} while ( count == unitOfWorkSize );
+		
+		return total;
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce;
+
+import java.util.List;
+
+/**
+ * A RecordProcessor which can process many records in a single call, so that the cost of
+ * calling a back end - a rules engine, a lookup or a scoring service - is paid once per 
+ * batch rather than once per record. Use {@link RecordProcessorUtil#processBatch(RecordProcessor, List)}
+ * to process a batch with any RecordProcessor; it uses this interface when the processor 
+ * implements it, and calls process(...) for each record otherwise.
+ * 
+ * <p>When a record fails, processBatch throws a {@link PartialBatchException} which holds
+ * the results of the records before it, with the record's exception as the cause. Job 
+ * steps such as ETLJobStep keep those results, skip the failed record, and pass the records
+ * after it to processBatch again, so each record is processed once. A processBatch which 
+ * throws any other exception is taken to have failed on the first record of the batch.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ *
+ * @param <InputRecordType> The type of input record object to process
+ * @param <OutputRecordType> The type of the returned, processed record object.
+ */
+public interface BatchRecordProcessor<InputRecordType,OutputRecordType> extends RecordProcessor<InputRecordType,OutputRecordType> {
+	
+	/**
+	 * Processes a batch of records.
+	 * 
+	 * @param records The input records to process
+	 * @return The processed records, one for each input record, in the same order
+	 * @throws PartialBatchException If a record fails
+	 */
+	public List<OutputRecordType> processBatch( List<? extends InputRecordType> records );
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce;
+
+import java.util.List;
+
+/**
+ * A Reader which can return many records in a single call. Use 
+ * {@link ReaderUtil#read(Reader, int, List)} to read in bulk from any Reader; it uses
+ * this interface when the reader implements it, and reads one record at a time otherwise.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ */
+public interface BulkReader<T> extends Reader<T> {
+	
+	/**
+	 * Reads up to max records, adding them to the end of the given list. Every record 
+	 * added must remain valid after subsequent reads. 
+	 * 
+	 * @return The number of records added; fewer than max only when no more records 
+	 * are available
+	 */
+	public int read( int max, List<? super T> into );
+}
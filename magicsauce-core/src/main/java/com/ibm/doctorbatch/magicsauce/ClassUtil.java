@@ -16,7 +16,10 @@
 
 package com.ibm.doctorbatch.magicsauce;
 
-
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Contains static utility methods used in a variety of places throughout this framework.
@@ -24,6 +27,7 @@ package com.ibm.doctorbatch.magicsauce;
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
  */
 public class ClassUtil {
+	private final static ConcurrentMap<Class<?>, InstanceFactory<?>> FACTORIES = new ConcurrentHashMap<Class<?>, InstanceFactory<?>>();
 	
 	/**
 	 * This method creates an instance of the class specified by className. The class must
@@ -35,7 +39,7 @@ public class ClassUtil {
 	 */
 	static public final Class<?> getClass(String className) {
 		try {
-			MagicSauceLogger.getInstance().trace( "Attempting to load Class: " + className );
+			MagicSauceLogger.getInstance().trace( "Attempting to load Class: {0}", className );
 			Class<?> clazz = Class.forName(className);
 			return clazz;
 		} catch ( ClassNotFoundException cfe ) {
@@ -44,22 +48,60 @@ public class ClassUtil {
 		} 	
 	}
 
+	/**
+	 * Creates an instance of the given class through its cached {@link InstanceFactory}. The
+	 * class must have a no-args constructor.
+	 */
 	@SuppressWarnings("unchecked")
 	static public final <V> V getInstanceForClass(Class<?> clazz) {
-		try {
-			MagicSauceLogger.getInstance().trace( "Attempting to instantiate class: " + clazz.getCanonicalName() );
-			
-			Object o = clazz.newInstance();
-			return (V) o;
-		} catch (IllegalAccessException ile) {
-			MagicSauceLogger.getInstance().exception( "IllegalAccessException attempting to instantiate class " + clazz.getCanonicalName(), ile );
-			throw new BatchException( "Unexpected error while instantiating Class.", ile.getCause() );
-		} catch (InstantiationException ine) {
-			MagicSauceLogger.getInstance().exception("InstantiationException attempting to instantiate class " + clazz.getCanonicalName(), ine );
-			throw new BatchException( "Unexpected error while instantiating Class.", ine.getCause() );
-		}		
+		MagicSauceLogger.getInstance().trace( "Attempting to instantiate class: {0}", clazz );
+		
+		return (V) getInstanceFactory( clazz ).newInstance();
 	}
 
+	/**
+	 * Returns the InstanceFactory for the given class, creating it on first use. Factories
+	 * are cached per Class, and so per class loader.
+	 */
+	@SuppressWarnings("unchecked")
+	static public final <V> InstanceFactory<V> getInstanceFactory(Class<V> clazz) {
+		InstanceFactory<?> factory = FACTORIES.get( clazz );
+		if ( factory == null ) {
+			InstanceFactory<V> created = new InstanceFactory<V>( clazz );
+			factory = FACTORIES.putIfAbsent( clazz, created );
+			if ( factory == null )
+				factory = created;
+		}
+		
+		return (InstanceFactory<V>) factory;
+	}
+	
+	/**
+	 * Enables or disables counting the instances created by each InstanceFactory. Counting
+	 * is off by default.
+	 */
+	static public final void setInstanceCounting(boolean enabled) {
+		InstanceFactory.counting = enabled;
+	}
+	
+	static public final boolean isInstanceCounting() {
+		return InstanceFactory.counting;
+	}
+	
+	/**
+	 * Returns the number of instances created by each cached InstanceFactory, by class name,
+	 * while instance counting was enabled.
+	 */
+	static public final Map<String, Long> getInstanceCounts() {
+		Map<String, Long> counts = new TreeMap<String, Long>();
+		for ( InstanceFactory<?> factory : FACTORIES.values() ) {
+			String name = factory.getType().getName();
+			Long count = counts.get( name );
+			counts.put( name, Long.valueOf( factory.getInstanceCount() + (count == null ? 0L : count.longValue()) ) );
+		}
+		
+		return counts;
+	}
 	
 	/**
 	 * This method creates an instance of the class specified by className. The class must
@@ -19,4 +19,17 @@ package com.ibm.doctorbatch.magicsauce;
 public final class Constants {
 	public final static String RECORD_PROCESSOR = "RECORD_PROCESSOR";
 	public final static String RECORD_PARSER_CLASSNAME = "RECORD_PARSER_CLASSNAME";
+	public final static String COLUMN_LAYOUT = "COLUMN_LAYOUT";
+	public final static String READ_AHEAD_SIZE = "READ_AHEAD_SIZE";
+	public final static String WRITE_BEHIND_SIZE = "WRITE_BEHIND_SIZE";
+	public final static String ASYNC_LOG_SIZE = "ASYNC_LOG_SIZE";
+	
+	public final static String PARALLEL_RECORD_PROCESSOR = "PARALLEL_RECORD_PROCESSOR";
+	public final static String PARALLEL_THREADS = "PARALLEL_THREADS";
+	public final static String MAX_IN_FLIGHT = "MAX_IN_FLIGHT";
+	public final static String SHUTDOWN_TIMEOUT = "SHUTDOWN_TIMEOUT";
+	public final static String RECORD_KEY_EXTRACTOR = "RECORD_KEY_EXTRACTOR";
+	
+	public final static String STEP_METRICS = "STEP_METRICS";
+	public final static String RECORD_SIZER = "RECORD_SIZER";
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A list which collects the records emitted by an {@link EmittingRecordProcessor}, 
+ * ignoring nulls, so the job steps can pass their output list directly as the emitter.</p>
+ * 
+ * <p>Where a processor must return a single object per input, as a JSR-352 ItemProcessor 
+ * does, several emitted records are returned as one EmittedRecords list, and the writers 
+ * expand it with flatten(List). Being a distinct type, it is not mistaken for a record 
+ * which is itself a List.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ *
+ * @param <T> The type of the emitted records
+ */
+public class EmittedRecords<T> extends ArrayList<T> implements RecordEmitter<T> {
+	private static final long serialVersionUID = 1L;
+	
+	public EmittedRecords() {
+	}
+	
+	public EmittedRecords( int initialCapacity ) {
+		super( initialCapacity );
+	}
+
+	/**
+	 * Adds the record, unless it is null.
+	 */
+	@Override
+	public void emit(T record) {
+		if ( record != null )
+			add( record );
+	}
+	
+	/**
+	 * Returns the items with each EmittedRecords item replaced by the records it holds, and
+	 * null items removed. Returns the given list itself if there is nothing to replace or 
+	 * remove.
+	 */
+	@SuppressWarnings("unchecked")
+	static public <T> List<T> flatten( List<?> items ) {
+		boolean flat = true;
+		for ( Object item : items ) {
+			if ( item == null || item instanceof EmittedRecords<?> ) {
+				flat = false;
+				break;
+			}
+		}
+		
+		if ( flat )
+			return (List<T>) items;
+		
+		List<T> records = new ArrayList<T>( items.size() );
+		for ( Object item : items ) {
+			if ( item instanceof EmittedRecords<?> )
+				records.addAll( (EmittedRecords<T>) item );
+			else if ( item != null )
+				records.add( (T) item );
+		}
+		
+		return records;
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce;
+
+/**
+ * <p>A RecordProcessor which may produce zero, one or many output records from each input
+ * record, by passing them to a {@link RecordEmitter}. Emitting nothing filters the input 
+ * record; emitting several records splits it, without an extra job step and intermediate
+ * data set.</p>
+ * 
+ * <p>ETLJobStep, DBMSProcessor and BatchProcessorItemWriter call process(record, emitter) 
+ * for processors which implement this interface. process(record) is still used by callers
+ * which expect one result per record; implementations should return the single output 
+ * record, null if there is none, and throw a BatchException if there are several. Use 
+ * {@link RecordProcessorUtil#process(RecordProcessor, Object, RecordEmitter)} to call any 
+ * RecordProcessor through an emitter.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ *
+ * @param <InputRecordType> The type of input record object to process
+ * @param <OutputRecordType> The type of the emitted, processed record objects
+ */
+public interface EmittingRecordProcessor<InputRecordType,OutputRecordType> extends RecordProcessor<InputRecordType,OutputRecordType> {
+	/**
+	 * Processes a record, passing each output record to the emitter before returning.
+	 * 
+	 * @param record The input record to process
+	 * @param emitter Receives the processed records
+	 */
+	public void process( InputRecordType record, RecordEmitter<? super OutputRecordType> emitter );
+}
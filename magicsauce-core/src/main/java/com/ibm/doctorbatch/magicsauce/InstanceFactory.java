@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>InstanceFactory creates instances of a class through its no-args constructor, which is
+ * looked up and made accessible once, when the factory is created. Obtain factories from
+ * {@link ClassUtil#getInstanceFactory(Class)}, which caches one factory per class.</p>
+ * 
+ * <p>Java 6 offers neither MethodHandles nor a portable way of generating classes, so 
+ * instances are created through the cached Constructor. After a few invocations, the JVM 
+ * replaces reflective constructor calls with generated bytecode, so creating an instance 
+ * costs little more than a plain <code>new</code>; unlike Class.newInstance(), no access 
+ * check or constructor lookup is repeated per call.</p>
+ * 
+ * <p>Because the constructor is made accessible, classes whose no-args constructor is not
+ * public, including private constructors, can be instantiated. Class.newInstance(), which
+ * ClassUtil used before, rejected them with an IllegalAccessException.</p>
+ * 
+ * <p>When instance counting is enabled with {@link ClassUtil#setInstanceCounting(boolean)},
+ * each factory counts the instances it has created; see 
+ * {@link ClassUtil#getInstanceCounts()}. Counting is off by default, so that threads 
+ * creating instances of the same class do not contend on a shared counter.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ *
+ * @param <T> The type of instance created
+ */
+public final class InstanceFactory<T> {
+	static volatile boolean counting = false;
+	
+	private final Class<T> type;
+	private final Constructor<T> constructor;
+	private final AtomicLong instanceCount = new AtomicLong();
+	
+	InstanceFactory( Class<T> type ) {
+		this.type = type;
+		
+		try {
+			this.constructor = type.getDeclaredConstructor();
+			this.constructor.setAccessible(true);
+		} catch (NoSuchMethodException nsme) {
+			MagicSauceLogger.getInstance().exception( "Class " + type.getCanonicalName() + " has no no-args constructor", nsme );
+			throw new BatchException( "Unexpected error while instantiating Class. No no-args constructor found for " + type.getCanonicalName(), nsme );
+		}
+	}
+	
+	/**
+	 * Creates a new instance.
+	 */
+	public T newInstance() {
+		try {
+			T instance = constructor.newInstance();
+			if ( counting )
+				instanceCount.incrementAndGet();
+			return instance;
+		} catch (InvocationTargetException ite) {
+			MagicSauceLogger.getInstance().exception( "Constructor of class " + type.getCanonicalName() + " threw an exception", ite.getCause() );
+			throw new BatchException( "Unexpected error while instantiating Class.", ite.getCause() );
+		} catch (IllegalAccessException ile) {
+			MagicSauceLogger.getInstance().exception( "IllegalAccessException attempting to instantiate class " + type.getCanonicalName(), ile );
+			throw new BatchException( "Unexpected error while instantiating Class.", ile );
+		} catch (InstantiationException ine) {
+			MagicSauceLogger.getInstance().exception( "InstantiationException attempting to instantiate class " + type.getCanonicalName(), ine );
+			throw new BatchException( "Unexpected error while instantiating Class.", ine );
+		}
+	}
+	
+	public Class<T> getType() {
+		return type;
+	}
+	
+	/**
+	 * Returns the number of instances created by this factory while instance counting was
+	 * enabled.
+	 */
+	public long getInstanceCount() {
+		return instanceCount.get();
+	}
+}
@@ -19,6 +19,20 @@ package com.ibm.doctorbatch.magicsauce;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.ibm.doctorbatch.magicsauce.concurrent.AsyncLogHandler;
+
+/**
+ * <p>The framework's logger, over java.util.logging.</p>
+ * 
+ * <p>Besides plain messages, each level accepts a {@link MessageSupplier}, or a 
+ * java.text.MessageFormat pattern with parameters, such as 
+ * <code>trace( "Loading class {0}", className )</code>. Neither builds the message unless 
+ * the level is enabled, so they cost next to nothing on per-record paths. Patterns are 
+ * formatted by the handler.</p>
+ * 
+ * <p>enableAsyncLogging(int) hands the records to an {@link AsyncLogHandler}, so logging 
+ * threads do not wait for handler I/O, until a matching call to disableAsyncLogging().</p>
+ */
 public class MagicSauceLogger {
 	private final static Logger LOG = Logger.getLogger( MagicSauceLogger.class.getCanonicalName() );
 	private final static MagicSauceLogger INSTANCE = new MagicSauceLogger();
@@ -31,18 +45,82 @@ public class MagicSauceLogger {
 		return INSTANCE;
 	}
 	
+	/**
+	 * Returns true if trace messages are logged. Check this before building an expensive
+	 * trace message.
+	 */
+	public boolean isTraceEnabled() {
+		return LOG.isLoggable( Level.FINEST );
+	}
+	
+	/**
+	 * Publishes this logger's records through an AsyncLogHandler with room for capacity 
+	 * records. If asynchronous logging is already enabled, the existing handler is kept,
+	 * and is only removed once disableAsyncLogging() has been called for each call to this 
+	 * method.
+	 */
+	public AsyncLogHandler enableAsyncLogging( int capacity ) {
+		return AsyncLogHandler.install( LOG, capacity );
+	}
+	
+	/**
+	 * Reverses one call to enableAsyncLogging(int).
+	 */
+	public void disableAsyncLogging() {
+		AsyncLogHandler.uninstall( LOG );
+	}
+	
 	public void trace( String message ) {
 		LOG.finest( message );
 	}
 	
+	public void trace( MessageSupplier message ) {
+		if ( LOG.isLoggable( Level.FINEST ) )
+			LOG.finest( message.getMessage() );
+	}
+	
+	public void trace( String pattern, Object param ) {
+		LOG.log( Level.FINEST, pattern, param );
+	}
+	
+	public void trace( String pattern, Object... params ) {
+		LOG.log( Level.FINEST, pattern, params );
+	}
+	
 	public void info( String message ) {
 		LOG.info( message );
 	}
 	
+	public void info( MessageSupplier message ) {
+		if ( LOG.isLoggable( Level.INFO ) )
+			LOG.info( message.getMessage() );
+	}
+	
+	public void info( String pattern, Object param ) {
+		LOG.log( Level.INFO, pattern, param );
+	}
+	
+	public void info( String pattern, Object... params ) {
+		LOG.log( Level.INFO, pattern, params );
+	}
+	
 	public void warning( String message ) {
 		LOG.warning( message );
 	}
 	
+	public void warning( MessageSupplier message ) {
+		if ( LOG.isLoggable( Level.WARNING ) )
+			LOG.warning( message.getMessage() );
+	}
+	
+	public void warning( String pattern, Object param ) {
+		LOG.log( Level.WARNING, pattern, param );
+	}
+	
+	public void warning( String pattern, Object... params ) {
+		LOG.log( Level.WARNING, pattern, params );
+	}
+	
 	public void severe( String message ) {
 		LOG.severe( message );
 	}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * PartialBatchException is thrown by {@link BatchRecordProcessor#processBatch(List)} when a 
+ * record of the batch fails, to report how far the batch got: the records before the failed
+ * record were processed, and their results are returned by getProcessed(). The failed 
+ * record's exception is the cause. Records after the failed record are left to the caller, 
+ * which may skip the failed record and pass the rest to processBatch again.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ */
+public class PartialBatchException extends BatchException {
+
+	private static final long serialVersionUID = 1L;
+	
+	private final int failedIndex;
+	private final List<?> processed;
+	
+	/**
+	 * @param failedIndex The index, in the batch, of the failed record
+	 * @param processed The results of the records before the failed record, in order
+	 * @param cause The failure of the record
+	 */
+	public PartialBatchException( int failedIndex, List<?> processed, Throwable cause ) {
+		super( "Record " + failedIndex + " of the batch failed: " + cause, cause );
+		this.failedIndex = failedIndex;
+		this.processed = processed;
+	}
+	
+	/**
+	 * Returns the failure as a PartialBatchException. Any other exception is taken to be the
+	 * failure of the first record of the batch, since it does not say how far the batch got.
+	 */
+	static public PartialBatchException of( RuntimeException failure ) {
+		if ( failure instanceof PartialBatchException )
+			return (PartialBatchException) failure;
+		
+		return new PartialBatchException( 0, Collections.emptyList(), failure );
+	}
+	
+	/**
+	 * Returns the index, in the batch, of the failed record.
+	 */
+	public int getFailedIndex() {
+		return failedIndex;
+	}
+	
+	/**
+	 * Returns the results of the records before the failed record, in order. Like the result
+	 * of processBatch, it may contain nulls for filtered records.
+	 */
+	public List<?> getProcessed() {
+		return processed;
+	}
+}
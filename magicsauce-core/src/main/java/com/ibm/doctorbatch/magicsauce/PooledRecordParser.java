@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce;
+
+/**
+ * <p>A RecordParser which recycles the objects it returns from parseRecordToObject. Once the
+ * code which consumes a record - for example a writer sharing the reader's parser - has 
+ * serialized it with parseObjectToRecord and no longer needs it, it passes the object to 
+ * release(...), and the parser may return the same instance, with new record data, for a 
+ * later record.</p>
+ * 
+ * <p>The framework's readers and writers each create their own parser, so they do not 
+ * release records themselves: a record released to the writer's parser would never be 
+ * reused by the reader. Only release objects to the parser they were read with, and which
+ * nothing else refers to any longer; an object must not be used after it has been 
+ * released.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ *
+ * @param <ObjectType> The type of the object that represents a record in memory ... eg: Customer
+ * @param <RecordType> The type of the serialized form of the record ... (e.g., byte[], or String)
+ */
+public interface PooledRecordParser<ObjectType,RecordType> extends RecordParser<ObjectType,RecordType> {
+	/**
+	 * Returns an object, obtained from parseRecordToObject, to the parser for reuse.
+	 * 
+	 * @param object
+	 */
+	public void release( ObjectType object );
+}
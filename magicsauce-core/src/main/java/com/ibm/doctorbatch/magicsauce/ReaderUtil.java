@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce;
+
+import java.util.List;
+
+/**
+ * Contains static utility methods for working with Readers.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ */
+public class ReaderUtil {
+	
+	/**
+	 * Reads up to max records from reader into the given list, in one call to 
+	 * BulkReader.read(int, List) if the reader supports it, or by calling read() until 
+	 * max records have been read or it returns null.
+	 * 
+	 * @return The number of records added; fewer than max only when no more records 
+	 * are available
+	 */
+	static public final <T> int read( Reader<T> reader, int max, List<? super T> into ) {
+		if ( reader instanceof BulkReader<?> )
+			return ((BulkReader<T>) reader).read( max, into );
+		
+		int count = 0;
+		while ( count < max ) {
+			T record = reader.read();
+			if ( record == null )
+				break;
+			
+			into.add( record );
+			++count;
+		}
+		
+		return count;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce;
+
+/**
+ * A bounded stack of record objects kept for reuse by a {@link PooledRecordParser}. The most 
+ * recently released object is reused first, as it is the most likely to still be in the 
+ * processor cache. A pool belongs to the parser which creates it, and only holds objects 
+ * released to that parser.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ *
+ * @param <T> The type of record object pooled
+ */
+public class RecordPool<T> {
+	private Object[] objects;
+	private int count;
+	
+	/**
+	 * Creates a pool which keeps up to capacity objects.
+	 * 
+	 * @param capacity
+	 */
+	public RecordPool( int capacity ) {
+		this.objects = new Object[capacity];
+	}
+	
+	/**
+	 * Returns a pooled object, or null if the pool is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized T take() {
+		if ( count == 0 )
+			return null;
+		
+		T o = (T) objects[--count];
+		objects[count] = null;
+		return o;
+	}
+	
+	/**
+	 * Keeps the object for reuse, unless the pool is full.
+	 * 
+	 * @param o
+	 */
+	public synchronized void offer( T o ) {
+		if ( o != null && count < objects.length )
+			objects[count++] = o;
+	}
+	
+	/**
+	 * Returns the number of objects currently available for reuse.
+	 */
+	public synchronized int size() {
+		return count;
+	}
+}
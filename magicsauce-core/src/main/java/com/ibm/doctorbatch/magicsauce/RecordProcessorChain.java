@@ -0,0 +1,230 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce;
+
+import static com.ibm.doctorbatch.magicsauce.Constants.RECORD_PROCESSOR;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * <p>RecordProcessorChain runs several RecordProcessors as the stages of a single 
+ * processor. Each record is passed through every stage in one pass, the output of one stage
+ * being the input of the next, so no intermediate lists or job steps are needed to compose 
+ * processors.</p>
+ * 
+ * <p>The stages are declared by the job step properties RECORD_PROCESSOR.1, 
+ * RECORD_PROCESSOR.2, ..., RECORD_PROCESSOR.N, in the same way as SKIP_RECORD_OBSERVER.N,
+ * and each stage is initialized with the job step properties. The job steps use a chain 
+ * when RECORD_PROCESSOR itself is not set; see RecordProcessorUtil.createRecordProcessor. 
+ * A chain can also be named explicitly, for example as the PARALLEL_RECORD_PROCESSOR of a
+ * ParallelRecordProcessor.</p>
+ * <pre>{@code
+ *      <prop name="RECORD_PROCESSOR.1" value="com.customer.batch.ValidateCustomer"/>
+ *      <prop name="RECORD_PROCESSOR.2" value="com.customer.batch.EnrichCustomer"/>
+ *      <prop name="RECORD_PROCESSOR.3" value="com.customer.batch.FormatCustomer"/>
+ * }</pre>
+ * 
+ * <p>A stage which returns null filters the record: the remaining stages are not called, 
+ * and the chain returns null, which the job steps do not write.</p>
+ * 
+ * <p>Stages may be EmittingRecordProcessors, and the chain is one too: each record a stage
+ * emits is passed on to the next stage as it is emitted, so a stage can split or filter 
+ * records in the same fused pass. A chain is not thread safe; ParallelRecordProcessor 
+ * creates one per worker thread.</p>
+ * 
+ * <p>The return code is the highest return code of the stages.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ *
+ * @param <R> The input record type of the first stage
+ * @param <P> The output record type of the last stage
+ */
+public class RecordProcessorChain<R,P> implements EmittingRecordProcessor<R,P> {
+	private RecordProcessor<Object,Object>[] stages;
+	
+	// emitters[i] passes the records emitted by stage i on to stage i + 1
+	private StageEmitter[] emitters;
+	private boolean emitting;
+	private RecordEmitter<Object> downstream;
+	private EmittedRecords<Object> scratch;
+	
+	public RecordProcessorChain() {
+	}
+	
+	/**
+	 * Creates a chain of the given, already initialized, stages.
+	 */
+	public RecordProcessorChain( List<? extends RecordProcessor<?,?>> stages ) {
+		setStages( stages );
+	}
+	
+	/**
+	 * Creates and initializes the stages named by RECORD_PROCESSOR.1 to RECORD_PROCESSOR.N.
+	 */
+	@Override
+	public void initialize(Properties jobStepProperties) {
+		List<RecordProcessor<?,?>> created = new ArrayList<RecordProcessor<?,?>>();
+		
+		int i = 1;
+		while ( true ) {
+			String className = jobStepProperties.getProperty( RECORD_PROCESSOR + "." + i++, "" );
+			if ( className.isEmpty() )
+				break;
+			
+			MagicSauceLogger.getInstance().trace( "Instantiating record processor stage: {0}", className );
+			RecordProcessor<?,?> stage = ClassUtil.getInstanceForClass( className );
+			stage.initialize( jobStepProperties );
+			created.add( stage );
+		}
+		
+		if ( created.isEmpty() )
+			throw new BatchException( "No record processors are defined: set " + RECORD_PROCESSOR + ".1 to " + RECORD_PROCESSOR + ".N" );
+		
+		setStages( created );
+	}
+
+	/**
+	 * Passes the record through each stage in turn, stopping if a stage returns null.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public P process(R record) {
+		if ( emitting ) {
+			scratch.clear();
+			process( record, scratch );
+			if ( scratch.size() > 1 )
+				throw new BatchException( "The record processor chain emitted " + scratch.size() + " records for one input; use process(record, emitter)" );
+			
+			return scratch.isEmpty() ? null : (P) scratch.get(0);
+		}
+		
+		final RecordProcessor<Object,Object>[] s = stages;
+		
+		Object current = record;
+		for ( int i = 0; i < s.length && current != null; ++i )
+			current = s[i].process( current );
+		
+		return (P) current;
+	}
+
+	/**
+	 * Passes the record through each stage in turn, and emits the records which come out of
+	 * the last stage.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void process(R record, RecordEmitter<? super P> emitter) {
+		RecordEmitter<Object> previous = downstream;
+		downstream = (RecordEmitter<Object>) emitter;
+		try {
+			feed( 0, record );
+		} finally {
+			downstream = previous;
+		}
+	}
+	
+	/*
+	 * Runs the record through stages from..N-1. Plain stages are called in a loop; an 
+	 * emitting stage continues the pass from its emitter, once per emitted record.
+	 */
+	@SuppressWarnings("unchecked")
+	private void feed( int from, Object record ) {
+		final RecordProcessor<Object,Object>[] s = stages;
+		
+		Object current = record;
+		for ( int i = from; i < s.length; ++i ) {
+			if ( current == null )
+				return;
+			
+			if ( s[i] instanceof EmittingRecordProcessor<?,?> ) {
+				((EmittingRecordProcessor<Object,Object>) s[i]).process( current, emitters[i] );
+				return;
+			}
+			
+			current = s[i].process( current );
+		}
+		
+		if ( current != null )
+			downstream.emit( current );
+	}
+
+	@Override
+	public int getReturnCode() {
+		int rc = 0;
+		for ( RecordProcessor<?,?> stage : stages )
+			rc = Math.max( rc, stage.getReturnCode() );
+		return rc;
+	}
+
+	/**
+	 * Tears down every stage, even if one of them fails. The first failure is rethrown.
+	 */
+	@Override
+	public void tearDown() {
+		RuntimeException failure = null;
+		for ( RecordProcessor<?,?> stage : stages ) {
+			try {
+				stage.tearDown();
+			} catch ( RuntimeException re ) {
+				if ( failure == null )
+					failure = re;
+			}
+		}
+		
+		if ( failure != null )
+			throw failure;
+	}
+	
+	/**
+	 * Returns the number of stages in this chain.
+	 */
+	public int getStageCount() {
+		return stages.length;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void setStages( List<? extends RecordProcessor<?,?>> list ) {
+		this.stages = (RecordProcessor<Object,Object>[]) list.toArray( new RecordProcessor<?,?>[list.size()] );
+		this.emitters = new StageEmitter[stages.length];
+		this.emitting = false;
+		
+		for ( int i = 0; i < stages.length; ++i ) {
+			emitters[i] = new StageEmitter( this, i + 1 );
+			emitting |= ( stages[i] instanceof EmittingRecordProcessor<?,?> );
+		}
+		
+		this.scratch = new EmittedRecords<Object>();
+	}
+	
+	private static final class StageEmitter implements RecordEmitter<Object> {
+		private final RecordProcessorChain<?,?> chain;
+		private final int next;
+		
+		StageEmitter( RecordProcessorChain<?,?> chain, int next ) {
+			this.chain = chain;
+			this.next = next;
+		}
+		
+		@Override
+		public void emit(Object record) {
+			chain.feed( next, record );
+		}
+	}
+}
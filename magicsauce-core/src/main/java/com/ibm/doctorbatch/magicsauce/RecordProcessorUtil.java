@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce;
+
+import static com.ibm.doctorbatch.magicsauce.Constants.RECORD_PROCESSOR;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Contains static utility methods for working with RecordProcessors.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ */
+public class RecordProcessorUtil {
+	
+	/**
+	 * Creates, but does not initialize, the record processor for a job step: an instance of
+	 * className if it is set, or else a RecordProcessorChain if the RECORD_PROCESSOR.1 
+	 * property is set.
+	 * 
+	 * @param className The value of the RECORD_PROCESSOR property, which may be null
+	 * @param jobStepProperties The job step properties
+	 */
+	static public final <R,P> RecordProcessor<R,P> createRecordProcessor( String className, Properties jobStepProperties ) {
+		if ( className != null && !className.isEmpty() )
+			return ClassUtil.getInstanceForClass( className );
+		
+		if ( jobStepProperties != null && jobStepProperties.getProperty( RECORD_PROCESSOR + ".1" ) != null )
+			return new RecordProcessorChain<R,P>();
+		
+		throw new BatchException( "No record processor is defined: set " + RECORD_PROCESSOR + ", or " + RECORD_PROCESSOR + ".1 to " + RECORD_PROCESSOR + ".N" );
+	}
+	
+	/**
+	 * Processes a record, passing the output records to the emitter: every record emitted by
+	 * an EmittingRecordProcessor, or the result of any other processor unless it is null.
+	 */
+	static public final <R,P> void process( RecordProcessor<R,P> processor, R record, RecordEmitter<? super P> emitter ) {
+		if ( processor instanceof EmittingRecordProcessor<?,?> ) {
+			((EmittingRecordProcessor<R,P>) processor).process( record, emitter );
+		} else {
+			P processed = processor.process( record );
+			if ( processed != null )
+				emitter.emit( processed );
+		}
+	}
+	
+	/**
+	 * Processes a batch of records, in one call to BatchRecordProcessor.processBatch(List) 
+	 * if the processor supports it, or by calling process(...) for each record.
+	 * 
+	 * @return The processed records, in the order of the input records
+	 * @throws PartialBatchException If a record fails
+	 */
+	static public final <R,P> List<P> processBatch( RecordProcessor<R,P> processor, List<? extends R> records ) {
+		if ( processor instanceof BatchRecordProcessor<?,?> )
+			return ((BatchRecordProcessor<R,P>) processor).processBatch( records );
+		
+		List<P> processed = new ArrayList<P>( records.size() );
+		for ( R record : records ) {
+			try {
+				processed.add( processor.process(record) );
+			} catch ( RuntimeException re ) {
+				throw new PartialBatchException( processed.size(), processed, re );
+			}
+		}
+		
+		return processed;
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce;
+
+/**
+ * <p>A RecordParser for byte[] records which can parse a record from a slice of a larger 
+ * buffer, such as a block of records read in one I/O. Readers use it to hand out records
+ * without copying each record into an array of its own.</p>
+ * 
+ * <p>Whether the returned object refers to the buffer, or copies the slice, is up to the
+ * parser. Callers must therefore not overwrite a slice while the object parsed from it is 
+ * in use.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ *
+ * @param <ObjectType> The type of the object that represents a record in memory ... eg: Customer
+ */
+public interface SlicedRecordParser<ObjectType> extends RecordParser<ObjectType,byte[]> {
+	/**
+	 * Returns an object initialized from length bytes of buffer, starting at offset.
+	 * 
+	 * @param buffer The buffer holding the record
+	 * @param offset The offset of the record in buffer
+	 * @param length The length of the record
+	 */
+	public ObjectType parseRecordToObject( byte[] buffer, int offset, int length );
+}
@@ -20,8 +20,11 @@ import java.util.Properties;
 
 import com.ibm.doctorbatch.magicsauce.BatchException;
 import com.ibm.doctorbatch.magicsauce.ClassUtil;
+import com.ibm.doctorbatch.magicsauce.InstanceFactory;
 import com.ibm.doctorbatch.magicsauce.MagicSauceLogger;
+import com.ibm.doctorbatch.magicsauce.PooledRecordParser;
 import com.ibm.doctorbatch.magicsauce.RecordParser;
+import com.ibm.doctorbatch.magicsauce.RecordPool;
 
 /**
  * The AutoRecordParser is a reusable implementation of the {@link com.ibm.doctorbatch.magicsauce.RecordParser}
@@ -29,6 +32,16 @@ import com.ibm.doctorbatch.magicsauce.RecordParser;
  * @{link com.ibm.doctorbatch.magicsauce.auto.BatchRecord}, then you can use an AutoRecordParser with 
  * batchframework-websphere's ETLJobStep or batchframework-java's ETLProcessor implementations by specifying the 
  * RECORD_PARSER_CLASSNAME property to your job step's properties.
+ * 
+ * <p>By default a new record object is created for every record, through the class' cached
+ * {@link InstanceFactory}. When the 
+ * AUTO_RECORD_PARSER_POOL_SIZE property is set, objects passed to release(...) are kept, up 
+ * to that number, and reused for later records. The pool belongs to this parser, so only 
+ * code which reads and writes through the same parser instance benefits from it; see 
+ * {@link PooledRecordParser}.</p>
+ * 
+ * <p>Record classes which extend {@link LazyRecord} are views which decode their fields on 
+ * first access; see also {@link LazyRecordParser}.</p>
  *  
  * @see RecordParser
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
@@ -37,25 +50,34 @@ import com.ibm.doctorbatch.magicsauce.RecordParser;
  * @param <RecordType> The type for the serialized representation of your record structure
  */
 public class AutoRecordParser<ObjectType extends BatchRecord<RecordType>, RecordType> 
-	implements RecordParser<ObjectType, RecordType > 
+	implements PooledRecordParser<ObjectType, RecordType > 
 {
 	private String className;
 	private Class<?> clazz;
+	private InstanceFactory<?> factory;
+	
+	private RecordPool<ObjectType> pool;
 	
 	private final static String AUTO_RECORD_PARSER_CLASSNAME = "AUTO_RECORD_PARSER_CLASSNAME";
+	private final static String AUTO_RECORD_PARSER_POOL_SIZE = "AUTO_RECORD_PARSER_POOL_SIZE";
 	
 	@Override
 	public void initialize(Properties props) {
 		className = props.getProperty(AUTO_RECORD_PARSER_CLASSNAME);
 		
-		MagicSauceLogger.getInstance().trace("Instantiate class specified by "+AUTO_RECORD_PARSER_CLASSNAME+": " + className);
+		MagicSauceLogger.getInstance().trace("Instantiate class specified by {0}: {1}", AUTO_RECORD_PARSER_CLASSNAME, className);
 		clazz = ClassUtil.getClass(className);
+		factory = ClassUtil.getInstanceFactory(clazz);
+		
+		int poolSize = Integer.parseInt( props.getProperty(AUTO_RECORD_PARSER_POOL_SIZE, "0") );
+		pool = ( poolSize > 0 ) ? new RecordPool<ObjectType>( poolSize ) : null;
 		
 		try {
 			Object o = ClassUtil.getInstanceForClass( clazz );
 			
-			@SuppressWarnings({ "unused", "unchecked" })
+			@SuppressWarnings("unchecked")
 			ObjectType ot = (ObjectType) o;
+			release( ot );
 		} catch ( ClassCastException cce ) {
 			MagicSauceLogger.getInstance().exception(
 					"Objects of type " + clazz.getCanonicalName() +  ", specified by "+AUTO_RECORD_PARSER_CLASSNAME+", must inherit from " + BatchRecord.class.getCanonicalName(),
@@ -67,19 +89,51 @@ public class AutoRecordParser<ObjectType extends BatchRecord<RecordType>, Record
 		}
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public ObjectType parseRecordToObject(RecordType record) {
-		ObjectType rec = null;
-
-		rec = (ObjectType) ClassUtil.getInstanceForClass(clazz);
+		ObjectType rec = newRecordObject();
 		rec.setRecordData( record );
 		return rec;
 	}
+	
+	/**
+	 * Returns a record object from the pool, or a new one if none is available.
+	 */
+	@SuppressWarnings("unchecked")
+	protected ObjectType newRecordObject() {
+		ObjectType rec = ( pool == null ) ? null : pool.take();
+		if ( rec == null )
+			rec = (ObjectType) factory.newInstance();
+		
+		return rec;
+	}
 
 	@Override
 	public RecordType parseObjectToRecord(ObjectType object) {
 		return object.getRecordData();
 	}
 
+	/**
+	 * Keeps the object for reuse if pooling is enabled and the pool is not full.
+	 */
+	@Override
+	public void release(ObjectType object) {
+		if ( object != null && pool != null )
+			pool.offer( object );
+	}
+	
+	/**
+	 * Returns the record class named by AUTO_RECORD_PARSER_CLASSNAME.
+	 */
+	protected Class<?> getRecordClass() {
+		return clazz;
+	}
+	
+	/**
+	 * Returns the number of objects currently available for reuse.
+	 */
+	public int getPooledCount() {
+		return ( pool == null ) ? 0 : pool.size();
+	}
+
 }
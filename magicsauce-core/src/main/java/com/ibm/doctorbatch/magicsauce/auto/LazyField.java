@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.auto;
+
+import java.nio.charset.Charset;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * <p>A field of a {@link RecordLayout}, which knows where the field lies in the record and 
+ * how to decode it. Fields are created by the RecordLayout factory methods, and read through
+ * the accessors of {@link LazyRecord}.</p>
+ * 
+ * <p>Numeric fields decode to a long holding the unscaled value, which LazyRecord also 
+ * offers as a BigDecimal with the field's scale. Text fields decode to a String.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public abstract class LazyField {
+	private final int index;
+	private final int offset;
+	private final int length;
+	
+	LazyField( int index, int offset, int length ) {
+		if ( offset < 0 || length <= 0 )
+			throw new BatchException( "Invalid field: offset " + offset + ", length " + length );
+		
+		this.index = index;
+		this.offset = offset;
+		this.length = length;
+	}
+	
+	int getIndex() {
+		return index;
+	}
+	
+	public int getOffset() {
+		return offset;
+	}
+	
+	public int getLength() {
+		return length;
+	}
+	
+	public boolean isNumeric() {
+		return true;
+	}
+	
+	/*
+	 * Decodes the unscaled value of a numeric field, at start in data.
+	 */
+	long decodeLong( byte[] data, int start ) {
+		throw new BatchException( "Field at offset " + offset + " is not numeric" );
+	}
+	
+	/*
+	 * Decodes a text field, at start in data.
+	 */
+	String decodeString( byte[] data, int start ) {
+		throw new BatchException( "Field at offset " + offset + " is not a text field" );
+	}
+	
+	int getScale() {
+		return 0;
+	}
+	
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "(" + offset + "," + length + ")";
+	}
+	
+	static final class Text extends LazyField {
+		private final Charset charset;
+		
+		Text( int index, int offset, int length, Charset charset ) {
+			super( index, offset, length );
+			this.charset = charset;
+		}
+		
+		@Override
+		public boolean isNumeric() {
+			return false;
+		}
+		
+		@Override
+		String decodeString( byte[] data, int start ) {
+			return new String( data, start, getLength(), charset );
+		}
+	}
+	
+	static final class Binary extends LazyField {
+		private final boolean signed;
+		
+		Binary( int index, int offset, int length, boolean signed ) {
+			super( index, offset, length );
+			if ( length > 8 )
+				throw new BatchException( "Binary fields may be at most 8 bytes long" );
+			this.signed = signed;
+		}
+		
+		@Override
+		long decodeLong( byte[] data, int start ) {
+			int end = start + getLength();
+			long value = ( signed && data[start] < 0 ) ? -1L : 0L;
+			for ( int i = start; i < end; ++i )
+				value = (value << 8) | (data[i] & 0xFF);
+			return value;
+		}
+	}
+	
+	static final class Zoned extends LazyField {
+		private final int scale;
+		
+		Zoned( int index, int offset, int length, int scale ) {
+			super( index, offset, length );
+			if ( length > 18 )
+				throw new BatchException( "Zoned decimal fields may be at most 18 digits long" );
+			this.scale = scale;
+		}
+		
+		@Override
+		int getScale() {
+			return scale;
+		}
+		
+		@Override
+		long decodeLong( byte[] data, int start ) {
+			int end = start + getLength();
+			long value = 0;
+			for ( int i = start; i < end; ++i ) {
+				int digit = data[i] & 0x0F;
+				if ( digit > 9 )
+					throw new BatchException( "Invalid zoned decimal digit at offset " + (getOffset() + i - start) );
+				value = value * 10 + digit;
+			}
+			
+			int sign = (data[end - 1] & 0xF0) >>> 4;
+			return ( sign == 0xD || sign == 0xB ) ? -value : value;
+		}
+	}
+	
+	static final class Packed extends LazyField {
+		private final int scale;
+		
+		Packed( int index, int offset, int length, int scale ) {
+			super( index, offset, length );
+			if ( length > 10 )
+				throw new BatchException( "Packed decimal fields may be at most 10 bytes long" );
+			this.scale = scale;
+		}
+		
+		@Override
+		int getScale() {
+			return scale;
+		}
+		
+		@Override
+		long decodeLong( byte[] data, int start ) {
+			int last = start + getLength() - 1;
+			if ( getLength() == 10 && (data[start] & 0xF0) != 0 )
+				throw new BatchException( "Packed decimal at offset " + getOffset() + " exceeds 18 digits" );
+			
+			long value = 0;
+			for ( int i = start; i <= last; ++i ) {
+				int high = (data[i] & 0xF0) >>> 4;
+				int low = data[i] & 0x0F;
+				if ( high > 9 || (i < last && low > 9) )
+					throw new BatchException( "Invalid packed decimal digit at offset " + (getOffset() + i - start) );
+				
+				value = value * 10 + high;
+				if ( i < last )
+					value = value * 10 + low;
+			}
+			
+			int sign = data[last] & 0x0F;
+			return ( sign == 0xD || sign == 0xB ) ? -value : value;
+		}
+	}
+}
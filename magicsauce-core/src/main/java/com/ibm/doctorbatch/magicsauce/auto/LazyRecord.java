@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.auto;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * <p>LazyRecord is a base class for record objects which are views over the raw record bytes.
+ * A field is only decoded when it is first read, and the decoded value is kept until the view
+ * is bound to another record, so a processor which reads a few fields of a wide record only
+ * pays for those fields. The fields are described by a {@link RecordLayout}.</p>
+ * 
+ * <p>Binding the view to another record with setRecordData(...) does not allocate: the 
+ * decoded values are invalidated by advancing a generation counter. Numeric values read as 
+ * long or int are cached without boxing; Strings and BigDecimals are created once per 
+ * record and field.</p>
+ * 
+ * <p>LazyRecord implements {@link BatchRecord}&lt;byte[]&gt;, so it can be used with the 
+ * {@link AutoRecordParser}, or with {@link LazyRecordParser}, which also binds views to 
+ * slices of a larger buffer. The view refers to the record bytes rather than copying 
+ * them.</p>
+ * 
+ * <p>LazyRecord instances are not thread safe.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public abstract class LazyRecord implements BatchRecord<byte[]> {
+	private final RecordLayout layout;
+	
+	private byte[] data;
+	private int offset;
+	private int length;
+	
+	private int generation = 1;
+	private int[] longStamps;
+	private long[] longs;
+	private int[] objectStamps;
+	private Object[] objects;
+	
+	protected LazyRecord( RecordLayout layout ) {
+		this.layout = layout;
+		
+		int fields = layout.getFieldCount();
+		this.longStamps = new int[fields];
+		this.longs = new long[fields];
+		this.objectStamps = new int[fields];
+		this.objects = new Object[fields];
+	}
+	
+	public RecordLayout getLayout() {
+		return layout;
+	}
+	
+	/**
+	 * Binds this view to the given record.
+	 */
+	@Override
+	public void setRecordData( byte[] data ) {
+		setRecordData( data, 0, data.length );
+	}
+	
+	/**
+	 * Binds this view to length bytes of buffer, starting at offset.
+	 */
+	public void setRecordData( byte[] buffer, int offset, int length ) {
+		this.data = buffer;
+		this.offset = offset;
+		this.length = length;
+		
+		if ( ++generation == 0 ) {
+			// The counter wrapped; clear the stamps so no stale value looks current
+			Arrays.fill( longStamps, 0 );
+			Arrays.fill( objectStamps, 0 );
+			Arrays.fill( objects, null );
+			generation = 1;
+		}
+	}
+	
+	/**
+	 * Returns the record bytes: the bound array itself when the view spans all of it, and a
+	 * copy of the slice otherwise.
+	 */
+	@Override
+	public byte[] getRecordData() {
+		if ( data == null || (offset == 0 && length == data.length) )
+			return data;
+		return Arrays.copyOfRange( data, offset, offset + length );
+	}
+	
+	/*
+	 * Used for unit testing... not intended for public use.
+	 */
+	void setGeneration( int generation ) {
+		this.generation = generation;
+	}
+	
+	/**
+	 * Returns the length of the bound record.
+	 */
+	public int getRecordLength() {
+		return length;
+	}
+	
+	/**
+	 * Returns true if the field has been decoded, as a long or an object, for the bound record.
+	 */
+	public boolean isDecoded( LazyField field ) {
+		int i = index( field );
+		return longStamps[i] == generation || objectStamps[i] == generation;
+	}
+	
+	/**
+	 * Returns the unscaled value of a numeric field.
+	 */
+	protected long getLong( LazyField field ) {
+		int i = index( field );
+		if ( longStamps[i] != generation ) {
+			longs[i] = field.decodeLong( data, start(field) );
+			longStamps[i] = generation;
+		}
+		return longs[i];
+	}
+	
+	/**
+	 * Returns the unscaled value of a numeric field which fits in an int.
+	 */
+	protected int getInt( LazyField field ) {
+		long value = getLong( field );
+		if ( value < Integer.MIN_VALUE || value > Integer.MAX_VALUE )
+			throw new BatchException( "Value " + value + " of field " + field + " does not fit in an int" );
+		return (int) value;
+	}
+	
+	/**
+	 * Returns the value of a numeric field, with the field's scale.
+	 */
+	protected BigDecimal getDecimal( LazyField field ) {
+		if ( !field.isNumeric() )
+			throw new BatchException( "Field " + field + " is not numeric" );
+		
+		int i = index( field );
+		if ( objectStamps[i] != generation ) {
+			objects[i] = BigDecimal.valueOf( getLong(field), field.getScale() );
+			objectStamps[i] = generation;
+		}
+		return (BigDecimal) objects[i];
+	}
+	
+	/**
+	 * Returns the value of a text field.
+	 */
+	protected String getString( LazyField field ) {
+		int i = index( field );
+		if ( objectStamps[i] != generation ) {
+			objects[i] = field.decodeString( data, start(field) );
+			objectStamps[i] = generation;
+		}
+		return (String) objects[i];
+	}
+	
+	private int index( LazyField field ) {
+		int i = field.getIndex();
+		if ( i >= longs.length )
+			throw new BatchException( "Field " + field + " was defined after this record object was created" );
+		return i;
+	}
+	
+	private int start( LazyField field ) {
+		if ( data == null )
+			throw new BatchException( "No record data is bound to this " + getClass().getSimpleName() );
+		if ( field.getOffset() + field.getLength() > length )
+			throw new BatchException( "Field " + field + " lies beyond the end of the " + length + " byte record" );
+		
+		return offset + field.getOffset();
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.auto;
+
+import java.util.Properties;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.SlicedRecordParser;
+
+/**
+ * <p>An AutoRecordParser for {@link LazyRecord} views, which also parses records from a 
+ * slice of a larger buffer by binding the view to the slice. It is configured like the 
+ * AutoRecordParser: AUTO_RECORD_PARSER_CLASSNAME names the LazyRecord subclass.</p>
+ * 
+ * <p>parseRecordToObject rebinds a single view, created when the parser is initialized, to 
+ * each record, so no object is created per record. As with RecordBytesParser, the view 
+ * returned should not be kept once the next record is parsed. Callers which hold several 
+ * records at once use parseRecordToNewObject, which creates a view per record, or reuses 
+ * a released view when AUTO_RECORD_PARSER_POOL_SIZE is set.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ *
+ * @param <ObjectType> The LazyRecord subclass for the in-memory representation of your record structure
+ */
+public class LazyRecordParser<ObjectType extends LazyRecord> extends AutoRecordParser<ObjectType, byte[]> 
+	implements SlicedRecordParser<ObjectType> 
+{
+	private ObjectType view;
+	
+	@Override
+	public void initialize(Properties props) {
+		super.initialize(props);
+		
+		if ( !LazyRecord.class.isAssignableFrom(getRecordClass()) )
+			throw new BatchException( "Objects of type " + getRecordClass().getCanonicalName() + " must inherit from " + LazyRecord.class.getCanonicalName() );
+		
+		view = newRecordObject();
+	}
+	
+	/**
+	 * Rebinds the parser's view to the given record and returns it.
+	 */
+	@Override
+	public ObjectType parseRecordToObject(byte[] record) {
+		view.setRecordData( record );
+		return view;
+	}
+	
+	/**
+	 * Rebinds the parser's view to length bytes of buffer, starting at offset, and returns 
+	 * it. The view refers to the buffer, which must not be overwritten while the view is in use.
+	 */
+	@Override
+	public ObjectType parseRecordToObject(byte[] buffer, int offset, int length) {
+		view.setRecordData( buffer, offset, length );
+		return view;
+	}
+	
+	/**
+	 * Binds a view of its own to length bytes of buffer, starting at offset, for callers 
+	 * which hold more than one record at a time.
+	 */
+	public ObjectType parseRecordToNewObject(byte[] buffer, int offset, int length) {
+		ObjectType rec = newRecordObject();
+		rec.setRecordData( buffer, offset, length );
+		return rec;
+	}
+	
+	/**
+	 * Keeps a view returned by parseRecordToNewObject for reuse, if pooling is enabled. The 
+	 * parser's own view is never pooled.
+	 */
+	@Override
+	public void release(ObjectType object) {
+		if ( object != view )
+			super.release( object );
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.auto;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>A RecordLayout describes the fields of a fixed layout record, such as a COBOL copybook, 
+ * for {@link LazyRecord} views. Each record class declares its layout once, as a static 
+ * field, and defines each field through one of the factory methods below:</p>
+ * 
+ * <pre>
+ * public class Customer extends LazyRecord {
+ *     private final static RecordLayout LAYOUT = new RecordLayout();
+ *     private final static LazyField ID = LAYOUT.binary( 0, 4 );              // PIC S9(8) COMP
+ *     private final static LazyField NAME = LAYOUT.text( 4, 30, "IBM-037" );  // PIC X(30)
+ *     private final static LazyField BALANCE = LAYOUT.packed( 34, 6, 2 );     // PIC S9(9)V99 COMP-3
+ *     
+ *     public Customer() { super( LAYOUT ); }
+ *     
+ *     public int getId() { return getInt( ID ); }
+ *     public String getName() { return getString( NAME ); }
+ *     public BigDecimal getBalance() { return getDecimal( BALANCE ); }
+ * }
+ * </pre>
+ * 
+ * <p>Define all fields before the first record object is created.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public final class RecordLayout {
+	private final List<LazyField> fields = new ArrayList<LazyField>();
+	private int size;
+	
+	/**
+	 * Defines a character field, decoded with the given charset. Padding is not removed.
+	 */
+	public synchronized LazyField text( int offset, int length, String charsetName ) {
+		return add( new LazyField.Text( fields.size(), offset, length, Charset.forName(charsetName) ) );
+	}
+	
+	/**
+	 * Defines a signed, big endian binary integer field (COMP, COMP-4 or COMP-5) of 1 to 8 bytes.
+	 */
+	public synchronized LazyField binary( int offset, int length ) {
+		return add( new LazyField.Binary( fields.size(), offset, length, true ) );
+	}
+	
+	/**
+	 * Defines an unsigned, big endian binary integer field of 1 to 8 bytes.
+	 */
+	public synchronized LazyField unsignedBinary( int offset, int length ) {
+		return add( new LazyField.Binary( fields.size(), offset, length, false ) );
+	}
+	
+	/**
+	 * Defines an EBCDIC zoned decimal field (PIC S9(n) DISPLAY) of up to 18 digits, with the
+	 * sign in the zone of the last byte and the given number of implied decimal places.
+	 */
+	public synchronized LazyField zoned( int offset, int length, int scale ) {
+		return add( new LazyField.Zoned( fields.size(), offset, length, scale ) );
+	}
+	
+	/**
+	 * Defines a packed decimal field (COMP-3) of up to 18 digits, or 10 bytes, with the given
+	 * number of implied decimal places.
+	 */
+	public synchronized LazyField packed( int offset, int length, int scale ) {
+		return add( new LazyField.Packed( fields.size(), offset, length, scale ) );
+	}
+	
+	/**
+	 * Returns the fields, in the order they were defined.
+	 */
+	public synchronized List<LazyField> getFields() {
+		return Collections.unmodifiableList( new ArrayList<LazyField>(fields) );
+	}
+	
+	/**
+	 * Returns the number of fields defined.
+	 */
+	public synchronized int getFieldCount() {
+		return fields.size();
+	}
+	
+	/**
+	 * Returns the smallest record length holding every field.
+	 */
+	public synchronized int getSize() {
+		return size;
+	}
+	
+	private LazyField add( LazyField field ) {
+		fields.add( field );
+		size = Math.max( size, field.getOffset() + field.getLength() );
+		return field;
+	}
+}
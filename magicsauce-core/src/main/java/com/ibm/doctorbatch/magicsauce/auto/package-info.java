@@ -19,5 +19,8 @@
  * <p>For record object types that implement the BatchRecord interface, the auto record
  * parser is a reusable RecordParser implementation that may be used instead of implementing
  * a custom parser for each job</p>
+ * 
+ * <p>LazyRecord is a BatchRecord base class for views over raw record bytes, which decode
+ * each field of a RecordLayout on first access. LazyRecordParser produces these views.</p>
  */
 package com.ibm.doctorbatch.magicsauce.auto;
\ No newline at end of file
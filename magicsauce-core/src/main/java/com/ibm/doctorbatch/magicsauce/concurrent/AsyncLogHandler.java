@@ -0,0 +1,301 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * <p>AsyncLogHandler is a java.util.logging Handler which hands log records to a dedicated
+ * thread, through a lock-free {@link MultiProducerRingBuffer}, and publishes them to its 
+ * target handlers from there. Threads which log only pay for enqueuing the record; 
+ * formatting and handler I/O happen on the handler's own thread.</p>
+ * 
+ * <p>The caller's class and method are resolved before the record is enqueued. Message 
+ * parameters are formatted later, on the handler's thread, so only pass parameters which 
+ * are not modified after they are logged.</p>
+ * 
+ * <p>When the buffer is full, records are dropped and counted (see getDroppedCount()), 
+ * unless setBlockWhenFull(true) is called, in which case logging threads wait for space.
+ * flush() waits until every record enqueued so far has been published. close() publishes 
+ * the remaining records and stops the thread; the target handlers are flushed but not 
+ * closed, since they normally belong to other loggers.</p>
+ * 
+ * <p>install(Logger, int) moves a logger's effective handlers behind an AsyncLogHandler, 
+ * and uninstall(Logger) puts them back. Installs are counted, so that several users of 
+ * one logger - such as job steps running side by side - share a handler, which is removed
+ * when the last of them uninstalls it. The capacity given by the first install applies
+ * until then.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class AsyncLogHandler extends Handler {
+	public final static int DEFAULT_CAPACITY = 8192;
+	
+	// Longest time either side parks before checking the buffer again
+	private final static long MAX_PARK_NANOS = 1000000L;
+	
+	private final Handler[] targets;
+	private final MultiProducerRingBuffer<LogRecord> buffer;
+	private final Thread consumer;
+	
+	private final AtomicLong enqueued = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	
+	private volatile boolean closed;
+	private volatile boolean blockWhenFull;
+	private volatile boolean consumerParked;
+	
+	/*
+	 * Set by install, and guarded by the logger it was installed on
+	 */
+	private Logger installedOn;
+	private Handler[] replaced;
+	private boolean usedParentHandlers;
+	private int installs;
+	private Thread shutdownHook;
+	
+	public AsyncLogHandler( int capacity, Handler... targets ) {
+		this( capacity, new DaemonThreadFactory("AsyncLogHandler"), targets );
+	}
+	
+	public AsyncLogHandler( int capacity, ThreadFactory threadFactory, Handler... targets ) {
+		this.targets = targets.clone();
+		this.buffer = new MultiProducerRingBuffer<LogRecord>( capacity );
+		this.consumer = threadFactory.newThread( new Runnable() {
+			@Override
+			public void run() {
+				consume();
+			}
+		});
+		this.consumer.start();
+	}
+	
+	/**
+	 * Moves the handlers which currently receive the logger's records - its own, and those 
+	 * of its parents if it uses parent handlers - behind a new AsyncLogHandler, which 
+	 * becomes the logger's only handler. If the logger already has an AsyncLogHandler, it 
+	 * is returned instead, and counted as installed once more. The handler is closed when 
+	 * the JVM shuts down, unless it is uninstalled first.
+	 */
+	static public AsyncLogHandler install( Logger logger, int capacity ) {
+		synchronized ( logger ) {
+			AsyncLogHandler installed = installedOn( logger );
+			if ( installed != null ) {
+				if ( installed.installedOn == logger )
+					++installed.installs;
+				return installed;
+			}
+			
+			List<Handler> targets = new ArrayList<Handler>();
+			for ( Logger l = logger; l != null; l = l.getParent() ) {
+				for ( Handler h : l.getHandlers() )
+					targets.add( h );
+				if ( !l.getUseParentHandlers() )
+					break;
+			}
+			
+			final AsyncLogHandler async = new AsyncLogHandler( capacity, targets.toArray(new Handler[targets.size()]) );
+			async.installedOn = logger;
+			async.replaced = logger.getHandlers();
+			async.usedParentHandlers = logger.getUseParentHandlers();
+			async.installs = 1;
+			async.shutdownHook = new Thread("AsyncLogHandler shutdown") {
+				@Override
+				public void run() {
+					async.close();
+				}
+			};
+			
+			for ( Handler h : async.replaced )
+				logger.removeHandler( h );
+			logger.addHandler( async );
+			logger.setUseParentHandlers( false );
+			Runtime.getRuntime().addShutdownHook( async.shutdownHook );
+			
+			return async;
+		}
+	}
+	
+	/**
+	 * Reverses one call to install(Logger, int). When every install has been reversed, the
+	 * logger's own handlers and its use of parent handlers are restored, and the 
+	 * AsyncLogHandler is closed once it has published the records already logged. Has no 
+	 * effect if the logger's AsyncLogHandler was not added by install.
+	 * 
+	 * @return true if the AsyncLogHandler was removed
+	 */
+	static public boolean uninstall( Logger logger ) {
+		AsyncLogHandler async;
+		synchronized ( logger ) {
+			async = installedOn( logger );
+			if ( async == null || async.installedOn != logger || --async.installs > 0 )
+				return false;
+			
+			logger.removeHandler( async );
+			for ( Handler h : async.replaced )
+				logger.addHandler( h );
+			logger.setUseParentHandlers( async.usedParentHandlers );
+			
+			try {
+				Runtime.getRuntime().removeShutdownHook( async.shutdownHook );
+			} catch ( IllegalStateException ise ) {
+				// The JVM is shutting down, and the hook closes the handler
+			}
+		}
+		
+		async.close();
+		return true;
+	}
+	
+	private static AsyncLogHandler installedOn( Logger logger ) {
+		for ( Handler h : logger.getHandlers() ) {
+			if ( h instanceof AsyncLogHandler )
+				return (AsyncLogHandler) h;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Enqueues the record, to be published by the handler's thread.
+	 */
+	@Override
+	public void publish( LogRecord record ) {
+		if ( record == null || closed || !isLoggable(record) )
+			return;
+		
+		// The caller can only be inferred on the thread which logged the record
+		record.getSourceClassName();
+		
+		while ( !buffer.offer(record) ) {
+			if ( !blockWhenFull || closed ) {
+				dropped.incrementAndGet();
+				return;
+			}
+			
+			LockSupport.unpark( consumer );
+			LockSupport.parkNanos( this, MAX_PARK_NANOS );
+		}
+		
+		enqueued.incrementAndGet();
+		if ( consumerParked )
+			LockSupport.unpark( consumer );
+	}
+
+	/**
+	 * Waits until every record enqueued so far has been published, then flushes the target
+	 * handlers.
+	 */
+	@Override
+	public void flush() {
+		long target = enqueued.get();
+		while ( delivered.get() < target && consumer.isAlive() ) {
+			LockSupport.unpark( consumer );
+			LockSupport.parkNanos( this, MAX_PARK_NANOS );
+		}
+		
+		for ( Handler h : targets )
+			h.flush();
+	}
+
+	/**
+	 * Publishes the records still enqueued, and stops the handler's thread.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark( consumer );
+		
+		if ( Thread.currentThread() != consumer ) {
+			try {
+				consumer.join();
+			} catch ( InterruptedException ie ) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		for ( Handler h : targets )
+			h.flush();
+	}
+	
+	/**
+	 * If true, threads which log while the buffer is full wait for space, rather than 
+	 * dropping the record.
+	 */
+	public void setBlockWhenFull( boolean blockWhenFull ) {
+		this.blockWhenFull = blockWhenFull;
+	}
+	
+	public boolean isBlockWhenFull() {
+		return blockWhenFull;
+	}
+	
+	/**
+	 * Returns the number of records dropped because the buffer was full.
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+	
+	/**
+	 * Returns the number of records waiting to be published.
+	 */
+	public int getPendingCount() {
+		return buffer.size();
+	}
+	
+	private void consume() {
+		while ( true ) {
+			LogRecord record = buffer.poll();
+			if ( record != null ) {
+				deliver( record );
+				continue;
+			}
+			
+			// Records claimed but not yet published are still counted by enqueued
+			if ( closed && buffer.isEmpty() )
+				return;
+			
+			consumerParked = true;
+			if ( buffer.isEmpty() && !closed )
+				LockSupport.parkNanos( this, MAX_PARK_NANOS );
+			consumerParked = false;
+		}
+	}
+	
+	private void deliver( LogRecord record ) {
+		for ( Handler h : targets ) {
+			try {
+				h.publish( record );
+			} catch ( RuntimeException re ) {
+				reportError( "Handler " + h + " failed to publish a record", re, ErrorManager.WRITE_FAILURE );
+			}
+		}
+		
+		delivered.lazySet( delivered.get() + 1 );
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * The default ThreadFactory of the decorators in this package: named daemon threads, so an
+ * unclosed decorator does not keep the JVM alive.
+ */
+final class DaemonThreadFactory implements ThreadFactory {
+	private final String name;
+	
+	DaemonThreadFactory( String name ) {
+		this.name = name;
+	}
+	
+	@Override
+	public Thread newThread( Runnable r ) {
+		Thread t = new Thread( r, name );
+		t.setDaemon(true);
+		return t;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import static com.ibm.doctorbatch.magicsauce.Constants.RECORD_KEY_EXTRACTOR;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.ClassUtil;
+
+/**
+ * <p>KeyPartitionedRecordProcessor is a {@link ParallelRecordProcessor} for record processors 
+ * which keep state per key, such as running totals per customer. Each worker thread is a 
+ * single-threaded lane with its own record processor instance, and every record with a 
+ * given key is processed by the same lane, in input order. Record processors therefore see
+ * all of the records for their keys, one at a time, without any locking.</p>
+ * 
+ * <p>Results are returned in the order of the input records, as by ParallelRecordProcessor,
+ * so output and checkpoints are the same as when processing sequentially.</p>
+ * 
+ * <p>It is configured as a ParallelRecordProcessor (PARALLEL_THREADS sets the number of 
+ * lanes), with the RECORD_PROCESSOR property set to this class, and the 
+ * RECORD_KEY_EXTRACTOR property set to the fully qualified name of a 
+ * {@link RecordKeyExtractor} implementation.</p>
+ * 
+ * <p>When a record fails, the records after it are still processed, and their results are
+ * kept for the job step to resume with (see ParallelRecordProcessor), so each lane sees 
+ * every record of its keys once, in order. A failed record should not be applied to lane 
+ * state, since it is skipped. Lane state is not checkpointed: after a restart, the record
+ * processors only see the records from the checkpoint on.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ *
+ * @param <R> The type of input record object to process
+ * @param <P> The type of the returned, processed record object.
+ */
+public class KeyPartitionedRecordProcessor<R,P> extends ParallelRecordProcessor<R,P> {
+	private RecordKeyExtractor<R> keyExtractor;
+	private ExecutorService[] lanes;
+	
+	@Override
+	public void initialize( Properties jobStepProperties ) {
+		String extractorClassName = jobStepProperties.getProperty( RECORD_KEY_EXTRACTOR );
+		if ( extractorClassName == null )
+			throw new BatchException( "KeyPartitionedRecordProcessor requires the " + RECORD_KEY_EXTRACTOR + " property" );
+		
+		keyExtractor = ClassUtil.getInstanceForClass( extractorClassName );
+		
+		super.initialize( jobStepProperties );
+	}
+	
+	/**
+	 * Returns the lane which processes records with the given key.
+	 */
+	public int getLane( Object key ) {
+		if ( key == null )
+			return 0;
+		
+		int h = key.hashCode();
+		h ^= ( h >>> 16 );
+		return ( h & 0x7fffffff ) % lanes.length;
+	}
+	
+	public RecordKeyExtractor<R> getKeyExtractor() {
+		return keyExtractor;
+	}
+	
+	public void setKeyExtractor( RecordKeyExtractor<R> keyExtractor ) {
+		this.keyExtractor = keyExtractor;
+	}
+	
+	@Override
+	protected void startWorkers( int threads ) {
+		lanes = new ExecutorService[threads];
+		for ( int i = 0; i < threads; ++i )
+			lanes[i] = Executors.newSingleThreadExecutor( getThreadFactory() );
+	}
+	
+	@Override
+	protected void execute( R record, Runnable task ) {
+		lanes[ getLane( keyExtractor.getKey(record) ) ].execute( task );
+	}
+	
+	@Override
+	protected boolean stopWorkers() {
+		if ( lanes == null )
+			return true;
+		
+		return stop( lanes );
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>MultiProducerRingBuffer is a bounded, lock-free queue for any number of producer 
+ * threads and exactly one consumer thread. Producers claim a slot with a single 
+ * compare-and-set; each slot carries a sequence number which tells the consumer when the 
+ * element in it has been published, and tells producers when it has been consumed. offer 
+ * and poll never block and never allocate.</p>
+ * 
+ * <p>Use {@link RingBuffer} when there is only one producer.</p>
+ * 
+ * <p>The capacity is rounded up to a power of two.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ * @param <E>
+ */
+public final class MultiProducerRingBuffer<E> {
+	private final Object[] slots;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	
+	// Next slot to be read, written only by the consumer
+	private final AtomicLong head = new AtomicLong();
+	// Next slot to be claimed by a producer
+	private final AtomicLong tail = new AtomicLong();
+	
+	public MultiProducerRingBuffer( int capacity ) {
+		if ( capacity < 1 || capacity > (1 << 30) )
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+		
+		int size = Integer.highestOneBit(capacity);
+		if ( size < capacity )
+			size <<= 1;
+		
+		this.slots = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		this.mask = size - 1;
+		
+		// Slot i is free for the producer claiming position i
+		for ( int i = 0; i < size; ++i )
+			sequences.set(i, i);
+	}
+	
+	/**
+	 * Adds an element. May be called by any thread.
+	 * 
+	 * @return false if the buffer is full
+	 */
+	public boolean offer( E element ) {
+		if ( element == null )
+			throw new NullPointerException();
+		
+		long t = tail.get();
+		while ( true ) {
+			int i = (int) t & mask;
+			long available = sequences.get(i) - t;
+			
+			if ( available == 0 ) {
+				if ( tail.compareAndSet(t, t + 1) ) {
+					slots[i] = element;
+					sequences.lazySet(i, t + 1);
+					return true;
+				}
+			} else if ( available < 0 ) {
+				// The slot still holds the element offered one lap ago
+				return false;
+			}
+			
+			t = tail.get();
+		}
+	}
+	
+	/**
+	 * Removes the oldest element. May only be called by the consumer thread.
+	 * 
+	 * @return The element, or null if the buffer is empty, or the oldest element has been 
+	 * claimed but not yet published by its producer
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		long h = head.get();
+		int i = (int) h & mask;
+		if ( sequences.get(i) != h + 1 )
+			return null;
+		
+		E element = (E) slots[i];
+		slots[i] = null;
+		sequences.lazySet(i, h + slots.length);
+		head.lazySet(h + 1);
+		return element;
+	}
+	
+	public boolean isEmpty() {
+		return head.get() >= tail.get();
+	}
+	
+	public int size() {
+		return (int) Math.max( 0L, tail.get() - head.get() );
+	}
+	
+	public int capacity() {
+		return slots.length;
+	}
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import static com.ibm.doctorbatch.magicsauce.Constants.MAX_IN_FLIGHT;
+import static com.ibm.doctorbatch.magicsauce.Constants.PARALLEL_RECORD_PROCESSOR;
+import static com.ibm.doctorbatch.magicsauce.Constants.PARALLEL_THREADS;
+import static com.ibm.doctorbatch.magicsauce.Constants.SHUTDOWN_TIMEOUT;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.BatchRecordProcessor;
+import com.ibm.doctorbatch.magicsauce.ClassUtil;
+import com.ibm.doctorbatch.magicsauce.MagicSauceLogger;
+import com.ibm.doctorbatch.magicsauce.PartialBatchException;
+import com.ibm.doctorbatch.magicsauce.RecordProcessor;
+
+/**
+ * <p>ParallelRecordProcessor processes records on a fixed pool of worker threads, and 
+ * returns the results in the order of the input records. Each worker thread uses its own 
+ * instance of the actual record processor, so record processors need not be thread safe.</p>
+ * 
+ * <p>It is configured through the usual RECORD_PROCESSOR property, with these job step
+ * properties:</p>
+ * <ol>
+ *  <li>RECORD_PROCESSOR: com.ibm.doctorbatch.magicsauce.concurrent.ParallelRecordProcessor</li>
+ *  <li>PARALLEL_RECORD_PROCESSOR: The fully qualified class name of the record processor 
+ *      which does the work. One instance is created, through ClassUtil, and initialized 
+ *      with the job step properties for each worker thread.</li>
+ *  <li>PARALLEL_THREADS: Optional. The number of worker threads; defaults to the number of 
+ *      available processors.</li>
+ *  <li>MAX_IN_FLIGHT: Optional. The maximum number of records submitted and not yet 
+ *      processed; defaults to four times the number of threads.</li>
+ *  <li>SHUTDOWN_TIMEOUT: Optional. The number of seconds tearDown waits for records still 
+ *      being processed; defaults to 30.</li>
+ * </ol>
+ * 
+ * <p>Batches of records are processed in parallel by processBatch(List), which job steps
+ * such as ETLJobStep call with each unit of work. process(Object) processes a single 
+ * record on a worker thread and waits for it.</p>
+ * 
+ * <p>When a record fails, processBatch throws a {@link PartialBatchException} with the 
+ * results of the records before it. The records after it have already been submitted, and
+ * are processed regardless; their results are kept, and returned without processing the 
+ * records again when the next call to processBatch (or process(List, List)) starts with 
+ * the same record instances, as it does when ETLJobStep resumes after the failed record.
+ * Each record is therefore processed once.</p>
+ * 
+ * <p>tearDown cancels the records not yet started, interrupts the worker threads, and waits
+ * up to SHUTDOWN_TIMEOUT seconds for the records being processed to finish before tearing 
+ * down the record processor instances. If records are still being processed after that, 
+ * a warning is logged, and the instances are torn down regardless.</p>
+ * 
+ * <p>For record processors which keep state per key, see {@link KeyPartitionedRecordProcessor}.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ *
+ * @param <R> The type of input record object to process
+ * @param <P> The type of the returned, processed record object.
+ */
+public class ParallelRecordProcessor<R,P> implements BatchRecordProcessor<R,P> {
+	private final List<RecordProcessor<R,P>> processors = new ArrayList<RecordProcessor<R,P>>();
+	private final ConcurrentLinkedQueue<RecordProcessor<R,P>> unassigned = new ConcurrentLinkedQueue<RecordProcessor<R,P>>();
+	
+	// Each worker thread takes one of the processor instances when it runs its first record
+	private final ThreadLocal<RecordProcessor<R,P>> workerProcessor = new ThreadLocal<RecordProcessor<R,P>>() {
+		@Override
+		protected RecordProcessor<R,P> initialValue() {
+			RecordProcessor<R,P> processor = unassigned.poll();
+			if ( processor == null )
+				throw new IllegalStateException("No record processor instance is available for worker thread " + Thread.currentThread().getName());
+			return processor;
+		}
+	};
+	
+	private ThreadFactory threadFactory;
+	private ExecutorService executor;
+	private Semaphore inFlight;
+	private long shutdownTimeout;
+	
+	// The number of records being processed by the worker threads
+	private final AtomicInteger processing = new AtomicInteger();
+	
+	// The records after the failed record of the last batch, and their tasks
+	private List<R> retainedRecords = Collections.emptyList();
+	private List<Future<P>> retainedFutures = Collections.emptyList();
+	
+	/**
+	 * Creates and initializes one instance of the PARALLEL_RECORD_PROCESSOR class per worker
+	 * thread, and starts the worker threads.
+	 */
+	@Override
+	public void initialize( Properties jobStepProperties ) {
+		String className = jobStepProperties.getProperty( PARALLEL_RECORD_PROCESSOR );
+		if ( className == null )
+			throw new BatchException( "ParallelRecordProcessor requires the " + PARALLEL_RECORD_PROCESSOR + " property" );
+		
+		int threads = Integer.parseInt( jobStepProperties.getProperty( PARALLEL_THREADS, 
+				Integer.toString( Runtime.getRuntime().availableProcessors() ) ) );
+		int maxInFlight = Integer.parseInt( jobStepProperties.getProperty( MAX_IN_FLIGHT, 
+				Integer.toString( threads * 4 ) ) );
+		
+		if ( threads < 1 || maxInFlight < 1 )
+			throw new BatchException( PARALLEL_THREADS + " and " + MAX_IN_FLIGHT + " must be positive" );
+		
+		shutdownTimeout = Long.parseLong( jobStepProperties.getProperty( SHUTDOWN_TIMEOUT, "30" ) );
+		
+		MagicSauceLogger.getInstance().trace( "Creating {0} instances of record processor {1}", threads, className );
+		for ( int i = 0; i < threads; ++i ) {
+			RecordProcessor<R,P> processor = ClassUtil.getInstanceForClass( className );
+			processor.initialize( jobStepProperties );
+			
+			processors.add( processor );
+			unassigned.add( processor );
+		}
+		
+		inFlight = new Semaphore( maxInFlight );
+		startWorkers( threads );
+	}
+	
+	/**
+	 * Processes a single record on a worker thread, and waits for the result.
+	 */
+	@Override
+	public P process( R record ) {
+		return get( submit(record) );
+	}
+	
+	/**
+	 * Processes the records in parallel, and returns the results in the order of the records.
+	 * 
+	 * @throws PartialBatchException If a record fails
+	 */
+	@Override
+	public List<P> processBatch( List<? extends R> records ) {
+		List<P> processed = new ArrayList<P>( records.size() );
+		try {
+			process( records, processed );
+		} catch ( RuntimeException re ) {
+			throw new PartialBatchException( processed.size(), processed, re );
+		}
+		return processed;
+	}
+	
+	/**
+	 * Processes the records in parallel, and adds the results to into, in the order of the
+	 * records. If a record fails, the results of the records before it are added, and the 
+	 * failure is rethrown; a RuntimeException is rethrown as is. The records after the failed
+	 * record are still processed, and their results are used by the next call if it starts 
+	 * with the same records.
+	 */
+	public void process( List<? extends R> records, List<? super P> into ) {
+		List<Future<P>> futures = new ArrayList<Future<P>>( records.size() );
+		try {
+			int reused = reuseRetained( records, futures );
+			for ( int i = reused; i < records.size(); ++i )
+				futures.add( submit(records.get(i)) );
+		} catch ( RuntimeException re ) {
+			cancel( futures );
+			throw re;
+		}
+		
+		int done = 0;
+		try {
+			for ( Future<P> future : futures ) {
+				into.add( get(future) );
+				++done;
+			}
+		} finally {
+			if ( done < futures.size() ) {
+				retainedRecords = new ArrayList<R>( records.subList(done + 1, records.size()) );
+				retainedFutures = new ArrayList<Future<P>>( futures.subList(done + 1, futures.size()) );
+			}
+		}
+	}
+	
+	/**
+	 * Submits a record to be processed by a worker thread, waiting while MAX_IN_FLIGHT
+	 * records are already submitted and not processed.
+	 */
+	public Future<P> submit( final R record ) {
+		try {
+			inFlight.acquire();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new BatchException( "Interrupted while submitting a record", ie );
+		}
+		
+		FutureTask<P> task = new FutureTask<P>( new Callable<P>() {
+			@Override
+			public P call() {
+				processing.incrementAndGet();
+				try {
+					return workerProcessor.get().process( record );
+				} finally {
+					processing.decrementAndGet();
+				}
+			}
+		} ) {
+			@Override
+			protected void done() {
+				// Called when the record is processed, fails, or is cancelled
+				inFlight.release();
+			}
+		};
+		
+		try {
+			execute( record, task );
+		} catch (RuntimeException re) {
+			inFlight.release();
+			throw re;
+		}
+		
+		return task;
+	}
+	
+	/**
+	 * Returns the highest return code of the record processor instances.
+	 */
+	@Override
+	public int getReturnCode() {
+		int rc = 0;
+		for ( RecordProcessor<R,P> processor : processors )
+			rc = Math.max( rc, processor.getReturnCode() );
+		
+		return rc;
+	}
+	
+	/**
+	 * Stops the worker threads, waiting up to SHUTDOWN_TIMEOUT seconds for the records being 
+	 * processed, and tears down each record processor instance.
+	 */
+	@Override
+	public void tearDown() {
+		reuseRetained( Collections.<R>emptyList(), new ArrayList<Future<P>>() );
+		if ( !stopWorkers() )
+			MagicSauceLogger.getInstance().warning( "{0} records were still being processed {1} seconds after the worker threads were stopped; tearing down the record processors regardless", processing.get(), shutdownTimeout );
+		
+		for ( RecordProcessor<R,P> processor : processors )
+			processor.tearDown();
+	}
+	
+	public int getThreadCount() {
+		return processors.size();
+	}
+	
+	public ThreadFactory getThreadFactory() {
+		if ( threadFactory == null )
+			threadFactory = new DaemonThreadFactory( "MagicSauce-RecordProcessor" );
+		
+		return threadFactory;
+	}
+	
+	/**
+	 * Sets the factory of the worker threads. Must be called before initialize.
+	 */
+	public void setThreadFactory( ThreadFactory threadFactory ) {
+		this.threadFactory = threadFactory;
+	}
+	
+	/**
+	 * Starts the worker threads. Each worker thread takes its own record processor instance
+	 * when it runs its first record, so no more than threads worker threads may be started.
+	 */
+	protected void startWorkers( int threads ) {
+		executor = Executors.newFixedThreadPool( threads, getThreadFactory() );
+	}
+	
+	/**
+	 * Runs a record's task on a worker thread.
+	 */
+	protected void execute( R record, Runnable task ) {
+		executor.execute( task );
+	}
+	
+	/**
+	 * Stops the worker threads, and returns true if they finished within SHUTDOWN_TIMEOUT.
+	 */
+	protected boolean stopWorkers() {
+		if ( executor == null )
+			return true;
+		
+		return stop( executor );
+	}
+	
+	/**
+	 * Interrupts the worker threads of the given executors, and waits up to SHUTDOWN_TIMEOUT 
+	 * seconds in all for them to finish the records they are processing. Returns true if 
+	 * they all finished.
+	 */
+	protected boolean stop( ExecutorService... workers ) {
+		for ( ExecutorService worker : workers )
+			worker.shutdownNow();
+		
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( shutdownTimeout );
+		try {
+			for ( ExecutorService worker : workers ) {
+				if ( !worker.awaitTermination( deadline - System.nanoTime(), TimeUnit.NANOSECONDS ) )
+					return false;
+			}
+		} catch ( InterruptedException ie ) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/*
+	 * Adds the retained tasks to futures if records starts with the retained records, and 
+	 * returns how many were added. Retained tasks which are not used are cancelled.
+	 */
+	private int reuseRetained( List<? extends R> records, List<Future<P>> futures ) {
+		List<R> previous = retainedRecords;
+		List<Future<P>> previousFutures = retainedFutures;
+		retainedRecords = Collections.emptyList();
+		retainedFutures = Collections.emptyList();
+		
+		boolean match = ( previous.size() <= records.size() );
+		for ( int i = 0; match && i < previous.size(); ++i )
+			match = ( previous.get(i) == records.get(i) );
+		
+		if ( !match ) {
+			cancel( previousFutures );
+			return 0;
+		}
+		
+		futures.addAll( previousFutures );
+		return previousFutures.size();
+	}
+	
+	private void cancel( List<Future<P>> futures ) {
+		for ( Future<P> future : futures )
+			future.cancel(false);
+	}
+	
+	private P get( Future<P> future ) {
+		try {
+			return future.get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new BatchException( "Interrupted while waiting for a record to be processed", ie );
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if ( cause instanceof RuntimeException )
+				throw (RuntimeException) cause;
+			if ( cause instanceof Error )
+				throw (Error) cause;
+			throw new BatchException( "Unexpected error while processing a record", cause );
+		}
+	}
+}
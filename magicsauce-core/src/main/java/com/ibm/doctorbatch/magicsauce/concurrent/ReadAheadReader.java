@@ -0,0 +1,280 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.BulkReader;
+import com.ibm.doctorbatch.magicsauce.Reader;
+
+/**
+ * <p>ReadAheadReader decorates another Reader, reading from it on a background thread
+ * into a bounded {@link RingBuffer}, so that the next records are already in memory while
+ * the current ones are processed and written.</p>
+ * 
+ * <p>The state of the wrapped reader is captured after every record it returns, and 
+ * getState() reports the state following the last record taken from this reader - never 
+ * a record which has only been prefetched - so checkpoints remain correct. An exception 
+ * thrown by the wrapped reader is rethrown, wrapped in a BatchException, by the read which 
+ * would have returned the failed record.</p>
+ * 
+ * <p>Each prefetched record must be a distinct object. When the wrapped reader is a 
+ * {@link BulkReader}, records are fetched with read(int, List), which readers that reuse a 
+ * single instance in read() (such as MVSRecordReader) implement with a new instance per
+ * record. Readers which return a reusable view, such as DelimitedRecordReader, cannot be
+ * read ahead.</p>
+ * 
+ * <p>The background thread is created by the ThreadFactory given to setThreadFactory; in 
+ * a managed environment, pass the container's managed thread factory.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ * @param <T>
+ */
+public class ReadAheadReader<T> implements BulkReader<T> {
+	public final static int DEFAULT_CAPACITY = 1024;
+	
+	// Longest time either thread parks before checking the buffer again
+	private final static long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	
+	private final Reader<T> reader;
+	private final RingBuffer<Entry<T>> buffer;
+	
+	private ThreadFactory threadFactory;
+	private Thread producer;
+	
+	private volatile Thread waitingConsumer;
+	private volatile Thread waitingProducer;
+	private volatile boolean endOfInput;
+	private volatile boolean stopped;
+	private volatile Throwable failure;
+	
+	private Serializable state;
+	private boolean exhausted;
+	
+	public ReadAheadReader( Reader<T> reader ) {
+		this( reader, DEFAULT_CAPACITY );
+	}
+	
+	/**
+	 * @param reader The reader to read ahead of
+	 * @param capacity The maximum number of records read ahead
+	 */
+	public ReadAheadReader( Reader<T> reader, int capacity ) {
+		this.reader = reader;
+		this.buffer = new RingBuffer<Entry<T>>(capacity);
+	}
+	
+	/**
+	 * Opens the wrapped reader and starts reading ahead.
+	 */
+	@Override
+	public void open( Serializable args ) {
+		reader.open( args );
+		state = reader.getState();
+		
+		endOfInput = false;
+		stopped = false;
+		failure = null;
+		exhausted = false;
+		
+		producer = getThreadFactory().newThread( new Runnable() {
+			@Override
+			public void run() {
+				produce();
+			}
+		} );
+		producer.start();
+	}
+	
+	/**
+	 * Stops reading ahead, and closes the wrapped reader once the background thread has 
+	 * finished its current read.
+	 */
+	@Override
+	public void close() {
+		stopped = true;
+		
+		Thread t = producer;
+		if ( t != null ) {
+			LockSupport.unpark(t);
+			try {
+				t.join();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			producer = null;
+		}
+		
+		while ( buffer.poll() != null );
+		
+		reader.close();
+	}
+	
+	@Override
+	public T read() {
+		Entry<T> entry = take();
+		if ( entry == null )
+			return null;
+		
+		state = entry.state;
+		return entry.record;
+	}
+	
+	/**
+	 * Takes up to max records into the given list, waiting for each until the end of the 
+	 * input is reached.
+	 */
+	@Override
+	public int read( int max, List<? super T> into ) {
+		int count = 0;
+		while ( count < max ) {
+			Entry<T> entry = take();
+			if ( entry == null )
+				break;
+			
+			into.add( entry.record );
+			state = entry.state;
+			++count;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Returns the state of the wrapped reader following the last record taken from this
+	 * reader.
+	 */
+	@Override
+	public Serializable getState() {
+		return state;
+	}
+	
+	/**
+	 * Returns the number of records read ahead and not yet taken.
+	 */
+	public int getBufferedCount() {
+		return buffer.size();
+	}
+	
+	public Reader<T> getReader() {
+		return reader;
+	}
+	
+	public ThreadFactory getThreadFactory() {
+		if ( threadFactory == null )
+			threadFactory = new DaemonThreadFactory( "MagicSauce-ReadAhead" );
+		
+		return threadFactory;
+	}
+	
+	public void setThreadFactory( ThreadFactory threadFactory ) {
+		this.threadFactory = threadFactory;
+	}
+	
+	private Entry<T> take() {
+		if ( exhausted )
+			return null;
+		
+		while ( true ) {
+			Entry<T> entry = buffer.poll();
+			if ( entry != null ) {
+				Thread t = waitingProducer;
+				if ( t != null )
+					LockSupport.unpark(t);
+				return entry;
+			}
+			
+			if ( endOfInput ) {
+				// Records offered before the end of input was flagged are visible now
+				entry = buffer.poll();
+				if ( entry != null )
+					return entry;
+				
+				exhausted = true;
+				
+				Throwable t = failure;
+				if ( t != null )
+					throw new BatchException( "Unexpected error while reading ahead", t );
+				
+				return null;
+			}
+			
+			waitingConsumer = Thread.currentThread();
+			if ( buffer.isEmpty() && !endOfInput )
+				LockSupport.parkNanos(this, MAX_PARK_NANOS);
+			waitingConsumer = null;
+		}
+	}
+	
+	private void produce() {
+		List<T> scratch = ( reader instanceof BulkReader<?> ) ? new ArrayList<T>(1) : null;
+		
+		try {
+			while ( !stopped ) {
+				T record;
+				if ( scratch != null ) {
+					scratch.clear();
+					record = ((BulkReader<T>) reader).read( 1, scratch ) == 1 ? scratch.get(0) : null;
+				} else {
+					record = reader.read();
+				}
+				
+				if ( record == null )
+					break;
+				
+				Entry<T> entry = new Entry<T>( record, reader.getState() );
+				while ( !buffer.offer(entry) ) {
+					if ( stopped )
+						return;
+					
+					waitingProducer = Thread.currentThread();
+					if ( buffer.size() == buffer.capacity() && !stopped )
+						LockSupport.parkNanos(this, MAX_PARK_NANOS);
+					waitingProducer = null;
+				}
+				
+				Thread t = waitingConsumer;
+				if ( t != null )
+					LockSupport.unpark(t);
+			}
+		} catch (Throwable t) {
+			failure = t;
+		} finally {
+			endOfInput = true;
+			
+			Thread t = waitingConsumer;
+			if ( t != null )
+				LockSupport.unpark(t);
+		}
+	}
+	
+	private static final class Entry<T> {
+		final T record;
+		final Serializable state;
+		
+		Entry( T record, Serializable state ) {
+			this.record = record;
+			this.state = state;
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+/**
+ * Returns the key of a record, such as a customer number, used by 
+ * {@link KeyPartitionedRecordProcessor} to send every record with the same key to the same
+ * processing lane. Keys must implement equals and hashCode consistently.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ *
+ * @param <R> The type of input record
+ */
+public interface RecordKeyExtractor<R> {
+	/**
+	 * @return The record's key; records with a null key all go to the same lane.
+	 */
+	public Object getKey( R record );
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>RingBuffer is a bounded, lock-free queue for exactly one producer thread and one
+ * consumer thread. offer and poll never block and never allocate; callers decide how to
+ * wait when the buffer is full or empty.</p>
+ * 
+ * <p>The capacity is rounded up to a power of two.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ * @param <E>
+ */
+public final class RingBuffer<E> {
+	private final Object[] slots;
+	private final int mask;
+	
+	// Next slot to be read, written only by the consumer
+	private final AtomicLong head = new AtomicLong();
+	// Next slot to be written, written only by the producer
+	private final AtomicLong tail = new AtomicLong();
+	
+	// Last values of the other side's index seen by each side, to avoid reading it on every call
+	private long headCache;
+	private long tailCache;
+	
+	public RingBuffer( int capacity ) {
+		if ( capacity < 1 || capacity > (1 << 30) )
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+		
+		int size = Integer.highestOneBit(capacity);
+		if ( size < capacity )
+			size <<= 1;
+		
+		this.slots = new Object[size];
+		this.mask = size - 1;
+	}
+	
+	/**
+	 * Adds an element. May only be called by the producer thread.
+	 * 
+	 * @return false if the buffer is full
+	 */
+	public boolean offer( E element ) {
+		if ( element == null )
+			throw new NullPointerException();
+		
+		long t = tail.get();
+		if ( t - headCache == slots.length ) {
+			headCache = head.get();
+			if ( t - headCache == slots.length )
+				return false;
+		}
+		
+		slots[(int) t & mask] = element;
+		tail.lazySet(t + 1);
+		return true;
+	}
+	
+	/**
+	 * Removes the oldest element. May only be called by the consumer thread.
+	 * 
+	 * @return The element, or null if the buffer is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		long h = head.get();
+		if ( h == tailCache ) {
+			tailCache = tail.get();
+			if ( h == tailCache )
+				return null;
+		}
+		
+		int i = (int) h & mask;
+		E element = (E) slots[i];
+		slots[i] = null;
+		head.lazySet(h + 1);
+		return element;
+	}
+	
+	public boolean isEmpty() {
+		return head.get() == tail.get();
+	}
+	
+	public int size() {
+		return (int) (tail.get() - head.get());
+	}
+	
+	public int capacity() {
+		return slots.length;
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.Writer;
+
+/**
+ * <p>WriteBehindWriter decorates another Writer, collecting records into one of two 
+ * buffers while the other is written by a dedicated I/O thread, so processing continues
+ * while the previous batch of records is serialized and written.</p>
+ * 
+ * <p>getState() and flush() are barriers: they hand over the records collected so far and
+ * wait until the I/O thread has written them, so the state returned - and hence the 
+ * checkpoint - always matches the output actually written. close() also flushes.</p>
+ * 
+ * <p>The first exception thrown by the wrapped writer is rethrown, wrapped in a 
+ * BatchException, by the next call to write, flush, getState or close. The records of the
+ * failed batch, and any written after it, are discarded.</p>
+ * 
+ * <p>Records are written after write() returns, so they must not be modified by the 
+ * caller afterwards. In particular, records read through a reader which reuses one 
+ * instance per read() (such as MVSRecordReader) must be read with read(int, List) or 
+ * through a ReadAheadReader, which return a new instance per record.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ * @param <T>
+ */
+public class WriteBehindWriter<T> implements Writer<T> {
+	public final static int DEFAULT_BATCH_SIZE = 1000;
+	
+	private final Writer<T> writer;
+	private final int batchSize;
+	
+	private final Object lock = new Object();
+	
+	// Collected by the step thread
+	private List<T> filling;
+	// Handed to the I/O thread; null when it is idle. Guarded by lock.
+	private List<T> pending;
+	// The buffer which is neither filling nor pending. Guarded by lock.
+	private List<T> spare;
+	private boolean stopped;
+	private volatile Throwable failure;
+	
+	private ThreadFactory threadFactory;
+	private Thread writerThread;
+	
+	public WriteBehindWriter( Writer<T> writer ) {
+		this( writer, DEFAULT_BATCH_SIZE );
+	}
+	
+	/**
+	 * @param writer The writer to write behind
+	 * @param batchSize The number of records collected before they are handed to the I/O thread
+	 */
+	public WriteBehindWriter( Writer<T> writer, int batchSize ) {
+		if ( batchSize < 1 )
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		
+		this.writer = writer;
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * Opens the wrapped writer and starts the I/O thread.
+	 */
+	@Override
+	public void open( Serializable state ) {
+		writer.open( state );
+		
+		filling = new ArrayList<T>(batchSize);
+		spare = new ArrayList<T>(batchSize);
+		pending = null;
+		stopped = false;
+		failure = null;
+		
+		writerThread = getThreadFactory().newThread( new Runnable() {
+			@Override
+			public void run() {
+				writeBatches();
+			}
+		} );
+		writerThread.start();
+	}
+	
+	/**
+	 * Writes the records collected so far, stops the I/O thread and closes the wrapped 
+	 * writer. The wrapped writer is closed even if writing fails.
+	 */
+	@Override
+	public void close() {
+		try {
+			if ( writerThread != null )
+				flush();
+		} finally {
+			stop();
+			writer.close();
+		}
+	}
+	
+	@Override
+	public void write( T record ) {
+		checkFailure();
+		
+		filling.add( record );
+		if ( filling.size() >= batchSize )
+			handOff();
+	}
+	
+	@Override
+	public void write( List<? extends T> records ) {
+		checkFailure();
+		
+		for ( T record : records ) {
+			filling.add( record );
+			if ( filling.size() >= batchSize )
+				handOff();
+		}
+	}
+	
+	/**
+	 * Waits until every record written so far has been written by the wrapped writer, then
+	 * returns the wrapped writer's state.
+	 */
+	@Override
+	public Serializable getState() {
+		flush();
+		return writer.getState();
+	}
+	
+	/**
+	 * Waits until every record written so far has been written by the wrapped writer.
+	 */
+	public void flush() {
+		if ( !filling.isEmpty() )
+			handOff();
+		
+		synchronized ( lock ) {
+			while ( pending != null )
+				await();
+		}
+		
+		checkFailure();
+	}
+	
+	/**
+	 * Returns the number of records written to this writer, but not yet to the wrapped writer.
+	 */
+	public int getUnwrittenCount() {
+		synchronized ( lock ) {
+			return filling.size() + ( pending == null ? 0 : pending.size() );
+		}
+	}
+	
+	public Writer<T> getWriter() {
+		return writer;
+	}
+	
+	public int getBatchSize() {
+		return batchSize;
+	}
+	
+	public ThreadFactory getThreadFactory() {
+		if ( threadFactory == null )
+			threadFactory = new DaemonThreadFactory( "MagicSauce-WriteBehind" );
+		
+		return threadFactory;
+	}
+	
+	public void setThreadFactory( ThreadFactory threadFactory ) {
+		this.threadFactory = threadFactory;
+	}
+	
+	/*
+	 * Hands the filling buffer to the I/O thread once it has finished the previous one, and
+	 * continues with the spare buffer.
+	 */
+	private void handOff() {
+		synchronized ( lock ) {
+			while ( pending != null )
+				await();
+			
+			checkFailure();
+			
+			pending = filling;
+			filling = spare;
+			spare = null;
+			lock.notifyAll();
+		}
+	}
+	
+	private void writeBatches() {
+		while ( true ) {
+			List<T> batch;
+			synchronized ( lock ) {
+				while ( pending == null && !stopped )
+					await();
+				
+				if ( pending == null )
+					return;
+				
+				batch = pending;
+			}
+			
+			try {
+				if ( failure == null )
+					writer.write( batch );
+			} catch ( Throwable t ) {
+				failure = t;
+			} finally {
+				batch.clear();
+				
+				synchronized ( lock ) {
+					pending = null;
+					spare = batch;
+					lock.notifyAll();
+				}
+			}
+		}
+	}
+	
+	private void stop() {
+		Thread t = writerThread;
+		if ( t == null )
+			return;
+		
+		synchronized ( lock ) {
+			stopped = true;
+			lock.notifyAll();
+		}
+		
+		try {
+			t.join();
+		} catch ( InterruptedException ie ) {
+			Thread.currentThread().interrupt();
+		}
+		writerThread = null;
+	}
+	
+	private void checkFailure() {
+		Throwable t = failure;
+		if ( t != null )
+			throw new BatchException( "Unexpected error while writing behind", t );
+	}
+	
+	private void await() {
+		try {
+			lock.wait();
+		} catch ( InterruptedException ie ) {
+			Thread.currentThread().interrupt();
+			throw new BatchException( "Interrupted while waiting for records to be written", ie );
+		}
+	}
+}
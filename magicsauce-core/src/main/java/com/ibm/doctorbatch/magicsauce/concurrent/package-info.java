@@ -0,0 +1,24 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * <h1>Concurrency Support</h1>
+ * 
+ * <p>Decorators which overlap reading, processing and writing on separate threads, and
+ * the bounded, lock-free queues they hand records across. AsyncLogHandler uses the same
+ * approach to take log handler I/O off the job step thread.</p>
+ */
+package com.ibm.doctorbatch.magicsauce.concurrent;
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>LatencyHistogram counts values, normally durations in nanoseconds, in log-linear 
+ * buckets in the manner of HdrHistogram: values below 128 each have their own bucket, and 
+ * every power of two above that is split into 64 equal buckets. Any value from 0 to 
+ * Long.MAX_VALUE can be recorded, and is reported with a relative error below 1/64 (about
+ * 1.6%), in a fixed 3712 bucket array.</p>
+ * 
+ * <p>record(long) and record(long, long) never allocate or lock, and may be called by any
+ * number of threads. The statistics are read while values are being recorded, so they are
+ * not an atomic snapshot; a count read during recording may be a few values behind.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public final class LatencyHistogram {
+	private final static int SUB_BUCKET_BITS = 7;
+	private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private final static int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+	private final static int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final StripedCounter count = new StripedCounter();
+	private final StripedCounter total = new StripedCounter();
+	private final AtomicLong max = new AtomicLong();
+	
+	/**
+	 * Records one value. Negative values are recorded as zero.
+	 */
+	public void record( long value ) {
+		record( value, 1L );
+	}
+	
+	/**
+	 * Records the same value several times, such as the mean time per record of a batch.
+	 * Negative values are recorded as zero.
+	 */
+	public void record( long value, long times ) {
+		if ( times <= 0L )
+			return;
+		
+		if ( value < 0L )
+			value = 0L;
+		
+		counts.getAndAdd( indexOf(value), times );
+		count.add( times );
+		total.add( value * times );
+		
+		long m = max.get();
+		while ( value > m && !max.compareAndSet(m, value) )
+			m = max.get();
+	}
+	
+	/**
+	 * Returns the number of values recorded.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * Returns the sum of the values recorded.
+	 */
+	public long getTotal() {
+		return total.get();
+	}
+	
+	public long getMax() {
+		return max.get();
+	}
+	
+	/**
+	 * Returns the mean of the values recorded, or 0 if none have been.
+	 */
+	public double getMean() {
+		long n = getCount();
+		return ( n == 0L ? 0.0 : (double) getTotal() / n );
+	}
+	
+	/**
+	 * Returns a value such that the given percentage of the recorded values are less than 
+	 * or equal to it, to within the precision of the buckets; or 0 if no values have been 
+	 * recorded. getValueAtPercentile(50.0) is the median.
+	 * 
+	 * @param percentile From 0.0 to 100.0
+	 */
+	public long getValueAtPercentile( double percentile ) {
+		long n = 0L;
+		for ( int i = 0; i < BUCKETS; ++i )
+			n += counts.get(i);
+		
+		if ( n == 0L )
+			return 0L;
+		
+		double p = Math.min( Math.max(percentile, 0.0), 100.0 );
+		long rank = Math.max( 1L, (long) Math.ceil(p / 100.0 * n) );
+		
+		long seen = 0L;
+		for ( int i = 0; i < BUCKETS; ++i ) {
+			seen += counts.get(i);
+			if ( seen >= rank )
+				return Math.min( highestValueIn(i), getMax() );
+		}
+		
+		return getMax();
+	}
+	
+	/**
+	 * Discards all recorded values. Values recorded while reset() runs may be partly 
+	 * discarded.
+	 */
+	public void reset() {
+		for ( int i = 0; i < BUCKETS; ++i )
+			counts.set(i, 0L);
+		count.reset();
+		total.reset();
+		max.set(0L);
+	}
+	
+	@Override
+	public String toString() {
+		return "count=" + getCount() + ", mean=" + (long) getMean() + ", p50=" + getValueAtPercentile(50.0) 
+				+ ", p99=" + getValueAtPercentile(99.0) + ", max=" + getMax();
+	}
+	
+	static int indexOf( long value ) {
+		if ( value < SUB_BUCKETS )
+			return (int) value;
+		
+		// The top SUB_BUCKET_BITS bits of the value select the bucket within its power of two
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int top = (int) (value >>> shift);
+		return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (top - HALF_SUB_BUCKETS);
+	}
+	
+	static long lowestValueIn( int index ) {
+		if ( index < SUB_BUCKETS )
+			return index;
+		
+		int k = index - SUB_BUCKETS;
+		int shift = k / HALF_SUB_BUCKETS + 1;
+		long top = k % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+		return top << shift;
+	}
+	
+	static long highestValueIn( int index ) {
+		return ( index == BUCKETS - 1 ? Long.MAX_VALUE : lowestValueIn(index + 1) - 1 );
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.metrics;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.ibm.doctorbatch.magicsauce.BulkReader;
+import com.ibm.doctorbatch.magicsauce.Reader;
+import com.ibm.doctorbatch.magicsauce.ReaderUtil;
+
+/**
+ * <p>MeteredReader decorates another Reader, recording the time taken by each read, and 
+ * the records (and, given a {@link RecordSizer}, the bytes) it returns, as the READ phase 
+ * of a {@link StepMetrics}.</p>
+ * 
+ * <p>A bulk read is timed as a single call. If the wrapped reader is not a BulkReader, 
+ * read(int, List) calls its read() method until max records are read, as 
+ * ReaderUtil.read(...) does.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ * @param <T>
+ */
+public class MeteredReader<T> implements BulkReader<T> {
+	private final Reader<T> reader;
+	private final StepMetrics metrics;
+	private final RecordSizer<? super T> sizer;
+	
+	public MeteredReader( Reader<T> reader, StepMetrics metrics ) {
+		this( reader, metrics, null );
+	}
+	
+	/**
+	 * @param reader The reader to measure
+	 * @param metrics Receives the measurements
+	 * @param sizer Computes the size of each record read, or null to not count bytes
+	 */
+	public MeteredReader( Reader<T> reader, StepMetrics metrics, RecordSizer<? super T> sizer ) {
+		this.reader = reader;
+		this.metrics = metrics;
+		this.sizer = sizer;
+	}
+	
+	@Override
+	public void open( Serializable args ) {
+		reader.open( args );
+	}
+	
+	@Override
+	public void close() {
+		reader.close();
+	}
+	
+	@Override
+	public T read() {
+		long start = System.nanoTime();
+		T record = reader.read();
+		
+		if ( record != null ) {
+			metrics.record( Phase.READ, System.nanoTime() - start, 1L );
+			if ( sizer != null )
+				metrics.addBytes( Phase.READ, sizer.sizeOf(record) );
+		}
+		
+		return record;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public int read( int max, List<? super T> into ) {
+		int from = into.size();
+		long start = System.nanoTime();
+		int count = ReaderUtil.read( reader, max, into );
+		metrics.record( Phase.READ, System.nanoTime() - start, count );
+		
+		if ( sizer != null ) {
+			long bytes = 0L;
+			for ( int i = from; i < from + count; ++i )
+				bytes += sizer.sizeOf( (T) into.get(i) );
+			metrics.addBytes( Phase.READ, bytes );
+		}
+		
+		return count;
+	}
+	
+	@Override
+	public Serializable getState() {
+		return reader.getState();
+	}
+	
+	public Reader<T> getReader() {
+		return reader;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.metrics;
+
+import java.util.List;
+import java.util.Properties;
+
+import com.ibm.doctorbatch.magicsauce.BatchRecordProcessor;
+import com.ibm.doctorbatch.magicsauce.EmittingRecordProcessor;
+import com.ibm.doctorbatch.magicsauce.RecordEmitter;
+import com.ibm.doctorbatch.magicsauce.RecordProcessor;
+import com.ibm.doctorbatch.magicsauce.RecordProcessorUtil;
+
+/**
+ * <p>MeteredRecordProcessor decorates another RecordProcessor, recording the time taken to
+ * process each record, and the number of input records processed, as the PROCESS phase of 
+ * a {@link StepMetrics}.</p>
+ * 
+ * <p>It is both an EmittingRecordProcessor and a BatchRecordProcessor, and passes each 
+ * call to the wrapped processor through RecordProcessorUtil, so the wrapped processor is 
+ * used the same way whether or not it implements either interface.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ * @param <R>
+ * @param <P>
+ */
+public class MeteredRecordProcessor<R,P> implements EmittingRecordProcessor<R,P>, BatchRecordProcessor<R,P> {
+	private final RecordProcessor<R,P> processor;
+	private final StepMetrics metrics;
+	
+	public MeteredRecordProcessor( RecordProcessor<R,P> processor, StepMetrics metrics ) {
+		this.processor = processor;
+		this.metrics = metrics;
+	}
+	
+	@Override
+	public void initialize( Properties jobStepProperties ) {
+		processor.initialize( jobStepProperties );
+	}
+	
+	@Override
+	public P process( R record ) {
+		long start = System.nanoTime();
+		P processed = processor.process( record );
+		metrics.record( Phase.PROCESS, System.nanoTime() - start, 1L );
+		return processed;
+	}
+	
+	@Override
+	public void process( R record, RecordEmitter<? super P> emitter ) {
+		long start = System.nanoTime();
+		RecordProcessorUtil.process( processor, record, emitter );
+		metrics.record( Phase.PROCESS, System.nanoTime() - start, 1L );
+	}
+	
+	@Override
+	public List<P> processBatch( List<? extends R> records ) {
+		long start = System.nanoTime();
+		List<P> processed = RecordProcessorUtil.processBatch( processor, records );
+		metrics.record( Phase.PROCESS, System.nanoTime() - start, records.size() );
+		return processed;
+	}
+	
+	@Override
+	public int getReturnCode() {
+		return processor.getReturnCode();
+	}
+	
+	@Override
+	public void tearDown() {
+		processor.tearDown();
+	}
+	
+	public RecordProcessor<R,P> getRecordProcessor() {
+		return processor;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.metrics;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.ibm.doctorbatch.magicsauce.Writer;
+
+/**
+ * MeteredWriter decorates another Writer, recording the time taken by each write, and the 
+ * records (and, given a {@link RecordSizer}, the bytes) written, as the WRITE phase of a
+ * {@link StepMetrics}. A write of a list of records is timed as a single call.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ * @param <T>
+ */
+public class MeteredWriter<T> implements Writer<T> {
+	private final Writer<T> writer;
+	private final StepMetrics metrics;
+	private final RecordSizer<? super T> sizer;
+	
+	public MeteredWriter( Writer<T> writer, StepMetrics metrics ) {
+		this( writer, metrics, null );
+	}
+	
+	/**
+	 * @param writer The writer to measure
+	 * @param metrics Receives the measurements
+	 * @param sizer Computes the size of each record written, or null to not count bytes
+	 */
+	public MeteredWriter( Writer<T> writer, StepMetrics metrics, RecordSizer<? super T> sizer ) {
+		this.writer = writer;
+		this.metrics = metrics;
+		this.sizer = sizer;
+	}
+	
+	@Override
+	public void open( Serializable state ) {
+		writer.open( state );
+	}
+	
+	@Override
+	public void close() {
+		writer.close();
+	}
+	
+	@Override
+	public Serializable getState() {
+		return writer.getState();
+	}
+	
+	@Override
+	public void write( T record ) {
+		long start = System.nanoTime();
+		writer.write( record );
+		metrics.record( Phase.WRITE, System.nanoTime() - start, 1L );
+		
+		if ( sizer != null )
+			metrics.addBytes( Phase.WRITE, sizer.sizeOf(record) );
+	}
+	
+	@Override
+	public void write( List<? extends T> records ) {
+		long start = System.nanoTime();
+		writer.write( records );
+		metrics.record( Phase.WRITE, System.nanoTime() - start, records.size() );
+		
+		if ( sizer != null ) {
+			long bytes = 0L;
+			for ( int i = 0; i < records.size(); ++i )
+				bytes += sizer.sizeOf( records.get(i) );
+			metrics.addBytes( Phase.WRITE, bytes );
+		}
+	}
+	
+	public Writer<T> getWriter() {
+		return writer;
+	}
+}
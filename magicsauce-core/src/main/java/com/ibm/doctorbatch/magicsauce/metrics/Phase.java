@@ -0,0 +1,29 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.metrics;
+
+/**
+ * The phases of a job step which {@link StepMetrics} measures: reading records from the 
+ * Reader, processing them with the RecordProcessor, writing them to the Writer, and 
+ * externalizing the checkpoint of each batch data stream, which flushes any records 
+ * still being written behind. A CHECKPOINT is counted once per data stream.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public enum Phase {
+	READ, PROCESS, WRITE, CHECKPOINT
+}
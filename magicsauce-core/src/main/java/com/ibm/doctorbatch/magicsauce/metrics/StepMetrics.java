@@ -0,0 +1,344 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * <p>StepMetrics records the latency of each {@link Phase} of a job step in a 
+ * {@link LatencyHistogram}, and counts the records and bytes passing through each phase, 
+ * and the records skipped. Call record(Phase, long, long) with the time taken by a call to 
+ * the Reader, RecordProcessor or Writer and the number of records it handled; a call 
+ * handling several records is recorded as that many records of the mean duration.</p>
+ * 
+ * <p>Recording never allocates and never locks. register() publishes the metrics, 
+ * together with records/sec and bytes/sec gauges measured from the time the metrics were 
+ * created or reset, as an MBean in the platform MBean server, named 
+ * com.ibm.doctorbatch.magicsauce:type=StepMetrics,name=&lt;step id&gt;.</p>
+ * 
+ * <p>bind() makes the metrics available from forStep(String) to the code the container 
+ * calls outside of the job step, such as the batch data streams, which record the 
+ * CHECKPOINT phase.</p>
+ * 
+ * <p>{@link MeteredReader}, {@link MeteredRecordProcessor} and {@link MeteredWriter} 
+ * record the phases of any Reader, RecordProcessor and Writer.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class StepMetrics implements StepMetricsMBean {
+	public final static String DOMAIN = "com.ibm.doctorbatch.magicsauce";
+	
+	private final static int PHASES = Phase.values().length;
+	
+	private final static ConcurrentMap<String, StepMetrics> BOUND = new ConcurrentHashMap<String, StepMetrics>();
+	
+	private final String stepId;
+	private final LatencyHistogram[] latencies = new LatencyHistogram[PHASES];
+	private final StripedCounter[] records = new StripedCounter[PHASES];
+	private final StripedCounter[] bytes = new StripedCounter[PHASES];
+	private final StripedCounter skipped = new StripedCounter();
+	private volatile long startNanos = System.nanoTime();
+	
+	private ObjectName objectName;
+	
+	public StepMetrics( String stepId ) {
+		this.stepId = stepId;
+		
+		for ( int i = 0; i < PHASES; ++i ) {
+			latencies[i] = new LatencyHistogram();
+			records[i] = new StripedCounter();
+			bytes[i] = new StripedCounter();
+		}
+	}
+	
+	/**
+	 * Records a call to the Reader, RecordProcessor or Writer.
+	 * 
+	 * @param phase The phase the call belongs to
+	 * @param nanos The duration of the call, from System.nanoTime()
+	 * @param count The number of records read, processed or written by the call
+	 */
+	public void record( Phase phase, long nanos, long count ) {
+		if ( count <= 0L )
+			return;
+		
+		int i = phase.ordinal();
+		latencies[i].record( nanos / count, count );
+		records[i].add( count );
+	}
+	
+	/**
+	 * Adds to the number of bytes read or written.
+	 */
+	public void addBytes( Phase phase, long count ) {
+		bytes[phase.ordinal()].add( count );
+	}
+	
+	public void recordSkip() {
+		skipped.increment();
+	}
+	
+	/**
+	 * Returns the metrics bound to the given step id, or null if there are none.
+	 */
+	public static StepMetrics forStep( String stepId ) {
+		return ( stepId == null ? null : BOUND.get(stepId) );
+	}
+	
+	/**
+	 * Makes these metrics available from forStep(String), replacing any metrics already 
+	 * bound to the same step id.
+	 */
+	public void bind() {
+		if ( stepId != null )
+			BOUND.put( stepId, this );
+	}
+	
+	/**
+	 * Removes these metrics from forStep(String), if they are bound.
+	 */
+	public void unbind() {
+		if ( stepId != null )
+			BOUND.remove( stepId, this );
+	}
+	
+	public LatencyHistogram getLatency( Phase phase ) {
+		return latencies[phase.ordinal()];
+	}
+	
+	public long getRecords( Phase phase ) {
+		return records[phase.ordinal()].get();
+	}
+	
+	public long getBytes( Phase phase ) {
+		return bytes[phase.ordinal()].get();
+	}
+	
+	@Override
+	public String getStepId() {
+		return stepId;
+	}
+	
+	@Override
+	public long getElapsedMillis() {
+		return ( System.nanoTime() - startNanos ) / 1000000L;
+	}
+	
+	@Override
+	public long getRecordsRead() {
+		return getRecords( Phase.READ );
+	}
+	
+	@Override
+	public long getRecordsProcessed() {
+		return getRecords( Phase.PROCESS );
+	}
+	
+	@Override
+	public long getRecordsWritten() {
+		return getRecords( Phase.WRITE );
+	}
+	
+	@Override
+	public long getRecordsSkipped() {
+		return skipped.get();
+	}
+	
+	@Override
+	public long getBytesRead() {
+		return getBytes( Phase.READ );
+	}
+	
+	@Override
+	public long getBytesWritten() {
+		return getBytes( Phase.WRITE );
+	}
+	
+	@Override
+	public double getRecordsReadPerSecond() {
+		return perSecond( getRecordsRead() );
+	}
+	
+	@Override
+	public double getRecordsWrittenPerSecond() {
+		return perSecond( getRecordsWritten() );
+	}
+	
+	@Override
+	public double getBytesReadPerSecond() {
+		return perSecond( getBytesRead() );
+	}
+	
+	@Override
+	public double getBytesWrittenPerSecond() {
+		return perSecond( getBytesWritten() );
+	}
+	
+	@Override
+	public double getReadLatencyMean() {
+		return getLatency( Phase.READ ).getMean();
+	}
+	
+	@Override
+	public long getReadLatency99th() {
+		return getLatency( Phase.READ ).getValueAtPercentile(99.0);
+	}
+	
+	@Override
+	public long getReadLatencyMax() {
+		return getLatency( Phase.READ ).getMax();
+	}
+	
+	@Override
+	public double getProcessLatencyMean() {
+		return getLatency( Phase.PROCESS ).getMean();
+	}
+	
+	@Override
+	public long getProcessLatency99th() {
+		return getLatency( Phase.PROCESS ).getValueAtPercentile(99.0);
+	}
+	
+	@Override
+	public long getProcessLatencyMax() {
+		return getLatency( Phase.PROCESS ).getMax();
+	}
+	
+	@Override
+	public double getWriteLatencyMean() {
+		return getLatency( Phase.WRITE ).getMean();
+	}
+	
+	@Override
+	public long getWriteLatency99th() {
+		return getLatency( Phase.WRITE ).getValueAtPercentile(99.0);
+	}
+	
+	@Override
+	public long getWriteLatencyMax() {
+		return getLatency( Phase.WRITE ).getMax();
+	}
+	
+	@Override
+	public long getCheckpoints() {
+		return getRecords( Phase.CHECKPOINT );
+	}
+	
+	@Override
+	public double getCheckpointLatencyMean() {
+		return getLatency( Phase.CHECKPOINT ).getMean();
+	}
+	
+	@Override
+	public long getCheckpointLatency99th() {
+		return getLatency( Phase.CHECKPOINT ).getValueAtPercentile(99.0);
+	}
+	
+	@Override
+	public long getCheckpointLatencyMax() {
+		return getLatency( Phase.CHECKPOINT ).getMax();
+	}
+	
+	@Override
+	public long latencyAtPercentile( String phase, double percentile ) {
+		return getLatency( Phase.valueOf(phase.trim().toUpperCase()) ).getValueAtPercentile( percentile );
+	}
+	
+	@Override
+	public void reset() {
+		for ( int i = 0; i < PHASES; ++i ) {
+			latencies[i].reset();
+			records[i].reset();
+			bytes[i].reset();
+		}
+		skipped.reset();
+		startNanos = System.nanoTime();
+	}
+	
+	/**
+	 * Registers these metrics in the platform MBean server, replacing any MBean already
+	 * registered for the same step id.
+	 * 
+	 * @throws BatchException The MBean could not be registered
+	 */
+	public synchronized void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName( DOMAIN + ":type=StepMetrics,name=" + ObjectName.quote(String.valueOf(stepId)) );
+			
+			if ( server.isRegistered(name) )
+				server.unregisterMBean(name);
+			
+			server.registerMBean(this, name);
+			objectName = name;
+		} catch ( JMException jme ) {
+			throw new BatchException("Unable to register the metrics of job step " + stepId, jme);
+		}
+	}
+	
+	/**
+	 * Removes these metrics from the platform MBean server, if register() was called.
+	 */
+	public synchronized void unregister() {
+		if ( objectName == null )
+			return;
+		
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if ( server.isRegistered(objectName) )
+				server.unregisterMBean(objectName);
+		} catch ( JMException jme ) {
+			throw new BatchException("Unable to unregister the metrics of job step " + stepId, jme);
+		} finally {
+			objectName = null;
+		}
+	}
+	
+	/**
+	 * Returns the name these metrics are registered under, or null if they are not registered.
+	 */
+	public synchronized ObjectName getObjectName() {
+		return objectName;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(stepId).append(": ").append(getElapsedMillis()).append("ms, ")
+			.append(getRecordsRead()).append(" records read (").append(getBytesRead()).append(" bytes), ")
+			.append(getRecordsWritten()).append(" written (").append(getBytesWritten()).append(" bytes), ")
+			.append(getRecordsSkipped()).append(" skipped");
+		
+		for ( Phase phase : Phase.values() )
+			sb.append("; ").append(phase).append(" ns/record: ").append(getLatency(phase));
+		
+		return sb.toString();
+	}
+	
+	private double perSecond( long count ) {
+		long nanos = System.nanoTime() - startNanos;
+		return ( nanos <= 0L ? 0.0 : count * 1e9 / nanos );
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.metrics;
+
+/**
+ * The JMX management interface of {@link StepMetrics}. Latencies are in nanoseconds per
+ * record.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public interface StepMetricsMBean {
+	public String getStepId();
+	
+	public long getElapsedMillis();
+	
+	public long getRecordsRead();
+	
+	public long getRecordsProcessed();
+	
+	public long getRecordsWritten();
+	
+	public long getRecordsSkipped();
+	
+	public long getBytesRead();
+	
+	public long getBytesWritten();
+	
+	public double getRecordsReadPerSecond();
+	
+	public double getRecordsWrittenPerSecond();
+	
+	public double getBytesReadPerSecond();
+	
+	public double getBytesWrittenPerSecond();
+	
+	public double getReadLatencyMean();
+	
+	public long getReadLatency99th();
+	
+	public long getReadLatencyMax();
+	
+	public double getProcessLatencyMean();
+	
+	public long getProcessLatency99th();
+	
+	public long getProcessLatencyMax();
+	
+	public double getWriteLatencyMean();
+	
+	public long getWriteLatency99th();
+	
+	public long getWriteLatencyMax();
+	
+	public long getCheckpoints();
+	
+	public double getCheckpointLatencyMean();
+	
+	public long getCheckpointLatency99th();
+	
+	public long getCheckpointLatencyMax();
+	
+	/**
+	 * @param phase READ, PROCESS, WRITE or CHECKPOINT
+	 * @param percentile From 0.0 to 100.0
+	 * @return The latency of the phase at the given percentile
+	 */
+	public long latencyAtPercentile( String phase, double percentile );
+	
+	/**
+	 * Discards all recorded values, and restarts the rates from now.
+	 */
+	public void reset();
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>StripedCounter is a counter which many threads can add to without contending on a
+ * single memory location. Each thread adds to one of several cells, chosen from its thread
+ * id, and the cells are spaced a cache line apart; get() returns the sum of the cells.</p>
+ * 
+ * <p>get() is not an atomic snapshot: additions made while it runs may or may not be
+ * counted. Likewise, additions made while reset() runs may be lost.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public final class StripedCounter {
+	// Longs between the cells in use, so that no two cells share a 64 byte cache line
+	private final static int PADDING = 8;
+	private final static int MAX_STRIPES = 64;
+	
+	private final AtomicLongArray cells;
+	private final int mask;
+	
+	public StripedCounter() {
+		this( Runtime.getRuntime().availableProcessors() );
+	}
+	
+	/**
+	 * @param stripes The number of cells, rounded up to a power of two, and at most 64
+	 */
+	public StripedCounter( int stripes ) {
+		int size = Integer.highestOneBit( Math.max(1, Math.min(stripes, MAX_STRIPES)) );
+		if ( size < stripes && size < MAX_STRIPES )
+			size <<= 1;
+		
+		this.cells = new AtomicLongArray(size * PADDING);
+		this.mask = size - 1;
+	}
+	
+	public void increment() {
+		add( 1L );
+	}
+	
+	public void add( long delta ) {
+		cells.getAndAdd( cell(), delta );
+	}
+	
+	/**
+	 * Returns the sum of all additions since this counter was created or last reset.
+	 */
+	public long get() {
+		long sum = 0L;
+		for ( int i = 0; i < cells.length(); i += PADDING )
+			sum += cells.get(i);
+		return sum;
+	}
+	
+	public void reset() {
+		for ( int i = 0; i < cells.length(); i += PADDING )
+			cells.set(i, 0L);
+	}
+	
+	@Override
+	public String toString() {
+		return Long.toString( get() );
+	}
+	
+	private int cell() {
+		// Spread sequential thread ids across the cells
+		long id = Thread.currentThread().getId();
+		int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+		return ( (hash >>> 16) & mask ) * PADDING;
+	}
+}
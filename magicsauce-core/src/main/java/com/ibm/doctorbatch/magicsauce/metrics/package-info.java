@@ -0,0 +1,26 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * <h1>Step Metrics</h1>
+ * 
+ * <p>Low overhead counters and latency histograms for job steps. Recording a value never
+ * allocates and never takes a lock, so metrics can be left enabled in production. 
+ * {@link StepMetrics} gathers the read, process and write latencies, record counts and byte 
+ * counts of a job step, and publishes them, with records/sec and bytes/sec gauges, through
+ * a JMX MBean.</p>
+ */
+package com.ibm.doctorbatch.magicsauce.metrics;
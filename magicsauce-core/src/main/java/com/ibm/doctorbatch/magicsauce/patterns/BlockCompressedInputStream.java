@@ -0,0 +1,215 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * <p>BlockCompressedInputStream reads the uncompressed content of a file written by
+ * {@link BlockCompressedOutputStream}, one gzip member at a time. Using the file's block
+ * index, skip(n) moves directly to the block containing the target offset, decompressing
+ * only that block, so any uncompressed offset can be reached in constant time.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class BlockCompressedInputStream extends InputStream {
+	private final static int FHCRC = 2;
+	private final static int FEXTRA = 4;
+	private final static int FNAME = 8;
+	private final static int FCOMMENT = 16;
+
+	private final File file;
+	private final BlockIndex blocks;
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+	private final Inflater inflater = new Inflater(true);
+	private final CRC32 crc = new CRC32();
+
+	private byte[] compressed = new byte[0];
+	private byte[] buffer = new byte[0];
+	private int block = -1;
+	private int pos;
+	private int limit;
+
+	public BlockCompressedInputStream( File file ) throws IOException {
+		this( file, BlockIndex.load(file) );
+	}
+
+	BlockCompressedInputStream( File file, BlockIndex blocks ) throws IOException {
+		this.file = file;
+		this.blocks = blocks;
+		this.raf = new RandomAccessFile(file, "r");
+		this.channel = raf.getChannel();
+	}
+
+	/**
+	 * Returns the uncompressed offset of the next byte to be read.
+	 */
+	public long getPosition() {
+		if ( block < 0 )
+			return 0;
+		return blocks.uncompressedOffsets[block] + pos;
+	}
+
+	/**
+	 * Returns the total uncompressed size of the file.
+	 */
+	public long getUncompressedSize() {
+		return blocks.uncompressedSize;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if ( pos == limit && !nextBlock() )
+			return -1;
+		return buffer[pos++] & 0xFF;
+	}
+
+	@Override
+	public int read( byte[] b, int off, int len ) throws IOException {
+		if ( len == 0 )
+			return 0;
+
+		if ( pos == limit && !nextBlock() )
+			return -1;
+
+		int n = Math.min(len, limit - pos);
+		System.arraycopy(buffer, pos, b, off, n);
+		pos += n;
+		return n;
+	}
+
+	@Override
+	public int available() {
+		return limit - pos;
+	}
+
+	/**
+	 * Skips to the uncompressed offset getPosition() + n, loading only the block which
+	 * contains it.
+	 */
+	@Override
+	public long skip( long n ) throws IOException {
+		if ( n <= 0 )
+			return 0;
+
+		long from = getPosition();
+		long target = Math.min(from + n, blocks.uncompressedSize);
+
+		if ( block >= 0 && target < blocks.uncompressedOffsets[block] + limit ) {
+			pos = (int) (target - blocks.uncompressedOffsets[block]);
+		} else if ( target < blocks.uncompressedSize ) {
+			load(blocks.blockContaining(target));
+			pos = (int) (target - blocks.uncompressedOffsets[block]);
+		} else if ( blocks.blockCount() > 0 ) {
+			// Position at the end of the last block, without loading it.
+			block = blocks.blockCount() - 1;
+			pos = limit = (int) (blocks.uncompressedSize - blocks.uncompressedOffsets[block]);
+		}
+
+		return target - from;
+	}
+
+	@Override
+	public void close() throws IOException {
+		inflater.end();
+		raf.close();
+	}
+
+	private boolean nextBlock() throws IOException {
+		int next = block + 1;
+		while ( next < blocks.blockCount() && blocks.uncompressedEnd(next) == blocks.uncompressedOffsets[next] )
+			++next;
+
+		if ( next >= blocks.blockCount() )
+			return false;
+
+		load(next);
+		return true;
+	}
+
+	/*
+	 * Reads and inflates one gzip member, verifying its CRC and size.
+	 */
+	private void load( int index ) throws IOException {
+		long start = blocks.compressedOffsets[index];
+		int length = (int) (blocks.compressedEnd(index) - start);
+		if ( compressed.length < length )
+			compressed = new byte[length];
+
+		BlockIndex.readFully(channel, ByteBuffer.wrap(compressed, 0, length), start);
+
+		int size = (int) (blocks.uncompressedEnd(index) - blocks.uncompressedOffsets[index]);
+		if ( buffer.length < size )
+			buffer = new byte[size];
+
+		int header = headerLength(compressed, length, start);
+		inflater.reset();
+		inflater.setInput(compressed, header, length - header - 8);
+		try {
+			int n = 0;
+			while ( n < size && !inflater.finished() ) {
+				int inflated = inflater.inflate(buffer, n, size - n);
+				if ( inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()) )
+					break;
+				n += inflated;
+			}
+
+			if ( n != size )
+				throw new IOException("Block at offset " + start + " of " + file + " is corrupt: expected " + size + " bytes, inflated " + n);
+		} catch ( DataFormatException dfe ) {
+			throw new IOException("Block at offset " + start + " of " + file + " is corrupt", dfe);
+		}
+
+		crc.reset();
+		crc.update(buffer, 0, size);
+		int expected = (compressed[length - 8] & 0xFF) | (compressed[length - 7] & 0xFF) << 8
+				| (compressed[length - 6] & 0xFF) << 16 | (compressed[length - 5] & 0xFF) << 24;
+		if ( (int) crc.getValue() != expected )
+			throw new IOException("Block at offset " + start + " of " + file + " failed its CRC check");
+
+		block = index;
+		pos = 0;
+		limit = size;
+	}
+
+	private int headerLength( byte[] b, int length, long start ) throws IOException {
+		if ( length < 18 || b[0] != 0x1f || b[1] != (byte) 0x8b || b[2] != 8 )
+			throw new IOException("Block at offset " + start + " of " + file + " is not a gzip member");
+
+		int flags = b[3];
+		int at = 10;
+		if ( (flags & FEXTRA) != 0 )
+			at += 2 + ((b[at] & 0xFF) | (b[at + 1] & 0xFF) << 8);
+		if ( (flags & FNAME) != 0 )
+			while ( b[at++] != 0 ) {}
+		if ( (flags & FCOMMENT) != 0 )
+			while ( b[at++] != 0 ) {}
+		if ( (flags & FHCRC) != 0 )
+			at += 2;
+
+		return at;
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * <p>BlockCompressedLineRecordReader reads string records, one per line, from a file 
+ * written by {@link BlockCompressedOutputStream}.</p>
+ * 
+ * <p>Partitions and checkpoints are ranges and offsets of uncompressed bytes, and are read
+ * with the rules of {@link PartitionedLineRecordReader}; seeking to an offset uses the block
+ * index to decompress only the block which contains it. partition(File, int) divides the 
+ * file into groups of whole blocks, so several readers can decompress one file in 
+ * parallel.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class BlockCompressedLineRecordReader extends PartitionedLineRecordReader {
+	
+	public BlockCompressedLineRecordReader() {
+	}
+	
+	/**
+	 * Reads every line of the file.
+	 */
+	public BlockCompressedLineRecordReader( File file, Charset charset ) {
+		this( new FilePartition(file, 0, Long.MAX_VALUE), charset );
+	}
+	
+	/**
+	 * Reads the lines beginning within a partition of uncompressed offsets.
+	 */
+	public BlockCompressedLineRecordReader( FilePartition partition, Charset charset ) {
+		super( partition, charset );
+	}
+	
+	/**
+	 * Divides a block compressed file into at most count partitions of whole blocks, of 
+	 * roughly equal compressed size.
+	 */
+	public static List<FilePartition> partition( File file, int count ) {
+		if ( count < 1 )
+			throw new BatchException("Partition count must be at least 1, was " + count);
+		
+		BlockIndex blocks = BlockIndex.load(file);
+		List<FilePartition> partitions = new ArrayList<FilePartition>(count);
+		
+		long start = 0;
+		int block = 0;
+		for ( int i = 1; i < count; ++i ) {
+			long cut = blocks.compressedSize / count * i;
+			while ( block < blocks.blockCount() && blocks.compressedOffsets[block] < cut )
+				++block;
+			
+			if ( block == blocks.blockCount() )
+				break;
+			
+			long end = blocks.uncompressedOffsets[block];
+			if ( end > start ) {
+				partitions.add( new FilePartition(file, start, end) );
+				start = end;
+			}
+		}
+		
+		partitions.add( new FilePartition(file, start, blocks.uncompressedSize) );
+		return partitions;
+	}
+	
+	/**
+	 * Opens the file through its block index, so seeks decompress only the block they land in.
+	 */
+	@Override
+	protected InputStream openStream() throws IOException {
+		return new BlockCompressedInputStream( getPartition().getFile() );
+	}
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * <p>BlockCompressedOutputStream writes a gzip file as a sequence of independent gzip
+ * members, in the style of BGZF. Blocks are compressed concurrently on a thread pool and
+ * written in order, so compression is no longer limited to a single thread. The result is
+ * a standard gzip file, readable by gzip and GZIPInputStream.</p>
+ *
+ * <p>Blocks are cut after the last '\n' which fits in the block, so every block begins at
+ * the start of a line. For each block, the block's offset in the file and the uncompressed
+ * offset of its first byte are recorded in a side index, <code>&lt;file&gt;.idx</code>,
+ * which {@link BlockCompressedLineRecordReader} uses to seek and to partition the file.</p>
+ *
+ * <p>flush() ends the current block, and waits for all blocks to be written; after it
+ * returns, getCompressedOffset() is a valid restart point for truncate(long). The file is
+ * truncated to the restart point (the start of the file, unless truncate is called) when
+ * it is first written.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class BlockCompressedOutputStream extends OutputStream implements WritableByteChannel {
+	public final static int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+	private final static byte[] HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+	private final static int TRAILER_SIZE = 8;
+
+	private final File file;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private final int blockSize;
+	private final int maxInFlight;
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+	private final ConcurrentLinkedQueue<byte[]> buffers = new ConcurrentLinkedQueue<byte[]>();
+	private final ArrayDeque<Future<Block>> pending = new ArrayDeque<Future<Block>>();
+
+	private RandomAccessFile data;
+	private RandomAccessFile index;
+	private final ByteBuffer indexEntries = ByteBuffer.allocate(BlockIndex.ENTRY_SIZE * 256);
+
+	private byte[] block;
+	private int count;
+	private long restartOffset;
+	private long compressedOffset;
+	private long uncompressedOffset;
+	private boolean closed;
+
+	/**
+	 * Creates a stream compressing on a pool with one thread per available processor.
+	 */
+	public BlockCompressedOutputStream( File file ) {
+		this( file, null, DEFAULT_BLOCK_SIZE );
+	}
+
+	/**
+	 * @param file The file to write; the index is written to the same path, plus ".idx"
+	 * @param executor The pool to compress blocks on, or null to create one with a thread
+	 * per available processor, which is shut down when the stream is closed
+	 * @param blockSize The uncompressed size of each block
+	 */
+	public BlockCompressedOutputStream( File file, ExecutorService executor, int blockSize ) {
+		this.file = file;
+		this.blockSize = Math.max(blockSize, 1024);
+		this.block = new byte[this.blockSize];
+
+		if ( executor == null ) {
+			int threads = Runtime.getRuntime().availableProcessors();
+			this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				@Override
+				public Thread newThread( Runnable r ) {
+					Thread t = new Thread(r, "BlockCompressedOutputStream");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			this.ownsExecutor = true;
+			this.maxInFlight = threads * 2;
+		} else {
+			this.executor = executor;
+			this.ownsExecutor = false;
+			this.maxInFlight = Runtime.getRuntime().availableProcessors() * 2;
+		}
+	}
+
+	public void setCompressionLevel( int compressionLevel ) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * Sets the point at which writing resumes: a value of getCompressedOffset() obtained
+	 * after a flush(). The file and its index are truncated there when first written. Must
+	 * be called before anything is written.
+	 */
+	public void truncate( long offset ) {
+		if ( data != null )
+			throw new BatchException("BlockCompressedOutputStream can only be truncated before it is written");
+
+		this.restartOffset = offset;
+	}
+
+	/**
+	 * Returns the offset in the file following the last block written.
+	 */
+	public long getCompressedOffset() {
+		return compressedOffset;
+	}
+
+	/**
+	 * Returns the uncompressed offset following the last block written.
+	 */
+	public long getUncompressedOffset() {
+		return uncompressedOffset;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public void write( int b ) throws IOException {
+		ensureOpen();
+		if ( count == block.length )
+			endBlock(false);
+		block[count++] = (byte) b;
+	}
+
+	@Override
+	public void write( byte[] b, int off, int len ) throws IOException {
+		ensureOpen();
+		while ( len > 0 ) {
+			if ( count == block.length )
+				endBlock(false);
+
+			int n = Math.min(len, block.length - count);
+			System.arraycopy(b, off, block, count, n);
+			count += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public int write( ByteBuffer src ) throws IOException {
+		ensureOpen();
+		int written = src.remaining();
+		while ( src.hasRemaining() ) {
+			if ( count == block.length )
+				endBlock(false);
+
+			int n = Math.min(src.remaining(), block.length - count);
+			src.get(block, count, n);
+			count += n;
+		}
+		return written;
+	}
+
+	/**
+	 * Ends the current block, even if it is not full, and waits until every block has been
+	 * compressed and written.
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		if ( count > 0 )
+			endBlock(true);
+
+		while ( !pending.isEmpty() )
+			writeBlock(pending.poll());
+
+		flushIndex();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return !closed;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if ( closed )
+			return;
+
+		try {
+			flush();
+
+			// An empty gzip file still needs one member.
+			if ( compressedOffset == 0 ) {
+				pending.add(executor.submit(new Compression(new byte[0], 0)));
+				flush();
+			}
+		} finally {
+			closed = true;
+			if ( ownsExecutor )
+				executor.shutdown();
+
+			Deflater d;
+			while ( (d = deflaters.poll()) != null )
+				d.end();
+
+			try {
+				if ( data != null )
+					data.close();
+			} finally {
+				if ( index != null )
+					index.close();
+			}
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if ( closed )
+			throw new IOException("BlockCompressedOutputStream is closed");
+
+		if ( data != null )
+			return;
+
+		data = new RandomAccessFile(file, "rw");
+		index = new RandomAccessFile(BlockIndex.indexFileFor(file), "rw");
+
+		FileChannel indexChannel = index.getChannel();
+		if ( restartOffset == 0 ) {
+			data.setLength(0);
+			index.setLength(0);
+			return;
+		}
+
+		// Keep the index entries of the blocks before the restart point, and recover the
+		// uncompressed offset from the size of the last block kept.
+		long entries = index.length() / BlockIndex.ENTRY_SIZE;
+		long low = 0;
+		long high = entries;
+		ByteBuffer entry = ByteBuffer.allocate(BlockIndex.ENTRY_SIZE);
+		while ( low < high ) {
+			long mid = (low + high) >>> 1;
+			entry.clear();
+			BlockIndex.readFully(indexChannel, entry, mid * BlockIndex.ENTRY_SIZE);
+			if ( entry.getLong(0) < restartOffset )
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		if ( low == 0 )
+			throw new BatchException("No block ends at offset " + restartOffset + " of " + file);
+
+		entry.clear();
+		BlockIndex.readFully(indexChannel, entry, (low - 1) * BlockIndex.ENTRY_SIZE);
+
+		compressedOffset = restartOffset;
+		uncompressedOffset = entry.getLong(8) + BlockIndex.trailingSize(data.getChannel(), restartOffset);
+
+		data.setLength(restartOffset);
+		index.setLength(low * BlockIndex.ENTRY_SIZE);
+	}
+
+	/*
+	 * Submits the current block for compression. Unless forced, the block is cut after its
+	 * last '\n', and the remainder carried into the next block; a full block without any
+	 * '\n' is grown instead.
+	 */
+	private void endBlock( boolean force ) throws IOException {
+		int cut = count;
+		if ( !force ) {
+			cut = lastNewline(block, count) + 1;
+			if ( cut == 0 ) {
+				byte[] grown = new byte[block.length * 2];
+				System.arraycopy(block, 0, grown, 0, count);
+				block = grown;
+				return;
+			}
+		}
+
+		int carry = count - cut;
+		byte[] next = buffers.poll();
+		if ( next == null || next.length < carry )
+			next = new byte[Math.max(blockSize, carry * 2)];
+		System.arraycopy(block, cut, next, 0, carry);
+
+		pending.add(executor.submit(new Compression(block, cut)));
+		block = next;
+		count = carry;
+
+		while ( pending.size() > maxInFlight || ( !pending.isEmpty() && pending.peek().isDone() ) )
+			writeBlock(pending.poll());
+	}
+
+	private static int lastNewline( byte[] b, int end ) {
+		for ( int i = end - 1; i >= 0; --i ) {
+			if ( b[i] == '\n' )
+				return i;
+		}
+		return -1;
+	}
+
+	private void writeBlock( Future<Block> future ) throws IOException {
+		Block compressed;
+		try {
+			compressed = future.get();
+		} catch ( InterruptedException ie ) {
+			Thread.currentThread().interrupt();
+			throw new BatchException("Interrupted while compressing " + file, ie);
+		} catch ( ExecutionException ee ) {
+			throw new BatchException("Unexpected error while compressing " + file, ee.getCause());
+		}
+
+		if ( indexEntries.remaining() < BlockIndex.ENTRY_SIZE )
+			flushIndex();
+		indexEntries.putLong(compressedOffset).putLong(uncompressedOffset);
+
+		ByteBuffer out = ByteBuffer.wrap(compressed.data, 0, compressed.length);
+		FileChannel channel = data.getChannel();
+		while ( out.hasRemaining() )
+			channel.write(out, compressedOffset + out.position());
+
+		compressedOffset += compressed.length;
+		uncompressedOffset += compressed.uncompressedLength;
+	}
+
+	private void flushIndex() throws IOException {
+		indexEntries.flip();
+		FileChannel channel = index.getChannel();
+		long position = index.length();
+		while ( indexEntries.hasRemaining() )
+			position += channel.write(indexEntries, position);
+		indexEntries.clear();
+	}
+
+	private final static class Block {
+		final byte[] data;
+		final int length;
+		final int uncompressedLength;
+
+		Block( byte[] data, int length, int uncompressedLength ) {
+			this.data = data;
+			this.length = length;
+			this.uncompressedLength = uncompressedLength;
+		}
+	}
+
+	/*
+	 * Compresses one block into a complete gzip member, then returns its input buffer and
+	 * deflater to their pools.
+	 */
+	private final class Compression implements Callable<Block> {
+		private final byte[] input;
+		private final int length;
+
+		Compression( byte[] input, int length ) {
+			this.input = input;
+			this.length = length;
+		}
+
+		@Override
+		public Block call() {
+			Deflater deflater = deflaters.poll();
+			if ( deflater == null )
+				deflater = new Deflater(compressionLevel, true);
+
+			try {
+				CRC32 crc = new CRC32();
+				crc.update(input, 0, length);
+
+				byte[] out = new byte[HEADER.length + length + (length >>> 6) + 64 + TRAILER_SIZE];
+				System.arraycopy(HEADER, 0, out, 0, HEADER.length);
+				int n = HEADER.length;
+
+				deflater.setInput(input, 0, length);
+				deflater.finish();
+				while ( !deflater.finished() ) {
+					if ( n == out.length - TRAILER_SIZE ) {
+						byte[] grown = new byte[out.length * 2];
+						System.arraycopy(out, 0, grown, 0, n);
+						out = grown;
+					}
+					n += deflater.deflate(out, n, out.length - TRAILER_SIZE - n);
+				}
+
+				n = putIntLE(out, n, (int) crc.getValue());
+				n = putIntLE(out, n, length);
+				return new Block(out, n, length);
+			} finally {
+				deflater.reset();
+				deflaters.add(deflater);
+				if ( input.length == blockSize )
+					buffers.add(input);
+			}
+		}
+
+		private int putIntLE( byte[] b, int at, int value ) {
+			b[at] = (byte) value;
+			b[at + 1] = (byte) (value >>> 8);
+			b[at + 2] = (byte) (value >>> 16);
+			b[at + 3] = (byte) (value >>> 24);
+			return at + 4;
+		}
+	}
+}
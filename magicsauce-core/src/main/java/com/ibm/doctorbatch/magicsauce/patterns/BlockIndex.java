@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/*
+ * The side index of a block compressed file: for each gzip member, the offset of the
+ * member in the file and the uncompressed offset of its first byte, stored as pairs of
+ * big-endian longs in <file>.idx.
+ */
+final class BlockIndex {
+	final static String SUFFIX = ".idx";
+	final static int ENTRY_SIZE = 16;
+
+	final long[] compressedOffsets;
+	final long[] uncompressedOffsets;
+	final long compressedSize;
+	final long uncompressedSize;
+
+	private BlockIndex( long[] compressedOffsets, long[] uncompressedOffsets, long compressedSize, long uncompressedSize ) {
+		this.compressedOffsets = compressedOffsets;
+		this.uncompressedOffsets = uncompressedOffsets;
+		this.compressedSize = compressedSize;
+		this.uncompressedSize = uncompressedSize;
+	}
+
+	static File indexFileFor( File file ) {
+		return new File(file.getPath() + SUFFIX);
+	}
+
+	int blockCount() {
+		return compressedOffsets.length;
+	}
+
+	/*
+	 * Returns the block containing the given uncompressed offset: the last block starting
+	 * at or before it.
+	 */
+	int blockContaining( long uncompressedOffset ) {
+		int low = 0;
+		int high = uncompressedOffsets.length - 1;
+		while ( low < high ) {
+			int mid = (low + high + 1) >>> 1;
+			if ( uncompressedOffsets[mid] <= uncompressedOffset )
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		return low;
+	}
+
+	long compressedEnd( int block ) {
+		return ( block + 1 < compressedOffsets.length ) ? compressedOffsets[block + 1] : compressedSize;
+	}
+
+	long uncompressedEnd( int block ) {
+		return ( block + 1 < uncompressedOffsets.length ) ? uncompressedOffsets[block + 1] : uncompressedSize;
+	}
+
+	static BlockIndex load( File file ) {
+		File indexFile = indexFileFor(file);
+		if ( !indexFile.exists() )
+			throw new BatchException("Block index " + indexFile + " not found");
+
+		RandomAccessFile data = null;
+		RandomAccessFile index = null;
+		try {
+			data = new RandomAccessFile(file, "r");
+			index = new RandomAccessFile(indexFile, "r");
+
+			int count = (int) (index.length() / ENTRY_SIZE);
+			ByteBuffer entries = ByteBuffer.allocate(count * ENTRY_SIZE);
+			readFully(index.getChannel(), entries, 0);
+			entries.flip();
+
+			long[] compressed = new long[count];
+			long[] uncompressed = new long[count];
+			for ( int i = 0; i < count; ++i ) {
+				compressed[i] = entries.getLong();
+				uncompressed[i] = entries.getLong();
+			}
+
+			long compressedSize = data.length();
+			long uncompressedSize = 0;
+			if ( count > 0 )
+				uncompressedSize = uncompressed[count - 1] + trailingSize(data.getChannel(), compressedSize);
+
+			return new BlockIndex(compressed, uncompressed, compressedSize, uncompressedSize);
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while loading block index " + indexFile, ioe);
+		} finally {
+			close(data);
+			close(index);
+		}
+	}
+
+	/*
+	 * Reads the ISIZE field of the gzip member ending at the given offset.
+	 */
+	static long trailingSize( FileChannel channel, long end ) throws IOException {
+		ByteBuffer isize = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, isize, end - 4);
+		return isize.getInt(0) & 0xFFFFFFFFL;
+	}
+
+	static void readFully( FileChannel channel, ByteBuffer buffer, long position ) throws IOException {
+		while ( buffer.hasRemaining() ) {
+			int n = channel.read(buffer, position);
+			if ( n < 0 )
+				throw new IOException("Unexpected end of file at offset " + position);
+			position += n;
+		}
+	}
+
+	private static void close( RandomAccessFile raf ) {
+		try {
+			if ( raf != null )
+				raf.close();
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while closing block index", ioe);
+		}
+	}
+}
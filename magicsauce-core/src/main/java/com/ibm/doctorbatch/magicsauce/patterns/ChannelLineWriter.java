@@ -0,0 +1,203 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * <p>ChannelLineWriter is the output engine behind SingleLineRecordWriter. Each record is
+ * copied into a reusable char[] and encoded, together with the line separator, straight
+ * into a large reusable byte buffer, which is written to the channel according to the
+ * configured {@link FlushPolicy}. No String is created per record.</p>
+ *
+ * <p>For ASCII compatible charsets, ASCII characters are stored into the buffer directly;
+ * the charset encoder is only used for records which contain other characters.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class ChannelLineWriter {
+	private final WritableByteChannel channel;
+	private final CharsetEncoder encoder;
+	private final boolean asciiCompatible;
+	private final ByteBuffer bytes;
+
+	private char[] chars = new char[1024];
+	private CharBuffer charView = CharBuffer.wrap(chars);
+	private char[] separator = { '\n' };
+
+	private FlushPolicy flushPolicy = FlushPolicy.CHECKPOINT;
+	private long flushThreshold = Long.MAX_VALUE;
+	private long pendingRecords;
+	private long bytesWritten;
+
+	public ChannelLineWriter( WritableByteChannel channel, Charset charset, int bufferSize ) {
+		this.channel = channel;
+		this.encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.asciiCompatible = LineScanner.isAsciiCompatible(charset);
+		this.bytes = ByteBuffer.allocate(Math.max(bufferSize, 64));
+	}
+
+	public void setLineSeparator( String lineSeparator ) {
+		this.separator = lineSeparator.toCharArray();
+	}
+
+	/**
+	 * Sets when buffered output is written to the channel. The threshold is a number of
+	 * bytes for FlushPolicy.BYTES, a number of records for FlushPolicy.RECORDS, and is
+	 * ignored for FlushPolicy.CHECKPOINT.
+	 */
+	public void setFlushPolicy( FlushPolicy flushPolicy, long threshold ) {
+		this.flushPolicy = flushPolicy;
+		this.flushThreshold = threshold;
+	}
+
+	public FlushPolicy getFlushPolicy() {
+		return flushPolicy;
+	}
+
+	/**
+	 * Appends a record, followed by the line separator.
+	 */
+	public void write( CharSequence record ) {
+		int length = record.length();
+		int total = length + separator.length;
+		if ( chars.length < total ) {
+			chars = new char[Math.max(total, chars.length * 2)];
+			charView = CharBuffer.wrap(chars);
+		}
+
+		if ( record instanceof String ) {
+			((String) record).getChars(0, length, chars, 0);
+		} else {
+			for ( int i = 0; i < length; ++i )
+				chars[i] = record.charAt(i);
+		}
+		System.arraycopy(separator, 0, chars, length, separator.length);
+
+		encode(total);
+		++pendingRecords;
+
+		if ( flushPolicy == FlushPolicy.BYTES && bytes.position() >= flushThreshold )
+			flush();
+		else if ( flushPolicy == FlushPolicy.RECORDS && pendingRecords >= flushThreshold )
+			flush();
+	}
+
+	/**
+	 * Writes all buffered output to the channel.
+	 */
+	public void flush() {
+		drain();
+		pendingRecords = 0;
+	}
+
+	/**
+	 * Returns the number of bytes written to the channel, not counting buffered output.
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * Returns the number of bytes buffered but not yet written to the channel.
+	 */
+	public int getBufferedBytes() {
+		return bytes.position();
+	}
+
+	private void encode( int length ) {
+		int i = 0;
+
+		if ( asciiCompatible ) {
+			byte[] out = bytes.array();
+			int p = bytes.position();
+
+			while ( i < length ) {
+				char c = chars[i];
+				if ( c >= 0x80 )
+					break;
+
+				if ( p == out.length ) {
+					bytes.position(p);
+					drain();
+					p = 0;
+				}
+
+				out[p++] = (byte) c;
+				++i;
+			}
+
+			bytes.position(p);
+			if ( i == length )
+				return;
+		}
+
+		// The encoder is never reset between records, so charsets with a byte order mark
+		// only write it once, at the start of the output.
+		charView.limit(length).position(i);
+
+		while ( true ) {
+			CoderResult result = encoder.encode(charView, bytes, false);
+
+			if ( result.isOverflow() ) {
+				drain();
+				continue;
+			}
+
+			if ( result.isUnderflow() )
+				break;
+
+			try {
+				result.throwException();
+			} catch ( CharacterCodingException cce ) {
+				throw new BatchException("Unable to encode record", cce);
+			}
+		}
+
+		// A record ending in an unpaired high surrogate leaves it unconsumed.
+		if ( charView.hasRemaining() ) {
+			byte[] replacement = encoder.replacement();
+			if ( bytes.remaining() < replacement.length )
+				drain();
+			bytes.put(replacement);
+		}
+	}
+
+	private void drain() {
+		bytes.flip();
+		try {
+			while ( bytes.hasRemaining() )
+				bytesWritten += channel.write(bytes);
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while writing records", ioe);
+		} finally {
+			bytes.clear();
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.math.BigDecimal;
+
+/**
+ * <p>CharSlice is a mutable, reusable CharSequence view over a region of a char[]. The
+ * readers in this package hand out CharSlice instances which point directly into their
+ * internal buffers, so that a record can be inspected without copying it into a new String.</p>
+ *
+ * <p>A CharSlice returned by a reader is only valid until the next call to that reader. Call
+ * toString() to obtain a stable copy of the content.</p>
+ *
+ * <p>Numeric content can be parsed directly from the backing array with parseInt(),
+ * parseLong() and parseDecimal(). Leading and trailing whitespace is ignored.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public final class CharSlice implements CharSequence {
+	private char[] chars;
+	private int offset;
+	private int length;
+
+	public CharSlice() {
+		this(new char[0], 0, 0);
+	}
+
+	public CharSlice(char[] chars, int offset, int length) {
+		set(chars, offset, length);
+	}
+
+	/**
+	 * Points this slice at a new region of a char[].
+	 *
+	 * @param chars The backing array
+	 * @param offset The offset of the first character in the slice
+	 * @param length The number of characters in the slice
+	 * @return this slice
+	 */
+	public CharSlice set(char[] chars, int offset, int length) {
+		this.chars = chars;
+		this.offset = offset;
+		this.length = length;
+		return this;
+	}
+
+	public char[] getChars() {
+		return chars;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if ( index < 0 || index >= length )
+			throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+		return chars[offset + index];
+	}
+
+	/**
+	 * Returns a new slice sharing this slice's backing array.
+	 */
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if ( start < 0 || end > length || start > end )
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+		return new CharSlice(chars, offset + start, end - start);
+	}
+
+	/**
+	 * Parses the slice as a signed decimal int.
+	 *
+	 * @throws NumberFormatException if the slice is not a valid int
+	 */
+	public int parseInt() {
+		long value = parseLong();
+		if ( value < Integer.MIN_VALUE || value > Integer.MAX_VALUE )
+			throw numberFormatException();
+		return (int) value;
+	}
+
+	/**
+	 * Parses the slice as a signed decimal long, with the same rules as Long.parseLong.
+	 *
+	 * @throws NumberFormatException if the slice is not a valid long
+	 */
+	public long parseLong() {
+		int i = trimmedStart();
+		int end = trimmedEnd(i);
+		if ( i == end )
+			throw numberFormatException();
+
+		boolean negative = false;
+		char first = chars[i];
+		if ( first == '-' || first == '+' ) {
+			negative = (first == '-');
+			if ( ++i == end )
+				throw numberFormatException();
+		}
+
+		// Accumulate negatively, as Long.parseLong does, so that Long.MIN_VALUE parses.
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multiplyLimit = limit / 10;
+		long result = 0;
+		for ( ; i < end; ++i ) {
+			int digit = chars[i] - '0';
+			if ( digit < 0 || digit > 9 || result < multiplyLimit )
+				throw numberFormatException();
+
+			result *= 10;
+			if ( result < limit + digit )
+				throw numberFormatException();
+			result -= digit;
+		}
+
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Parses the slice as a BigDecimal, without creating an intermediate String.
+	 *
+	 * @throws NumberFormatException if the slice is not a valid decimal
+	 */
+	public BigDecimal parseDecimal() {
+		int start = trimmedStart();
+		int end = trimmedEnd(start);
+		if ( start == end )
+			throw numberFormatException();
+		return new BigDecimal(chars, start, end - start);
+	}
+
+	private int trimmedStart() {
+		int i = offset;
+		int end = offset + length;
+		while ( i < end && chars[i] <= ' ' )
+			++i;
+		return i;
+	}
+
+	private int trimmedEnd(int start) {
+		int end = offset + length;
+		while ( end > start && chars[end - 1] <= ' ' )
+			--end;
+		return end;
+	}
+
+	private NumberFormatException numberFormatException() {
+		return new NumberFormatException("For input string: \"" + toString() + "\"");
+	}
+
+	@Override
+	public String toString() {
+		return new String(chars, offset, length);
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static com.ibm.doctorbatch.magicsauce.Constants.COLUMN_LAYOUT;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * <p>ColumnLayout describes the named columns of a fixed-width record, each by its 0-based
+ * character offset and length.</p>
+ * 
+ * <p>Layouts are usually defined in job step properties, one column per property, using 
+ * COLUMN_LAYOUT.1, COLUMN_LAYOUT.2, ..., COLUMN_LAYOUT.N, where the numbering starts at one 
+ * and counts sequentially. The value of each property is NAME:OFFSET:LENGTH, for example:</p>
+ * <pre>{@code
+ *   <prop name="COLUMN_LAYOUT.1" value="ACCOUNT:0:10"/>
+ *   <prop name="COLUMN_LAYOUT.2" value="NAME:10:30"/>
+ *   <prop name="COLUMN_LAYOUT.3" value="BALANCE:40:12"/>
+ * }</pre>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class ColumnLayout {
+	private final List<String> names = new ArrayList<String>();
+	private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+	private int[] offsets = new int[16];
+	private int[] lengths = new int[16];
+	
+	/**
+	 * Reads a layout from the COLUMN_LAYOUT.1 ... COLUMN_LAYOUT.N properties.
+	 */
+	public static ColumnLayout fromProperties( Properties props ) {
+		return fromProperties( props, COLUMN_LAYOUT );
+	}
+	
+	/**
+	 * Reads a layout from the prefix.1 ... prefix.N properties.
+	 */
+	public static ColumnLayout fromProperties( Properties props, String prefix ) {
+		ColumnLayout layout = new ColumnLayout();
+		
+		int i = 1;
+		while ( true ) {
+			String column = props.getProperty(prefix + "." + i++, "");
+			if ( column.isEmpty() )
+				break;
+			
+			String[] parts = column.split(":");
+			if ( parts.length != 3 )
+				throw new BatchException("Column definition " + prefix + "." + (i - 1) + "=" + column + " is not of the form NAME:OFFSET:LENGTH");
+			
+			try {
+				layout.addColumn( parts[0].trim(), Integer.parseInt(parts[1].trim()), Integer.parseInt(parts[2].trim()) );
+			} catch ( NumberFormatException nfe ) {
+				throw new BatchException("Column definition " + prefix + "." + (i - 1) + "=" + column + " is not of the form NAME:OFFSET:LENGTH", nfe);
+			}
+		}
+		
+		if ( layout.getColumnCount() == 0 )
+			throw new BatchException("No columns defined; set " + prefix + ".1 ... " + prefix + ".N");
+		
+		return layout;
+	}
+	
+	/**
+	 * Adds a column to the layout.
+	 * 
+	 * @return this layout
+	 */
+	public ColumnLayout addColumn( String name, int offset, int length ) {
+		if ( offset < 0 || length < 0 )
+			throw new BatchException("Column " + name + " has a negative offset or length");
+		if ( indexes.containsKey(name) )
+			throw new BatchException("Column " + name + " is defined more than once");
+		
+		int index = names.size();
+		if ( index == offsets.length ) {
+			int[] o = new int[index * 2];
+			System.arraycopy(offsets, 0, o, 0, index);
+			offsets = o;
+			
+			int[] l = new int[index * 2];
+			System.arraycopy(lengths, 0, l, 0, index);
+			lengths = l;
+		}
+		
+		names.add(name);
+		indexes.put(name, Integer.valueOf(index));
+		offsets[index] = offset;
+		lengths[index] = length;
+		return this;
+	}
+	
+	public int getColumnCount() {
+		return names.size();
+	}
+	
+	/**
+	 * Returns the index of the named column.
+	 * 
+	 * @throws BatchException if the layout has no such column
+	 */
+	public int indexOf( String name ) {
+		Integer index = indexes.get(name);
+		if ( index == null )
+			throw new BatchException("Column " + name + " is not defined in the layout");
+		return index.intValue();
+	}
+	
+	public String getName( int index ) {
+		return names.get(index);
+	}
+	
+	public int getOffset( int index ) {
+		return offsets[index];
+	}
+	
+	public int getLength( int index ) {
+		return lengths[index];
+	}
+	
+	public List<String> getNames() {
+		return Collections.unmodifiableList(names);
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.math.BigDecimal;
+
+/**
+ * <p>DelimitedRecord is a reusable view of one record read by {@link DelimitedRecordReader}.
+ * Fields are exposed as {@link CharSlice} views into the reader's buffer, and numeric
+ * fields are parsed in place, so reading a field does not create a String unless
+ * getString(int) is called.</p>
+ *
+ * <p>The reader returns the same DelimitedRecord instance for every record, and the
+ * content of the view is only valid until the next read.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public final class DelimitedRecord {
+	private char[][] arrays = new char[16][];
+	private int[] offsets = new int[16];
+	private int[] lengths = new int[16];
+	private CharSlice[] slices = new CharSlice[16];
+	private int count;
+	private long recordNumber;
+	private char delimiter;
+
+	DelimitedRecord( char delimiter ) {
+		this.delimiter = delimiter;
+	}
+
+	void reset( long recordNumber ) {
+		this.count = 0;
+		this.recordNumber = recordNumber;
+	}
+
+	void setDelimiter( char delimiter ) {
+		this.delimiter = delimiter;
+	}
+
+	void addField( char[] array, int offset, int length ) {
+		if ( count == offsets.length )
+			grow();
+
+		arrays[count] = array;
+		offsets[count] = offset;
+		lengths[count] = length;
+		++count;
+	}
+
+	/**
+	 * Returns the number of fields in this record.
+	 */
+	public int getFieldCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the 1-based number of this record in the input.
+	 */
+	public long getRecordNumber() {
+		return recordNumber;
+	}
+
+	/**
+	 * Returns a view of a field. The same CharSlice instance is returned for a given index
+	 * on every record.
+	 *
+	 * @param index The 0-based index of the field
+	 */
+	public CharSlice getField( int index ) {
+		checkIndex(index);
+
+		CharSlice slice = slices[index];
+		if ( slice == null )
+			slice = slices[index] = new CharSlice();
+
+		return slice.set(arrays[index], offsets[index], lengths[index]);
+	}
+
+	public String getString( int index ) {
+		checkIndex(index);
+		return new String(arrays[index], offsets[index], lengths[index]);
+	}
+
+	public int getInt( int index ) {
+		return getField(index).parseInt();
+	}
+
+	public long getLong( int index ) {
+		return getField(index).parseLong();
+	}
+
+	public BigDecimal getDecimal( int index ) {
+		return getField(index).parseDecimal();
+	}
+
+	public boolean isEmpty( int index ) {
+		checkIndex(index);
+		return lengths[index] == 0;
+	}
+
+	/**
+	 * Copies every field into a new String[], as String.split would return.
+	 */
+	public String[] toArray() {
+		String[] fields = new String[count];
+		for ( int i = 0; i < count; ++i )
+			fields[i] = new String(arrays[i], offsets[i], lengths[i]);
+		return fields;
+	}
+
+	/**
+	 * Returns the fields joined by the delimiter, without quoting.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for ( int i = 0; i < count; ++i ) {
+			if ( i > 0 )
+				sb.append(delimiter);
+			sb.append(arrays[i], offsets[i], lengths[i]);
+		}
+		return sb.toString();
+	}
+
+	private void checkIndex( int index ) {
+		if ( index < 0 || index >= count )
+			throw new IndexOutOfBoundsException("Field " + index + " of record " + recordNumber + ", which has " + count + " fields");
+	}
+
+	private void grow() {
+		int size = offsets.length * 2;
+
+		char[][] a = new char[size][];
+		System.arraycopy(arrays, 0, a, 0, count);
+		arrays = a;
+
+		int[] o = new int[size];
+		System.arraycopy(offsets, 0, o, 0, count);
+		offsets = o;
+
+		int[] l = new int[size];
+		System.arraycopy(lengths, 0, l, 0, count);
+		lengths = l;
+
+		CharSlice[] s = new CharSlice[size];
+		System.arraycopy(slices, 0, s, 0, slices.length);
+		slices = s;
+	}
+}
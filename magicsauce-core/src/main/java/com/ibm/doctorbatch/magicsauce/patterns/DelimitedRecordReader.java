@@ -0,0 +1,484 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.Reader;
+
+/**
+ * <p>DelimitedRecordReader reads delimited records (CSV, pipe or tab separated) and splits
+ * them into fields in place, in its input buffer. Each call to read() returns the same
+ * {@link DelimitedRecord} view, repointed at the fields of the next record, so no String or
+ * String[] is created per record.</p>
+ *
+ * <p>Records end at '\n' or '\r\n', or at the end of the input, where a final '\r' is
+ * also taken as the terminator. A field which begins with the quote character (by
+ * default '"') extends to the matching closing quote, and may contain delimiters and line
+ * breaks. Within a quoted field, the escape character makes the following character
+ * literal; by default the escape character is the quote itself, so a doubled quote
+ * stands for one quote, as in RFC 4180. Setting a distinct escape character, such as '\\',
+ * also allows delimiters to be escaped in unquoted fields. Only fields which contain
+ * escapes are copied, to remove the escape characters.</p>
+ *
+ * <p>Subclasses set the source in open(Serializable), and restart by calling seek(state)
+ * with the {@link LineCheckpoint} returned by getState(). For a stream in UTF-8 or in a
+ * single byte encoding, the checkpoint holds the byte offset of the next record, and seek
+ * skips directly to it; otherwise, seek reads past the records already read.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public abstract class DelimitedRecordReader implements Reader<DelimitedRecord> {
+	public final static int DEFAULT_MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+	/*
+	 * Returned by parse when the record continues past the end of the buffer.
+	 */
+	private final static int NEED_INPUT = -1;
+
+	/*
+	 * How the byte length of a record is found from its characters.
+	 */
+	private final static int UNKNOWN_BYTES = 0;
+	private final static int SINGLE_BYTES = 1;
+	private final static int UTF8_BYTES = 2;
+
+	private char delimiter = ',';
+	private char quote = '"';
+	private char escape = '"';
+	private int bufferSize = LineScanner.DEFAULT_BUFFER_SIZE;
+	private int maxRecordSize = DEFAULT_MAX_RECORD_SIZE;
+
+	private final DelimitedRecord record = new DelimitedRecord(delimiter);
+	private long recordNumber;
+
+	private java.io.Reader source;
+	private InputStream stream;
+	private int encoding;
+	private long position;
+	private char[] buffer;
+	private int pos;
+	private int limit;
+	private boolean eof;
+
+	private char[] unescaped = new char[256];
+	private int unescapedLength;
+
+	/**
+	 * Reads records from an already decoded source. Checkpoints of such a source hold no
+	 * byte offset.
+	 */
+	public void setSource( java.io.Reader source ) {
+		setSource( source, null, UNKNOWN_BYTES );
+	}
+
+	/**
+	 * Reads records from the given stream, in the given encoding.
+	 */
+	public void setSource( InputStream in, Charset charset ) {
+		int encoding = UNKNOWN_BYTES;
+		if ( "UTF-8".equals(charset.name()) )
+			encoding = UTF8_BYTES;
+		else if ( charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f )
+			encoding = SINGLE_BYTES;
+
+		setSource( new InputStreamReader(in, charset.newDecoder()), in, encoding );
+	}
+
+	private void setSource( java.io.Reader source, InputStream stream, int encoding ) {
+		this.source = source;
+		this.stream = stream;
+		this.encoding = encoding;
+		this.position = ( encoding == UNKNOWN_BYTES ? -1 : 0 );
+		this.buffer = new char[Math.max(bufferSize, 64)];
+		this.pos = 0;
+		this.limit = 0;
+		this.eof = false;
+	}
+
+	protected java.io.Reader getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the next record, or null if the end of the input has been reached. The same
+	 * DelimitedRecord instance is returned for every record.
+	 */
+	@Override
+	public DelimitedRecord read() {
+		while ( true ) {
+			if ( eof && pos == limit )
+				return null;
+
+			int end = parse(pos);
+			if ( end != NEED_INPUT ) {
+				if ( position >= 0 )
+					position += byteLength(buffer, pos, end);
+				pos = end;
+				++recordNumber;
+				return record;
+			}
+
+			if ( limit - pos > maxRecordSize )
+				throw new BatchException("Record " + (recordNumber + 1) + " exceeds the maximum record size of " + maxRecordSize + " characters");
+
+			fill();
+		}
+	}
+
+	/**
+	 * Returns a LineCheckpoint holding the byte offset of the next record, and the number
+	 * of records read. The offset is -1 when the source's encoding does not allow it to be
+	 * tracked.
+	 */
+	@Override
+	public Serializable getState() {
+		return new LineCheckpoint( position, recordNumber );
+	}
+
+	/**
+	 * Positions the current source after the records counted by a state returned from
+	 * getState(). Must be called before the first record is read from the source. A null
+	 * state leaves the source at its start.
+	 *
+	 * @param state A LineCheckpoint, or null
+	 */
+	public void seek( Serializable state ) {
+		if ( state == null )
+			return;
+
+		if ( !(state instanceof LineCheckpoint) )
+			throw new BatchException("Unsupported checkpoint state for " + getClass().getName() + ": " + state);
+
+		LineCheckpoint checkpoint = (LineCheckpoint) state;
+		if ( checkpoint.getByteOffset() >= 0 && position >= 0 ) {
+			skipBytes( checkpoint.getByteOffset() );
+			recordNumber = checkpoint.getLineNumber();
+			return;
+		}
+
+		long target = checkpoint.getLineNumber();
+		while ( recordNumber < target ) {
+			if ( read() == null )
+				throw new BatchException("Input ended before record " + target + " was reached");
+		}
+	}
+
+	/*
+	 * Skips the given number of bytes of the stream, which must not have been read yet.
+	 */
+	private void skipBytes( long offset ) {
+		if ( position != 0 || limit != 0 )
+			throw new BatchException("DelimitedRecordReader can only seek before the first record is read");
+
+		try {
+			long remaining = offset;
+			while ( remaining > 0 ) {
+				long n = stream.skip(remaining);
+				if ( n <= 0 ) {
+					if ( stream.read() < 0 )
+						throw new BatchException("Position " + offset + " is beyond the end of the stream");
+					n = 1;
+				}
+				remaining -= n;
+			}
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while positioning stream at " + offset, ioe);
+		}
+
+		position = offset;
+	}
+
+	/*
+	 * Returns the number of bytes which encode chars[from,to) in the source's encoding.
+	 * Records end at a line feed, so a record never splits a surrogate pair, and each half
+	 * of a pair counts for two of the pair's four UTF-8 bytes.
+	 */
+	private int byteLength( char[] chars, int from, int to ) {
+		if ( encoding == SINGLE_BYTES )
+			return to - from;
+
+		int bytes = to - from;
+		for ( int i = from; i < to; ++i ) {
+			char c = chars[i];
+			if ( c >= 0x80 )
+				bytes += ( c < 0x800 || (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) ) ? 1 : 2;
+		}
+		return bytes;
+	}
+
+	/*
+	 * Splits the record starting at buffer[start] into the record view. Returns the offset
+	 * following the record's terminator, or NEED_INPUT if more input must be read first; in
+	 * that case the record is parsed again from its start after the buffer is filled.
+	 */
+	private int parse( int start ) {
+		final char[] w = buffer;
+		final int end = limit;
+		final char d = delimiter;
+		final char q = quote;
+		final char e = escape;
+		final boolean quoteEscapes = ( e == q );
+
+		record.reset(recordNumber + 1);
+		unescapedLength = 0;
+
+		int i = start;
+		while ( true ) {
+			if ( i == end ) {
+				if ( !eof )
+					return NEED_INPUT;
+				record.addField(w, i, 0);
+				return i;
+			}
+
+			if ( w[i] == q ) {
+				// Quoted field: find the closing quote, unescaping as required
+				int from = i + 1;
+				int run = from;
+				int mark = -1;
+				int j = from;
+
+				while ( true ) {
+					if ( j == end ) {
+						if ( !eof )
+							return NEED_INPUT;
+						throw new BatchException("Unterminated quoted field in record " + (recordNumber + 1));
+					}
+
+					char c = w[j];
+					if ( c == q ) {
+						if ( quoteEscapes ) {
+							if ( j + 1 == end && !eof )
+								return NEED_INPUT;
+							if ( j + 1 < end && w[j + 1] == q ) {
+								if ( mark < 0 )
+									mark = unescapedLength;
+								appendUnescaped(w, run, j - run);
+								appendUnescaped(w, j + 1, 1);
+								j += 2;
+								run = j;
+								continue;
+							}
+						}
+						break;
+					}
+
+					if ( c == e ) {
+						if ( j + 1 == end ) {
+							if ( !eof )
+								return NEED_INPUT;
+							throw new BatchException("Escape character at the end of the input in record " + (recordNumber + 1));
+						}
+						if ( mark < 0 )
+							mark = unescapedLength;
+						appendUnescaped(w, run, j - run);
+						appendUnescaped(w, j + 1, 1);
+						j += 2;
+						run = j;
+						continue;
+					}
+
+					++j;
+				}
+
+				if ( mark < 0 ) {
+					record.addField(w, from, j - from);
+				} else {
+					appendUnescaped(w, run, j - run);
+					record.addField(unescaped, mark, unescapedLength - mark);
+				}
+
+				// After the closing quote: a delimiter, the end of the record, or the end of input
+				int k = j + 1;
+				if ( k == end ) {
+					if ( !eof )
+						return NEED_INPUT;
+					return k;
+				}
+
+				char c = w[k];
+				if ( c == d ) {
+					i = k + 1;
+					continue;
+				}
+				if ( c == '\n' )
+					return k + 1;
+				if ( c == '\r' ) {
+					if ( k + 1 == end && !eof )
+						return NEED_INPUT;
+					if ( k + 1 == end )
+						return k + 1;
+					if ( w[k + 1] == '\n' )
+						return k + 2;
+				}
+
+				throw new BatchException("Unexpected character '" + c + "' after a closing quote in record " + (recordNumber + 1));
+			}
+
+			// Unquoted field: up to the next delimiter or line feed
+			int j = i;
+			int run = i;
+			int mark = -1;
+			char c = 0;
+			while ( j < end ) {
+				c = w[j];
+				if ( c == d || c == '\n' )
+					break;
+
+				if ( c == e && !quoteEscapes ) {
+					if ( j + 1 == end ) {
+						if ( !eof )
+							return NEED_INPUT;
+						throw new BatchException("Escape character at the end of the input in record " + (recordNumber + 1));
+					}
+					if ( mark < 0 )
+						mark = unescapedLength;
+					appendUnescaped(w, run, j - run);
+					appendUnescaped(w, j + 1, 1);
+					j += 2;
+					run = j;
+					continue;
+				}
+
+				++j;
+			}
+
+			if ( j == end && !eof )
+				return NEED_INPUT;
+
+			int fieldEnd = j;
+			boolean endOfRecord = ( j == end || c == '\n' );
+			if ( endOfRecord && fieldEnd > run && w[fieldEnd - 1] == '\r' )
+				--fieldEnd;
+
+			if ( mark < 0 ) {
+				record.addField(w, i, fieldEnd - i);
+			} else {
+				appendUnescaped(w, run, fieldEnd - run);
+				record.addField(unescaped, mark, unescapedLength - mark);
+			}
+
+			if ( endOfRecord )
+				return ( j == end ? j : j + 1 );
+
+			i = j + 1;
+		}
+	}
+
+	/*
+	 * Appends to the unescaped field buffer. When the buffer grows, fields already pointing
+	 * at the old array remain valid, as the old array is no longer written.
+	 */
+	private void appendUnescaped( char[] src, int from, int length ) {
+		if ( unescapedLength + length > unescaped.length ) {
+			char[] grown = new char[Math.max(unescaped.length * 2, unescapedLength + length)];
+			System.arraycopy(unescaped, 0, grown, 0, unescapedLength);
+			unescaped = grown;
+		}
+		System.arraycopy(src, from, unescaped, unescapedLength, length);
+		unescapedLength += length;
+	}
+
+	private void fill() {
+		if ( pos > 0 ) {
+			System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+
+		if ( limit == buffer.length ) {
+			char[] old = buffer;
+			buffer = new char[old.length * 2];
+			System.arraycopy(old, 0, buffer, 0, limit);
+		}
+
+		try {
+			int n = source.read(buffer, limit, buffer.length - limit);
+			if ( n < 0 )
+				eof = true;
+			else
+				limit += n;
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while reading", ioe);
+		}
+	}
+
+	public long getRecordNumber() {
+		return recordNumber;
+	}
+
+	public void setRecordNumber( long recordNumber ) {
+		this.recordNumber = recordNumber;
+	}
+
+	public char getDelimiter() {
+		return delimiter;
+	}
+
+	public void setDelimiter( char delimiter ) {
+		this.delimiter = delimiter;
+		this.record.setDelimiter(delimiter);
+	}
+
+	public char getQuote() {
+		return quote;
+	}
+
+	public void setQuote( char quote ) {
+		this.quote = quote;
+	}
+
+	public char getEscape() {
+		return escape;
+	}
+
+	/**
+	 * Sets the escape character. When it is the same as the quote character, a doubled
+	 * quote within a quoted field stands for one quote.
+	 */
+	public void setEscape( char escape ) {
+		this.escape = escape;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Sets the initial size of the buffer used by sources set after this call.
+	 */
+	public void setBufferSize( int bufferSize ) {
+		this.bufferSize = bufferSize;
+	}
+
+	public int getMaxRecordSize() {
+		return maxRecordSize;
+	}
+
+	/**
+	 * Sets the largest record, in characters, this reader will buffer.
+	 */
+	public void setMaxRecordSize( int maxRecordSize ) {
+		this.maxRecordSize = maxRecordSize;
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Locates record delimiters in the window of a DelimiterScanner. Patterns that only
+ * describe a fixed string are searched for with Boyer-Moore-Horspool; anything else is
+ * run through java.util.regex over the window.
+ */
+abstract class DelimiterMatcher {
+
+	/*
+	 * Sentinel returned by matchAt when the answer depends on input beyond the window.
+	 */
+	final static int NEED_INPUT = -1;
+
+	/**
+	 * Returns the length of the delimiter starting at window[at], 0 if there is none, or
+	 * NEED_INPUT if more input is required to decide.
+	 */
+	abstract int matchAt( char[] window, int at, int limit, boolean eof );
+
+	/**
+	 * Returns the start of the first delimiter in window[from,limit), or -1 if there is none.
+	 * A result of -1 when eof is false means the caller should read more input and retry.
+	 */
+	abstract int find( char[] window, int from, int limit, boolean eof );
+
+	/**
+	 * The number of characters before the end of the window which must be searched again
+	 * after more input has been read, following a find which returned -1.
+	 */
+	abstract int overlap();
+
+	/**
+	 * Creates a matcher for the pattern. Regular expression delimiters are assumed to be no
+	 * longer than maxLength characters when deciding how much of the window to search again
+	 * after more input has been read.
+	 */
+	static DelimiterMatcher forPattern( Pattern pattern, int maxLength ) {
+		String literal = literalOf(pattern);
+		if ( literal != null && literal.length() > 0 )
+			return new Literal(literal);
+
+		return new Regex(pattern, maxLength);
+	}
+
+	/*
+	 * Returns the fixed string matched by the pattern, or null if the pattern uses any
+	 * regular expression construct beyond escaped characters and \Q...\E quoting.
+	 */
+	static String literalOf( Pattern pattern ) {
+		String source = pattern.pattern();
+		int flags = pattern.flags();
+
+		if ( (flags & Pattern.LITERAL) != 0 )
+			return ( (flags & (Pattern.CASE_INSENSITIVE | Pattern.CANON_EQ)) == 0 ) ? source : null;
+
+		if ( (flags & ~(Pattern.MULTILINE | Pattern.DOTALL | Pattern.UNIX_LINES)) != 0 )
+			return null;
+
+		StringBuilder literal = new StringBuilder();
+		for ( int i = 0; i < source.length(); ++i ) {
+			char c = source.charAt(i);
+
+			if ( c != '\\' ) {
+				if ( "[](){}.*+?^$|".indexOf(c) >= 0 )
+					return null;
+
+				literal.append(c);
+				continue;
+			}
+
+			if ( ++i == source.length() )
+				return null;
+
+			char escaped = source.charAt(i);
+			switch ( escaped ) {
+			case 't': literal.append('\t'); break;
+			case 'n': literal.append('\n'); break;
+			case 'r': literal.append('\r'); break;
+			case 'f': literal.append('\f'); break;
+			case 'a': literal.append('\u0007'); break;
+			case 'e': literal.append('\u001B'); break;
+			case 'x':
+				if ( i + 2 >= source.length() || !isHex(source, i + 1, i + 3) )
+					return null;
+				literal.append((char) Integer.parseInt(source.substring(i + 1, i + 3), 16));
+				i += 2;
+				break;
+			case 'u':
+				if ( i + 4 >= source.length() || !isHex(source, i + 1, i + 5) )
+					return null;
+				literal.append((char) Integer.parseInt(source.substring(i + 1, i + 5), 16));
+				i += 4;
+				break;
+			case 'Q':
+				int end = source.indexOf("\\E", i + 1);
+				if ( end < 0 ) {
+					literal.append(source, i + 1, source.length());
+					i = source.length();
+				} else {
+					literal.append(source, i + 1, end);
+					i = end + 1;
+				}
+				break;
+			default:
+				if ( Character.isLetterOrDigit(escaped) )
+					return null;
+				literal.append(escaped);
+			}
+		}
+
+		return literal.toString();
+	}
+
+	private static boolean isHex( String s, int from, int to ) {
+		for ( int i = from; i < to; ++i ) {
+			if ( Character.digit(s.charAt(i), 16) < 0 )
+				return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Boyer-Moore-Horspool search for a fixed delimiter. The bad character table is indexed
+	 * by the low byte of each char; characters sharing a low byte share the smallest shift,
+	 * which keeps the search correct for the full char range with a 256 entry table.
+	 */
+	static final class Literal extends DelimiterMatcher {
+		private final char[] delimiter;
+		private final int[] shift = new int[256];
+
+		Literal( String delimiter ) {
+			this.delimiter = delimiter.toCharArray();
+
+			int m = this.delimiter.length;
+			Arrays.fill(shift, m);
+			for ( int j = 0; j < m - 1; ++j )
+				shift[this.delimiter[j] & 0xFF] = m - 1 - j;
+		}
+
+		@Override
+		int matchAt( char[] window, int at, int limit, boolean eof ) {
+			int m = delimiter.length;
+			int available = Math.min(m, limit - at);
+
+			for ( int j = 0; j < available; ++j ) {
+				if ( window[at + j] != delimiter[j] )
+					return 0;
+			}
+
+			if ( available == m )
+				return m;
+
+			return ( eof ? 0 : NEED_INPUT );
+		}
+
+		@Override
+		int find( char[] window, int from, int limit, boolean eof ) {
+			char[] d = delimiter;
+			int m = d.length;
+			char last = d[m - 1];
+
+			for ( int i = from + m - 1; i < limit; i += shift[window[i] & 0xFF] ) {
+				if ( window[i] != last )
+					continue;
+
+				int j = m - 2;
+				int k = i - 1;
+				while ( j >= 0 && window[k] == d[j] ) {
+					--j;
+					--k;
+				}
+
+				if ( j < 0 )
+					return i - m + 1;
+			}
+
+			return -1;
+		}
+
+		@Override
+		int overlap() {
+			return delimiter.length - 1;
+		}
+	}
+
+	/*
+	 * Regular expression delimiters. Whenever the regex engine reports that it looked at the
+	 * end of the window, the result may change with more input, so the caller is asked to
+	 * read more before the result is trusted. Empty matches are never delimiters.
+	 *
+	 * A delimiter which was cut off by the end of the window starts within its last
+	 * maxLength - 1 characters, so only those are searched again; if the engine never
+	 * reached the end of the window, nothing is.
+	 */
+	static final class Regex extends DelimiterMatcher {
+		private final Pattern pattern;
+		private final int maxLength;
+		private char[] wrapped;
+		private CharBuffer buffer;
+		private Matcher matcher;
+		private int overlap;
+
+		Regex( Pattern pattern, int maxLength ) {
+			this.pattern = pattern;
+			this.maxLength = Math.max(maxLength, 1);
+		}
+
+		@Override
+		int matchAt( char[] window, int at, int limit, boolean eof ) {
+			Matcher m = matcher(window, at, limit);
+			boolean found = m.lookingAt();
+
+			if ( m.hitEnd() && !eof )
+				return NEED_INPUT;
+
+			return ( found ? m.end() - at : 0 );
+		}
+
+		@Override
+		int find( char[] window, int from, int limit, boolean eof ) {
+			Matcher m = matcher(window, from, limit);
+
+			while ( m.find() ) {
+				if ( m.hitEnd() && !eof ) {
+					overlap = Math.max(maxLength - 1, limit - m.start());
+					return -1;
+				}
+
+				if ( m.end() > m.start() )
+					return m.start();
+			}
+
+			overlap = ( m.hitEnd() ? maxLength - 1 : 0 );
+			return -1;
+		}
+
+		@Override
+		int overlap() {
+			return overlap;
+		}
+
+		private Matcher matcher( char[] window, int from, int limit ) {
+			if ( window != wrapped ) {
+				wrapped = window;
+				buffer = CharBuffer.wrap(window);
+				matcher = pattern.matcher(buffer)
+						.useTransparentBounds(true)
+						.useAnchoringBounds(false);
+			}
+
+			buffer.clear();
+			buffer.limit(limit);
+			return matcher.reset(buffer).region(from, limit);
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Pattern;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * <p>DelimiterScanner is the record splitting engine behind RegexPatternRecordReader. It
+ * reads its source through a sliding char[] window and returns the text between record
+ * delimiters, following the same rules as java.util.Scanner: a delimiter directly at the
+ * current position is skipped, adjacent delimiters produce an empty record, and input that
+ * ends with a delimiter does not produce a trailing empty record.</p>
+ *
+ * <p>Delimiter patterns which describe a fixed string (for example <code>"\\|\\|"</code>,
+ * <code>"\\Q$$END$$\\E"</code> or <code>"\\r\\n"</code>) are searched for with
+ * Boyer-Moore-Horspool. Other patterns are matched with java.util.regex over the window.
+ * In both cases the window only grows as far as the largest record, and a record larger
+ * than the maximum record size fails the read instead of exhausting the heap.</p>
+ *
+ * <p>When more input is read in the middle of a record, only the end of the window that
+ * may hold the start of a delimiter is searched again, so long records are scanned in 
+ * linear time. For regular expressions this assumes that no delimiter is longer than the
+ * maximum delimiter size; a longer delimiter is only found if it does not span a read.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class DelimiterScanner {
+	public final static int DEFAULT_MAX_RECORD_SIZE = 16 * 1024 * 1024;
+	public final static int DEFAULT_MAX_DELIMITER_SIZE = 1024;
+
+	private final Reader in;
+	private final CharSlice slice = new CharSlice();
+	private Pattern delimiter;
+	private DelimiterMatcher matcher;
+	private int maxRecordSize = DEFAULT_MAX_RECORD_SIZE;
+	private int maxDelimiterSize = DEFAULT_MAX_DELIMITER_SIZE;
+
+	private char[] window;
+	private int pos;
+	private int limit;
+	private boolean eof;
+
+	public DelimiterScanner( Reader in, Pattern delimiter, int bufferSize ) {
+		this.in = in;
+		this.window = new char[Math.max(bufferSize, 64)];
+		setDelimiter(delimiter);
+	}
+
+	/**
+	 * Changes the delimiter used for subsequent records. Buffered input is kept.
+	 */
+	public void setDelimiter( Pattern delimiter ) {
+		this.delimiter = delimiter;
+		this.matcher = DelimiterMatcher.forPattern(delimiter, maxDelimiterSize);
+	}
+
+	/**
+	 * Returns true if the current delimiter is searched for as a fixed string.
+	 */
+	public boolean isLiteral() {
+		return matcher instanceof DelimiterMatcher.Literal;
+	}
+
+	public int getMaxRecordSize() {
+		return maxRecordSize;
+	}
+
+	/**
+	 * Sets the largest record, in characters, this scanner will buffer.
+	 */
+	public void setMaxRecordSize( int maxRecordSize ) {
+		this.maxRecordSize = maxRecordSize;
+	}
+
+	public int getMaxDelimiterSize() {
+		return maxDelimiterSize;
+	}
+
+	/**
+	 * Sets the longest delimiter, in characters, a regular expression delimiter is 
+	 * expected to match. It bounds how much of a record is searched again each time
+	 * more input is read.
+	 */
+	public void setMaxDelimiterSize( int maxDelimiterSize ) {
+		this.maxDelimiterSize = maxDelimiterSize;
+		setDelimiter(delimiter);
+	}
+
+	/**
+	 * Returns the next record as a view into the scanner's window, or null if the end of
+	 * the input has been reached. The view is only valid until the next call to next().
+	 */
+	public CharSlice next() {
+		int skip;
+		while ( (skip = matcher.matchAt(window, pos, limit, eof)) == DelimiterMatcher.NEED_INPUT )
+			fill();
+		pos += skip;
+
+		int scanFrom = pos;
+		while ( true ) {
+			if ( eof && pos == limit )
+				return null;
+
+			int at = matcher.find(window, scanFrom, limit, eof);
+			if ( at >= 0 ) {
+				slice.set(window, pos, at - pos);
+				pos = at;
+				return slice;
+			}
+
+			if ( eof ) {
+				slice.set(window, pos, limit - pos);
+				pos = limit;
+				return slice;
+			}
+
+			if ( limit - pos > maxRecordSize )
+				throw new BatchException("Record exceeds the maximum record size of " + maxRecordSize + " characters");
+
+			int resume = Math.max(pos, limit - matcher.overlap()) - pos;
+			fill();
+			scanFrom = pos + resume;
+		}
+	}
+
+	public void close() {
+		try {
+			in.close();
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while closing reader", ioe);
+		}
+	}
+
+	/*
+	 * Slides the unread part of the window to the front, grows the window if it is still
+	 * full, and reads more input behind it.
+	 */
+	private void fill() {
+		if ( pos > 0 ) {
+			System.arraycopy(window, pos, window, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+
+		if ( limit == window.length ) {
+			char[] old = window;
+			window = new char[old.length * 2];
+			System.arraycopy(old, 0, window, 0, limit);
+		}
+
+		try {
+			int n = in.read(window, limit, window.length - limit);
+			if ( n < 0 )
+				eof = true;
+			else
+				limit += n;
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while reading", ioe);
+		}
+	}
+}
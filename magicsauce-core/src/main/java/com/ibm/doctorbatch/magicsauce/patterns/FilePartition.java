@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.File;
+import java.io.Serializable;
+
+/**
+ * A byte range [start, end) of a line-oriented file. The lines belonging to a partition are
+ * those which begin within its range, so a set of partitions covering a file assigns each
+ * line to exactly one partition, wherever the range boundaries fall.
+ * 
+ * @see LinePartitioner
+ * @see PartitionedLineRecordReader
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class FilePartition implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final File file;
+	private final long start;
+	private final long end;
+
+	public FilePartition( File file, long start, long end ) {
+		this.file = file;
+		this.start = start;
+		this.end = end;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public long getStart() {
+		return start;
+	}
+
+	public long getEnd() {
+		return end;
+	}
+
+	public long getLength() {
+		return end - start;
+	}
+
+	@Override
+	public String toString() {
+		return file + "[" + start + "," + end + ")";
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.math.BigDecimal;
+
+/**
+ * <p>FixedWidthRecord is a reusable view of one line read by {@link FixedWidthRecordReader},
+ * with positional access to the columns of a {@link ColumnLayout}. Reading a record does 
+ * no work per column; a column is only located when it is accessed, and is returned as a
+ * {@link CharSlice} over the line buffer, or parsed in place.</p>
+ * 
+ * <p>When the reader's source is a byte stream, the line is not decoded as a whole. A 
+ * column is decoded on its own when it is accessed, provided its character offsets are
+ * also its byte offsets: always in a single byte encoding, and in UTF-8 while the line is
+ * ASCII up to the end of the column. Otherwise, the line is decoded once, and the columns
+ * are located in it.</p>
+ * 
+ * <p>A column which extends past the end of a short line is cut off at the end of the 
+ * line, and a column which starts past the end is empty.</p>
+ * 
+ * <p>The reader returns the same FixedWidthRecord instance for every line, and the content
+ * of the view is only valid until the next read.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public final class FixedWidthRecord {
+	private final ColumnLayout layout;
+	private final CharSlice[] slices;
+	private final char[][] columns;
+	private CharSlice line;
+	
+	/*
+	 * The scanner holding the undecoded line, when the line is read from a byte stream, and 
+	 * the length of the line's prefix known to be ASCII.
+	 */
+	private StreamLineScanner scanner;
+	private int asciiPrefix;
+	
+	FixedWidthRecord( ColumnLayout layout ) {
+		this.layout = layout;
+		this.slices = new CharSlice[layout.getColumnCount()];
+		this.columns = new char[layout.getColumnCount()][];
+	}
+	
+	void set( CharSlice line ) {
+		this.line = line;
+		this.scanner = null;
+	}
+	
+	/*
+	 * Views the line last located by the scanner, leaving it undecoded.
+	 */
+	void set( StreamLineScanner scanner ) {
+		this.line = null;
+		this.scanner = scanner;
+		this.asciiPrefix = 0;
+	}
+	
+	public ColumnLayout getLayout() {
+		return layout;
+	}
+	
+	/**
+	 * Returns the whole line.
+	 */
+	public CharSlice getLine() {
+		if ( line == null )
+			line = scanner.decodeLine();
+		return line;
+	}
+	
+	/**
+	 * Returns a view of a column. The same CharSlice instance is returned for a given 
+	 * column on every record.
+	 */
+	public CharSlice getField( int column ) {
+		int offset = layout.getOffset(column);
+		int limit = offset + layout.getLength(column);
+		
+		CharSlice slice = slices[column];
+		if ( slice == null )
+			slice = slices[column] = new CharSlice();
+		
+		if ( line == null && isByteAligned(limit) ) {
+			int length = scanner.getLineLength();
+			int start = Math.min(offset, length);
+			int end = Math.min(limit, length);
+			
+			char[] chars = columns[column];
+			if ( chars == null || chars.length < end - start )
+				chars = columns[column] = new char[end - start];
+			
+			scanner.decode( start, end - start, chars );
+			return slice.set( chars, 0, end - start );
+		}
+		
+		CharSlice decoded = getLine();
+		int length = decoded.length();
+		int start = Math.min(offset, length);
+		int end = Math.min(limit, length);
+		
+		return slice.set( decoded.getChars(), decoded.getOffset() + start, end - start );
+	}
+	
+	/*
+	 * Returns true if the first 'end' characters of the undecoded line are its first 'end'
+	 * bytes.
+	 */
+	private boolean isByteAligned( int end ) {
+		if ( scanner.isSingleByte() )
+			return true;
+		
+		end = Math.min(end, scanner.getLineLength());
+		if ( end > asciiPrefix ) {
+			if ( !scanner.isAscii(asciiPrefix, end) )
+				return false;
+			asciiPrefix = end;
+		}
+		return true;
+	}
+	
+	public CharSlice getField( String name ) {
+		return getField( layout.indexOf(name) );
+	}
+	
+	public String getString( int column ) {
+		return getField(column).toString();
+	}
+	
+	public String getString( String name ) {
+		return getField(name).toString();
+	}
+	
+	public int getInt( int column ) {
+		return getField(column).parseInt();
+	}
+	
+	public int getInt( String name ) {
+		return getField(name).parseInt();
+	}
+	
+	public long getLong( int column ) {
+		return getField(column).parseLong();
+	}
+	
+	public long getLong( String name ) {
+		return getField(name).parseLong();
+	}
+	
+	public BigDecimal getDecimal( int column ) {
+		return getField(column).parseDecimal();
+	}
+	
+	public BigDecimal getDecimal( String name ) {
+		return getField(name).parseDecimal();
+	}
+	
+	@Override
+	public String toString() {
+		return getLine().toString();
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.Reader;
+
+/**
+ * <p>FixedWidthRecordReader reads fixed-width text records, one per line, and returns 
+ * them through a reusable {@link FixedWidthRecord} view which locates the columns of a
+ * {@link ColumnLayout} in the line buffer on demand. Lines are split by a 
+ * {@link LineScanner}, as for SingleLineRecordReader. Lines read from a byte stream are
+ * not decoded as a whole; only the columns accessed are decoded.</p>
+ * 
+ * <p>Subclasses set the layout and the source in open(Serializable), typically with 
+ * ColumnLayout.fromProperties, and restart by calling seek(state) with the 
+ * {@link LineCheckpoint} returned by getState().</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public abstract class FixedWidthRecordReader implements Reader<FixedWidthRecord> {
+	private int bufferSize = LineScanner.DEFAULT_BUFFER_SIZE;
+	private LineScanner lineScanner;
+	private StreamLineScanner streamScanner;
+	private FixedWidthRecord record;
+	private long lineNumber;
+	
+	public void setSource( java.io.Reader reader ) {
+		this.lineScanner = new ReaderLineScanner(reader, bufferSize);
+		this.streamScanner = null;
+	}
+	
+	/**
+	 * Reads lines from the given stream, in the given encoding.
+	 */
+	public void setSource( InputStream in, Charset charset ) {
+		this.lineScanner = LineScanner.forStream(in, charset, bufferSize);
+		this.streamScanner = ( lineScanner instanceof StreamLineScanner ) ? (StreamLineScanner) lineScanner : null;
+	}
+	
+	public ColumnLayout getLayout() {
+		return ( record == null ? null : record.getLayout() );
+	}
+	
+	public void setLayout( ColumnLayout layout ) {
+		this.record = new FixedWidthRecord(layout);
+	}
+	
+	/**
+	 * Returns the next record, or null if the end of the input has been reached. The same
+	 * FixedWidthRecord instance is returned for every record.
+	 */
+	@Override
+	public FixedWidthRecord read() {
+		if ( record == null )
+			throw new BatchException("No column layout has been set");
+		
+		if ( streamScanner != null ) {
+			if ( !streamScanner.advance() )
+				return null;
+			record.set(streamScanner);
+		} else {
+			CharSlice line = lineScanner.next();
+			if ( line == null )
+				return null;
+			record.set(line);
+		}
+		
+		++lineNumber;
+		return record;
+	}
+	
+	/**
+	 * Returns a LineCheckpoint for the next line to be read.
+	 */
+	@Override
+	public Serializable getState() {
+		return new LineCheckpoint( lineScanner.getPosition(), lineNumber );
+	}
+	
+	/**
+	 * Positions the current source at the line identified by a state returned from 
+	 * getState(). Must be called before the first line is read from the source.
+	 */
+	public void seek( Serializable state ) {
+		if ( state == null )
+			return;
+		
+		LineCheckpoint checkpoint = (LineCheckpoint) state;
+		lineScanner.seek( checkpoint );
+		lineNumber = checkpoint.getLineNumber();
+	}
+	
+	protected LineScanner getLineScanner() {
+		return lineScanner;
+	}
+	
+	public long getLineNumber() {
+		return lineNumber;
+	}
+	
+	public int getBufferSize() {
+		return bufferSize;
+	}
+	
+	/**
+	 * Sets the initial size of the scan buffer used by sources set after this call.
+	 */
+	public void setBufferSize( int bufferSize ) {
+		this.bufferSize = bufferSize;
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+/**
+ * Determines when a {@link ChannelLineWriter} hands its buffered output to the channel.
+ * Regardless of the policy, a full buffer is always written, and all buffered output is 
+ * written when the writer is flushed or checkpointed.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public enum FlushPolicy {
+	/**
+	 * Write once the buffered output reaches a number of bytes.
+	 */
+	BYTES,
+	
+	/**
+	 * Write once a number of records have been buffered.
+	 */
+	RECORDS,
+	
+	/**
+	 * Only write when the buffer is full, or at a checkpoint.
+	 */
+	CHECKPOINT
+}
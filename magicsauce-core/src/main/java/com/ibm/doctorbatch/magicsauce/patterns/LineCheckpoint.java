@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.Serializable;
+
+/**
+ * The checkpoint state of the line readers: the byte offset of the next line to read, and 
+ * the number of lines read before it. A byte offset of -1 means the source does not expose 
+ * byte offsets, and the reader must skip lineNumber lines to restart.
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class LineCheckpoint implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final long byteOffset;
+	private final long lineNumber;
+
+	public LineCheckpoint( long byteOffset, long lineNumber ) {
+		this.byteOffset = byteOffset;
+		this.lineNumber = lineNumber;
+	}
+
+	public long getByteOffset() {
+		return byteOffset;
+	}
+
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public String toString() {
+		return "LineCheckpoint[byteOffset=" + byteOffset + ", lineNumber=" + lineNumber + "]";
+	}
+}
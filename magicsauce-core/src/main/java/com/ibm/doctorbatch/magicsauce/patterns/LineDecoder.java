@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/*
+ * Decodes a line of bytes into a reusable char[] for the byte level line scanners. Lines
+ * made only of ASCII bytes are widened directly; anything else goes through the charset
+ * decoder. Malformed input is replaced, as it would be by an InputStreamReader. Parts of a
+ * line which decode one byte to one char can also be decoded on their own.
+ */
+final class LineDecoder {
+	private final CharsetDecoder decoder;
+	private final CharSlice slice = new CharSlice();
+	private char[] chars;
+
+	LineDecoder( Charset charset, int initialSize ) {
+		this.decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.chars = new char[Math.max(initialSize, 16)];
+	}
+
+	CharSlice decode( ByteBuffer bytes, int offset, int length ) {
+		if ( chars.length < length )
+			chars = new char[Math.max(length, chars.length * 2)];
+
+		if ( LineScanner.isAscii(bytes, offset, offset + length) ) {
+			for ( int i = 0; i < length; ++i )
+				chars[i] = (char) bytes.get(offset + i);
+
+			return slice.set(chars, 0, length);
+		}
+
+		ByteBuffer in = bytes.duplicate();
+		in.limit(offset + length).position(offset);
+
+		while ( true ) {
+			CharBuffer out = CharBuffer.wrap(chars);
+			decoder.reset();
+
+			CoderResult result = decoder.decode(in, out, true);
+			if ( !result.isOverflow() )
+				result = decoder.flush(out);
+
+			if ( result.isOverflow() ) {
+				chars = new char[chars.length * 2];
+				in.position(offset);
+				continue;
+			}
+
+			if ( result.isError() ) {
+				try {
+					result.throwException();
+				} catch ( CharacterCodingException cce ) {
+					throw new BatchException("Unable to decode record", cce);
+				}
+			}
+
+			return slice.set(chars, 0, out.position());
+		}
+	}
+
+	/*
+	 * Decodes bytes which decode to one char each, either ASCII or in a single byte charset,
+	 * into into[0,length).
+	 */
+	void decode( ByteBuffer bytes, int offset, int length, char[] into ) {
+		if ( LineScanner.isAscii(bytes, offset, offset + length) ) {
+			for ( int i = 0; i < length; ++i )
+				into[i] = (char) bytes.get(offset + i);
+			return;
+		}
+
+		ByteBuffer in = bytes.duplicate();
+		in.limit(offset + length).position(offset);
+		CharBuffer out = CharBuffer.wrap(into, 0, length);
+		decoder.reset();
+
+		CoderResult result = decoder.decode(in, out, true);
+		if ( !result.isOverflow() )
+			result = decoder.flush(out);
+
+		if ( result.isOverflow() || out.position() != length )
+			throw new BatchException("Unable to decode record: " + length + " bytes did not decode to " + length + " characters");
+
+		if ( result.isError() ) {
+			try {
+				result.throwException();
+			} catch ( CharacterCodingException cce ) {
+				throw new BatchException("Unable to decode record", cce);
+			}
+		}
+	}
+}
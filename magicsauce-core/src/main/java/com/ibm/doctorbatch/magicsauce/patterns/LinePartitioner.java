@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * <p>LinePartitioner splits a line-oriented file into byte ranges which can be read
+ * concurrently, one {@link PartitionedLineRecordReader} per range.</p>
+ * 
+ * <p>The file is cut into ranges of roughly equal size, and each cut is moved forward to 
+ * just after the next '\n', so every partition starts at the beginning of a line. Only a
+ * few bytes around each cut are read. A file with very long lines may produce fewer 
+ * partitions than requested, but never an empty one.</p>
+ * 
+ * <p>The file must be in an ASCII compatible encoding, such as UTF-8 or ISO-8859-1.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class LinePartitioner {
+	private final static int SCAN_BUFFER_SIZE = 64 * 1024;
+	
+	private LinePartitioner() {
+	}
+	
+	/**
+	 * Splits the file into at most count partitions aligned to line boundaries.
+	 */
+	public static List<FilePartition> partition( File file, int count ) {
+		if ( count < 1 )
+			throw new BatchException("Partition count must be at least 1, was " + count);
+		
+		List<FilePartition> partitions = new ArrayList<FilePartition>(count);
+		
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "r");
+			long size = raf.length();
+			byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+			
+			long start = 0;
+			for ( int i = 1; i <= count && start < size; ++i ) {
+				long end = size;
+				if ( i < count ) {
+					long cut = Math.max( size / count * i, start + 1 );
+					end = lineStartAtOrAfter( raf, cut, size, buffer );
+				}
+				
+				partitions.add( new FilePartition(file, start, end) );
+				start = end;
+			}
+			
+			if ( partitions.isEmpty() )
+				partitions.add( new FilePartition(file, 0, 0) );
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while partitioning " + file, ioe);
+		} finally {
+			try {
+				if ( raf != null )
+					raf.close();
+			} catch ( IOException ioe ) {
+				throw new BatchException("Unexpected error while closing " + file, ioe);
+			}
+		}
+		
+		return partitions;
+	}
+	
+	/*
+	 * Returns the offset of the first line starting at or after the given offset.
+	 */
+	private static long lineStartAtOrAfter( RandomAccessFile raf, long offset, long size, byte[] buffer ) throws IOException {
+		long at = offset - 1;
+		
+		while ( at < size ) {
+			raf.seek(at);
+			int n = raf.read(buffer, 0, (int) Math.min( buffer.length, size - at ));
+			if ( n <= 0 )
+				break;
+			
+			for ( int i = 0; i < n; ++i ) {
+				if ( buffer[i] == '\n' )
+					return at + i + 1;
+			}
+			
+			at += n;
+		}
+		
+		return size;
+	}
+}
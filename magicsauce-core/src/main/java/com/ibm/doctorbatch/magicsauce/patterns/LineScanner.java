@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * <p>LineScanner is the line splitting engine behind SingleLineRecordReader. It scans a large,
+ * reusable buffer for line terminators instead of running a regular expression per record.
+ * Lines are terminated by either '\n' or '\r\n'; the terminator is not part of the returned
+ * line, and a final line without a terminator is returned as-is.</p>
+ *
+ * <p>Use {@link #forStream(InputStream, Charset, int)} for byte sources. Streams in an ASCII
+ * compatible encoding (UTF-8, ISO-8859-*, US-ASCII, ...) are scanned at the byte level;
+ * all other encodings are decoded first and scanned as characters.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public abstract class LineScanner {
+	public final static int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+	private final static long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+	private final static long LOW_BITS = 0x0101010101010101L;
+	private final static long HIGH_BITS = 0x8080808080808080L;
+
+	/**
+	 * Returns the next line as a view into this scanner's buffer, or null if the end
+	 * of the input has been reached. The view is only valid until the next call to next().
+	 */
+	public abstract CharSlice next();
+
+	/**
+	 * Returns the next line as a String, or null if the end of the input has been reached.
+	 */
+	public String nextLine() {
+		CharSlice line = next();
+		return ( line == null ? null : line.toString() );
+	}
+
+	/**
+	 * Returns the byte offset in the underlying stream of the first byte of the next line,
+	 * or -1 if the offset cannot be determined for this source.
+	 */
+	public abstract long getPosition();
+
+	public abstract void close();
+
+	/**
+	 * Positions the scanner at the line identified by a checkpoint. Must be called before
+	 * the first line is read. This implementation skips checkpoint.getLineNumber() lines;
+	 * scanners which know their byte offsets seek directly instead.
+	 */
+	public void seek( LineCheckpoint checkpoint ) {
+		for ( long i = 0; i < checkpoint.getLineNumber(); ++i ) {
+			if ( next() == null )
+				throw new BatchException("Input ended before line " + checkpoint.getLineNumber() + " was reached");
+		}
+	}
+
+	/**
+	 * Creates a scanner for the given byte stream.
+	 *
+	 * @param in The stream to read
+	 * @param charset The encoding of the stream
+	 * @param bufferSize The initial size of the scan buffer; it grows if a single line is larger
+	 */
+	public static LineScanner forStream( InputStream in, Charset charset, int bufferSize ) {
+		if ( isAsciiCompatible(charset) )
+			return new StreamLineScanner(in, charset, bufferSize);
+
+		return new ReaderLineScanner(new InputStreamReader(in, charset.newDecoder()), bufferSize);
+	}
+
+	/**
+	 * Returns true if the charset encodes the ASCII range as single ASCII bytes, and never uses
+	 * ASCII byte values within a multi-byte sequence. For such charsets, a line feed can be
+	 * located without decoding, and pure-ASCII lines can be decoded by widening each byte.
+	 */
+	static boolean isAsciiCompatible( Charset charset ) {
+		if ( !charset.canEncode() )
+			return false;
+
+		byte[] probe = new byte[128];
+		for ( int i = 0; i < probe.length; ++i )
+			probe[i] = (byte) i;
+
+		try {
+			String ascii = new String(probe, "US-ASCII");
+			if ( !Arrays.equals(probe, ascii.getBytes(charset.name())) )
+				return false;
+		} catch ( java.io.UnsupportedEncodingException uee ) {
+			return false;
+		}
+
+		return charset.newEncoder().maxBytesPerChar() == 1.0f || "UTF-8".equals(charset.name());
+	}
+
+	/**
+	 * Returns the index of the first '\n' in buffer[from,to), or -1. The buffer must be in
+	 * little-endian order. Eight bytes are tested at a time: a byte of the word equals '\n'
+	 * exactly when the same byte of (word ^ NEWLINES) is zero, and the lowest zero byte of x
+	 * is flagged by the high bit of (x - LOW_BITS) &amp; ~x &amp; HIGH_BITS.
+	 */
+	static int indexOfNewline( ByteBuffer buffer, int from, int to ) {
+		int i = from;
+		for ( int last = to - 8; i <= last; i += 8 ) {
+			long x = buffer.getLong(i) ^ NEWLINES;
+			long found = (x - LOW_BITS) & ~x & HIGH_BITS;
+			if ( found != 0 )
+				return i + (Long.numberOfTrailingZeros(found) >>> 3);
+		}
+
+		for ( ; i < to; ++i ) {
+			if ( buffer.get(i) == '\n' )
+				return i;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns true if every byte in buffer[from,to) is in the ASCII range.
+	 */
+	static boolean isAscii( ByteBuffer buffer, int from, int to ) {
+		int i = from;
+		for ( int last = to - 8; i <= last; i += 8 ) {
+			if ( (buffer.getLong(i) & HIGH_BITS) != 0 )
+				return false;
+		}
+
+		for ( ; i < to; ++i ) {
+			if ( buffer.get(i) < 0 )
+				return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.Reader;
+
+/**
+ * <p>MappedLineRecordReader reads string records, one per line, from a file through memory
+ * mapped windows of the file. Line terminators are located directly in the mapped pages,
+ * and each line is only decoded when its content is requested, so the data is never copied
+ * through intermediate stream buffers.</p>
+ *
+ * <p>The file is mapped in windows of getWindowSize() bytes (64MB by default); when a line
+ * runs past the end of a window, the next window is mapped starting at that line. Files
+ * of any size can be read. The file must be in an ASCII compatible encoding such as UTF-8
+ * or ISO-8859-1.</p>
+ *
+ * <p>The state returned by getState() is a {@link LineCheckpoint} holding the byte offset
+ * and number of the next line. Passing it to open(Serializable) maps the file at that
+ * offset directly, so restarting takes the same time no matter how far into the file the
+ * previous run failed. A plain byte offset, as a Long, is also accepted.</p>
+ *
+ * <p>Java offers no portable way to unmap a buffer. The reader drops its reference to
+ * each window as soon as it maps the next one, and to the last window on close(), but the
+ * mapping itself is only released when the buffer is garbage collected. Until then it
+ * holds address space, and on some platforms the file cannot be deleted or truncated.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class MappedLineRecordReader implements Reader<String> {
+	public final static int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+	private File file;
+	private Charset charset = Charset.defaultCharset();
+	private int windowSize = DEFAULT_WINDOW_SIZE;
+
+	private RandomAccessFile raf;
+	private FileChannel channel;
+	private long fileSize;
+	private LineDecoder decoder;
+	private final LazyLine line = new LazyLine();
+
+	private ByteBuffer window;
+	private long windowStart;
+	private int pos;
+	private long lineNumber;
+
+	public MappedLineRecordReader() {
+	}
+
+	public MappedLineRecordReader( File file, Charset charset ) {
+		this.file = file;
+		this.charset = charset;
+	}
+
+	/**
+	 * Opens the file and positions the reader at the line given by a previous call to
+	 * getState(), or at the start of the file if state is null.
+	 */
+	@Override
+	public void open( Serializable state ) {
+		if ( !LineScanner.isAsciiCompatible(charset) )
+			throw new BatchException("MappedLineRecordReader requires an ASCII compatible charset; " + charset.name() + " is not supported.");
+
+		try {
+			raf = new RandomAccessFile(file, "r");
+			channel = raf.getChannel();
+			fileSize = channel.size();
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while opening " + file, ioe);
+		}
+
+		long offset = 0L;
+		lineNumber = 0L;
+		if ( state instanceof LineCheckpoint ) {
+			offset = ((LineCheckpoint) state).getByteOffset();
+			lineNumber = ((LineCheckpoint) state).getLineNumber();
+		} else if ( state != null ) {
+			offset = ((Number) state).longValue();
+		}
+
+		decoder = new LineDecoder(charset, 256);
+		map( offset, windowSize );
+	}
+
+	@Override
+	public void close() {
+		window = null;
+		line.set(null, 0, 0);
+		try {
+			if ( raf != null )
+				raf.close();
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while closing " + file, ioe);
+		} finally {
+			raf = null;
+			channel = null;
+		}
+	}
+
+	@Override
+	public String read() {
+		CharSequence next = readCharSequence();
+		return ( next == null ? null : next.toString() );
+	}
+
+	/**
+	 * Obtains the next line without decoding it. The line is decoded when its content is
+	 * first accessed. The returned sequence is only valid until the next call to read()
+	 * or readCharSequence().
+	 *
+	 * @return The next line, or null if no more lines are available.
+	 */
+	public CharSequence readCharSequence() {
+		int scanFrom = pos;
+
+		while ( true ) {
+			int limit = window.limit();
+			int newline = LineScanner.indexOfNewline(window, scanFrom, limit);
+
+			if ( newline >= 0 ) {
+				int end = ( newline > pos && window.get(newline - 1) == '\r' ) ? newline - 1 : newline;
+				line.set(window, pos, end - pos);
+				pos = newline + 1;
+				++lineNumber;
+				return line;
+			}
+
+			if ( windowStart + limit >= fileSize ) {
+				if ( pos == limit )
+					return null;
+
+				line.set(window, pos, limit - pos);
+				pos = limit;
+				++lineNumber;
+				return line;
+			}
+
+			// The line runs past this window: map the next window at the start of the line,
+			// growing the window if the line alone fills it.
+			if ( pos == 0 && limit == Integer.MAX_VALUE )
+				throw new BatchException("Line at offset " + windowStart + " of " + file + " exceeds the largest mappable window");
+
+			int scanned = limit - pos;
+			int size = ( pos == 0 ) ? (int) Math.min( (long) limit * 2, Integer.MAX_VALUE ) : windowSize;
+			map( windowStart + pos, Math.max(size, windowSize) );
+			scanFrom = scanned;
+		}
+	}
+
+	/**
+	 * Returns a LineCheckpoint for the next line.
+	 */
+	@Override
+	public Serializable getState() {
+		return new LineCheckpoint( getPosition(), lineNumber );
+	}
+
+	/**
+	 * Returns the byte offset of the next line.
+	 */
+	public long getPosition() {
+		return windowStart + pos;
+	}
+
+	/**
+	 * Returns the number of lines read, including lines read before a restart.
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public void setFile( File file ) {
+		this.file = file;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public void setCharset( Charset charset ) {
+		this.charset = charset;
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * Sets the number of bytes mapped at a time.
+	 */
+	public void setWindowSize( int windowSize ) {
+		this.windowSize = windowSize;
+	}
+
+	private void map( long start, int size ) {
+		if ( start > fileSize )
+			throw new BatchException("Position " + start + " is beyond the end of " + file + " (" + fileSize + " bytes)");
+
+		// Drop the previous window first, so it can be collected even if mapping fails
+		window = null;
+		try {
+			long length = Math.min( (long) size, fileSize - start );
+			window = channel.map(FileChannel.MapMode.READ_ONLY, start, length).order(ByteOrder.LITTLE_ENDIAN);
+			windowStart = start;
+			pos = 0;
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while mapping " + file + " at offset " + start, ioe);
+		}
+	}
+
+	/*
+	 * A line in the current window, decoded on first use.
+	 */
+	private final class LazyLine implements CharSequence {
+		private ByteBuffer bytes;
+		private int offset;
+		private int length;
+		private CharSlice decoded;
+
+		void set( ByteBuffer bytes, int offset, int length ) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+			this.decoded = null;
+		}
+
+		private CharSlice decoded() {
+			if ( decoded == null )
+				decoded = decoder.decode(bytes, offset, length);
+			return decoded;
+		}
+
+		@Override
+		public int length() {
+			return decoded().length();
+		}
+
+		@Override
+		public char charAt( int index ) {
+			return decoded().charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence( int start, int end ) {
+			return decoded().subSequence(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return decoded().toString();
+		}
+	}
+}
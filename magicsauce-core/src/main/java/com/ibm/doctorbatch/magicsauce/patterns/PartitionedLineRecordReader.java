@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.Reader;
+
+/**
+ * <p>PartitionedLineRecordReader reads the lines of one {@link FilePartition}: the lines
+ * which begin within the partition's byte range. As with Hadoop input splits, a partition 
+ * starting in the middle of a line skips that partial line, which belongs to the previous 
+ * partition, and the last line is read to its end even when it extends past the end of 
+ * the range. Any set of partitions covering a file therefore reads every line exactly 
+ * once, whether or not the partitions were aligned by {@link LinePartitioner}.</p>
+ * 
+ * <p>getState() returns a {@link LineCheckpoint} with the absolute byte offset of the next
+ * line, and the number of lines read from the partition. The file must be in an ASCII 
+ * compatible encoding.</p>
+ * 
+ * <p>Subclasses read other kinds of file by overriding openStream(); offsets are then 
+ * positions in the stream it returns, which must support skip(long).</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class PartitionedLineRecordReader implements Reader<String> {
+	private FilePartition partition;
+	private Charset charset = Charset.defaultCharset();
+	private int bufferSize = LineScanner.DEFAULT_BUFFER_SIZE;
+	
+	private StreamLineScanner scanner;
+	private long lineNumber;
+	
+	public PartitionedLineRecordReader() {
+	}
+	
+	public PartitionedLineRecordReader( FilePartition partition, Charset charset ) {
+		this.partition = partition;
+		this.charset = charset;
+	}
+	
+	/**
+	 * Opens the partition, positioned at the line given by a previous call to getState(),
+	 * or at the first line of the partition if state is null.
+	 */
+	@Override
+	public void open( Serializable state ) {
+		if ( !LineScanner.isAsciiCompatible(charset) )
+			throw new BatchException(getClass().getSimpleName() + " requires an ASCII compatible charset; " + charset.name() + " is not supported.");
+		
+		try {
+			scanner = new StreamLineScanner( openStream(), charset, bufferSize );
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while opening " + partition.getFile(), ioe);
+		}
+		
+		if ( state != null ) {
+			LineCheckpoint checkpoint = (LineCheckpoint) state;
+			scanner.seek( checkpoint.getByteOffset() );
+			lineNumber = checkpoint.getLineNumber();
+		} else if ( partition.getStart() > 0 ) {
+			// Skip to just after the first '\n' at or after start - 1; if the byte before 
+			// start is a '\n', this skips nothing.
+			scanner.seek( partition.getStart() - 1 );
+			scanner.next();
+			lineNumber = 0;
+		} else {
+			lineNumber = 0;
+		}
+	}
+	
+	/**
+	 * Opens the partition's file for reading from its first byte.
+	 */
+	protected InputStream openStream() throws IOException {
+		return new FileInputStream( partition.getFile() );
+	}
+	
+	@Override
+	public void close() {
+		if ( scanner != null ) {
+			scanner.close();
+			scanner = null;
+		}
+	}
+	
+	@Override
+	public String read() {
+		CharSequence line = readCharSequence();
+		return ( line == null ? null : line.toString() );
+	}
+
+	/**
+	 * Obtains the next line of the partition as a view into the reader's buffer. The 
+	 * returned sequence is only valid until the next call to read() or readCharSequence().
+	 * 
+	 * @return The next line, or null if no more lines begin within the partition.
+	 */
+	public CharSequence readCharSequence() {
+		if ( scanner.getPosition() >= partition.getEnd() )
+			return null;
+		
+		CharSlice line = scanner.next();
+		if ( line != null )
+			++lineNumber;
+		
+		return line;
+	}
+	
+	@Override
+	public Serializable getState() {
+		return new LineCheckpoint( scanner.getPosition(), lineNumber );
+	}
+	
+	public long getLineNumber() {
+		return lineNumber;
+	}
+	
+	public FilePartition getPartition() {
+		return partition;
+	}
+	
+	public void setPartition( FilePartition partition ) {
+		this.partition = partition;
+	}
+	
+	public Charset getCharset() {
+		return charset;
+	}
+	
+	public void setCharset( Charset charset ) {
+		this.charset = charset;
+	}
+	
+	public int getBufferSize() {
+		return bufferSize;
+	}
+	
+	public void setBufferSize( int bufferSize ) {
+		this.bufferSize = bufferSize;
+	}
+}
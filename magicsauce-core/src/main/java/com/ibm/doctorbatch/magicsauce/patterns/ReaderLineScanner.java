@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * A LineScanner over an already decoded character source. Lines are returned as views
+ * directly into the scan buffer, so no copy is made unless the caller asks for a String.
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class ReaderLineScanner extends LineScanner {
+	private final Reader in;
+	private final CharSlice slice = new CharSlice();
+
+	private char[] buffer;
+	private int pos;
+	private int limit;
+	private boolean eof;
+
+	public ReaderLineScanner( Reader in, int bufferSize ) {
+		this.in = in;
+		this.buffer = new char[Math.max(bufferSize, 64)];
+	}
+
+	@Override
+	public CharSlice next() {
+		int scanFrom = pos;
+
+		while ( true ) {
+			char[] chars = buffer;
+			for ( int i = scanFrom; i < limit; ++i ) {
+				if ( chars[i] == '\n' ) {
+					int end = ( i > pos && chars[i - 1] == '\r' ) ? i - 1 : i;
+					slice.set(chars, pos, end - pos);
+					pos = i + 1;
+					return slice;
+				}
+			}
+
+			if ( eof ) {
+				if ( pos == limit )
+					return null;
+
+				slice.set(chars, pos, limit - pos);
+				pos = limit;
+				return slice;
+			}
+
+			scanFrom = limit - pos;
+			fill();
+		}
+	}
+
+	/**
+	 * Character sources do not expose byte offsets.
+	 */
+	@Override
+	public long getPosition() {
+		return -1;
+	}
+
+	@Override
+	public void close() {
+		try {
+			in.close();
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while closing reader", ioe);
+		}
+	}
+
+	private void fill() {
+		if ( pos > 0 ) {
+			System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+
+		if ( limit == buffer.length ) {
+			char[] old = buffer;
+			buffer = new char[old.length * 2];
+			System.arraycopy(old, 0, buffer, 0, limit);
+		}
+
+		try {
+			int n = in.read(buffer, limit, buffer.length - limit);
+			if ( n < 0 )
+				eof = true;
+			else
+				limit += n;
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while reading", ioe);
+		}
+	}
+}
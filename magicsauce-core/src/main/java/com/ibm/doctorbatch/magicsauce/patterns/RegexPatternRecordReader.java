@@ -17,24 +17,33 @@
 package com.ibm.doctorbatch.magicsauce.patterns;
 
 import java.io.BufferedReader;
-import java.util.Scanner;
 import java.util.regex.Pattern;
 
 import com.ibm.doctorbatch.magicsauce.Reader;
 
 /**
- * RegexPatternRecordReader uses an regular expression pattern to match record 
- * delimiters in an input source reader.
+ * <p>RegexPatternRecordReader uses an regular expression pattern to match record 
+ * delimiters in an input source reader.</p>
+ * 
+ * <p>Records are split by a {@link DelimiterScanner}. Delimiters which are plain strings, 
+ * such as multi-character record terminators, are located without the regular expression 
+ * engine. Use setMaxRecordSize(int) to bound the memory used for a single record, and
+ * setMaxDelimiterSize(int) if a regular expression delimiter can match more than
+ * {@link DelimiterScanner#DEFAULT_MAX_DELIMITER_SIZE} characters.</p>
  * 
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
  *
  */
 public abstract class RegexPatternRecordReader implements Reader<String>{
 	private Pattern pattern;
-	private Scanner scanner;
+	private BufferedReader source;
+	private DelimiterScanner scanner;
+	private int maxRecordSize = DelimiterScanner.DEFAULT_MAX_RECORD_SIZE;
+	private int maxDelimiterSize = DelimiterScanner.DEFAULT_MAX_DELIMITER_SIZE;
 
 	public void setSource( BufferedReader reader ) {
-		this.scanner = new Scanner(reader);
+		this.source = reader;
+		this.scanner = null;
 	}
 	
 	public Pattern getPattern() {
@@ -43,16 +52,70 @@ public abstract class RegexPatternRecordReader implements Reader<String>{
 
 	public void setPattern(Pattern pattern) {
 		this.pattern = pattern;
+		
+		if ( scanner != null )
+			scanner.setDelimiter(pattern);
 	}
 	
 	public void setPattern(String pattern) {
 		setPattern(Pattern.compile(pattern));
 	}
 
+	public int getMaxRecordSize() {
+		return maxRecordSize;
+	}
+
+	/**
+	 * Sets the largest record, in characters, this reader will buffer. Reading a larger 
+	 * record throws a BatchException.
+	 * 
+	 * @param maxRecordSize
+	 */
+	public void setMaxRecordSize(int maxRecordSize) {
+		this.maxRecordSize = maxRecordSize;
+		
+		if ( scanner != null )
+			scanner.setMaxRecordSize(maxRecordSize);
+	}
+
+	public int getMaxDelimiterSize() {
+		return maxDelimiterSize;
+	}
+
+	/**
+	 * Sets the longest delimiter, in characters, the pattern is expected to match. A 
+	 * longer delimiter is only found if the reader does not have to read more input in
+	 * the middle of it.
+	 * 
+	 * @param maxDelimiterSize
+	 */
+	public void setMaxDelimiterSize(int maxDelimiterSize) {
+		this.maxDelimiterSize = maxDelimiterSize;
+		
+		if ( scanner != null )
+			scanner.setMaxDelimiterSize(maxDelimiterSize);
+	}
+
 	@Override
 	public String read() {
-		scanner.useDelimiter(pattern);
-		return ( scanner.hasNext() ? scanner.next() : null );
+		CharSequence record = readCharSequence();
+		return ( record == null ? null : record.toString() );
+	}
+
+	/**
+	 * Obtains the next record as a view into the reader's buffer. The returned sequence is
+	 * only valid until the next call to read() or readCharSequence().
+	 * 
+	 * @return The next record, or null if no more records are available.
+	 */
+	public CharSequence readCharSequence() {
+		if ( scanner == null ) {
+			scanner = new DelimiterScanner(source, pattern, LineScanner.DEFAULT_BUFFER_SIZE);
+			scanner.setMaxRecordSize(maxRecordSize);
+			scanner.setMaxDelimiterSize(maxDelimiterSize);
+		}
+		
+		return scanner.next();
 	}
 
 }
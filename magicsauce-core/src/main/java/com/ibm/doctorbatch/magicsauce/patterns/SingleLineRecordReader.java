@@ -16,32 +16,169 @@
 
 package com.ibm.doctorbatch.magicsauce.patterns;
 
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.List;
+import java.nio.charset.Charset;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.BulkReader;
+
 
 /**
- * StringReader reads string records, one per line, from an
- * input reader. 
+ * <p>StringReader reads string records, one per line, from an
+ * input reader.</p>
+ * 
+ * <p>Lines are split by a {@link LineScanner} rather than by the regular expression
+ * engine of the base class. A line ends at '\n' or '\r\n'; the terminator is not 
+ * returned. Sources supplied as an InputStream are scanned at the byte level, which is 
+ * the fastest option for large files. Use readCharSequence() instead of read() to avoid
+ * creating a String per record.</p>
+ * 
+ * <p>getState() returns a {@link LineCheckpoint} holding the byte offset and number of the
+ * next line. Subclasses restart by calling seek(state) from open(Serializable), after 
+ * setting the source. For byte streams in an ASCII compatible encoding, the stream is 
+ * positioned directly at the byte offset, so restarting takes constant time for file 
+ * streams. Other sources are restarted by skipping lines.</p>
  * 
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
  */
-public abstract class SingleLineRecordReader extends RegexPatternRecordReader {
-	private int lineNumber;
+public abstract class SingleLineRecordReader extends RegexPatternRecordReader implements BulkReader<String> {
+	private long lineNumber;
+	private int bufferSize = LineScanner.DEFAULT_BUFFER_SIZE;
+	private LineScanner lineScanner;
 
 	public SingleLineRecordReader() {
 		super.setPattern("\\n");
 	}
 	
+	@Override
+	public void setSource( BufferedReader reader ) {
+		this.lineScanner = new ReaderLineScanner(reader, bufferSize);
+	}
+	
+	/**
+	 * Reads lines from the given stream, in the platform default encoding.
+	 * 
+	 * @param in
+	 */
+	public void setSource( InputStream in ) {
+		setSource( in, Charset.defaultCharset() );
+	}
+	
+	/**
+	 * Reads lines from the given stream, in the given encoding.
+	 * 
+	 * @param in
+	 * @param charset
+	 */
+	public void setSource( InputStream in, Charset charset ) {
+		this.lineScanner = LineScanner.forStream(in, charset, bufferSize);
+	}
+	
 	@Override
 	public String read() {
-		setLineNumber(getLineNumber() + 1);
-		return super.read();
+		CharSequence line = readCharSequence();
+		return ( line == null ? null : line.toString() );
+	}
+
+	/**
+	 * Reads up to max lines into the given list, directly from the line scanner.
+	 */
+	@Override
+	public int read( int max, List<? super String> into ) {
+		LineScanner scanner = lineScanner;
+		int count = 0;
+		CharSlice line;
+		while ( count < max && (line = scanner.next()) != null ) {
+			into.add( line.toString() );
+			++count;
+		}
+		
+		setLongLineNumber( getLongLineNumber() + count );
+		return count;
+	}
+
+	/**
+	 * Obtains the next line as a view into the reader's buffer. The returned sequence is
+	 * only valid until the next call to read() or readCharSequence().
+	 * 
+	 * @return The next line, or null if no more lines are available.
+	 */
+	public CharSequence readCharSequence() {
+		CharSlice line = lineScanner.next();
+		if ( line != null )
+			setLongLineNumber(getLongLineNumber() + 1);
+		
+		return line;
+	}
+
+	/**
+	 * Returns a LineCheckpoint for the next line to be read.
+	 */
+	@Override
+	public Serializable getState() {
+		return new LineCheckpoint( lineScanner.getPosition(), lineNumber );
+	}
+	
+	/**
+	 * Positions the current source at the line identified by a state returned from 
+	 * getState(). Must be called before the first line is read from the source. A null 
+	 * state leaves the source at its start.
+	 * 
+	 * @param state A LineCheckpoint, or null
+	 */
+	public void seek( Serializable state ) {
+		if ( state == null )
+			return;
+		
+		if ( !(state instanceof LineCheckpoint) )
+			throw new BatchException("Unsupported checkpoint state for " + getClass().getName() + ": " + state);
+		
+		LineCheckpoint checkpoint = (LineCheckpoint) state;
+		lineScanner.seek( checkpoint );
+		
+		setLongLineNumber( checkpoint.getLineNumber() );
 	}
 
+	protected LineScanner getLineScanner() {
+		return lineScanner;
+	}
+
+	/**
+	 * Returns the number of lines read, which wraps past Integer.MAX_VALUE lines; see 
+	 * getLongLineNumber().
+	 */
 	public int getLineNumber() {
-		return lineNumber;
+		return (int) getLongLineNumber();
 	}
 
 	public void setLineNumber(int lineNumber) {
+		setLongLineNumber(lineNumber);
+	}
+
+	/**
+	 * Returns the number of lines read. The reader updates it through setLongLineNumber.
+	 */
+	public long getLongLineNumber() {
+		return lineNumber;
+	}
+
+	public void setLongLineNumber(long lineNumber) {
 		this.lineNumber = lineNumber;
 	}
-}
 
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Sets the initial size of the scan buffer used by sources set after this call.
+	 * 
+	 * @param bufferSize
+	 */
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+}
@@ -17,27 +17,61 @@
 package com.ibm.doctorbatch.magicsauce.patterns;
 
 import java.io.BufferedWriter;
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.List;
 
 import com.ibm.doctorbatch.magicsauce.BatchException;
 import com.ibm.doctorbatch.magicsauce.Writer;
 
 /**
- * StringWriter writes string records, one per line, to an
- * output writer.
+ * <p>StringWriter writes string records, one per line, to an
+ * output writer.</p>
+ * 
+ * <p>When the target is a FileChannel (see setChannel), records are encoded through a 
+ * ChannelLineWriter, which buffers them according to the flush policy.</p>
+ * 
+ * <p>setCompressedTarget writes records to a {@link BlockCompressedOutputStream} instead, 
+ * which compresses blocks of lines on a thread pool into a gzip file with a side index.</p>
+ * 
+ * <p>getState() always returns a {@link LineCheckpoint}: the byte offset following the 
+ * last record written (the compressed offset for compressed targets, or -1 when writing 
+ * to a BufferedWriter), and the number of lines written. On restart, pass that state to 
+ * truncate(Serializable) to discard anything written after the checkpoint and restore 
+ * the line number.</p>
+ * 
+ * <p>Subclasses which write to a FileChannel must call flush() before closing it.</p>
  * 
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
  */
 public abstract class SingleLineRecordWriter implements Writer<String> {
-	private int lineNumber;
+	public final static int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+	
+	private long lineNumber;
 	private BufferedWriter writer;
 	
+	private FileChannel channel;
+	private BlockCompressedOutputStream compressed;
+	private ChannelLineWriter lineWriter;
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+	private FlushPolicy flushPolicy = FlushPolicy.CHECKPOINT;
+	private long flushThreshold = Long.MAX_VALUE;
 	
 	@Override
 	public void write(String record) {
 		try {
-			write( Arrays.asList( new String[]{record} ) );
+			String line = String.valueOf(record);
+			if ( lineWriter != null ) {
+				lineWriter.write(line);
+			} else {
+				writer.write(line);
+				writer.write('\n');
+			}
+			setLongLineNumber( lineNumber + 1 );
+		} catch ( BatchException be ) {
+			throw be;
 		} catch ( Exception e ) {
 			throw new BatchException(e);
 		}
@@ -45,20 +79,99 @@ public abstract class SingleLineRecordWriter implements Writer<String> {
 
 	@Override
 	public void write(List<? extends String> records) {
+		for ( String line : records ) {
+			write( line );
+		}
+	}
+
+	/**
+	 * Writes any buffered records to the target. For compressed targets, this ends the 
+	 * current block.
+	 */
+	public void flush() {
 		try {
-			for (Object line : records) {
-				writer.write(line + "\n");
+			if ( lineWriter != null ) {
+				lineWriter.flush();
+				if ( compressed != null )
+					compressed.flush();
+			} else if ( writer != null )
+				writer.flush();
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while flushing records", ioe);
+		}
+	}
+	
+	/**
+	 * Flushes buffered records, and returns a LineCheckpoint holding the byte offset 
+	 * following the last record written, or -1 when writing to a BufferedWriter, and the 
+	 * number of lines written.
+	 */
+	@Override
+	public Serializable getState() {
+		flush();
+		
+		long offset = -1;
+		if ( compressed != null ) {
+			offset = compressed.getCompressedOffset();
+		} else if ( channel != null ) {
+			try {
+				offset = channel.position();
+			} catch ( IOException ioe ) {
+				throw new BatchException("Unexpected error while reading the channel position", ioe);
 			}
-		} catch ( Exception e ) {
-			throw new BatchException(e);
 		}
+		
+		return new LineCheckpoint( offset, lineNumber );
+	}
+	
+	/**
+	 * Restores the line number from a LineCheckpoint returned by an earlier call to 
+	 * getState(), and truncates the target FileChannel or compressed file at its byte 
+	 * offset, positioning it there. A checkpoint without a byte offset only restores the 
+	 * line number, and a null state does nothing.
+	 */
+	public void truncate(Serializable state) {
+		if ( state == null )
+			return;
+		
+		if ( !(state instanceof LineCheckpoint) )
+			throw new BatchException("Unsupported checkpoint state for " + getClass().getName() + ": " + state);
+		
+		LineCheckpoint checkpoint = (LineCheckpoint) state;
+		long offset = checkpoint.getByteOffset();
+		
+		if ( offset >= 0 ) {
+			if ( compressed != null ) {
+				compressed.truncate( offset );
+			} else if ( channel == null ) {
+				throw new BatchException("Only FileChannel targets can be truncated on restart");
+			} else {
+				try {
+					if ( channel.size() > offset )
+						channel.truncate(offset);
+					channel.position(offset);
+				} catch ( IOException ioe ) {
+					throw new BatchException("Unexpected error while truncating output at " + state, ioe);
+				}
+			}
+		}
+		
+		setLongLineNumber( checkpoint.getLineNumber() );
 	}
 
 	public int getLineNumber() {
-		return lineNumber;
+		return (int) getLongLineNumber();
 	}
 
 	public void setLineNumber(int lineNumber) {
+		setLongLineNumber( lineNumber );
+	}
+
+	public long getLongLineNumber() {
+		return lineNumber;
+	}
+
+	public void setLongLineNumber(long lineNumber) {
 		this.lineNumber = lineNumber;
 	}
 
@@ -68,21 +181,79 @@ public abstract class SingleLineRecordWriter implements Writer<String> {
 
 	public void setWriter(BufferedWriter writer) {
 		this.writer = writer;
+		this.channel = null;
+		this.compressed = null;
+		this.lineWriter = null;
 	}
 	
+	public FileChannel getChannel() {
+		return channel;
+	}
 	
+	/**
+	 * Writes records to a FileChannel in the platform default charset.
+	 */
+	public void setChannel(FileChannel channel) {
+		setChannel( channel, Charset.defaultCharset() );
+	}
+	
+	/**
+	 * Writes records to a FileChannel, encoded in the given charset.
+	 */
+	public void setChannel(FileChannel channel, Charset charset) {
+		this.writer = null;
+		this.channel = channel;
+		this.compressed = null;
+		this.lineWriter = new ChannelLineWriter( channel, charset, bufferSize );
+		this.lineWriter.setFlushPolicy( flushPolicy, flushThreshold );
+	}
+	
+	public BlockCompressedOutputStream getCompressedTarget() {
+		return compressed;
+	}
+	
+	/**
+	 * Writes records, encoded in the given charset, to a block compressed gzip file. 
+	 * Subclasses close the stream after calling flush().
+	 */
+	public void setCompressedTarget(BlockCompressedOutputStream out, Charset charset) {
+		this.writer = null;
+		this.channel = null;
+		this.compressed = out;
+		this.lineWriter = new ChannelLineWriter( out, charset, bufferSize );
+		this.lineWriter.setFlushPolicy( flushPolicy, flushThreshold );
+	}
+	
+	public int getBufferSize() {
+		return bufferSize;
+	}
+	
+	/**
+	 * Sets the size, in bytes, of the encode buffer used for FileChannel targets. Takes 
+	 * effect on the next call to setChannel.
+	 */
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+	
+	public FlushPolicy getFlushPolicy() {
+		return flushPolicy;
+	}
+	
+	public long getFlushThreshold() {
+		return flushThreshold;
+	}
+	
+	/**
+	 * Sets when records buffered for a FileChannel target are written out. The threshold 
+	 * is a number of bytes for FlushPolicy.BYTES, a number of records for 
+	 * FlushPolicy.RECORDS, and is ignored for FlushPolicy.CHECKPOINT.
+	 */
+	public void setFlushPolicy(FlushPolicy flushPolicy, long threshold) {
+		this.flushPolicy = flushPolicy;
+		this.flushThreshold = threshold;
+		
+		if ( lineWriter != null )
+			lineWriter.setFlushPolicy( flushPolicy, threshold );
+	}
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
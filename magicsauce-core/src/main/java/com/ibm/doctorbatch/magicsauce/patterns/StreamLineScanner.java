@@ -0,0 +1,232 @@
+/*
+ * Copyright 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+/**
+ * A LineScanner over a byte stream in an ASCII compatible encoding. Line terminators are
+ * located in the raw bytes a word at a time, and each line is decoded only once it has
+ * been found.
+ *
+ * @see LineScanner#forStream(InputStream, Charset, int)
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@tobat.ch)
+ */
+public class StreamLineScanner extends LineScanner {
+	private final InputStream in;
+	private final LineDecoder decoder;
+	private final boolean singleByte;
+
+	private byte[] buffer;
+	private ByteBuffer words;
+	private int pos;
+	private int limit;
+	private boolean eof;
+
+	/*
+	 * The bytes of the line last located by advance()
+	 */
+	private int lineStart;
+	private int lineLength;
+
+	/*
+	 * Offset in the stream of buffer[0]
+	 */
+	private long bufferOffset;
+
+	public StreamLineScanner( InputStream in, Charset charset, int bufferSize ) {
+		if ( !isAsciiCompatible(charset) )
+			throw new BatchException("Charset " + charset.name() + " is not ASCII compatible; use LineScanner.forStream instead.");
+
+		this.in = in;
+		this.decoder = new LineDecoder(charset, 256);
+		this.singleByte = ( charset.newEncoder().maxBytesPerChar() == 1.0f );
+		allocate(Math.max(bufferSize, 64));
+	}
+
+	@Override
+	public CharSlice next() {
+		if ( !advance() )
+			return null;
+
+		return decoder.decode(words, lineStart, lineLength);
+	}
+
+	/*
+	 * Locates the next line without decoding it. Its bytes remain in the buffer until the
+	 * next call to advance() or next(). Returns false if the end of the input has been
+	 * reached.
+	 */
+	boolean advance() {
+		int scanFrom = pos;
+
+		while ( true ) {
+			int newline = indexOfNewline(words, scanFrom, limit);
+
+			if ( newline >= 0 ) {
+				int end = ( newline > pos && buffer[newline - 1] == '\r' ) ? newline - 1 : newline;
+				lineStart = pos;
+				lineLength = end - pos;
+				pos = newline + 1;
+				return true;
+			}
+
+			if ( eof ) {
+				if ( pos == limit )
+					return false;
+
+				lineStart = pos;
+				lineLength = limit - pos;
+				pos = limit;
+				return true;
+			}
+
+			scanFrom = limit - pos;
+			fill();
+		}
+	}
+
+	/*
+	 * Returns the length in bytes of the line located by advance().
+	 */
+	int getLineLength() {
+		return lineLength;
+	}
+
+	/*
+	 * Decodes the whole line located by advance().
+	 */
+	CharSlice decodeLine() {
+		return decoder.decode(words, lineStart, lineLength);
+	}
+
+	/*
+	 * Returns true if every byte in [from,to) of the line located by advance() is ASCII.
+	 */
+	boolean isAscii( int from, int to ) {
+		return isAscii(words, lineStart + from, lineStart + to);
+	}
+
+	/*
+	 * Returns true if each byte of the stream decodes to one char, so that byte offsets
+	 * within a line are also char offsets.
+	 */
+	boolean isSingleByte() {
+		return singleByte;
+	}
+
+	/*
+	 * Decodes bytes [from,from + length) of the line located by advance() into
+	 * into[0,length). The bytes must decode to one char each: they are ASCII, or the
+	 * stream is single byte.
+	 */
+	void decode( int from, int length, char[] into ) {
+		decoder.decode(words, lineStart + from, length, into);
+	}
+
+	@Override
+	public long getPosition() {
+		return bufferOffset + pos;
+	}
+
+	/**
+	 * Seeks to the byte offset of the checkpoint, if it has one.
+	 */
+	@Override
+	public void seek( LineCheckpoint checkpoint ) {
+		if ( checkpoint.getByteOffset() >= 0 )
+			seek( checkpoint.getByteOffset() );
+		else
+			super.seek( checkpoint );
+	}
+
+	/**
+	 * Positions the scanner at the given byte offset of the stream. Must be called before
+	 * the first line is read. The stream is positioned with InputStream.skip, which does
+	 * not read the skipped bytes for file streams.
+	 */
+	public void seek( long offset ) {
+		if ( bufferOffset != 0 || limit != 0 )
+			throw new BatchException("StreamLineScanner can only seek before the first line is read");
+
+		try {
+			long remaining = offset;
+			while ( remaining > 0 ) {
+				long n = in.skip(remaining);
+				if ( n <= 0 ) {
+					if ( in.read() < 0 )
+						throw new BatchException("Position " + offset + " is beyond the end of the stream");
+					n = 1;
+				}
+				remaining -= n;
+			}
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while positioning stream at " + offset, ioe);
+		}
+
+		bufferOffset = offset;
+	}
+
+	@Override
+	public void close() {
+		try {
+			in.close();
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while closing stream", ioe);
+		}
+	}
+
+	/*
+	 * Moves the unread bytes to the front of the buffer, growing it if it is full, and
+	 * reads more input behind them. The scan offset of the caller shifts with the data.
+	 */
+	private void fill() {
+		if ( pos > 0 ) {
+			System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+			bufferOffset += pos;
+			limit -= pos;
+			pos = 0;
+		}
+
+		if ( limit == buffer.length ) {
+			byte[] old = buffer;
+			allocate(old.length * 2);
+			System.arraycopy(old, 0, buffer, 0, limit);
+		}
+
+		try {
+			int n = in.read(buffer, limit, buffer.length - limit);
+			if ( n < 0 )
+				eof = true;
+			else
+				limit += n;
+		} catch ( IOException ioe ) {
+			throw new BatchException("Unexpected error while reading stream", ioe);
+		}
+	}
+
+	private void allocate( int size ) {
+		buffer = new byte[size];
+		words = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
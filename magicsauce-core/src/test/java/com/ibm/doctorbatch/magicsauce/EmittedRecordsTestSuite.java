@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class EmittedRecordsTestSuite {
+	/*
+	 * Returns the record, or null for "-".
+	 */
+	private static class Identity implements RecordProcessor<String,String> {
+		@Override
+		public void initialize( Properties jobStepProperties ) {
+		}
+		
+		@Override
+		public String process( String record ) {
+			return "-".equals( record ) ? null : record;
+		}
+		
+		@Override
+		public int getReturnCode() {
+			return 0;
+		}
+		
+		@Override
+		public void tearDown() {
+		}
+	}
+	
+	/*
+	 * Emits each character of the record.
+	 */
+	private static class Characters extends Identity implements EmittingRecordProcessor<String,String> {
+		@Override
+		public void process( String record, RecordEmitter<? super String> emitter ) {
+			for ( int i = 0; i < record.length(); ++i )
+				emitter.emit( record.substring( i, i + 1 ) );
+		}
+	}
+	
+	@Test
+	public void testEmitIgnoresNull() {
+		EmittedRecords<String> emitted = new EmittedRecords<String>();
+		emitted.emit( "a" );
+		emitted.emit( null );
+		emitted.emit( "b" );
+		assertEquals( Arrays.asList( "a", "b" ), emitted );
+	}
+	
+	@Test
+	public void testFlattenReturnsFlatList() {
+		List<Object> items = new ArrayList<Object>( Arrays.asList( "a", "b" ) );
+		assertSame( items, EmittedRecords.flatten( items ) );
+	}
+	
+	@Test
+	public void testFlattenExpandsEmittedRecords() {
+		EmittedRecords<String> split = new EmittedRecords<String>();
+		split.emit( "b" );
+		split.emit( "c" );
+		
+		// A plain List item is a record, and is not expanded
+		List<String> record = Arrays.asList( "d", "e" );
+		
+		List<Object> items = new ArrayList<Object>();
+		items.add( "a" );
+		items.add( split );
+		items.add( null );
+		items.add( new EmittedRecords<String>() );
+		items.add( record );
+		
+		List<Object> flat = EmittedRecords.flatten( items );
+		assertEquals( 4, flat.size() );
+		assertEquals( Arrays.<Object>asList( "a", "b", "c", record ), flat );
+	}
+	
+	@Test
+	public void testProcessThroughEmitter() {
+		EmittedRecords<String> emitted = new EmittedRecords<String>();
+		
+		RecordProcessorUtil.process( new Identity(), "ab", emitted );
+		RecordProcessorUtil.process( new Identity(), "-", emitted );
+		assertEquals( Arrays.asList( "ab" ), emitted );
+		
+		RecordProcessorUtil.process( new Characters(), "cd", emitted );
+		assertEquals( Arrays.asList( "ab", "c", "d" ), emitted );
+	}
+	
+	@Test
+	public void testEmitterReceivesEachRecord() {
+		final List<String> received = new ArrayList<String>();
+		RecordEmitter<Object> emitter = new RecordEmitter<Object>() {
+			@Override
+			public void emit( Object record ) {
+				received.add( String.valueOf( record ) );
+			}
+		};
+		
+		RecordProcessorUtil.process( new Characters(), "xyz", emitter );
+		assertEquals( Arrays.asList( "x", "y", "z" ), received );
+	}
+}
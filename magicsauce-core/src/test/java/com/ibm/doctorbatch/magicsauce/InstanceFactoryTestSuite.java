@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class InstanceFactoryTestSuite {
+	public static class Plain {
+	}
+	
+	public static class Counted {
+	}
+	
+	public static class Concurrent {
+	}
+	
+	public static class Private {
+		private Private() {
+		}
+	}
+	
+	public static class NoDefaultConstructor {
+		public NoDefaultConstructor( String value ) {
+		}
+	}
+	
+	public static class Failing {
+		public Failing() {
+			throw new IllegalStateException( "constructor failed" );
+		}
+	}
+	
+	public static abstract class Abstract {
+	}
+	
+	@After
+	public void tearDown() {
+		ClassUtil.setInstanceCounting( false );
+	}
+	
+	@Test
+	public void testNewInstance() {
+		InstanceFactory<Plain> factory = ClassUtil.getInstanceFactory( Plain.class );
+		assertSame( Plain.class, factory.getType() );
+		
+		Plain a = factory.newInstance();
+		Plain b = factory.newInstance();
+		assertNotSame( a, b );
+	}
+	
+	@Test
+	public void testFactoryIsCached() {
+		assertSame( ClassUtil.getInstanceFactory( Plain.class ), ClassUtil.getInstanceFactory( Plain.class ) );
+		
+		Plain plain = ClassUtil.getInstanceForClass( Plain.class.getName() );
+		assertSame( Plain.class, plain.getClass() );
+	}
+	
+	@Test
+	public void testPrivateConstructor() {
+		// Class.newInstance() rejected this; the factory makes the constructor accessible
+		Private instance = ClassUtil.getInstanceFactory( Private.class ).newInstance();
+		assertSame( Private.class, instance.getClass() );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testNoDefaultConstructor() {
+		ClassUtil.getInstanceFactory( NoDefaultConstructor.class );
+	}
+	
+	@Test
+	public void testConstructorFailure() {
+		try {
+			ClassUtil.getInstanceFactory( Failing.class ).newInstance();
+			fail( "Expected a BatchException" );
+		} catch ( BatchException be ) {
+			assertTrue( be.getCause() instanceof IllegalStateException );
+		}
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testAbstractClass() {
+		ClassUtil.getInstanceFactory( Abstract.class ).newInstance();
+	}
+	
+	@Test
+	public void testCountingIsOptional() {
+		InstanceFactory<Counted> factory = ClassUtil.getInstanceFactory( Counted.class );
+		long before = factory.getInstanceCount();
+		
+		factory.newInstance();
+		assertEquals( "Instances are not counted by default", before, factory.getInstanceCount() );
+		
+		ClassUtil.setInstanceCounting( true );
+		assertTrue( ClassUtil.isInstanceCounting() );
+		factory.newInstance();
+		factory.newInstance();
+		assertEquals( before + 2, factory.getInstanceCount() );
+		assertEquals( Long.valueOf( before + 2 ), ClassUtil.getInstanceCounts().get( Counted.class.getName() ) );
+		
+		ClassUtil.setInstanceCounting( false );
+		factory.newInstance();
+		assertEquals( before + 2, factory.getInstanceCount() );
+	}
+	
+	@Test
+	public void testConcurrentCounting() throws InterruptedException {
+		final InstanceFactory<Concurrent> factory = ClassUtil.getInstanceFactory( Concurrent.class );
+		final int perThread = 10000;
+		long before = factory.getInstanceCount();
+		ClassUtil.setInstanceCounting( true );
+		
+		Thread[] threads = new Thread[4];
+		for ( int i = 0; i < threads.length; ++i ) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for ( int j = 0; j < perThread; ++j )
+						factory.newInstance();
+				}
+			};
+			threads[i].start();
+		}
+		
+		for ( Thread thread : threads )
+			thread.join();
+		
+		assertEquals( before + threads.length * perThread, factory.getInstanceCount() );
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.concurrent.AsyncLogHandler;
+import com.ibm.doctorbatch.magicsauce.concurrent.AsyncLogHandlerTestSuite.CollectingHandler;
+
+public class MagicSauceLoggerTestSuite {
+	private final static Logger LOG = Logger.getLogger( MagicSauceLogger.class.getCanonicalName() );
+	
+	private CollectingHandler target;
+	private Level level;
+	private boolean useParentHandlers;
+	
+	/*
+	 * Counts the messages it builds.
+	 */
+	private static class CountingSupplier implements MessageSupplier {
+		int calls;
+		
+		@Override
+		public String getMessage() {
+			return "built " + (++calls);
+		}
+	}
+	
+	@Before
+	public void setUp() {
+		level = LOG.getLevel();
+		useParentHandlers = LOG.getUseParentHandlers();
+		target = new CollectingHandler();
+		target.setLevel( Level.ALL );
+		LOG.addHandler( target );
+		LOG.setUseParentHandlers( false );
+		LOG.setLevel( Level.INFO );
+	}
+	
+	@After
+	public void tearDown() {
+		LOG.removeHandler( target );
+		LOG.setUseParentHandlers( useParentHandlers );
+		LOG.setLevel( level );
+	}
+	
+	@Test
+	public void testSupplierOnlyCalledWhenEnabled() {
+		MagicSauceLogger logger = MagicSauceLogger.getInstance();
+		CountingSupplier supplier = new CountingSupplier();
+		
+		assertFalse( logger.isTraceEnabled() );
+		logger.trace( supplier );
+		assertEquals( 0, supplier.calls );
+		assertEquals( 0, target.records.size() );
+		
+		logger.info( supplier );
+		logger.warning( supplier );
+		assertEquals( 2, supplier.calls );
+		assertEquals( "built 1", target.records.get( 0 ).getMessage() );
+		assertEquals( Level.WARNING, target.records.get( 1 ).getLevel() );
+		
+		LOG.setLevel( Level.ALL );
+		assertTrue( logger.isTraceEnabled() );
+		logger.trace( supplier );
+		assertEquals( 3, supplier.calls );
+		assertEquals( Level.FINEST, target.records.get( 2 ).getLevel() );
+	}
+	
+	@Test
+	public void testPatternsAreNotFormatted() {
+		MagicSauceLogger logger = MagicSauceLogger.getInstance();
+		
+		logger.trace( "Loading class {0}", "a.B" );
+		assertEquals( 0, target.records.size() );
+		
+		logger.info( "Loading class {0}", "a.B" );
+		logger.warning( "{0} of {1}", 1, 2 );
+		
+		assertEquals( "Loading class {0}", target.records.get( 0 ).getMessage() );
+		assertArrayEquals( new Object[] { "a.B" }, target.records.get( 0 ).getParameters() );
+		assertEquals( "{0} of {1}", target.records.get( 1 ).getMessage() );
+		assertArrayEquals( new Object[] { 1, 2 }, target.records.get( 1 ).getParameters() );
+		assertEquals( Level.WARNING, target.records.get( 1 ).getLevel() );
+	}
+	
+	@Test
+	public void testAsyncLogging() {
+		MagicSauceLogger logger = MagicSauceLogger.getInstance();
+		
+		AsyncLogHandler async = logger.enableAsyncLogging( 64 );
+		assertSame( async, logger.enableAsyncLogging( 128 ) );
+		assertSame( async, LOG.getHandlers()[0] );
+		
+		logger.info( "queued" );
+		async.flush();
+		assertEquals( 1, target.records.size() );
+		assertFalse( target.threads.contains( Thread.currentThread() ) );
+		
+		logger.disableAsyncLogging();
+		assertSame( "Expected asynchronous logging until the last disable", async, LOG.getHandlers()[0] );
+		
+		logger.disableAsyncLogging();
+		for ( Handler h : LOG.getHandlers() )
+			assertFalse( h instanceof AsyncLogHandler );
+		
+		logger.info( "direct" );
+		assertEquals( 2, target.records.size() );
+		assertTrue( target.threads.contains( Thread.currentThread() ) );
+	}
+}
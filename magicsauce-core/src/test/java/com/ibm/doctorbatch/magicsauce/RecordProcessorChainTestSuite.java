@@ -0,0 +1,244 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce;
+
+import static com.ibm.doctorbatch.magicsauce.Constants.RECORD_PROCESSOR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class RecordProcessorChainTestSuite {
+	/*
+	 * Base class for the test stages, recording calls and tear downs.
+	 */
+	static abstract class TestStage<R,P> implements RecordProcessor<R,P> {
+		int calls;
+		int returnCode;
+		boolean tornDown;
+		RuntimeException tearDownFailure;
+		
+		@Override
+		public void initialize( Properties jobStepProperties ) {
+		}
+		
+		@Override
+		public int getReturnCode() {
+			return returnCode;
+		}
+		
+		@Override
+		public void tearDown() {
+			tornDown = true;
+			if ( tearDownFailure != null )
+				throw tearDownFailure;
+		}
+	}
+	
+	/*
+	 * Appends a suffix to each record.
+	 */
+	static class Append extends TestStage<String,String> {
+		private final String suffix;
+		
+		Append( String suffix ) {
+			this.suffix = suffix;
+		}
+		
+		@Override
+		public String process( String record ) {
+			++calls;
+			return record + suffix;
+		}
+	}
+	
+	/*
+	 * Filters records starting with "x".
+	 */
+	static class Filter extends TestStage<String,String> {
+		@Override
+		public String process( String record ) {
+			++calls;
+			return record.startsWith( "x" ) ? null : record;
+		}
+	}
+	
+	/*
+	 * Splits each record on ',', emitting each non-empty part.
+	 */
+	static class Split extends TestStage<String,String> implements EmittingRecordProcessor<String,String> {
+		@Override
+		public String process( String record ) {
+			throw new BatchException( "Split must be called through an emitter" );
+		}
+		
+		@Override
+		public void process( String record, RecordEmitter<? super String> emitter ) {
+			++calls;
+			for ( String part : record.split( "," ) ) {
+				if ( !part.isEmpty() )
+					emitter.emit( part );
+			}
+		}
+	}
+	
+	public static class Upper extends TestStage<String,String> {
+		@Override
+		public String process( String record ) {
+			++calls;
+			return record.toUpperCase();
+		}
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static RecordProcessorChain<String,String> chain( RecordProcessor<?,?>... stages ) {
+		return new RecordProcessorChain<String,String>( (List) Arrays.asList( stages ) );
+	}
+	
+	private static List<String> emit( RecordProcessorChain<String,String> chain, String record ) {
+		EmittedRecords<String> emitted = new EmittedRecords<String>();
+		chain.process( record, emitted );
+		return emitted;
+	}
+	
+	@Test
+	public void testStagesInOrder() {
+		RecordProcessorChain<String,String> chain = chain( new Append( "1" ), new Append( "2" ), new Append( "3" ) );
+		assertEquals( 3, chain.getStageCount() );
+		assertEquals( "a123", chain.process( "a" ) );
+		assertEquals( Arrays.asList( "b123" ), emit( chain, "b" ) );
+	}
+	
+	@Test
+	public void testNullFilters() {
+		Filter filter = new Filter();
+		Append after = new Append( "!" );
+		RecordProcessorChain<String,String> chain = chain( new Append( "" ), filter, after );
+		
+		assertNull( chain.process( "xa" ) );
+		assertEquals( 0, after.calls );
+		assertEquals( new ArrayList<String>(), emit( chain, "xb" ) );
+		assertEquals( 0, after.calls );
+		
+		assertEquals( "a!", chain.process( "a" ) );
+		assertEquals( 1, after.calls );
+		assertEquals( 3, filter.calls );
+	}
+	
+	@Test
+	public void testEmittingStage() {
+		Split split = new Split();
+		Filter filter = new Filter();
+		Append after = new Append( "!" );
+		RecordProcessorChain<String,String> chain = chain( new Append( "" ), split, filter, after );
+		
+		// Each emitted part continues through the remaining stages as it is emitted
+		assertEquals( Arrays.asList( "a!", "b!", "c!" ), emit( chain, "a,xz,b,,c" ) );
+		assertEquals( 1, split.calls );
+		assertEquals( 4, filter.calls );
+		assertEquals( 3, after.calls );
+	}
+	
+	@Test
+	public void testConsecutiveEmittingStages() {
+		Split outer = new Split();
+		Split inner = new Split();
+		RecordProcessorChain<String,String> chain = chain( outer, new Append( "" ), inner );
+		
+		assertEquals( Arrays.asList( "a", "b" ), emit( chain, "a,b" ) );
+		assertEquals( 1, outer.calls );
+		assertEquals( 2, inner.calls );
+	}
+	
+	@Test
+	public void testEmittingChainProcessSingleRecord() {
+		RecordProcessorChain<String,String> chain = chain( new Split(), new Append( "!" ) );
+		assertEquals( "a!", chain.process( "a" ) );
+		assertNull( chain.process( ",," ) );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testEmittingChainProcessSeveralRecords() {
+		chain( new Split(), new Append( "!" ) ).process( "a,b" );
+	}
+	
+	@Test
+	public void testNestedChain() {
+		RecordProcessorChain<String,String> inner = chain( new Split(), new Append( "1" ) );
+		RecordProcessorChain<String,String> outer = chain( new Append( "," ), inner, new Append( "2" ) );
+		assertEquals( Arrays.asList( "a12", "b12" ), emit( outer, "a,b" ) );
+	}
+	
+	@Test
+	public void testReturnCode() {
+		Append a = new Append( "" );
+		Append b = new Append( "" );
+		a.returnCode = 4;
+		b.returnCode = 8;
+		assertEquals( 8, chain( a, b, new Append( "" ) ).getReturnCode() );
+	}
+	
+	@Test
+	public void testTearDownContinuesPastFailure() {
+		Append first = new Append( "" );
+		Append second = new Append( "" );
+		Append third = new Append( "" );
+		BatchException secondFailure = new BatchException( "second" );
+		second.tearDownFailure = secondFailure;
+		third.tearDownFailure = new BatchException( "third" );
+		
+		try {
+			chain( first, second, third ).tearDown();
+			fail( "Expected the tear down failure to be rethrown" );
+		} catch ( BatchException be ) {
+			assertSame( "Expected the first failure", secondFailure, be );
+		}
+		
+		assertTrue( first.tornDown );
+		assertTrue( second.tornDown );
+		assertTrue( third.tornDown );
+	}
+	
+	@Test
+	public void testInitialize() {
+		Properties props = new Properties();
+		props.setProperty( RECORD_PROCESSOR + ".1", Upper.class.getName() );
+		props.setProperty( RECORD_PROCESSOR + ".2", Upper.class.getName() );
+		props.setProperty( RECORD_PROCESSOR + ".4", Append.class.getName() );
+		
+		RecordProcessorChain<String,String> chain = new RecordProcessorChain<String,String>();
+		chain.initialize( props );
+		
+		// Stages stop at the first missing index
+		assertEquals( 2, chain.getStageCount() );
+		assertEquals( "AB", chain.process( "ab" ) );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testInitializeWithoutStages() {
+		new RecordProcessorChain<String,String>().initialize( new Properties() );
+	}
+}
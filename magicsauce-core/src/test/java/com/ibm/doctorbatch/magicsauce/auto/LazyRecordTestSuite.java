@@ -0,0 +1,229 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.auto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+public class LazyRecordTestSuite {
+	
+	/*
+	 * A record with one field of each kind:
+	 *    05 SHORT    PIC S9(4) COMP
+	 *    05 UNSIGNED PIC 9(4) COMP
+	 *    05 LONG     PIC S9(18) COMP
+	 *    05 ZONED    PIC S9(3)V99
+	 *    05 PACKED   PIC S9(5) COMP-3
+	 *    05 WIDE     PIC S9(18) COMP-3
+	 */
+	public static class DecodedRecord extends LazyRecord {
+		final static RecordLayout LAYOUT = new RecordLayout();
+		final static LazyField SHORT = LAYOUT.binary( 0, 2 );
+		final static LazyField UNSIGNED = LAYOUT.unsignedBinary( 2, 2 );
+		final static LazyField LONG = LAYOUT.binary( 4, 8 );
+		final static LazyField ZONED = LAYOUT.zoned( 12, 5, 2 );
+		final static LazyField PACKED = LAYOUT.packed( 17, 3, 0 );
+		final static LazyField WIDE = LAYOUT.packed( 20, 10, 0 );
+		
+		public DecodedRecord() {
+			super( LAYOUT );
+		}
+	}
+	
+	private static byte[] record() {
+		byte[] data = new byte[ DecodedRecord.LAYOUT.getSize() ];
+		
+		// ZONED +123.45, PACKED +12345, WIDE 0
+		byte[] zoned = { (byte) 0xF1, (byte) 0xF2, (byte) 0xF3, (byte) 0xF4, (byte) 0xC5 };
+		System.arraycopy( zoned, 0, data, 12, zoned.length );
+		data[17] = 0x12; data[18] = 0x34; data[19] = 0x5C;
+		data[29] = 0x0C;
+		return data;
+	}
+	
+	private static DecodedRecord bind( byte[] data ) {
+		DecodedRecord record = new DecodedRecord();
+		record.setRecordData( data );
+		return record;
+	}
+
+	@Test
+	public void testBinarySignExtension() {
+		byte[] data = record();
+		data[0] = (byte) 0xFF; data[1] = (byte) 0xFE;
+		data[2] = (byte) 0xFF; data[3] = (byte) 0xFE;
+		for ( int i = 4; i < 12; ++i )
+			data[i] = (byte) 0xFF;
+		
+		DecodedRecord record = bind( data );
+		assertEquals( "Expected a negative signed value to be sign extended", -2, record.getLong(DecodedRecord.SHORT) );
+		assertEquals( "Expected an unsigned value not to be sign extended", 65534, record.getLong(DecodedRecord.UNSIGNED) );
+		assertEquals( "Expected an 8 byte value of all ones to be -1", -1, record.getLong(DecodedRecord.LONG) );
+		
+		data[0] = (byte) 0x7F; data[1] = (byte) 0xFF;
+		data[4] = (byte) 0x80;
+		for ( int i = 5; i < 12; ++i )
+			data[i] = 0;
+		
+		record = bind( data );
+		assertEquals( Short.MAX_VALUE, record.getInt(DecodedRecord.SHORT) );
+		assertEquals( Long.MIN_VALUE, record.getLong(DecodedRecord.LONG) );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testIntOverflow() {
+		byte[] data = record();
+		data[4] = 0x01;
+		bind( data ).getInt( DecodedRecord.LONG );
+	}
+	
+	@Test
+	public void testZoned() {
+		byte[] data = record();
+		DecodedRecord record = bind( data );
+		assertEquals( 12345, record.getLong(DecodedRecord.ZONED) );
+		assertEquals( new BigDecimal("123.45"), record.getDecimal(DecodedRecord.ZONED) );
+		
+		data[16] = (byte) 0xD5;
+		record = bind( data );
+		assertEquals( "Expected a D zone to be negative", new BigDecimal("-123.45"), record.getDecimal(DecodedRecord.ZONED) );
+		
+		data[16] = (byte) 0xF5;
+		record = bind( data );
+		assertEquals( "Expected an F zone to be positive", 12345, record.getLong(DecodedRecord.ZONED) );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testInvalidZonedDigit() {
+		byte[] data = record();
+		data[13] = (byte) 0xFA;
+		bind( data ).getLong( DecodedRecord.ZONED );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testZonedLimit() {
+		new RecordLayout().zoned( 0, 19, 0 );
+	}
+	
+	@Test
+	public void testPacked() {
+		byte[] data = record();
+		assertEquals( 12345, bind(data).getLong(DecodedRecord.PACKED) );
+		
+		data[19] = 0x5D;
+		assertEquals( "Expected a D sign to be negative", -12345, bind(data).getLong(DecodedRecord.PACKED) );
+		
+		data[19] = 0x5F;
+		assertEquals( "Expected an F sign to be positive", 12345, bind(data).getLong(DecodedRecord.PACKED) );
+	}
+	
+	@Test
+	public void testPackedEighteenDigits() {
+		byte[] data = record();
+		data[20] = 0x09;
+		for ( int i = 21; i < 29; ++i )
+			data[i] = (byte) 0x99;
+		data[29] = (byte) 0x9D;
+		
+		assertEquals( -999999999999999999L, bind(data).getLong(DecodedRecord.WIDE) );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testPackedNineteenDigits() {
+		byte[] data = record();
+		data[20] = 0x19;
+		bind( data ).getLong( DecodedRecord.WIDE );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testPackedLimit() {
+		new RecordLayout().packed( 0, 11, 0 );
+	}
+	
+	@Test
+	public void testDecodedOnFirstAccess() {
+		DecodedRecord record = bind( record() );
+		assertFalse( record.isDecoded(DecodedRecord.PACKED) );
+		record.getLong( DecodedRecord.PACKED );
+		assertTrue( record.isDecoded(DecodedRecord.PACKED) );
+		assertFalse( "Expected other fields to be left undecoded", record.isDecoded(DecodedRecord.ZONED) );
+		
+		record.setRecordData( record() );
+		assertFalse( "Expected rebinding to invalidate decoded values", record.isDecoded(DecodedRecord.PACKED) );
+	}
+	
+	@Test
+	public void testGenerationWrap() {
+		byte[] first = record();
+		byte[] second = record();
+		second[19] = 0x5D;
+		
+		// Decode the first record with generation 1, the generation the counter wraps back to
+		DecodedRecord record = new DecodedRecord();
+		record.setGeneration( 0 );
+		record.setRecordData( first );
+		assertEquals( new BigDecimal("123.45"), record.getDecimal(DecodedRecord.ZONED) );
+		assertEquals( 12345, record.getLong(DecodedRecord.PACKED) );
+		
+		record.setGeneration( -1 );
+		record.setRecordData( second );
+		assertFalse( "Expected no value to survive the wrap", record.isDecoded(DecodedRecord.PACKED) );
+		assertEquals( -12345, record.getLong(DecodedRecord.PACKED) );
+		
+		// Values decoded after the wrap are invalidated by the next bind as usual
+		record.setRecordData( first );
+		assertEquals( 12345, record.getLong(DecodedRecord.PACKED) );
+		assertEquals( new BigDecimal("123.45"), record.getDecimal(DecodedRecord.ZONED) );
+	}
+	
+	@Test
+	public void testParserRebindsView() {
+		Properties props = new Properties();
+		props.setProperty( "AUTO_RECORD_PARSER_CLASSNAME", DecodedRecord.class.getName() );
+		props.setProperty( "AUTO_RECORD_PARSER_POOL_SIZE", "4" );
+		
+		LazyRecordParser<DecodedRecord> parser = new LazyRecordParser<DecodedRecord>();
+		parser.initialize( props );
+		
+		byte[] block = new byte[ 2 * DecodedRecord.LAYOUT.getSize() ];
+		System.arraycopy( record(), 0, block, 0, DecodedRecord.LAYOUT.getSize() );
+		
+		DecodedRecord view = parser.parseRecordToObject( block, 0, DecodedRecord.LAYOUT.getSize() );
+		assertEquals( 12345, view.getLong(DecodedRecord.PACKED) );
+		assertSame( "Expected the view to be rebound", view, parser.parseRecordToObject( block, DecodedRecord.LAYOUT.getSize(), DecodedRecord.LAYOUT.getSize() ) );
+		assertSame( "Expected the view to be rebound", view, parser.parseRecordToObject( record() ) );
+		
+		int pooled = parser.getPooledCount();
+		parser.release( view );
+		assertEquals( "Expected the parser's view not to be pooled", pooled, parser.getPooledCount() );
+		
+		DecodedRecord held = parser.parseRecordToNewObject( block, 0, DecodedRecord.LAYOUT.getSize() );
+		assertNotSame( "Expected a view of its own", view, held );
+		parser.release( held );
+		assertSame( "Expected a released view to be reused", held, parser.parseRecordToNewObject( block, 0, DecodedRecord.LAYOUT.getSize() ) );
+	}
+}
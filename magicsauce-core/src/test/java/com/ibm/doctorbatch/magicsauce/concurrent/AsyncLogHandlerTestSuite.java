@@ -0,0 +1,270 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+public class AsyncLogHandlerTestSuite {
+	
+	/*
+	 * Keeps the records it is given, and the threads it is called on. Records wait for the
+	 * gate, if one is set.
+	 */
+	public static class CollectingHandler extends Handler {
+		public final List<LogRecord> records = Collections.synchronizedList( new ArrayList<LogRecord>() );
+		public final Set<Thread> threads = Collections.synchronizedSet( new HashSet<Thread>() );
+		final CountDownLatch started = new CountDownLatch( 1 );
+		volatile CountDownLatch gate;
+		volatile int flushes;
+		
+		@Override
+		public void publish( LogRecord record ) {
+			threads.add( Thread.currentThread() );
+			started.countDown();
+			
+			CountDownLatch g = gate;
+			if ( g != null ) {
+				try {
+					g.await();
+				} catch ( InterruptedException ie ) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			
+			records.add( record );
+		}
+		
+		@Override
+		public void flush() {
+			++flushes;
+		}
+		
+		@Override
+		public void close() {
+		}
+	}
+	
+	private static LogRecord record( String message ) {
+		return new LogRecord( Level.INFO, message );
+	}
+	
+	@Test
+	public void testPublishOnHandlerThread() {
+		CollectingHandler target = new CollectingHandler();
+		AsyncLogHandler async = new AsyncLogHandler( 128, target );
+		
+		for ( int i = 0; i < 100; ++i )
+			async.publish( record( "message " + i ) );
+		async.flush();
+		
+		assertEquals( "Expected flush to wait for every record", 100, target.records.size() );
+		for ( int i = 0; i < 100; ++i )
+			assertEquals( "message " + i, target.records.get( i ).getMessage() );
+		assertEquals( 1, target.threads.size() );
+		assertFalse( target.threads.contains( Thread.currentThread() ) );
+		assertTrue( target.flushes > 0 );
+		
+		async.close();
+	}
+	
+	@Test
+	public void testCallerResolvedBeforeEnqueue() {
+		CollectingHandler target = new CollectingHandler();
+		Logger logger = Logger.getAnonymousLogger();
+		logger.setUseParentHandlers( false );
+		AsyncLogHandler async = new AsyncLogHandler( 16, target );
+		logger.addHandler( async );
+		
+		logger.info( "hello" );
+		async.close();
+		
+		assertEquals( 1, target.records.size() );
+		assertEquals( getClass().getName(), target.records.get( 0 ).getSourceClassName() );
+		assertEquals( "testCallerResolvedBeforeEnqueue", target.records.get( 0 ).getSourceMethodName() );
+	}
+	
+	@Test
+	public void testManyProducers() throws InterruptedException {
+		final CollectingHandler target = new CollectingHandler();
+		final AsyncLogHandler async = new AsyncLogHandler( 64, target );
+		async.setBlockWhenFull( true );
+		
+		Thread[] producers = new Thread[4];
+		for ( int t = 0; t < producers.length; ++t ) {
+			final int producer = t;
+			producers[t] = new Thread( new Runnable() {
+				@Override
+				public void run() {
+					for ( int i = 0; i < 5000; ++i )
+						async.publish( record( producer + ":" + i ) );
+				}
+			} );
+			producers[t].start();
+		}
+		for ( Thread t : producers )
+			t.join();
+		async.close();
+		
+		assertEquals( 0, async.getDroppedCount() );
+		assertEquals( 20000, target.records.size() );
+		
+		// Each producer's records arrive in the order it logged them
+		int[] next = new int[producers.length];
+		for ( LogRecord r : target.records ) {
+			String[] parts = r.getMessage().split( ":" );
+			int producer = Integer.parseInt( parts[0] );
+			assertEquals( next[producer]++, Integer.parseInt( parts[1] ) );
+		}
+	}
+	
+	@Test
+	public void testDropWhenFull() throws InterruptedException {
+		CollectingHandler target = new CollectingHandler();
+		target.gate = new CountDownLatch( 1 );
+		AsyncLogHandler async = new AsyncLogHandler( 4, target );
+		
+		// The first record holds the handler's thread at the gate
+		async.publish( record( "first" ) );
+		assertTrue( target.started.await( 5, TimeUnit.SECONDS ) );
+		
+		for ( int i = 0; i < 10; ++i )
+			async.publish( record( "message " + i ) );
+		assertEquals( 4, async.getPendingCount() );
+		assertEquals( 6, async.getDroppedCount() );
+		
+		target.gate.countDown();
+		async.close();
+		assertEquals( 5, target.records.size() );
+	}
+	
+	@Test
+	public void testBlockWhenFull() throws InterruptedException {
+		final CollectingHandler target = new CollectingHandler();
+		target.gate = new CountDownLatch( 1 );
+		final AsyncLogHandler async = new AsyncLogHandler( 4, target );
+		async.setBlockWhenFull( true );
+		
+		async.publish( record( "first" ) );
+		assertTrue( target.started.await( 5, TimeUnit.SECONDS ) );
+		
+		Thread producer = new Thread( new Runnable() {
+			@Override
+			public void run() {
+				for ( int i = 0; i < 10; ++i )
+					async.publish( record( "message " + i ) );
+			}
+		} );
+		producer.start();
+		producer.join( 200 );
+		assertTrue( "Expected the producer to wait for space", producer.isAlive() );
+		
+		target.gate.countDown();
+		producer.join();
+		async.close();
+		
+		assertEquals( 0, async.getDroppedCount() );
+		assertEquals( 11, target.records.size() );
+	}
+	
+	@Test
+	public void testClose() {
+		CollectingHandler target = new CollectingHandler();
+		AsyncLogHandler async = new AsyncLogHandler( 1024, target );
+		
+		for ( int i = 0; i < 500; ++i )
+			async.publish( record( "message " + i ) );
+		async.close();
+		assertEquals( "Expected close to publish the pending records", 500, target.records.size() );
+		
+		async.publish( record( "after close" ) );
+		async.flush();
+		assertEquals( 500, target.records.size() );
+	}
+	
+	@Test
+	public void testInstallAndUninstall() {
+		Logger parent = Logger.getLogger( "com.ibm.doctorbatch.magicsauce.test.async" );
+		Logger logger = Logger.getLogger( "com.ibm.doctorbatch.magicsauce.test.async.child" );
+		CollectingHandler parentTarget = new CollectingHandler();
+		CollectingHandler target = new CollectingHandler();
+		parent.setUseParentHandlers( false );
+		parent.addHandler( parentTarget );
+		logger.addHandler( target );
+		
+		try {
+			AsyncLogHandler async = AsyncLogHandler.install( logger, 16 );
+			assertEquals( 1, logger.getHandlers().length );
+			assertSame( async, logger.getHandlers()[0] );
+			assertFalse( logger.getUseParentHandlers() );
+			assertSame( "Expected a second install to share the handler", async, AsyncLogHandler.install( logger, 32 ) );
+			
+			logger.info( "async" );
+			async.flush();
+			assertEquals( 1, target.records.size() );
+			assertEquals( 1, parentTarget.records.size() );
+			
+			assertFalse( "Expected the handler to stay until the last uninstall", AsyncLogHandler.uninstall( logger ) );
+			assertSame( async, logger.getHandlers()[0] );
+			
+			assertTrue( AsyncLogHandler.uninstall( logger ) );
+			assertEquals( 1, logger.getHandlers().length );
+			assertSame( target, logger.getHandlers()[0] );
+			assertTrue( logger.getUseParentHandlers() );
+			assertFalse( AsyncLogHandler.uninstall( logger ) );
+			
+			logger.info( "direct" );
+			assertEquals( 2, target.records.size() );
+			assertTrue( "Expected the record to be published on the logging thread", target.threads.contains( Thread.currentThread() ) );
+			
+			assertNotSame( "Expected a new handler after the last uninstall", async, AsyncLogHandler.install( logger, 16 ) );
+			assertTrue( AsyncLogHandler.uninstall( logger ) );
+		} finally {
+			logger.removeHandler( target );
+			parent.removeHandler( parentTarget );
+		}
+	}
+	
+	@Test
+	public void testUninstallLeavesOtherHandlers() {
+		Logger logger = Logger.getAnonymousLogger();
+		AsyncLogHandler added = new AsyncLogHandler( 16, new CollectingHandler() );
+		logger.addHandler( added );
+		
+		assertSame( added, AsyncLogHandler.install( logger, 16 ) );
+		assertFalse( AsyncLogHandler.uninstall( logger ) );
+		assertSame( added, logger.getHandlers()[0] );
+		added.close();
+	}
+}
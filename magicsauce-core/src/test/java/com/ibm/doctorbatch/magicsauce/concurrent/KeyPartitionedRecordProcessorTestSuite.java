@@ -0,0 +1,233 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import static com.ibm.doctorbatch.magicsauce.Constants.PARALLEL_RECORD_PROCESSOR;
+import static com.ibm.doctorbatch.magicsauce.Constants.PARALLEL_THREADS;
+import static com.ibm.doctorbatch.magicsauce.Constants.RECORD_KEY_EXTRACTOR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.PartialBatchException;
+import com.ibm.doctorbatch.magicsauce.RecordProcessor;
+
+public class KeyPartitionedRecordProcessorTestSuite {
+	private final static int KEYS = 7;
+	
+	private Properties properties;
+	
+	public static class ModuloKeyExtractor implements RecordKeyExtractor<Integer> {
+		@Override
+		public Object getKey( Integer record ) {
+			return Integer.valueOf( record.intValue() % KEYS );
+		}
+	}
+	
+	/*
+	 * Doubles each record, and notes every record seen, by key, and the instance which saw
+	 * each key. Fails on the record numbered failOn.
+	 */
+	public static class KeyedProcessor implements RecordProcessor<Integer, Integer> {
+		static final ConcurrentMap<Integer, List<Integer>> seen = new ConcurrentHashMap<Integer, List<Integer>>();
+		static final ConcurrentMap<Integer, KeyedProcessor> owners = new ConcurrentHashMap<Integer, KeyedProcessor>();
+		static volatile int failOn;
+		
+		@Override
+		public void initialize( Properties jobStepProperties ) {
+		}
+		
+		@Override
+		public Integer process( Integer record ) {
+			Integer key = Integer.valueOf( record.intValue() % KEYS );
+			
+			KeyedProcessor owner = owners.putIfAbsent( key, this );
+			if ( owner != null && owner != this )
+				throw new AssertionError( "Key " + key + " was processed by two record processors" );
+			
+			List<Integer> records = seen.get( key );
+			if ( records == null ) {
+				seen.putIfAbsent( key, new ArrayList<Integer>() );
+				records = seen.get( key );
+			}
+			records.add( record );
+			
+			if ( record.intValue() == failOn )
+				throw new IllegalStateException( "Record " + record + " failed" );
+			
+			return Integer.valueOf( record.intValue() * 2 );
+		}
+		
+		@Override
+		public int getReturnCode() {
+			return 0;
+		}
+		
+		@Override
+		public void tearDown() {
+		}
+	}
+	
+	@Before
+	public void setUp() {
+		KeyedProcessor.seen.clear();
+		KeyedProcessor.owners.clear();
+		KeyedProcessor.failOn = -1;
+		
+		properties = new Properties();
+		properties.setProperty( PARALLEL_RECORD_PROCESSOR, KeyedProcessor.class.getName() );
+		properties.setProperty( RECORD_KEY_EXTRACTOR, ModuloKeyExtractor.class.getName() );
+		properties.setProperty( PARALLEL_THREADS, "3" );
+	}
+	
+	private static List<Integer> range( int from, int to ) {
+		List<Integer> records = new ArrayList<Integer>();
+		for ( int i = from; i < to; ++i )
+			records.add( Integer.valueOf( i ) );
+		return records;
+	}
+	
+	private static List<Integer> doubled( List<Integer> records ) {
+		List<Integer> result = new ArrayList<Integer>();
+		for ( Integer record : records )
+			result.add( Integer.valueOf( record.intValue() * 2 ) );
+		return result;
+	}
+	
+	/*
+	 * Asserts that each key saw exactly its records from the given list, in order.
+	 */
+	private static void assertSeenInOrder( List<Integer> records ) {
+		for ( int key = 0; key < KEYS; ++key ) {
+			List<Integer> expected = new ArrayList<Integer>();
+			for ( Integer record : records ) {
+				if ( record.intValue() % KEYS == key )
+					expected.add( record );
+			}
+			
+			List<Integer> actual = KeyedProcessor.seen.get( Integer.valueOf( key ) );
+			assertEquals( "Records of key " + key, expected, actual == null ? new ArrayList<Integer>() : actual );
+		}
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testRequiresKeyExtractor() {
+		properties.remove( RECORD_KEY_EXTRACTOR );
+		new KeyPartitionedRecordProcessor<Integer, Integer>().initialize( properties );
+	}
+	
+	@Test
+	public void testLanes() {
+		KeyPartitionedRecordProcessor<Integer, Integer> processor = new KeyPartitionedRecordProcessor<Integer, Integer>();
+		processor.initialize( properties );
+		try {
+			assertEquals( 0, processor.getLane( null ) );
+			
+			Set<Integer> used = new HashSet<Integer>();
+			for ( int key = -1000; key < 1000; ++key ) {
+				int lane = processor.getLane( Integer.valueOf( key ) );
+				assertTrue( lane >= 0 && lane < 3 );
+				assertEquals( lane, processor.getLane( Integer.valueOf( key ) ) );
+				used.add( Integer.valueOf( lane ) );
+			}
+			assertEquals( 3, used.size() );
+			assertTrue( processor.getKeyExtractor() instanceof ModuloKeyExtractor );
+		} finally {
+			processor.tearDown();
+		}
+	}
+	
+	@Test
+	public void testKeysStayOnOneLaneInOrder() {
+		KeyPartitionedRecordProcessor<Integer, Integer> processor = new KeyPartitionedRecordProcessor<Integer, Integer>();
+		processor.initialize( properties );
+		try {
+			List<Integer> records = range( 0, 2000 );
+			List<Integer> processed = new ArrayList<Integer>();
+			for ( int i = 0; i < records.size(); i += 100 )
+				processed.addAll( processor.processBatch( records.subList( i, i + 100 ) ) );
+			
+			assertEquals( "Expected the results in the order of the records", doubled( records ), processed );
+			assertSeenInOrder( records );
+			assertEquals( KEYS, KeyedProcessor.owners.size() );
+		} finally {
+			processor.tearDown();
+		}
+	}
+	
+	@Test
+	public void testFailedRecordKeepsLaterRecordsOfItsKey() {
+		KeyedProcessor.failOn = 30;
+		
+		KeyPartitionedRecordProcessor<Integer, Integer> processor = new KeyPartitionedRecordProcessor<Integer, Integer>();
+		processor.initialize( properties );
+		try {
+			List<Integer> records = range( 0, 100 );
+			List<Integer> processed = new ArrayList<Integer>();
+			try {
+				processor.processBatch( records );
+				fail( "Expected record 30 to fail" );
+			} catch ( PartialBatchException pbe ) {
+				assertEquals( 30, pbe.getFailedIndex() );
+				assertTrue( pbe.getCause() instanceof IllegalStateException );
+				for ( Object result : pbe.getProcessed() )
+					processed.add( (Integer) result );
+			}
+			
+			// Skip the failed record, and resume with the rest of the batch
+			processed.addAll( processor.processBatch( records.subList( 31, 100 ) ) );
+			
+			List<Integer> expected = range( 0, 100 );
+			expected.remove( 30 );
+			assertEquals( doubled( expected ), processed );
+			
+			// Every record, including the failed one, was seen once by its key's lane
+			assertSeenInOrder( records );
+		} finally {
+			processor.tearDown();
+		}
+	}
+	
+	@Test
+	public void testProcessSingleRecords() {
+		KeyPartitionedRecordProcessor<Integer, Integer> processor = new KeyPartitionedRecordProcessor<Integer, Integer>();
+		processor.initialize( properties );
+		try {
+			for ( Integer record : Arrays.asList( 5, 12, 19 ) )
+				assertEquals( Integer.valueOf( record * 2 ), processor.process( record ) );
+			
+			assertSeenInOrder( Arrays.asList( 5, 12, 19 ) );
+			assertNull( KeyedProcessor.seen.get( Integer.valueOf( 0 ) ) );
+		} finally {
+			processor.tearDown();
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class MultiProducerRingBufferTestSuite {
+	
+	@Test
+	public void testCapacityRoundsUp() {
+		assertEquals( 1, new MultiProducerRingBuffer<Integer>( 1 ).capacity() );
+		assertEquals( 4, new MultiProducerRingBuffer<Integer>( 3 ).capacity() );
+		assertEquals( 1024, new MultiProducerRingBuffer<Integer>( 1000 ).capacity() );
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testZeroCapacity() {
+		new MultiProducerRingBuffer<Integer>( 0 );
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testOfferNull() {
+		new MultiProducerRingBuffer<Integer>( 4 ).offer( null );
+	}
+	
+	@Test
+	public void testFullAndEmpty() {
+		MultiProducerRingBuffer<Integer> buffer = new MultiProducerRingBuffer<Integer>( 4 );
+		assertTrue( buffer.isEmpty() );
+		assertNull( buffer.poll() );
+		
+		for ( int i = 0; i < 4; ++i )
+			assertTrue( buffer.offer( i ) );
+		assertFalse( buffer.offer( 4 ) );
+		assertEquals( 4, buffer.size() );
+		
+		assertEquals( Integer.valueOf( 0 ), buffer.poll() );
+		assertTrue( buffer.offer( 4 ) );
+		assertFalse( buffer.offer( 5 ) );
+		
+		for ( int i = 1; i <= 4; ++i )
+			assertEquals( Integer.valueOf( i ), buffer.poll() );
+		assertNull( buffer.poll() );
+		assertTrue( buffer.isEmpty() );
+	}
+	
+	@Test
+	public void testWraparound() {
+		MultiProducerRingBuffer<Integer> buffer = new MultiProducerRingBuffer<Integer>( 8 );
+		int next = 0;
+		int expected = 0;
+		for ( int round = 0; round < 1000; ++round ) {
+			int batch = 1 + round % 7;
+			for ( int i = 0; i < batch; ++i )
+				assertTrue( buffer.offer( next++ ) );
+			
+			for ( int i = 0; i < batch; ++i )
+				assertEquals( Integer.valueOf( expected++ ), buffer.poll() );
+			assertNull( buffer.poll() );
+		}
+	}
+	
+	@Test
+	public void testProducersUnderContention() throws InterruptedException {
+		final int producers = 8;
+		final int perProducer = 100000;
+		
+		// A small buffer, so producers keep finding it full and race for each freed slot
+		final MultiProducerRingBuffer<Integer> buffer = new MultiProducerRingBuffer<Integer>( 16 );
+		final CountDownLatch start = new CountDownLatch( 1 );
+		
+		Thread[] threads = new Thread[producers];
+		for ( int p = 0; p < producers; ++p ) {
+			final int producer = p;
+			threads[p] = new Thread( new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch ( InterruptedException ie ) {
+						return;
+					}
+					
+					// Producer p offers p * perProducer .. (p + 1) * perProducer - 1, in order
+					for ( int i = 0; i < perProducer; ++i ) {
+						Integer element = Integer.valueOf( producer * perProducer + i );
+						while ( !buffer.offer( element ) )
+							Thread.yield();
+					}
+				}
+			} );
+			threads[p].start();
+		}
+		
+		boolean[] seen = new boolean[producers * perProducer];
+		int[] last = new int[producers];
+		for ( int p = 0; p < producers; ++p )
+			last[p] = -1;
+		
+		start.countDown();
+		for ( int n = 0; n < seen.length; ++n ) {
+			Integer element;
+			while ( (element = buffer.poll()) == null )
+				Thread.yield();
+			
+			int value = element.intValue();
+			assertFalse( "Duplicated element " + value, seen[value] );
+			seen[value] = true;
+			
+			// Each producer's elements are consumed in the order it offered them
+			int producer = value / perProducer;
+			assertTrue( "Out of order element " + value, value % perProducer > last[producer] );
+			last[producer] = value % perProducer;
+		}
+		
+		for ( Thread thread : threads )
+			thread.join();
+		
+		assertNull( "Unexpected extra element", buffer.poll() );
+		assertTrue( buffer.isEmpty() );
+		for ( int p = 0; p < producers; ++p )
+			assertEquals( "Lost elements of producer " + p, perProducer - 1, last[p] );
+	}
+}
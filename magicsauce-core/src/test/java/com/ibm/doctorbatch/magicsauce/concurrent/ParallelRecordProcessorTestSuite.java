@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import static com.ibm.doctorbatch.magicsauce.Constants.PARALLEL_RECORD_PROCESSOR;
+import static com.ibm.doctorbatch.magicsauce.Constants.PARALLEL_THREADS;
+import static com.ibm.doctorbatch.magicsauce.Constants.SHUTDOWN_TIMEOUT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.RecordProcessor;
+
+public class ParallelRecordProcessorTestSuite {
+	private Properties properties;
+	
+	/*
+	 * Takes a while to process each record, ignoring interrupts, and notes whether it was
+	 * torn down while a record was being processed.
+	 */
+	public static class SlowProcessor implements RecordProcessor<Integer, Integer> {
+		static volatile CountDownLatch started;
+		static volatile boolean tornDownInProcess;
+		static volatile long delayMillis;
+		
+		private volatile boolean processing;
+		
+		@Override
+		public void initialize(Properties jobStepProperties) {
+		}
+
+		@Override
+		public Integer process(Integer record) {
+			processing = true;
+			try {
+				started.countDown();
+				long end = System.currentTimeMillis() + delayMillis;
+				while ( System.currentTimeMillis() < end )
+					Thread.yield();
+				return record * 2;
+			} finally {
+				processing = false;
+			}
+		}
+
+		@Override
+		public int getReturnCode() {
+			return 0;
+		}
+
+		@Override
+		public void tearDown() {
+			if ( processing )
+				tornDownInProcess = true;
+		}
+	}
+	
+	@Before
+	public void setUp() {
+		SlowProcessor.started = new CountDownLatch(1);
+		SlowProcessor.tornDownInProcess = false;
+		SlowProcessor.delayMillis = 0;
+		
+		properties = new Properties();
+		properties.setProperty( PARALLEL_RECORD_PROCESSOR, SlowProcessor.class.getName() );
+		properties.setProperty( PARALLEL_THREADS, "2" );
+	}
+	
+	@Test
+	public void testProcessBatch() {
+		ParallelRecordProcessor<Integer, Integer> processor = new ParallelRecordProcessor<Integer, Integer>();
+		processor.initialize( properties );
+		try {
+			List<Integer> processed = processor.processBatch( Arrays.asList(1, 2, 3, 4, 5) );
+			assertEquals( "Expected the results in the order of the records", Arrays.asList(2, 4, 6, 8, 10), processed );
+		} finally {
+			processor.tearDown();
+		}
+	}
+	
+	@Test
+	public void testTearDownWaitsForRecordsInProcess() throws Exception {
+		SlowProcessor.delayMillis = 300;
+		
+		ParallelRecordProcessor<Integer, Integer> processor = new ParallelRecordProcessor<Integer, Integer>();
+		processor.initialize( properties );
+		processor.submit( 1 );
+		
+		assertTrue( "Expected the record to start", SlowProcessor.started.await(5, TimeUnit.SECONDS) );
+		processor.tearDown();
+		assertFalse( "Expected tearDown to wait for the record being processed", SlowProcessor.tornDownInProcess );
+	}
+	
+	@Test
+	public void testTearDownTimeout() throws Exception {
+		SlowProcessor.delayMillis = 2000;
+		properties.setProperty( SHUTDOWN_TIMEOUT, "0" );
+		
+		ParallelRecordProcessor<Integer, Integer> processor = new ParallelRecordProcessor<Integer, Integer>();
+		processor.initialize( properties );
+		processor.submit( 1 );
+		
+		assertTrue( "Expected the record to start", SlowProcessor.started.await(5, TimeUnit.SECONDS) );
+		long start = System.nanoTime();
+		processor.tearDown();
+		assertTrue( "Expected tearDown not to wait past SHUTDOWN_TIMEOUT", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1) );
+		assertTrue( "Expected the record processors to be torn down regardless", SlowProcessor.tornDownInProcess );
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.BulkReader;
+import com.ibm.doctorbatch.magicsauce.Reader;
+
+public class ReadAheadReaderTestSuite {
+	
+	/*
+	 * Returns the integers 0 .. count-1; the state is the number of records read. Fails
+	 * instead of returning the record numbered failAt.
+	 */
+	public static class CountingReader implements Reader<Integer> {
+		final int count;
+		final int failAt;
+		volatile int next;
+		volatile boolean opened;
+		volatile boolean closed;
+		
+		CountingReader( int count, int failAt ) {
+			this.count = count;
+			this.failAt = failAt;
+		}
+		
+		@Override
+		public void open( Serializable args ) {
+			opened = true;
+		}
+		
+		@Override
+		public void close() {
+			closed = true;
+		}
+		
+		@Override
+		public Integer read() {
+			if ( next == failAt )
+				throw new IllegalStateException( "Record " + next + " is unreadable" );
+			if ( next == count )
+				return null;
+			return Integer.valueOf( next++ );
+		}
+		
+		@Override
+		public Serializable getState() {
+			return Integer.valueOf( next );
+		}
+	}
+	
+	/*
+	 * Notes whether records were fetched through read(int, List).
+	 */
+	public static class CountingBulkReader extends CountingReader implements BulkReader<Integer> {
+		volatile boolean bulk;
+		
+		CountingBulkReader( int count ) {
+			super( count, -1 );
+		}
+		
+		@Override
+		public int read( int max, List<? super Integer> into ) {
+			bulk = true;
+			int n = 0;
+			Integer record;
+			while ( n < max && (record = read()) != null ) {
+				into.add( record );
+				++n;
+			}
+			return n;
+		}
+	}
+	
+	@Test
+	public void testReadsInOrder() {
+		// A small buffer wraps around many times
+		CountingReader source = new CountingReader( 10000, -1 );
+		ReadAheadReader<Integer> reader = new ReadAheadReader<Integer>( source, 4 );
+		reader.open( null );
+		assertTrue( source.opened );
+		
+		for ( int i = 0; i < 10000; ++i )
+			assertEquals( Integer.valueOf( i ), reader.read() );
+		assertNull( reader.read() );
+		assertNull( reader.read() );
+		
+		reader.close();
+		assertTrue( source.closed );
+	}
+	
+	@Test
+	public void testBulkRead() {
+		CountingBulkReader source = new CountingBulkReader( 25 );
+		ReadAheadReader<Integer> reader = new ReadAheadReader<Integer>( source, 8 );
+		reader.open( null );
+		
+		List<Integer> records = new ArrayList<Integer>();
+		assertEquals( 10, reader.read( 10, records ) );
+		assertEquals( 10, reader.read( 10, records ) );
+		assertEquals( 5, reader.read( 10, records ) );
+		assertEquals( 0, reader.read( 10, records ) );
+		
+		for ( int i = 0; i < 25; ++i )
+			assertEquals( Integer.valueOf( i ), records.get( i ) );
+		assertTrue( source.bulk );
+		
+		reader.close();
+	}
+	
+	@Test
+	public void testStateFollowsRecordsTaken() throws InterruptedException {
+		CountingReader source = new CountingReader( 100, -1 );
+		ReadAheadReader<Integer> reader = new ReadAheadReader<Integer>( source, 16 );
+		reader.open( null );
+		assertEquals( Integer.valueOf( 0 ), reader.getState() );
+		
+		reader.read();
+		reader.read();
+		reader.read();
+		
+		// Wait until the reader is well ahead of the records taken
+		long deadline = System.currentTimeMillis() + 10000;
+		while ( reader.getBufferedCount() < 16 && System.currentTimeMillis() < deadline )
+			Thread.sleep( 1 );
+		assertEquals( 16, reader.getBufferedCount() );
+		assertTrue( source.next > 3 );
+		
+		assertEquals( Integer.valueOf( 3 ), reader.getState() );
+		
+		List<Integer> records = new ArrayList<Integer>();
+		reader.read( 5, records );
+		assertEquals( Integer.valueOf( 8 ), reader.getState() );
+		
+		reader.close();
+	}
+	
+	@Test
+	public void testFailureAfterPrecedingRecords() {
+		CountingReader source = new CountingReader( 100, 10 );
+		ReadAheadReader<Integer> reader = new ReadAheadReader<Integer>( source, 4 );
+		reader.open( null );
+		
+		for ( int i = 0; i < 10; ++i )
+			assertEquals( Integer.valueOf( i ), reader.read() );
+		
+		try {
+			reader.read();
+			fail( "The failure of the wrapped reader was not rethrown" );
+		} catch ( BatchException be ) {
+			assertTrue( be.getCause() instanceof IllegalStateException );
+		}
+		
+		assertEquals( Integer.valueOf( 10 ), reader.getState() );
+		assertNull( reader.read() );
+		reader.close();
+	}
+	
+	@Test
+	public void testFailureInBulkRead() {
+		CountingReader source = new CountingReader( 100, 3 );
+		ReadAheadReader<Integer> reader = new ReadAheadReader<Integer>( source, 4 );
+		reader.open( null );
+		
+		List<Integer> records = new ArrayList<Integer>();
+		try {
+			reader.read( 10, records );
+			fail( "The failure of the wrapped reader was not rethrown" );
+		} catch ( BatchException be ) {
+			assertTrue( be.getCause() instanceof IllegalStateException );
+		}
+		
+		assertEquals( 3, records.size() );
+		reader.close();
+	}
+	
+	@Test
+	public void testCloseWhileProducerBlocked() throws InterruptedException {
+		final List<Thread> threads = new ArrayList<Thread>();
+		CountingReader source = new CountingReader( 1000000, -1 );
+		ReadAheadReader<Integer> reader = new ReadAheadReader<Integer>( source, 2 );
+		reader.setThreadFactory( new ThreadFactory() {
+			@Override
+			public Thread newThread( Runnable r ) {
+				Thread t = new Thread( r );
+				threads.add( t );
+				return t;
+			}
+		} );
+		reader.open( null );
+		assertEquals( Integer.valueOf( 0 ), reader.read() );
+		
+		reader.close();
+		assertEquals( 1, threads.size() );
+		assertFalse( threads.get( 0 ).isAlive() );
+		assertTrue( source.closed );
+		assertTrue( source.next < 1000000 );
+		assertEquals( 0, reader.getBufferedCount() );
+		assertSame( source, reader.getReader() );
+	}
+	
+	@Test
+	public void testEmptyInput() {
+		ReadAheadReader<Integer> reader = new ReadAheadReader<Integer>( new CountingReader( 0, -1 ) );
+		reader.open( null );
+		assertNull( reader.read() );
+		assertEquals( 0, reader.read( 10, new ArrayList<Integer>() ) );
+		reader.close();
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RingBufferTestSuite {
+	
+	@Test
+	public void testCapacityRoundsUp() {
+		assertEquals( 1, new RingBuffer<Integer>( 1 ).capacity() );
+		assertEquals( 4, new RingBuffer<Integer>( 3 ).capacity() );
+		assertEquals( 8, new RingBuffer<Integer>( 8 ).capacity() );
+		assertEquals( 1024, new RingBuffer<Integer>( 1000 ).capacity() );
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testZeroCapacity() {
+		new RingBuffer<Integer>( 0 );
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testCapacityTooLarge() {
+		new RingBuffer<Integer>( (1 << 30) + 1 );
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testOfferNull() {
+		new RingBuffer<Integer>( 4 ).offer( null );
+	}
+	
+	@Test
+	public void testFullAndEmpty() {
+		RingBuffer<Integer> buffer = new RingBuffer<Integer>( 4 );
+		assertTrue( buffer.isEmpty() );
+		assertNull( buffer.poll() );
+		
+		for ( int i = 0; i < 4; ++i )
+			assertTrue( buffer.offer( i ) );
+		assertFalse( buffer.offer( 4 ) );
+		assertEquals( 4, buffer.size() );
+		
+		assertEquals( Integer.valueOf( 0 ), buffer.poll() );
+		assertTrue( buffer.offer( 4 ) );
+		assertFalse( buffer.offer( 5 ) );
+		
+		for ( int i = 1; i <= 4; ++i )
+			assertEquals( Integer.valueOf( i ), buffer.poll() );
+		assertNull( buffer.poll() );
+		assertTrue( buffer.isEmpty() );
+		assertEquals( 0, buffer.size() );
+	}
+	
+	@Test
+	public void testWraparound() {
+		// Odd batch sizes, so the head and tail cross the end of the slots at every offset
+		RingBuffer<Integer> buffer = new RingBuffer<Integer>( 8 );
+		int next = 0;
+		int expected = 0;
+		for ( int round = 0; round < 1000; ++round ) {
+			int batch = 1 + round % 7;
+			for ( int i = 0; i < batch; ++i )
+				assertTrue( buffer.offer( next++ ) );
+			assertEquals( batch, buffer.size() );
+			
+			for ( int i = 0; i < batch; ++i )
+				assertEquals( Integer.valueOf( expected++ ), buffer.poll() );
+			assertNull( buffer.poll() );
+		}
+	}
+	
+	@Test
+	public void testProducerAndConsumerThreads() throws InterruptedException {
+		final int count = 200000;
+		final RingBuffer<Integer> buffer = new RingBuffer<Integer>( 16 );
+		
+		Thread producer = new Thread( new Runnable() {
+			@Override
+			public void run() {
+				for ( int i = 0; i < count; ++i ) {
+					while ( !buffer.offer( i ) )
+						Thread.yield();
+				}
+			}
+		} );
+		producer.start();
+		
+		for ( int i = 0; i < count; ++i ) {
+			Integer element;
+			while ( (element = buffer.poll()) == null )
+				Thread.yield();
+			assertEquals( i, element.intValue() );
+		}
+		
+		producer.join();
+		assertTrue( buffer.isEmpty() );
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.Writer;
+
+public class WriteBehindWriterTestSuite {
+	
+	/*
+	 * Records what it is given, and the threads it is called on. Its state is the number of
+	 * records written. Batches wait for the gate, if one is set, and the batch numbered
+	 * failAt fails.
+	 */
+	public static class RecordingWriter implements Writer<Integer> {
+		final List<Integer> written = Collections.synchronizedList( new ArrayList<Integer>() );
+		final List<Thread> threads = Collections.synchronizedList( new ArrayList<Thread>() );
+		volatile CountDownLatch gate;
+		volatile int failAt = -1;
+		volatile int batches;
+		volatile boolean opened;
+		volatile boolean closed;
+		
+		@Override
+		public void open( Serializable state ) {
+			opened = true;
+		}
+		
+		@Override
+		public void close() {
+			closed = true;
+		}
+		
+		@Override
+		public Serializable getState() {
+			return Integer.valueOf( written.size() );
+		}
+		
+		@Override
+		public void write( Integer record ) {
+			write( Arrays.asList( record ) );
+		}
+		
+		@Override
+		public void write( List<? extends Integer> records ) {
+			threads.add( Thread.currentThread() );
+			
+			CountDownLatch g = gate;
+			if ( g != null ) {
+				try {
+					g.await();
+				} catch ( InterruptedException ie ) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			
+			if ( batches++ == failAt )
+				throw new IllegalStateException( "Batch " + (batches - 1) + " failed" );
+			
+			written.addAll( records );
+		}
+	}
+	
+	private static List<Integer> range( int from, int to ) {
+		List<Integer> records = new ArrayList<Integer>();
+		for ( int i = from; i < to; ++i )
+			records.add( Integer.valueOf( i ) );
+		return records;
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testBatchSizeMustBePositive() {
+		new WriteBehindWriter<Integer>( new RecordingWriter(), 0 );
+	}
+	
+	@Test
+	public void testWritesInOrderOnAnotherThread() {
+		RecordingWriter target = new RecordingWriter();
+		WriteBehindWriter<Integer> writer = new WriteBehindWriter<Integer>( target, 10 );
+		writer.open( null );
+		assertTrue( target.opened );
+		
+		for ( int i = 0; i < 55; ++i )
+			writer.write( Integer.valueOf( i ) );
+		writer.write( range( 55, 100 ) );
+		writer.close();
+		
+		assertTrue( target.closed );
+		assertEquals( range( 0, 100 ), target.written );
+		for ( Thread t : target.threads )
+			assertNotSame( Thread.currentThread(), t );
+	}
+	
+	@Test
+	public void testStateIsFlushBarrier() {
+		RecordingWriter target = new RecordingWriter();
+		WriteBehindWriter<Integer> writer = new WriteBehindWriter<Integer>( target, 10 );
+		writer.open( null );
+		
+		// Less than one batch: nothing is handed to the I/O thread until the checkpoint
+		writer.write( range( 0, 7 ) );
+		assertEquals( 7, writer.getUnwrittenCount() );
+		assertEquals( Integer.valueOf( 7 ), writer.getState() );
+		assertEquals( 0, writer.getUnwrittenCount() );
+		assertEquals( range( 0, 7 ), target.written );
+		
+		// Several batches and a partial one
+		writer.write( range( 7, 40 ) );
+		assertEquals( Integer.valueOf( 40 ), writer.getState() );
+		assertEquals( range( 0, 40 ), target.written );
+		
+		// Nothing new
+		assertEquals( Integer.valueOf( 40 ), writer.getState() );
+		writer.close();
+	}
+	
+	@Test
+	public void testStateWaitsForWrite() throws InterruptedException {
+		final RecordingWriter target = new RecordingWriter();
+		target.gate = new CountDownLatch( 1 );
+		
+		final WriteBehindWriter<Integer> writer = new WriteBehindWriter<Integer>( target, 100 );
+		writer.open( null );
+		writer.write( range( 0, 5 ) );
+		
+		final Serializable[] state = new Serializable[1];
+		final CountDownLatch done = new CountDownLatch( 1 );
+		Thread checkpoint = new Thread( new Runnable() {
+			@Override
+			public void run() {
+				state[0] = writer.getState();
+				done.countDown();
+			}
+		} );
+		checkpoint.start();
+		
+		// The batch is held in the wrapped writer, so the checkpoint cannot complete
+		assertFalse( done.await( 100, TimeUnit.MILLISECONDS ) );
+		assertTrue( target.written.isEmpty() );
+		
+		target.gate.countDown();
+		assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+		checkpoint.join();
+		
+		assertEquals( Integer.valueOf( 5 ), state[0] );
+		assertEquals( range( 0, 5 ), target.written );
+		writer.close();
+	}
+	
+	@Test
+	public void testFailureRethrownAndLaterRecordsDiscarded() {
+		RecordingWriter target = new RecordingWriter();
+		target.failAt = 1;
+		WriteBehindWriter<Integer> writer = new WriteBehindWriter<Integer>( target, 10 );
+		writer.open( null );
+		
+		writer.write( range( 0, 20 ) );
+		try {
+			writer.getState();
+			fail( "The failure of the wrapped writer was not rethrown" );
+		} catch ( BatchException be ) {
+			assertTrue( be.getCause() instanceof IllegalStateException );
+		}
+		
+		try {
+			writer.write( Integer.valueOf( 20 ) );
+			fail( "A write after a failure was accepted" );
+		} catch ( BatchException be ) {
+			assertTrue( be.getCause() instanceof IllegalStateException );
+		}
+		
+		try {
+			writer.close();
+			fail( "The failure of the wrapped writer was not rethrown by close" );
+		} catch ( BatchException be ) {
+			assertTrue( be.getCause() instanceof IllegalStateException );
+		}
+		
+		assertTrue( target.closed );
+		assertEquals( range( 0, 10 ), target.written );
+	}
+	
+	@Test
+	public void testCloseWithoutWrites() {
+		RecordingWriter target = new RecordingWriter();
+		WriteBehindWriter<Integer> writer = new WriteBehindWriter<Integer>( target );
+		writer.open( null );
+		writer.close();
+		
+		assertTrue( target.closed );
+		assertTrue( target.written.isEmpty() );
+		assertEquals( WriteBehindWriter.DEFAULT_BATCH_SIZE, writer.getBatchSize() );
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTestSuite {
+	private final static int BUCKETS = 3712;
+	
+	@Test
+	public void testExactBuckets() {
+		for ( int value = 0; value < 128; ++value ) {
+			assertEquals( value, LatencyHistogram.indexOf( value ) );
+			assertEquals( value, LatencyHistogram.lowestValueIn( value ) );
+			assertEquals( value, LatencyHistogram.highestValueIn( value ) );
+		}
+	}
+	
+	@Test
+	public void testBucketBoundaries() {
+		assertEquals( 128, LatencyHistogram.indexOf( 128 ) );
+		assertEquals( 128, LatencyHistogram.indexOf( 129 ) );
+		assertEquals( 129, LatencyHistogram.indexOf( 130 ) );
+		assertEquals( 191, LatencyHistogram.indexOf( 255 ) );
+		assertEquals( 192, LatencyHistogram.indexOf( 256 ) );
+		assertEquals( 192, LatencyHistogram.indexOf( 259 ) );
+		assertEquals( 193, LatencyHistogram.indexOf( 260 ) );
+		assertEquals( BUCKETS - 1, LatencyHistogram.indexOf( Long.MAX_VALUE ) );
+		assertEquals( Long.MAX_VALUE, LatencyHistogram.highestValueIn( BUCKETS - 1 ) );
+	}
+	
+	@Test
+	public void testBucketsAreContiguous() {
+		for ( int i = 0; i < BUCKETS; ++i ) {
+			long low = LatencyHistogram.lowestValueIn( i );
+			long high = LatencyHistogram.highestValueIn( i );
+			
+			assertTrue( low <= high );
+			assertEquals( "Lowest value of bucket " + i, i, LatencyHistogram.indexOf( low ) );
+			assertEquals( "Highest value of bucket " + i, i, LatencyHistogram.indexOf( high ) );
+			if ( i > 0 )
+				assertEquals( "Bucket " + i + " follows bucket " + (i - 1), LatencyHistogram.highestValueIn( i - 1 ) + 1, low );
+			
+			// The width of a bucket is at most 1/64 of its values
+			if ( i >= 128 )
+				assertTrue( "Width of bucket " + i, high - low + 1 <= low / 64 );
+		}
+	}
+	
+	@Test
+	public void testEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals( 0, histogram.getCount() );
+		assertEquals( 0.0, histogram.getMean(), 0.0 );
+		assertEquals( 0, histogram.getMax() );
+		assertEquals( 0, histogram.getValueAtPercentile( 50.0 ) );
+	}
+	
+	@Test
+	public void testStatistics() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for ( long value = 1; value <= 1000; ++value )
+			histogram.record( value );
+		
+		assertEquals( 1000, histogram.getCount() );
+		assertEquals( 500500, histogram.getTotal() );
+		assertEquals( 500.5, histogram.getMean(), 0.0 );
+		assertEquals( 1000, histogram.getMax() );
+		
+		assertEquals( 1, histogram.getValueAtPercentile( 0.0 ) );
+		assertEquals( 100, histogram.getValueAtPercentile( 10.0 ) );
+		assertWithinBucket( 500, histogram.getValueAtPercentile( 50.0 ) );
+		assertWithinBucket( 990, histogram.getValueAtPercentile( 99.0 ) );
+		assertEquals( 1000, histogram.getValueAtPercentile( 100.0 ) );
+		assertEquals( 1000, histogram.getValueAtPercentile( 150.0 ) );
+	}
+	
+	/*
+	 * Asserts that actual is the highest value of the bucket holding expected.
+	 */
+	private static void assertWithinBucket( long expected, long actual ) {
+		assertEquals( LatencyHistogram.highestValueIn( LatencyHistogram.indexOf( expected ) ), actual );
+		assertTrue( actual - expected <= expected / 64 );
+	}
+	
+	@Test
+	public void testRecordTimes() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record( 10, 99 );
+		histogram.record( 5000, 1 );
+		histogram.record( 7, 0 );
+		
+		assertEquals( 100, histogram.getCount() );
+		assertEquals( 990 + 5000, histogram.getTotal() );
+		assertEquals( 10, histogram.getValueAtPercentile( 99.0 ) );
+		assertEquals( 5000, histogram.getValueAtPercentile( 99.5 ) );
+	}
+	
+	@Test
+	public void testExtremeValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record( -5 );
+		histogram.record( Long.MAX_VALUE );
+		
+		assertEquals( 2, histogram.getCount() );
+		assertEquals( 0, histogram.getValueAtPercentile( 50.0 ) );
+		assertEquals( Long.MAX_VALUE, histogram.getValueAtPercentile( 100.0 ) );
+		assertEquals( Long.MAX_VALUE, histogram.getMax() );
+	}
+	
+	@Test
+	public void testReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record( 1234 );
+		histogram.reset();
+		
+		assertEquals( 0, histogram.getCount() );
+		assertEquals( 0, histogram.getTotal() );
+		assertEquals( 0, histogram.getMax() );
+		assertEquals( 0, histogram.getValueAtPercentile( 100.0 ) );
+	}
+	
+	@Test
+	public void testConcurrentRecording() throws InterruptedException {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		Thread[] threads = new Thread[4];
+		for ( int t = 0; t < threads.length; ++t ) {
+			threads[t] = new Thread( new Runnable() {
+				@Override
+				public void run() {
+					for ( int i = 0; i < 100000; ++i )
+						histogram.record( i % 1000 );
+				}
+			} );
+			threads[t].start();
+		}
+		for ( Thread t : threads )
+			t.join();
+		
+		assertEquals( 400000, histogram.getCount() );
+		assertEquals( 999, histogram.getMax() );
+		assertEquals( 4L * 100 * 499500, histogram.getTotal() );
+	}
+}
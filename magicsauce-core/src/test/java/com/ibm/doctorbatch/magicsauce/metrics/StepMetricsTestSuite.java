@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StepMetricsTestSuite {
+	
+	@Test
+	public void testRecordSpreadsBatchOverRecords() {
+		StepMetrics metrics = new StepMetrics( "step" );
+		metrics.record( Phase.PROCESS, 1000, 4 );
+		metrics.record( Phase.PROCESS, 500, 0 );
+		
+		assertEquals( 4, metrics.getRecordsProcessed() );
+		assertEquals( 4, metrics.getLatency( Phase.PROCESS ).getCount() );
+		assertEquals( 250.0, metrics.getProcessLatencyMean(), 0.0 );
+		assertEquals( 0, metrics.getRecordsRead() );
+	}
+	
+	@Test
+	public void testCheckpointPhase() {
+		StepMetrics metrics = new StepMetrics( "step" );
+		metrics.record( Phase.CHECKPOINT, 100, 1 );
+		metrics.record( Phase.CHECKPOINT, 300, 1 );
+		
+		assertEquals( 2, metrics.getCheckpoints() );
+		assertEquals( 200.0, metrics.getCheckpointLatencyMean(), 0.0 );
+		assertEquals( 300, metrics.getCheckpointLatencyMax() );
+		assertEquals( 300, metrics.latencyAtPercentile( " checkpoint ", 100.0 ) );
+		assertTrue( metrics.toString().contains( "CHECKPOINT ns/record: count=2" ) );
+	}
+	
+	@Test
+	public void testBytesSkipsAndReset() {
+		StepMetrics metrics = new StepMetrics( "step" );
+		metrics.addBytes( Phase.READ, 80 );
+		metrics.addBytes( Phase.WRITE, 40 );
+		metrics.recordSkip();
+		
+		assertEquals( 80, metrics.getBytesRead() );
+		assertEquals( 40, metrics.getBytesWritten() );
+		assertEquals( 1, metrics.getRecordsSkipped() );
+		
+		metrics.reset();
+		assertEquals( 0, metrics.getBytesRead() );
+		assertEquals( 0, metrics.getRecordsSkipped() );
+	}
+	
+	@Test
+	public void testBind() {
+		StepMetrics first = new StepMetrics( "bound" );
+		StepMetrics second = new StepMetrics( "bound" );
+		assertNull( StepMetrics.forStep( "bound" ) );
+		assertNull( StepMetrics.forStep( null ) );
+		
+		first.bind();
+		assertSame( first, StepMetrics.forStep( "bound" ) );
+		
+		second.bind();
+		assertSame( second, StepMetrics.forStep( "bound" ) );
+		
+		// Unbinding replaced metrics leaves the current ones bound
+		first.unbind();
+		assertSame( second, StepMetrics.forStep( "bound" ) );
+		
+		second.unbind();
+		assertNull( StepMetrics.forStep( "bound" ) );
+		
+		new StepMetrics( null ).bind();
+	}
+}
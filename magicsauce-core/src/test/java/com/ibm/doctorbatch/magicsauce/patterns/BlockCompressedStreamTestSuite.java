@@ -0,0 +1,311 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+public class BlockCompressedStreamTestSuite {
+	private final static int BLOCK_SIZE = 1024;
+	
+	private File file;
+	
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile( "blocks", ".gz" );
+	}
+	
+	@After
+	public void tearDown() {
+		file.delete();
+		BlockIndex.indexFileFor( file ).delete();
+	}
+	
+	private static byte[] lines( int count, String prefix ) {
+		StringBuilder sb = new StringBuilder();
+		for ( int i = 0; i < count; ++i )
+			sb.append( prefix ).append( i ).append( " some record text to pad the line out\n" );
+		return bytes( sb.toString() );
+	}
+	
+	private static byte[] bytes( String text ) {
+		try {
+			return text.getBytes( "US-ASCII" );
+		} catch ( IOException ioe ) {
+			throw new BatchException( "US-ASCII is not supported", ioe );
+		}
+	}
+	
+	private static byte[] concat( byte[] a, byte[] b ) {
+		byte[] result = new byte[ a.length + b.length ];
+		System.arraycopy( a, 0, result, 0, a.length );
+		System.arraycopy( b, 0, result, a.length, b.length );
+		return result;
+	}
+	
+	private static byte[] readAll( InputStream in ) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[ 333 ];
+			int n;
+			while ( (n = in.read( buf, 0, buf.length )) >= 0 )
+				out.write( buf, 0, n );
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+	
+	private void write( byte[] content, ExecutorService executor ) throws IOException {
+		BlockCompressedOutputStream out = new BlockCompressedOutputStream( file, executor, BLOCK_SIZE );
+		
+		// Uneven writes, so blocks are cut in the middle of a write
+		for ( int off = 0; off < content.length; off += 700 )
+			out.write( content, off, Math.min( 700, content.length - off ) );
+		out.close();
+	}
+	
+	@Test
+	public void testReadableAsGzip() throws IOException {
+		byte[] content = lines( 500, "line " );
+		write( content, null );
+		
+		assertArrayEquals( content, readAll( new GZIPInputStream( new FileInputStream( file ) ) ) );
+	}
+	
+	@Test
+	public void testRoundTrip() throws IOException {
+		byte[] content = lines( 500, "line " );
+		ExecutorService executor = Executors.newFixedThreadPool( 3 );
+		try {
+			write( content, executor );
+		} finally {
+			executor.shutdown();
+		}
+		
+		BlockCompressedInputStream in = new BlockCompressedInputStream( file );
+		assertEquals( content.length, in.getUncompressedSize() );
+		assertArrayEquals( content, readAll( in ) );
+	}
+	
+	@Test
+	public void testBlocksStartOnLines() throws IOException {
+		byte[] content = lines( 500, "line " );
+		write( content, null );
+		
+		BlockIndex index = BlockIndex.load( file );
+		assertTrue( index.blockCount() > 10 );
+		assertEquals( 0, index.compressedOffsets[0] );
+		assertEquals( 0, index.uncompressedOffsets[0] );
+		assertEquals( file.length(), index.compressedSize );
+		assertEquals( content.length, index.uncompressedSize );
+		
+		for ( int i = 1; i < index.blockCount(); ++i ) {
+			assertTrue( index.compressedOffsets[i] > index.compressedOffsets[i - 1] );
+			assertTrue( index.uncompressedOffsets[i] - index.uncompressedOffsets[i - 1] <= BLOCK_SIZE );
+			assertEquals( '\n', content[ (int) index.uncompressedOffsets[i] - 1 ] );
+		}
+	}
+	
+	@Test
+	public void testBlockContaining() throws IOException {
+		write( lines( 500, "line " ), null );
+		BlockIndex index = BlockIndex.load( file );
+		
+		for ( int i = 0; i < index.blockCount(); ++i ) {
+			long start = index.uncompressedOffsets[i];
+			long end = index.uncompressedEnd( i );
+			assertEquals( i, index.blockContaining( start ) );
+			assertEquals( i, index.blockContaining( end - 1 ) );
+			assertTrue( index.compressedEnd( i ) > index.compressedOffsets[i] );
+		}
+		assertEquals( index.blockCount() - 1, index.blockContaining( index.uncompressedSize + 100 ) );
+	}
+	
+	@Test
+	public void testSkip() throws IOException {
+		byte[] content = lines( 500, "line " );
+		write( content, null );
+		
+		long[] targets = { 0, 1, 1023, 1024, 5000, content.length / 2, content.length - 1 };
+		for ( long target : targets ) {
+			BlockCompressedInputStream in = new BlockCompressedInputStream( file );
+			try {
+				assertEquals( target, in.skip( target ) );
+				assertEquals( target, in.getPosition() );
+				assertEquals( content[ (int) target ] & 0xFF, in.read() );
+				assertEquals( target + 1, in.getPosition() );
+			} finally {
+				in.close();
+			}
+		}
+	}
+	
+	@Test
+	public void testSkipWithinAndBetweenBlocks() throws IOException {
+		byte[] content = lines( 500, "line " );
+		write( content, null );
+		
+		BlockCompressedInputStream in = new BlockCompressedInputStream( file );
+		try {
+			long position = 0;
+			for ( long step : new long[] { 10, 3000, 1, 7000, 100 } ) {
+				position += step;
+				assertEquals( step, in.skip( step ) );
+				assertEquals( content[ (int) position ] & 0xFF, in.read() );
+				++position;
+			}
+		} finally {
+			in.close();
+		}
+	}
+	
+	@Test
+	public void testSkipPastEnd() throws IOException {
+		byte[] content = lines( 50, "line " );
+		write( content, null );
+		
+		BlockCompressedInputStream in = new BlockCompressedInputStream( file );
+		try {
+			assertEquals( content.length, in.skip( content.length + 100 ) );
+			assertEquals( content.length, in.getPosition() );
+			assertEquals( -1, in.read() );
+			assertEquals( 0, in.skip( 10 ) );
+		} finally {
+			in.close();
+		}
+	}
+	
+	@Test
+	public void testEmptyFile() throws IOException {
+		write( new byte[0], null );
+		
+		assertTrue( file.length() > 0 );
+		assertArrayEquals( new byte[0], readAll( new GZIPInputStream( new FileInputStream( file ) ) ) );
+		
+		BlockCompressedInputStream in = new BlockCompressedInputStream( file );
+		assertEquals( 0, in.getUncompressedSize() );
+		assertArrayEquals( new byte[0], readAll( in ) );
+	}
+	
+	@Test
+	public void testLineLongerThanBlock() throws IOException {
+		byte[] line = new byte[ BLOCK_SIZE * 5 ];
+		for ( int i = 0; i < line.length; ++i )
+			line[i] = (byte) ('a' + i % 26);
+		byte[] content = concat( concat( lines( 3, "before " ), line ), concat( bytes( "\n" ), lines( 3, "after " ) ) );
+		write( content, null );
+		
+		assertArrayEquals( content, readAll( new BlockCompressedInputStream( file ) ) );
+		
+		BlockIndex index = BlockIndex.load( file );
+		for ( int i = 1; i < index.blockCount(); ++i )
+			assertEquals( '\n', content[ (int) index.uncompressedOffsets[i] - 1 ] );
+	}
+	
+	@Test
+	public void testRestartFromFlush() throws IOException {
+		byte[] first = lines( 100, "first " );
+		byte[] lost = lines( 100, "lost " );
+		byte[] second = lines( 100, "second " );
+		
+		BlockCompressedOutputStream out = new BlockCompressedOutputStream( file, null, BLOCK_SIZE );
+		out.write( first );
+		out.flush();
+		long compressed = out.getCompressedOffset();
+		assertEquals( first.length, out.getUncompressedOffset() );
+		out.write( lost );
+		out.close();
+		
+		out = new BlockCompressedOutputStream( file, null, BLOCK_SIZE );
+		out.truncate( compressed );
+		
+		// The offsets are recovered from the kept blocks when the stream is first written
+		out.write( second, 0, 10 );
+		assertEquals( compressed, out.getCompressedOffset() );
+		assertEquals( first.length, out.getUncompressedOffset() );
+		out.write( second, 10, second.length - 10 );
+		out.close();
+		
+		byte[] expected = concat( first, second );
+		assertArrayEquals( expected, readAll( new GZIPInputStream( new FileInputStream( file ) ) ) );
+		assertArrayEquals( expected, readAll( new BlockCompressedInputStream( file ) ) );
+		assertEquals( expected.length, BlockIndex.load( file ).uncompressedSize );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testTruncateAfterWrite() throws IOException {
+		BlockCompressedOutputStream out = new BlockCompressedOutputStream( file, null, BLOCK_SIZE );
+		try {
+			out.write( lines( 1, "x" ) );
+			out.truncate( 0 );
+		} finally {
+			out.close();
+		}
+	}
+	
+	@Test(expected=IOException.class)
+	public void testWriteAfterClose() throws IOException {
+		BlockCompressedOutputStream out = new BlockCompressedOutputStream( file, null, BLOCK_SIZE );
+		out.close();
+		out.write( 'x' );
+	}
+	
+	@Test(expected=IOException.class)
+	public void testCorruptBlock() throws IOException {
+		write( lines( 100, "line " ), null );
+		BlockIndex index = BlockIndex.load( file );
+		
+		// Flip a bit in the CRC of the first block
+		RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+		try {
+			long crc = index.compressedEnd( 0 ) - 8;
+			raf.seek( crc );
+			int b = raf.read();
+			raf.seek( crc );
+			raf.write( b ^ 1 );
+		} finally {
+			raf.close();
+		}
+		
+		readAll( new BlockCompressedInputStream( file ) );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testMissingIndex() throws IOException {
+		write( lines( 10, "line " ), null );
+		BlockIndex.indexFileFor( file ).delete();
+		BlockIndex.load( file );
+	}
+}
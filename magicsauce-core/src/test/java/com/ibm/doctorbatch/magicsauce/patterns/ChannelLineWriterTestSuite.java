@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChannelLineWriterTestSuite {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final static Charset UTF16 = Charset.forName("UTF-16");
+	
+	private ByteArrayOutputStream out;
+	
+	@Before
+	public void setUp() {
+		out = new ByteArrayOutputStream();
+	}
+	
+	private ChannelLineWriter writer( Charset charset, int bufferSize ) {
+		return new ChannelLineWriter( Channels.newChannel( out ), charset, bufferSize );
+	}
+	
+	private String output( Charset charset ) throws UnsupportedEncodingException {
+		return new String( out.toByteArray(), charset.name() );
+	}
+	
+	@Test
+	public void testAscii() throws UnsupportedEncodingException {
+		ChannelLineWriter writer = writer( UTF8, 1024 );
+		writer.write( "first" );
+		writer.write( "second" );
+		assertEquals( 0, out.size() );
+		assertEquals( 13, writer.getBufferedBytes() );
+		
+		writer.flush();
+		assertEquals( "first\nsecond\n", output( UTF8 ) );
+		assertEquals( 13, writer.getBytesWritten() );
+		assertEquals( 0, writer.getBufferedBytes() );
+	}
+	
+	@Test
+	public void testNonAscii() throws UnsupportedEncodingException {
+		ChannelLineWriter writer = writer( UTF8, 1024 );
+		writer.write( "caf\u00e9" );
+		writer.write( "na\u00efve \u20ac" );
+		writer.flush();
+		assertEquals( "caf\u00e9\nna\u00efve \u20ac\n", output( UTF8 ) );
+		assertEquals( out.size(), writer.getBytesWritten() );
+	}
+	
+	@Test
+	public void testLineSeparator() throws UnsupportedEncodingException {
+		ChannelLineWriter writer = writer( UTF8, 1024 );
+		writer.setLineSeparator( "\r\n" );
+		writer.write( "a" );
+		writer.write( "b" );
+		writer.flush();
+		assertEquals( "a\r\nb\r\n", output( UTF8 ) );
+	}
+	
+	@Test
+	public void testCharSequence() throws UnsupportedEncodingException {
+		ChannelLineWriter writer = writer( UTF8, 1024 );
+		writer.write( new StringBuilder( "built \u00e9" ) );
+		writer.flush();
+		assertEquals( "built \u00e9\n", output( UTF8 ) );
+	}
+	
+	@Test
+	public void testRecordLongerThanBuffer() throws UnsupportedEncodingException {
+		StringBuilder sb = new StringBuilder();
+		for ( int i = 0; i < 1000; ++i )
+			sb.append( (char) ('a' + i % 26) );
+		String ascii = sb.toString();
+		String mixed = ascii.replace( 'a', '\u00e9' );
+		
+		ChannelLineWriter writer = writer( UTF8, 64 );
+		writer.write( ascii );
+		writer.write( mixed );
+		writer.flush();
+		assertEquals( ascii + "\n" + mixed + "\n", output( UTF8 ) );
+	}
+	
+	@Test
+	public void testFlushBytes() {
+		ChannelLineWriter writer = writer( UTF8, 1024 );
+		writer.setFlushPolicy( FlushPolicy.BYTES, 10 );
+		writer.write( "abcd" );
+		assertEquals( 0, writer.getBytesWritten() );
+		writer.write( "efgh" );
+		assertEquals( 10, writer.getBytesWritten() );
+		assertEquals( 0, writer.getBufferedBytes() );
+	}
+	
+	@Test
+	public void testFlushRecords() {
+		ChannelLineWriter writer = writer( UTF8, 1024 );
+		writer.setFlushPolicy( FlushPolicy.RECORDS, 3 );
+		writer.write( "a" );
+		writer.write( "b" );
+		assertEquals( 0, writer.getBytesWritten() );
+		writer.write( "c" );
+		assertEquals( 6, writer.getBytesWritten() );
+		writer.write( "d" );
+		assertEquals( 6, writer.getBytesWritten() );
+		assertEquals( 2, writer.getBufferedBytes() );
+	}
+	
+	@Test
+	public void testFlushCheckpoint() {
+		ChannelLineWriter writer = writer( UTF8, 1024 );
+		for ( int i = 0; i < 100; ++i )
+			writer.write( "record" );
+		assertEquals( 0, writer.getBytesWritten() );
+		writer.flush();
+		assertEquals( 700, writer.getBytesWritten() );
+	}
+	
+	@Test
+	public void testUnpairedSurrogate() throws UnsupportedEncodingException {
+		ChannelLineWriter writer = writer( UTF8, 1024 );
+		writer.write( "a\ud800" );
+		writer.write( "b" );
+		writer.flush();
+		assertEquals( "a?\nb\n", output( UTF8 ) );
+	}
+	
+	@Test
+	public void testByteOrderMarkWrittenOnce() throws UnsupportedEncodingException {
+		ChannelLineWriter writer = writer( UTF16, 1024 );
+		writer.write( "a" );
+		writer.write( "b" );
+		writer.flush();
+		assertArrayEquals( "a\nb\n".getBytes( "UTF-16" ), out.toByteArray() );
+	}
+}
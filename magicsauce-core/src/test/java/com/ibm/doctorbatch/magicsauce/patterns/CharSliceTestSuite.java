@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+public class CharSliceTestSuite {
+	
+	/*
+	 * Places the text in the middle of a larger array, so offsets are exercised.
+	 */
+	private static CharSlice slice( String text ) {
+		char[] chars = ( "##" + text + "##" ).toCharArray();
+		return new CharSlice( chars, 2, text.length() );
+	}
+	
+	@Test
+	public void testCharSequence() {
+		CharSlice slice = slice( "hello" );
+		assertEquals( 5, slice.length() );
+		assertEquals( 'h', slice.charAt( 0 ) );
+		assertEquals( 'o', slice.charAt( 4 ) );
+		assertEquals( "hello", slice.toString() );
+		assertEquals( "ell", slice.subSequence( 1, 4 ).toString() );
+		assertEquals( "", slice.subSequence( 5, 5 ).toString() );
+	}
+	
+	@Test
+	public void testSetRebinds() {
+		CharSlice slice = new CharSlice();
+		assertEquals( 0, slice.length() );
+		
+		char[] chars = "abcdef".toCharArray();
+		assertEquals( "cde", slice.set( chars, 2, 3 ).toString() );
+		assertEquals( 2, slice.getOffset() );
+		assertSame( chars, slice.getChars() );
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testCharAtPastEnd() {
+		slice( "abc" ).charAt( 3 );
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testCharAtNegative() {
+		slice( "abc" ).charAt( -1 );
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testSubSequencePastEnd() {
+		slice( "abc" ).subSequence( 1, 4 );
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testSubSequenceReversed() {
+		slice( "abc" ).subSequence( 2, 1 );
+	}
+	
+	@Test
+	public void testParseInt() {
+		assertEquals( 0, slice( "0" ).parseInt() );
+		assertEquals( 42, slice( "+42" ).parseInt() );
+		assertEquals( -42, slice( " -42 " ).parseInt() );
+		assertEquals( Integer.MAX_VALUE, slice( "2147483647" ).parseInt() );
+		assertEquals( Integer.MIN_VALUE, slice( "-2147483648" ).parseInt() );
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testParseIntOverflow() {
+		slice( "2147483648" ).parseInt();
+	}
+	
+	@Test
+	public void testParseLong() {
+		assertEquals( 1234567890123L, slice( "1234567890123" ).parseLong() );
+		assertEquals( Long.MAX_VALUE, slice( "9223372036854775807" ).parseLong() );
+		assertEquals( Long.MIN_VALUE, slice( "-9223372036854775808" ).parseLong() );
+		assertEquals( 7L, slice( "\t7\r" ).parseLong() );
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testParseLongOverflow() {
+		slice( "9223372036854775808" ).parseLong();
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testParseLongNegativeOverflow() {
+		slice( "-9223372036854775809" ).parseLong();
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testParseLongSignOnly() {
+		slice( "-" ).parseLong();
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testParseLongBlank() {
+		slice( "   " ).parseLong();
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testParseLongEmbeddedSpace() {
+		slice( "1 2" ).parseLong();
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testParseLongNonDigit() {
+		slice( "12a" ).parseLong();
+	}
+	
+	@Test
+	public void testParseDecimal() {
+		assertEquals( new BigDecimal( "123.45" ), slice( " 123.45 " ).parseDecimal() );
+		assertEquals( new BigDecimal( "-0.001" ), slice( "-0.001" ).parseDecimal() );
+		assertEquals( new BigDecimal( "1E+3" ), slice( "1E3" ).parseDecimal() );
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testParseDecimalBlank() {
+		slice( "" ).parseDecimal();
+	}
+	
+	@Test(expected=NumberFormatException.class)
+	public void testParseDecimalInvalid() {
+		slice( "1.2.3" ).parseDecimal();
+	}
+}
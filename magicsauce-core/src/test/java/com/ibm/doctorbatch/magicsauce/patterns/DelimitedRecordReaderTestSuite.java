@@ -0,0 +1,284 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+public class DelimitedRecordReaderTestSuite {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final static Charset LATIN1 = Charset.forName("ISO-8859-1");
+	private final static Charset UTF16 = Charset.forName("UTF-16BE");
+	
+	/*
+	 * Reads from the source set by the test; open and close have nothing to do.
+	 */
+	private static class TestDelimitedRecordReader extends DelimitedRecordReader {
+		@Override
+		public void open( Serializable args ) {
+		}
+		
+		@Override
+		public void close() {
+		}
+	}
+	
+	private static DelimitedRecordReader reader( String text ) {
+		DelimitedRecordReader reader = new TestDelimitedRecordReader();
+		reader.setBufferSize( 64 );
+		reader.setSource( new StringReader( text ) );
+		return reader;
+	}
+	
+	private static DelimitedRecordReader reader( String text, Charset charset ) {
+		DelimitedRecordReader reader = new TestDelimitedRecordReader();
+		reader.setBufferSize( 64 );
+		reader.setSource( new ByteArrayInputStream( text.getBytes( charset ) ), charset );
+		return reader;
+	}
+	
+	private static void assertRecords( DelimitedRecordReader reader, String[]... expected ) {
+		for ( String[] fields : expected ) {
+			DelimitedRecord record = reader.read();
+			assertArrayEquals( fields, record.toArray() );
+		}
+		assertNull( reader.read() );
+		assertNull( reader.read() );
+	}
+	
+	private static String[] r( String... fields ) {
+		return fields;
+	}
+	
+	private static String repeat( char c, int n ) {
+		StringBuilder sb = new StringBuilder( n );
+		for ( int i = 0; i < n; ++i )
+			sb.append( c );
+		return sb.toString();
+	}
+	
+	@Test
+	public void testSimpleRecords() {
+		assertRecords( reader( "a,b,c\n1,2,3\r\nx\n" ), r( "a", "b", "c" ), r( "1", "2", "3" ), r( "x" ) );
+	}
+	
+	@Test
+	public void testEmptyFields() {
+		assertRecords( reader( ",a,\n,\n\n" ), r( "", "a", "" ), r( "", "" ), r( "" ) );
+		assertRecords( reader( "" ) );
+	}
+	
+	@Test
+	public void testFinalRecordWithoutTerminator() {
+		assertRecords( reader( "a,b\nc,d" ), r( "a", "b" ), r( "c", "d" ) );
+		assertRecords( reader( "a,b\nc," ), r( "a", "b" ), r( "c", "" ) );
+	}
+	
+	@Test
+	public void testFinalCarriageReturn() {
+		assertRecords( reader( "a,b\r\nc,d\r" ), r( "a", "b" ), r( "c", "d" ) );
+		assertRecords( reader( "a,\"b\"\r" ), r( "a", "b" ) );
+		assertRecords( reader( "\"a\",\"b\"\r\n\"c\"\r" ), r( "a", "b" ), r( "c" ) );
+	}
+	
+	@Test
+	public void testCarriageReturnWithinField() {
+		assertRecords( reader( "a\rb,c\n" ), r( "a\rb", "c" ) );
+		assertRecords( reader( "\"a\rb\",c\n" ), r( "a\rb", "c" ) );
+	}
+	
+	@Test
+	public void testQuotedFields() {
+		assertRecords( reader( "\"a,b\",\"\",c\n" ), r( "a,b", "", "c" ) );
+		assertRecords( reader( "\"line\none\",\"line\r\ntwo\"\nnext\n" ), r( "line\none", "line\r\ntwo" ), r( "next" ) );
+	}
+	
+	@Test
+	public void testDoubledQuotes() {
+		assertRecords( reader( "\"say \"\"hi\"\"\",\"\"\"\"\n" ), r( "say \"hi\"", "\"" ) );
+		assertRecords( reader( "\"\"\"a\"\"\"\n" ), r( "\"a\"" ) );
+	}
+	
+	@Test
+	public void testQuoteWithinUnquotedField() {
+		assertRecords( reader( "a\"b,c\n" ), r( "a\"b", "c" ) );
+	}
+	
+	@Test
+	public void testEscapeCharacter() {
+		DelimitedRecordReader reader = reader( "a\\,b,\"q\\\"uote\",c\\\\\n" );
+		reader.setEscape( '\\' );
+		assertRecords( reader, r( "a,b", "q\"uote", "c\\" ) );
+	}
+	
+	@Test
+	public void testOtherDelimiters() {
+		DelimitedRecordReader reader = reader( "a|b|\"c|d\"\n" );
+		reader.setDelimiter( '|' );
+		assertRecords( reader, r( "a", "b", "c|d" ) );
+		
+		reader = reader( "a\tb\t\n" );
+		reader.setDelimiter( '\t' );
+		assertRecords( reader, r( "a", "b", "" ) );
+	}
+	
+	@Test
+	public void testRecordsAcrossBufferRefills() {
+		String longField = repeat( 'x', 200 );
+		StringBuilder sb = new StringBuilder();
+		for ( int i = 0; i < 20; ++i )
+			sb.append( i ).append( ",\"" ).append( longField ).append( "\"\"\"\r\n" );
+		
+		DelimitedRecordReader reader = reader( sb.toString() );
+		for ( int i = 0; i < 20; ++i ) {
+			DelimitedRecord record = reader.read();
+			assertEquals( i + 1, record.getRecordNumber() );
+			assertEquals( i, record.getInt( 0 ) );
+			assertEquals( longField + "\"", record.getString( 1 ) );
+		}
+		assertNull( reader.read() );
+	}
+	
+	@Test
+	public void testNumericFields() {
+		DelimitedRecord record = reader( "42, -7 ,123.45,9223372036854775807\n" ).read();
+		assertEquals( 4, record.getFieldCount() );
+		assertEquals( 42, record.getInt( 0 ) );
+		assertEquals( -7, record.getLong( 1 ) );
+		assertEquals( new BigDecimal( "123.45" ), record.getDecimal( 2 ) );
+		assertEquals( Long.MAX_VALUE, record.getLong( 3 ) );
+		assertEquals( "42", record.getField( 0 ).toString() );
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testFieldIndexOutOfRange() {
+		reader( "a,b\n" ).read().getField( 2 );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testUnterminatedQuote() {
+		reader( "a,\"b\n" ).read();
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testCharacterAfterClosingQuote() {
+		reader( "\"a\"b,c\n" ).read();
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testMaxRecordSize() {
+		DelimitedRecordReader reader = reader( repeat( 'x', 1000 ) + "\n" );
+		reader.setMaxRecordSize( 100 );
+		reader.read();
+	}
+	
+	@Test
+	public void testStateHoldsByteOffset() {
+		DelimitedRecordReader reader = reader( "a,b\r\n\u00E9,\u20AC\n\"x\ny\"\n", UTF8 );
+		assertCheckpoint( 0, 0, reader.getState() );
+		reader.read();
+		assertCheckpoint( 5, 1, reader.getState() );
+		reader.read();
+		assertCheckpoint( 12, 2, reader.getState() );
+		reader.read();
+		assertCheckpoint( 18, 3, reader.getState() );
+	}
+	
+	@Test
+	public void testStateOffsetWithSurrogates() {
+		String text = "\uD83D\uDE00,a\nb\n";
+		DelimitedRecordReader reader = reader( text, UTF8 );
+		reader.read();
+		assertCheckpoint( "\uD83D\uDE00,a\n".getBytes( UTF8 ).length, 1, reader.getState() );
+	}
+	
+	@Test
+	public void testStateWithoutByteOffset() {
+		DelimitedRecordReader reader = reader( "a\nb\n", UTF16 );
+		reader.read();
+		assertCheckpoint( -1, 1, reader.getState() );
+		
+		reader = reader( "a\nb\n" );
+		reader.read();
+		assertCheckpoint( -1, 1, reader.getState() );
+	}
+	
+	private static void assertCheckpoint( long offset, long records, Serializable state ) {
+		assertTrue( state instanceof LineCheckpoint );
+		assertEquals( offset, ((LineCheckpoint) state).getByteOffset() );
+		assertEquals( records, ((LineCheckpoint) state).getLineNumber() );
+	}
+	
+	@Test
+	public void testRestartFromByteOffset() {
+		String text = "1,\u00E9\n2,\"a\nb\"\n3,c\n4,d\n";
+		for ( Charset charset : new Charset[] { UTF8, LATIN1 } ) {
+			DelimitedRecordReader reader = reader( text, charset );
+			reader.read();
+			reader.read();
+			Serializable state = reader.getState();
+			assertTrue( ((LineCheckpoint) state).getByteOffset() > 0 );
+			
+			reader = reader( text, charset );
+			reader.seek( state );
+			DelimitedRecord record = reader.read();
+			assertEquals( 3, record.getRecordNumber() );
+			assertArrayEquals( r( "3", "c" ), record.toArray() );
+			assertRecords( reader, r( "4", "d" ) );
+		}
+	}
+	
+	@Test
+	public void testRestartFromRecordNumber() {
+		String text = "1,a\n2,\"x\ny\"\n3,c\n";
+		DelimitedRecordReader reader = reader( text, UTF16 );
+		reader.read();
+		reader.read();
+		Serializable state = reader.getState();
+		
+		reader = reader( text, UTF16 );
+		reader.seek( state );
+		DelimitedRecord record = reader.read();
+		assertEquals( 3, record.getRecordNumber() );
+		assertArrayEquals( r( "3", "c" ), record.toArray() );
+		assertNull( reader.read() );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testSeekAfterRead() {
+		DelimitedRecordReader reader = reader( "a\nb\nc\n", UTF8 );
+		reader.read();
+		reader.seek( new LineCheckpoint( 4, 2 ) );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testSeekPastEnd() {
+		reader( "a\nb\n" ).seek( new LineCheckpoint( -1, 5 ) );
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+public class DelimiterScannerTestSuite {
+	
+	/*
+	 * Returns at most chunk characters per read, so that delimiters span reads.
+	 */
+	static class TrickleReader extends Reader {
+		private final Reader in;
+		private final int chunk;
+		int reads;
+		
+		TrickleReader( String text, int chunk ) {
+			this.in = new StringReader( text );
+			this.chunk = chunk;
+		}
+		
+		@Override
+		public int read( char[] cbuf, int off, int len ) throws IOException {
+			++reads;
+			return in.read( cbuf, off, Math.min( len, chunk ) );
+		}
+		
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+	
+	private static List<String> scan( Reader in, String delimiter ) {
+		DelimiterScanner scanner = new DelimiterScanner( in, Pattern.compile( delimiter ), 64 );
+		List<String> records = new ArrayList<String>();
+		CharSlice record;
+		while ( (record = scanner.next()) != null )
+			records.add( record.toString() );
+		
+		return records;
+	}
+	
+	private static List<String> scan( String text, String delimiter, int chunk ) {
+		return scan( new TrickleReader( text, chunk ), delimiter );
+	}
+	
+	/*
+	 * The records java.util.Scanner finds with the same delimiter.
+	 */
+	private static List<String> expected( String text, String delimiter ) {
+		java.util.Scanner scanner = new java.util.Scanner( text ).useDelimiter( delimiter );
+		List<String> records = new ArrayList<String>();
+		while ( scanner.hasNext() )
+			records.add( scanner.next() );
+		
+		return records;
+	}
+	
+	private static String records( int count, int length, String delimiter ) {
+		StringBuilder text = new StringBuilder();
+		for ( int i = 0; i < count; ++i ) {
+			for ( int j = 0; j < length; ++j )
+				text.append( (char) ('a' + (i + j) % 26) );
+			text.append( delimiter );
+		}
+		
+		return text.toString();
+	}
+	
+	@Test
+	public void testLiteralPatterns() {
+		assertEquals( "||", DelimiterMatcher.literalOf( Pattern.compile( "\\|\\|" ) ) );
+		assertEquals( "$$END$$", DelimiterMatcher.literalOf( Pattern.compile( "\\Q$$END$$\\E" ) ) );
+		assertEquals( "\r\n", DelimiterMatcher.literalOf( Pattern.compile( "\\r\\n" ) ) );
+		assertEquals( "A\tB", DelimiterMatcher.literalOf( Pattern.compile( "\\x41\\t\\u0042" ) ) );
+		assertEquals( "a|b", DelimiterMatcher.literalOf( Pattern.compile( "a|b", Pattern.LITERAL ) ) );
+		
+		assertNull( DelimiterMatcher.literalOf( Pattern.compile( "a|b" ) ) );
+		assertNull( DelimiterMatcher.literalOf( Pattern.compile( "\\s+" ) ) );
+		assertNull( DelimiterMatcher.literalOf( Pattern.compile( "\\r?\\n" ) ) );
+		assertNull( DelimiterMatcher.literalOf( Pattern.compile( "end", Pattern.CASE_INSENSITIVE ) ) );
+		
+		assertTrue( new DelimiterScanner( new StringReader( "" ), Pattern.compile( "\\Q$$END$$\\E" ), 64 ).isLiteral() );
+		assertFalse( new DelimiterScanner( new StringReader( "" ), Pattern.compile( "\\r?\\n" ), 64 ).isLiteral() );
+	}
+	
+	@Test
+	public void testScannerRules() {
+		String[] delimiters = { ",", ",,", "\\s+", ";|,", "\\r?\\n" };
+		String[] texts = { "a,b,c", ",a,b,", "a,,b", "a,,,,b,,", "", ",", "a b\t\tc ", "a;b,c;", "a\r\nb\nc\r\n" };
+		
+		for ( String delimiter : delimiters ) {
+			for ( String text : texts ) {
+				assertEquals( "Delimiter " + delimiter + " in " + text, expected( text, delimiter ), scan( new StringReader( text ), delimiter ) );
+				assertEquals( "Delimiter " + delimiter + " in " + text + " one char per read", expected( text, delimiter ), scan( text, delimiter, 1 ) );
+			}
+		}
+	}
+	
+	@Test
+	public void testLiteralSpanningReads() {
+		String text = records( 50, 37, "$$END$$" );
+		List<String> expected = expected( text, "\\Q$$END$$\\E" );
+		assertEquals( 50, expected.size() );
+		
+		for ( int chunk = 1; chunk <= 9; ++chunk )
+			assertEquals( "Chunk " + chunk, expected, scan( text, "\\Q$$END$$\\E", chunk ) );
+	}
+	
+	@Test
+	public void testRegexSpanningReads() {
+		String text = records( 50, 37, "\r\n" ) + records( 50, 41, "\n\n\n" ) + records( 5, 70, "--" );
+		
+		for ( String delimiter : new String[] { "\\r?\\n+", "(\\r\\n)|\\n{2,}|-+" } ) {
+			List<String> expected = expected( text, delimiter );
+			for ( int chunk = 1; chunk <= 5; ++chunk )
+				assertEquals( "Delimiter " + delimiter + ", chunk " + chunk, expected, scan( text, delimiter, chunk ) );
+		}
+	}
+	
+	@Test
+	public void testLongRecord() {
+		StringBuilder text = new StringBuilder();
+		for ( int i = 0; i < 100000; ++i )
+			text.append( (char) ('a' + i % 26) );
+		String record = text.toString();
+		text.append( "\r\n" ).append( "next" );
+		
+		List<String> records = scan( text.toString(), "\\r?\\n", 1000 );
+		assertEquals( 2, records.size() );
+		assertEquals( record, records.get( 0 ) );
+		assertEquals( "next", records.get( 1 ) );
+	}
+	
+	@Test
+	public void testRegexRescansOnlyTheOverlap() {
+		DelimiterMatcher matcher = DelimiterMatcher.forPattern( Pattern.compile( "\\r?\\n" ), 16 );
+		char[] window = "abcdefgh".toCharArray();
+		
+		assertEquals( -1, matcher.find( window, 0, window.length, false ) );
+		assertEquals( "Expected the last 15 characters to be searched again", 15, matcher.overlap() );
+		
+		window = "ab\r".toCharArray();
+		matcher = DelimiterMatcher.forPattern( Pattern.compile( "\\r\\n|\\r" ), 1 );
+		assertEquals( "Expected a match at the end of the window to wait for input", -1, matcher.find( window, 0, window.length, false ) );
+		assertEquals( "Expected the match to be searched again", 1, matcher.overlap() );
+		assertEquals( 2, matcher.find( window, 0, window.length, true ) );
+	}
+	
+	@Test
+	public void testChangeDelimiter() {
+		DelimiterScanner scanner = new DelimiterScanner( new StringReader( "a,b;c;d" ), Pattern.compile( "," ), 64 );
+		assertEquals( "a", scanner.next().toString() );
+		
+		// As with java.util.Scanner, the old delimiter stays in the input
+		scanner.setDelimiter( Pattern.compile( ";" ) );
+		assertEquals( ",b", scanner.next().toString() );
+		assertEquals( "c", scanner.next().toString() );
+		
+		scanner.setMaxDelimiterSize( 4 );
+		assertEquals( 4, scanner.getMaxDelimiterSize() );
+		assertEquals( "d", scanner.next().toString() );
+		assertNull( scanner.next() );
+	}
+	
+	@Test(expected = BatchException.class)
+	public void testMaxRecordSize() {
+		DelimiterScanner scanner = new DelimiterScanner( new TrickleReader( records( 1, 500, "," ), 64 ), Pattern.compile( "," ), 64 );
+		scanner.setMaxRecordSize( 100 );
+		scanner.next();
+	}
+}
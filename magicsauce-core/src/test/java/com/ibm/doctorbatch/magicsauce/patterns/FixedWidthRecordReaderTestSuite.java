@@ -0,0 +1,234 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+public class FixedWidthRecordReaderTestSuite {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final static Charset LATIN1 = Charset.forName("ISO-8859-1");
+	private final static Charset CP1252 = Charset.forName("windows-1252");
+	private final static Charset UTF16 = Charset.forName("UTF-16BE");
+	
+	/*
+	 * Reads from the source set by the test; open and close have nothing to do.
+	 */
+	private static class TestFixedWidthRecordReader extends FixedWidthRecordReader {
+		@Override
+		public void open( Serializable args ) {
+		}
+		
+		@Override
+		public void close() {
+		}
+	}
+	
+	/*
+	 *   ID    NAME      AMOUNT
+	 *   0:4   4:10      14:8
+	 */
+	private static ColumnLayout layout() {
+		return new ColumnLayout()
+			.addColumn( "ID", 0, 4 )
+			.addColumn( "NAME", 4, 10 )
+			.addColumn( "AMOUNT", 14, 8 );
+	}
+	
+	private static FixedWidthRecordReader reader( String text, Charset charset ) {
+		FixedWidthRecordReader reader = new TestFixedWidthRecordReader();
+		reader.setBufferSize( 64 );
+		reader.setLayout( layout() );
+		reader.setSource( new ByteArrayInputStream( text.getBytes( charset ) ), charset );
+		return reader;
+	}
+	
+	private static FixedWidthRecordReader reader( String text ) {
+		FixedWidthRecordReader reader = new TestFixedWidthRecordReader();
+		reader.setLayout( layout() );
+		reader.setSource( new StringReader( text ) );
+		return reader;
+	}
+	
+	private static void assertRecord( FixedWidthRecord record, String id, String name, String amount ) {
+		assertEquals( id, record.getString( 0 ) );
+		assertEquals( name, record.getString( "NAME" ) );
+		assertEquals( amount, record.getField( 2 ).toString() );
+	}
+	
+	private final static String TEXT = 
+		"0001" + "Alice     " + "   12.50" + "\n" +
+		"0002" + "Bob       " + " -300.25" + "\r\n" +
+		"0003" + "Carol" + "\n";
+	
+	private static void assertText( FixedWidthRecordReader reader ) {
+		assertRecord( reader.read(), "0001", "Alice     ", "   12.50" );
+		
+		FixedWidthRecord record = reader.read();
+		assertRecord( record, "0002", "Bob       ", " -300.25" );
+		assertEquals( 2, record.getInt( "ID" ) );
+		assertEquals( new BigDecimal( "-300.25" ), record.getDecimal( "AMOUNT" ) );
+		assertEquals( "0002Bob        -300.25", record.toString() );
+		
+		// A short line cuts off the column it ends in, and empties the columns after it
+		assertRecord( reader.read(), "0003", "Carol", "" );
+		assertNull( reader.read() );
+	}
+	
+	@Test
+	public void testAsciiStream() {
+		assertText( reader( TEXT, UTF8 ) );
+		assertText( reader( TEXT, LATIN1 ) );
+	}
+	
+	@Test
+	public void testDecodedSource() {
+		assertText( reader( TEXT ) );
+		assertText( reader( TEXT, UTF16 ) );
+	}
+	
+	@Test
+	public void testSingleByteEncodings() {
+		String text = "0001Ren\u00E9e     \u20AC12.50\n";
+		
+		FixedWidthRecord record = reader( text, CP1252 ).read();
+		assertRecord( record, "0001", "Ren\u00E9e     ", "\u20AC12.50" );
+		assertEquals( text.substring( 0, text.length() - 1 ), record.getLine().toString() );
+		
+		record = reader( "0001Ren\u00E9e\n", LATIN1 ).read();
+		assertEquals( "Ren\u00E9e", record.getString( 1 ) );
+	}
+	
+	@Test
+	public void testUtf8NonAscii() {
+		// Multi-byte characters shift the byte offsets of every later column
+		String text = 
+			"0001Ren\u00E9e     \u20AC12.50\n" +
+			"0002Zo\u00EB\n" +
+			"0003" + "Plain     " + "    1.00" + "\n";
+		
+		FixedWidthRecordReader reader = reader( text, UTF8 );
+		
+		FixedWidthRecord record = reader.read();
+		assertEquals( "0001", record.getString( 0 ) );
+		assertRecord( record, "0001", "Ren\u00E9e     ", "\u20AC12.50" );
+		
+		record = reader.read();
+		assertEquals( "0002", record.getString( 0 ) );
+		assertEquals( "Zo\u00EB", record.getString( 1 ) );
+		assertEquals( "", record.getString( 2 ) );
+		
+		assertRecord( reader.read(), "0003", "Plain     ", "    1.00" );
+		assertNull( reader.read() );
+	}
+	
+	@Test
+	public void testNonAsciiAfterColumn() {
+		// The columns before the first multi-byte character are decoded on their own
+		FixedWidthRecord record = reader( "0001Bob       \u20AC12.50\n", UTF8 ).read();
+		assertEquals( 1, record.getInt( 0 ) );
+		assertEquals( "Bob       ", record.getString( 1 ) );
+		assertEquals( "\u20AC12.50", record.getString( 2 ) );
+		assertEquals( 1, record.getInt( 0 ) );
+	}
+	
+	@Test
+	public void testFieldsHeldTogether() {
+		FixedWidthRecordReader reader = reader( TEXT, UTF8 );
+		FixedWidthRecord record = reader.read();
+		
+		CharSlice id = record.getField( 0 );
+		CharSlice name = record.getField( 1 );
+		assertEquals( "0001", id.toString() );
+		assertEquals( "Alice     ", name.toString() );
+		assertSame( id, record.getField( "ID" ) );
+		
+		// The same views are repointed at the next record
+		reader.read();
+		assertSame( id, record.getField( 0 ) );
+		assertEquals( "0002", id.toString() );
+		assertSame( name, record.getField( 1 ) );
+		assertEquals( "Bob       ", name.toString() );
+	}
+	
+	@Test
+	public void testEmptyLines() {
+		FixedWidthRecordReader reader = reader( "\n0001\n", UTF8 );
+		assertRecord( reader.read(), "", "", "" );
+		assertRecord( reader.read(), "0001", "", "" );
+		assertNull( reader.read() );
+	}
+	
+	@Test
+	public void testRestart() {
+		FixedWidthRecordReader reader = reader( TEXT, UTF8 );
+		reader.read();
+		Serializable state = reader.getState();
+		assertEquals( 1, ((LineCheckpoint) state).getLineNumber() );
+		assertEquals( 23, ((LineCheckpoint) state).getByteOffset() );
+		
+		reader = reader( TEXT, UTF8 );
+		reader.seek( state );
+		assertEquals( 1, reader.getLineNumber() );
+		assertRecord( reader.read(), "0002", "Bob       ", " -300.25" );
+		assertEquals( 2, reader.getLineNumber() );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testNoLayout() {
+		FixedWidthRecordReader reader = new TestFixedWidthRecordReader();
+		reader.setSource( new StringReader( TEXT ) );
+		reader.read();
+	}
+	
+	@Test
+	public void testLayoutFromProperties() {
+		Properties props = new Properties();
+		props.setProperty( "COLUMN_LAYOUT.1", "ID:0:4" );
+		props.setProperty( "COLUMN_LAYOUT.2", " NAME : 4 : 10 " );
+		
+		ColumnLayout layout = ColumnLayout.fromProperties( props );
+		assertEquals( 2, layout.getColumnCount() );
+		assertEquals( 1, layout.indexOf( "NAME" ) );
+		assertEquals( 4, layout.getOffset( 1 ) );
+		assertEquals( 10, layout.getLength( 1 ) );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testLayoutMalformed() {
+		Properties props = new Properties();
+		props.setProperty( "COLUMN_LAYOUT.1", "ID:0" );
+		ColumnLayout.fromProperties( props );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testLayoutUnknownColumn() {
+		layout().indexOf( "MISSING" );
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+public class LinePartitionerTestSuite {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	
+	private File file;
+	
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile( "partitions", ".txt" );
+	}
+	
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+	
+	private byte[] write( String text ) throws IOException {
+		byte[] bytes = text.getBytes( UTF8 );
+		FileOutputStream out = new FileOutputStream( file );
+		try {
+			out.write( bytes );
+		} finally {
+			out.close();
+		}
+		return bytes;
+	}
+	
+	private List<String> readAll( List<FilePartition> partitions ) {
+		List<String> lines = new ArrayList<String>();
+		for ( FilePartition partition : partitions ) {
+			PartitionedLineRecordReader reader = new PartitionedLineRecordReader( partition, UTF8 );
+			reader.open( null );
+			String line;
+			while ( (line = reader.read()) != null )
+				lines.add( line );
+			reader.close();
+		}
+		return lines;
+	}
+	
+	private static void assertContiguous( List<FilePartition> partitions, long size ) {
+		long start = 0;
+		for ( FilePartition partition : partitions ) {
+			assertEquals( start, partition.getStart() );
+			assertTrue( "Empty partition " + partition, partition.getLength() > 0 );
+			start = partition.getEnd();
+		}
+		assertEquals( size, start );
+	}
+	
+	@Test
+	public void testAlignedToLines() throws IOException {
+		List<String> expected = new ArrayList<String>();
+		StringBuilder sb = new StringBuilder();
+		for ( int i = 0; i < 1000; ++i ) {
+			String line = "record " + i + " caf\u00e9";
+			expected.add( line );
+			sb.append( line ).append( '\n' );
+		}
+		byte[] bytes = write( sb.toString() );
+		
+		for ( int count = 1; count <= 16; ++count ) {
+			List<FilePartition> partitions = LinePartitioner.partition( file, count );
+			assertEquals( count, partitions.size() );
+			assertContiguous( partitions, bytes.length );
+			
+			for ( FilePartition partition : partitions ) {
+				if ( partition.getStart() > 0 )
+					assertEquals( '\n', bytes[(int) partition.getStart() - 1] );
+			}
+			
+			assertEquals( expected, readAll( partitions ) );
+		}
+	}
+	
+	@Test
+	public void testCutOnNewline() throws IOException {
+		// 10 bytes cut in two at offset 5, which is the '\n' ending the first line: the
+		// second partition starts just after it
+		write( "abcde\nghi\n" );
+		List<FilePartition> partitions = LinePartitioner.partition( file, 2 );
+		assertEquals( 2, partitions.size() );
+		assertEquals( 6, partitions.get( 0 ).getEnd() );
+		assertEquals( 6, partitions.get( 1 ).getStart() );
+		
+		// Here the cut at 5 is the first byte of a line, and stays where it is
+		write( "abcd\nfghi\n" );
+		partitions = LinePartitioner.partition( file, 2 );
+		assertEquals( 5, partitions.get( 0 ).getEnd() );
+		assertEquals( 5, partitions.get( 1 ).getStart() );
+	}
+	
+	@Test
+	public void testLongLinesGiveFewerPartitions() throws IOException {
+		write( "a line longer than the rest of the file put together\nb\nc" );
+		List<FilePartition> partitions = LinePartitioner.partition( file, 8 );
+		assertTrue( partitions.size() < 8 );
+		assertContiguous( partitions, file.length() );
+		
+		List<String> lines = readAll( partitions );
+		assertEquals( 3, lines.size() );
+		assertEquals( "c", lines.get( 2 ) );
+	}
+	
+	@Test
+	public void testEmptyFile() throws IOException {
+		write( "" );
+		List<FilePartition> partitions = LinePartitioner.partition( file, 4 );
+		assertEquals( 1, partitions.size() );
+		assertEquals( 0, partitions.get( 0 ).getLength() );
+		assertEquals( new ArrayList<String>(), readAll( partitions ) );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testInvalidCount() throws IOException {
+		write( "a\n" );
+		LinePartitioner.partition( file, 0 );
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+public class LineScannerTestSuite {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final static Charset UTF16 = Charset.forName("UTF-16BE");
+	
+	private static LineScanner scanner( String text, Charset charset ) {
+		return LineScanner.forStream( stream( text, charset ), charset, 64 );
+	}
+	
+	private static InputStream stream( String text, Charset charset ) {
+		return new ByteArrayInputStream( text.getBytes( charset ) );
+	}
+	
+	private static String repeat( char c, int n ) {
+		StringBuilder sb = new StringBuilder( n );
+		for ( int i = 0; i < n; ++i )
+			sb.append( c );
+		return sb.toString();
+	}
+	
+	private static void assertLines( LineScanner scanner, String... expected ) {
+		for ( String line : expected )
+			assertEquals( line, scanner.nextLine() );
+		assertNull( scanner.next() );
+		assertNull( scanner.next() );
+	}
+	
+	@Test
+	public void testSelectsScanner() {
+		assertTrue( scanner( "", UTF8 ) instanceof StreamLineScanner );
+		assertTrue( scanner( "", Charset.forName("ISO-8859-1") ) instanceof StreamLineScanner );
+		assertTrue( scanner( "", UTF16 ) instanceof ReaderLineScanner );
+		
+		assertTrue( LineScanner.isAsciiCompatible( UTF8 ) );
+		assertFalse( LineScanner.isAsciiCompatible( UTF16 ) );
+	}
+	
+	@Test
+	public void testTerminators() {
+		assertLines( scanner( "a\nbb\r\nccc\n", UTF8 ), "a", "bb", "ccc" );
+		assertLines( scanner( "a\nbb\r\nccc\n", UTF16 ), "a", "bb", "ccc" );
+	}
+	
+	@Test
+	public void testFinalLineWithoutTerminator() {
+		assertLines( scanner( "a\nlast", UTF8 ), "a", "last" );
+		assertLines( scanner( "a\nlast", UTF16 ), "a", "last" );
+	}
+	
+	@Test
+	public void testEmptyLines() {
+		assertLines( scanner( "\n\r\nx\n\n", UTF8 ), "", "", "x", "" );
+		assertLines( scanner( "\n\r\nx\n\n", UTF16 ), "", "", "x", "" );
+		assertLines( scanner( "", UTF8 ) );
+		assertLines( scanner( "", UTF16 ) );
+	}
+	
+	@Test
+	public void testLinesLongerThanBuffer() {
+		String a = repeat( 'a', 1000 );
+		String b = repeat( 'b', 65 );
+		
+		assertLines( scanner( a + "\r\n" + b + "\nc", UTF8 ), a, b, "c" );
+		assertLines( scanner( a + "\r\n" + b + "\nc", UTF16 ), a, b, "c" );
+	}
+	
+	@Test
+	public void testNonAsciiLines() {
+		String text = "gr\u00FC\u00DFe\nna\u00EFve \u20AC\r\nplain\n";
+		assertLines( scanner( text, UTF8 ), "gr\u00FC\u00DFe", "na\u00EFve \u20AC", "plain" );
+		assertLines( scanner( text, UTF16 ), "gr\u00FC\u00DFe", "na\u00EFve \u20AC", "plain" );
+	}
+	
+	@Test
+	public void testStreamPositions() {
+		LineScanner scanner = scanner( "a\nbb\r\n\u00E9\nlast", UTF8 );
+		assertEquals( 0, scanner.getPosition() );
+		scanner.next();
+		assertEquals( 2, scanner.getPosition() );
+		scanner.next();
+		assertEquals( 6, scanner.getPosition() );
+		scanner.next();
+		assertEquals( 9, scanner.getPosition() );
+		scanner.next();
+		assertEquals( 13, scanner.getPosition() );
+	}
+	
+	@Test
+	public void testReaderPositionUnknown() {
+		LineScanner scanner = scanner( "a\nb\n", UTF16 );
+		scanner.next();
+		assertEquals( -1, scanner.getPosition() );
+	}
+	
+	@Test
+	public void testSeekByteOffset() {
+		LineScanner scanner = scanner( "a\nbb\r\nccc\n", UTF8 );
+		scanner.seek( new LineCheckpoint( 6, 2 ) );
+		assertEquals( 6, scanner.getPosition() );
+		assertLines( scanner, "ccc" );
+	}
+	
+	@Test
+	public void testSeekLineNumber() {
+		LineScanner scanner = scanner( "a\nbb\r\nccc\n", UTF8 );
+		scanner.seek( new LineCheckpoint( -1, 2 ) );
+		assertLines( scanner, "ccc" );
+		
+		scanner = scanner( "a\nbb\r\nccc\n", UTF16 );
+		scanner.seek( new LineCheckpoint( -1, 2 ) );
+		assertLines( scanner, "ccc" );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testSeekPastEnd() {
+		scanner( "a\n", UTF16 ).seek( new LineCheckpoint( -1, 3 ) );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testSeekAfterRead() {
+		LineScanner scanner = scanner( "a\nb\n", UTF8 );
+		scanner.next();
+		scanner.seek( new LineCheckpoint( 2, 1 ) );
+	}
+	
+	@Test
+	public void testIndexOfNewline() {
+		ByteBuffer buffer = ByteBuffer.allocate( 40 ).order( ByteOrder.LITTLE_ENDIAN );
+		assertEquals( -1, LineScanner.indexOfNewline( buffer, 0, 40 ) );
+		
+		// Every position, both inside a word and in the tail
+		for ( int i = 0; i < 40; ++i ) {
+			buffer.put( i, (byte) '\n' );
+			assertEquals( i, LineScanner.indexOfNewline( buffer, 0, 40 ) );
+			assertEquals( -1, LineScanner.indexOfNewline( buffer, 0, i ) );
+			assertEquals( -1, LineScanner.indexOfNewline( buffer, i + 1, 40 ) );
+			buffer.put( i, (byte) 0 );
+		}
+		
+		// Bytes adjacent to '\n' must not be mistaken for it
+		buffer.put( 3, (byte) 0x0B ).put( 4, (byte) 0x09 ).put( 5, (byte) 0x8A );
+		assertEquals( -1, LineScanner.indexOfNewline( buffer, 0, 40 ) );
+		buffer.put( 9, (byte) '\n' ).put( 10, (byte) '\n' );
+		assertEquals( 9, LineScanner.indexOfNewline( buffer, 0, 40 ) );
+		assertEquals( 10, LineScanner.indexOfNewline( buffer, 10, 40 ) );
+	}
+	
+	@Test
+	public void testIsAscii() {
+		ByteBuffer buffer = ByteBuffer.allocate( 20 ).order( ByteOrder.LITTLE_ENDIAN );
+		assertTrue( LineScanner.isAscii( buffer, 0, 20 ) );
+		
+		buffer.put( 17, (byte) 0x80 );
+		assertFalse( LineScanner.isAscii( buffer, 0, 20 ) );
+		assertTrue( LineScanner.isAscii( buffer, 0, 17 ) );
+		
+		buffer.put( 17, (byte) 0 ).put( 2, (byte) 0xFF );
+		assertFalse( LineScanner.isAscii( buffer, 0, 20 ) );
+		assertTrue( LineScanner.isAscii( buffer, 3, 20 ) );
+	}
+}
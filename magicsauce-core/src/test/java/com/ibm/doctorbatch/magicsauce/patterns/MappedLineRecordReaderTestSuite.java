@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedLineRecordReaderTestSuite {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final static int WINDOW_SIZE = 16;
+	
+	private File file;
+	private MappedLineRecordReader reader;
+	
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile( "mapped", ".txt" );
+	}
+	
+	@After
+	public void tearDown() {
+		if ( reader != null )
+			reader.close();
+		file.delete();
+	}
+	
+	private void write( String text ) throws IOException {
+		FileOutputStream out = new FileOutputStream( file );
+		try {
+			out.write( text.getBytes( UTF8 ) );
+		} finally {
+			out.close();
+		}
+	}
+	
+	private MappedLineRecordReader open( LineCheckpoint state ) {
+		if ( reader != null )
+			reader.close();
+		reader = new MappedLineRecordReader( file, UTF8 );
+		reader.setWindowSize( WINDOW_SIZE );
+		reader.open( state );
+		return reader;
+	}
+	
+	private static List<String> readAll( MappedLineRecordReader reader ) {
+		List<String> lines = new ArrayList<String>();
+		String line;
+		while ( (line = reader.read()) != null )
+			lines.add( line );
+		return lines;
+	}
+	
+	private static String text( List<String> lines ) {
+		StringBuilder sb = new StringBuilder();
+		for ( String line : lines )
+			sb.append( line ).append( '\n' );
+		return sb.toString();
+	}
+	
+	@Test
+	public void testLinesCrossingWindows() throws IOException {
+		// Line lengths chosen so newlines fall before, on and after each 16 byte boundary
+		List<String> expected = new ArrayList<String>();
+		for ( int i = 0; i < 40; ++i ) {
+			StringBuilder sb = new StringBuilder( "line" ).append( i );
+			for ( int j = 0; j < i % 7; ++j )
+				sb.append( (char) ('a' + j) );
+			expected.add( sb.toString() );
+		}
+		write( text( expected ) );
+		
+		assertEquals( expected, readAll( open( null ) ) );
+		assertEquals( 40, reader.getLineNumber() );
+		assertEquals( file.length(), reader.getPosition() );
+	}
+	
+	@Test
+	public void testLineLongerThanWindow() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for ( int i = 0; i < 5 * WINDOW_SIZE + 3; ++i )
+			sb.append( (char) ('a' + i % 26) );
+		String longLine = sb.toString();
+		write( "short\n" + longLine + "\nafter\n" + longLine );
+		
+		open( null );
+		assertEquals( "short", reader.read() );
+		assertEquals( longLine, reader.read() );
+		assertEquals( "after", reader.read() );
+		assertEquals( longLine, reader.read() );
+		assertNull( reader.read() );
+	}
+	
+	@Test
+	public void testCarriageReturnAcrossWindows() throws IOException {
+		// The \r of the first line is the last byte of the first window
+		write( "0123456789abcde\r\nnext\r\n" );
+		
+		open( null );
+		assertEquals( "0123456789abcde", reader.read() );
+		assertEquals( "next", reader.read() );
+		assertNull( reader.read() );
+	}
+	
+	@Test
+	public void testNonAsciiAcrossWindows() throws IOException {
+		// The two byte e-acute straddles the first window boundary
+		write( "abcdefghijklmno\u00e9z\nb\u00e9\n" );
+		
+		open( null );
+		assertEquals( "abcdefghijklmno\u00e9z", reader.read() );
+		assertEquals( "b\u00e9", reader.read() );
+		assertNull( reader.read() );
+	}
+	
+	@Test
+	public void testRestartRemaps() throws IOException {
+		List<String> expected = new ArrayList<String>();
+		for ( int i = 0; i < 30; ++i )
+			expected.add( "record number " + i );
+		write( text( expected ) );
+		
+		open( null );
+		for ( int i = 0; i < 17; ++i )
+			reader.read();
+		LineCheckpoint state = (LineCheckpoint) reader.getState();
+		assertEquals( 17, state.getLineNumber() );
+		
+		open( state );
+		assertEquals( expected.subList( 17, 30 ), readAll( reader ) );
+		assertEquals( 30, reader.getLineNumber() );
+		
+		open( new LineCheckpoint( file.length(), 30 ) );
+		assertNull( reader.read() );
+	}
+	
+	@Test
+	public void testEmptyFile() throws IOException {
+		write( "" );
+		assertNull( open( null ).read() );
+		assertEquals( 0, reader.getLineNumber() );
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PartitionedLineRecordReaderTestSuite {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	
+	private File file;
+	
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile( "partitioned", ".txt" );
+	}
+	
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+	
+	private void write( String text ) throws IOException {
+		FileOutputStream out = new FileOutputStream( file );
+		try {
+			out.write( text.getBytes( UTF8 ) );
+		} finally {
+			out.close();
+		}
+	}
+	
+	private List<String> read( long start, long end ) {
+		PartitionedLineRecordReader reader = new PartitionedLineRecordReader( new FilePartition( file, start, end ), UTF8 );
+		reader.setBufferSize( 4 );
+		reader.open( null );
+		try {
+			List<String> lines = new ArrayList<String>();
+			String line;
+			while ( (line = reader.read()) != null )
+				lines.add( line );
+			assertEquals( lines.size(), reader.getLineNumber() );
+			return lines;
+		} finally {
+			reader.close();
+		}
+	}
+	
+	@Test
+	public void testBoundaryMidLine() throws IOException {
+		write( "alpha\nbravo\ncharlie\n" );
+		
+		// The cut at 8 falls inside "bravo", which starts in the first partition
+		assertEquals( Arrays.asList( "alpha", "bravo" ), read( 0, 8 ) );
+		assertEquals( Arrays.asList( "charlie" ), read( 8, 20 ) );
+	}
+	
+	@Test
+	public void testBoundaryOnNewline() throws IOException {
+		write( "alpha\nbravo\ncharlie\n" );
+		
+		// Offset 5 is the '\n' ending "alpha"; "bravo" starts at 6, after the cut
+		assertEquals( Arrays.asList( "alpha" ), read( 0, 5 ) );
+		assertEquals( Arrays.asList( "bravo", "charlie" ), read( 5, 20 ) );
+		
+		// Offset 6 is the first byte of "bravo": the preceding '\n' means nothing is skipped
+		assertEquals( Arrays.asList( "alpha" ), read( 0, 6 ) );
+		assertEquals( Arrays.asList( "bravo", "charlie" ), read( 6, 20 ) );
+	}
+	
+	@Test
+	public void testPartitionWithinOneLine() throws IOException {
+		write( "a very long line\nnext\n" );
+		assertEquals( new ArrayList<String>(), read( 3, 10 ) );
+	}
+	
+	@Test
+	public void testEveryLineReadOnce() throws IOException {
+		String text = "one\n\ntwo\r\nthree\nfour four\n\n\nfive";
+		List<String> expected = Arrays.asList( "one", "", "two", "three", "four four", "", "", "five" );
+		write( text );
+		int size = (int) file.length();
+		
+		// Every way of cutting the file in three, aligned or not
+		for ( int a = 0; a <= size; ++a ) {
+			for ( int b = a; b <= size; ++b ) {
+				List<String> lines = new ArrayList<String>();
+				lines.addAll( read( 0, a ) );
+				lines.addAll( read( a, b ) );
+				lines.addAll( read( b, size ) );
+				assertEquals( "Cut at " + a + " and " + b, expected, lines );
+			}
+		}
+	}
+	
+	@Test
+	public void testRestart() throws IOException {
+		write( "alpha\nbravo\ncharlie\ndelta\necho\n" );
+		FilePartition partition = new FilePartition( file, 3, 26 );
+		
+		PartitionedLineRecordReader reader = new PartitionedLineRecordReader( partition, UTF8 );
+		reader.open( null );
+		assertEquals( "bravo", reader.read() );
+		LineCheckpoint state = (LineCheckpoint) reader.getState();
+		assertEquals( 12, state.getByteOffset() );
+		assertEquals( 1, state.getLineNumber() );
+		reader.close();
+		
+		reader = new PartitionedLineRecordReader( partition, UTF8 );
+		reader.open( state );
+		assertEquals( "charlie", reader.read() );
+		assertEquals( "delta", reader.read() );
+		assertNull( reader.read() );
+		assertEquals( 3, reader.getLineNumber() );
+		reader.close();
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.ReaderUtil;
+
+public class RegexPatternRecordReaderTestSuite {
+	
+	/*
+	 * Reads from the source set by the test; open, close and getState have nothing to do.
+	 */
+	private static class TestRegexPatternRecordReader extends RegexPatternRecordReader {
+		@Override
+		public void open( Serializable args ) {
+		}
+		
+		@Override
+		public void close() {
+		}
+		
+		@Override
+		public Serializable getState() {
+			return null;
+		}
+	}
+	
+	private static RegexPatternRecordReader reader( String text, String pattern ) {
+		RegexPatternRecordReader reader = new TestRegexPatternRecordReader();
+		reader.setPattern( pattern );
+		reader.setSource( new BufferedReader( new StringReader( text ) ) );
+		return reader;
+	}
+	
+	@Test
+	public void testLiteralDelimiter() {
+		RegexPatternRecordReader reader = reader( "one$$END$$two$$END$$$$END$$three$$END$$", "\\Q$$END$$\\E" );
+		
+		assertEquals( "one", reader.read() );
+		assertEquals( "two", reader.read() );
+		assertEquals( "", reader.read() );
+		assertEquals( "three", reader.readCharSequence().toString() );
+		assertNull( reader.read() );
+	}
+	
+	@Test
+	public void testRegexDelimiter() {
+		RegexPatternRecordReader reader = reader( "one\r\ntwo\nthree;four", "\\r?\\n|;" );
+		List<String> records = new ArrayList<String>();
+		
+		assertEquals( 4, ReaderUtil.read( reader, 10, records ) );
+		assertEquals( "one", records.get( 0 ) );
+		assertEquals( "two", records.get( 1 ) );
+		assertEquals( "three", records.get( 2 ) );
+		assertEquals( "four", records.get( 3 ) );
+		assertEquals( 0, ReaderUtil.read( reader, 10, records ) );
+	}
+	
+	@Test
+	public void testChangePattern() {
+		RegexPatternRecordReader reader = reader( "a,b|c|d", "," );
+		
+		assertEquals( "a", reader.read() );
+		reader.setPattern( "\\|" );
+		assertEquals( ",b", reader.read() );
+		assertEquals( "c", reader.read() );
+		assertEquals( "d", reader.read() );
+		assertNull( reader.read() );
+	}
+	
+	@Test
+	public void testMaxDelimiterSize() {
+		StringBuilder text = new StringBuilder();
+		for ( int i = 0; i < 3; ++i ) {
+			for ( int j = 0; j < 100000; ++j )
+				text.append( 'x' );
+			text.append( "\n\n\n" );
+		}
+		
+		RegexPatternRecordReader reader = reader( text.toString(), "\\n+" );
+		reader.setMaxDelimiterSize( 8 );
+		assertEquals( 8, reader.getMaxDelimiterSize() );
+		
+		for ( int i = 0; i < 3; ++i )
+			assertEquals( 100000, reader.read().length() );
+		assertNull( reader.read() );
+	}
+	
+	@Test(expected = BatchException.class)
+	public void testMaxRecordSize() {
+		StringBuilder text = new StringBuilder( "short," );
+		for ( int i = 0; i < 2 * LineScanner.DEFAULT_BUFFER_SIZE; ++i )
+			text.append( 'x' );
+		
+		RegexPatternRecordReader reader = reader( text.toString(), "," );
+		reader.setMaxRecordSize( 1000 );
+		
+		assertEquals( "short", reader.read() );
+		reader.read();
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SingleLineRecordReaderTestSuite {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	
+	/*
+	 * Reads from the source set by the test, and counts the line number updates.
+	 */
+	private static class TestSingleLineRecordReader extends SingleLineRecordReader {
+		int updates;
+		
+		@Override
+		public void open( Serializable args ) {
+		}
+		
+		@Override
+		public void close() {
+		}
+		
+		@Override
+		public void setLongLineNumber( long lineNumber ) {
+			++updates;
+			super.setLongLineNumber( lineNumber );
+		}
+	}
+	
+	private static TestSingleLineRecordReader reader( String text ) {
+		TestSingleLineRecordReader reader = new TestSingleLineRecordReader();
+		reader.setSource( new ByteArrayInputStream( text.getBytes( UTF8 ) ), UTF8 );
+		return reader;
+	}
+	
+	@Test
+	public void testBulkReadUpdatesLineNumber() {
+		TestSingleLineRecordReader reader = reader( "a\nb\r\nc\nd\ne" );
+		List<String> lines = new ArrayList<String>();
+		
+		assertEquals( "a", reader.read() );
+		assertEquals( 1, reader.getLineNumber() );
+		assertEquals( 1, reader.updates );
+		
+		assertEquals( 3, reader.read( 3, lines ) );
+		assertEquals( "b", lines.get( 0 ) );
+		assertEquals( "d", lines.get( 2 ) );
+		assertEquals( 4, reader.getLineNumber() );
+		assertEquals( "Expected one update per bulk read", 2, reader.updates );
+		
+		assertEquals( 1, reader.read( 3, lines ) );
+		assertEquals( 0, reader.read( 3, lines ) );
+		assertEquals( 5, reader.getLineNumber() );
+		assertEquals( 5, ((LineCheckpoint) reader.getState()).getLineNumber() );
+	}
+	
+	@Test
+	public void testLineNumberAccessors() {
+		TestSingleLineRecordReader reader = reader( "a\nb\nc\n" );
+		long large = Integer.MAX_VALUE + 10L;
+		
+		reader.seek( new LineCheckpoint( 0, large ) );
+		assertEquals( "a", reader.read() );
+		assertEquals( large + 1, reader.getLongLineNumber() );
+		assertEquals( (int) (large + 1), reader.getLineNumber() );
+		
+		reader.setLineNumber( 7 );
+		assertEquals( 7, reader.getLongLineNumber() );
+		assertEquals( "b", reader.read() );
+		assertEquals( 8, reader.getLineNumber() );
+		assertEquals( 8, ((LineCheckpoint) reader.getState()).getLineNumber() );
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.patterns;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+
+public class SingleLineRecordWriterTestSuite {
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	
+	private static class TestSingleLineRecordWriter extends SingleLineRecordWriter {
+		@Override
+		public void open( Serializable args ) {
+		}
+		
+		@Override
+		public void close() {
+		}
+	}
+	
+	private File file;
+	private RandomAccessFile raf;
+	
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile( "lines", ".txt" );
+	}
+	
+	@After
+	public void tearDown() throws IOException {
+		if ( raf != null )
+			raf.close();
+		file.delete();
+		BlockIndex.indexFileFor( file ).delete();
+	}
+	
+	private TestSingleLineRecordWriter channelWriter() throws IOException {
+		if ( raf != null )
+			raf.close();
+		raf = new RandomAccessFile( file, "rw" );
+		TestSingleLineRecordWriter writer = new TestSingleLineRecordWriter();
+		writer.setChannel( raf.getChannel(), UTF8 );
+		return writer;
+	}
+	
+	private static String read( InputStream in ) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int n;
+			while ( (n = in.read( buffer )) > 0 )
+				out.write( buffer, 0, n );
+			return new String( out.toByteArray(), UTF8 );
+		} finally {
+			in.close();
+		}
+	}
+	
+	@Test
+	public void testBufferedWriterState() {
+		StringWriter out = new StringWriter();
+		TestSingleLineRecordWriter writer = new TestSingleLineRecordWriter();
+		writer.setWriter( new BufferedWriter( out ) );
+		
+		writer.write( "a" );
+		writer.write( Arrays.asList( "b", "c" ) );
+		
+		LineCheckpoint state = (LineCheckpoint) writer.getState();
+		assertEquals( -1, state.getByteOffset() );
+		assertEquals( 3, state.getLineNumber() );
+		assertEquals( "a\nb\nc\n", out.toString() );
+	}
+	
+	@Test
+	public void testBufferedWriterRestoresLineNumber() {
+		TestSingleLineRecordWriter writer = new TestSingleLineRecordWriter();
+		writer.setWriter( new BufferedWriter( new StringWriter() ) );
+		
+		writer.truncate( new LineCheckpoint( -1, 7 ) );
+		assertEquals( 7, writer.getLineNumber() );
+		writer.write( "a" );
+		assertEquals( 8, ((LineCheckpoint) writer.getState()).getLineNumber() );
+	}
+	
+	@Test
+	public void testWriteNull() throws IOException {
+		StringWriter out = new StringWriter();
+		TestSingleLineRecordWriter writer = new TestSingleLineRecordWriter();
+		writer.setWriter( new BufferedWriter( out ) );
+		writer.write( (String) null );
+		writer.flush();
+		assertEquals( "null\n", out.toString() );
+		
+		TestSingleLineRecordWriter channel = channelWriter();
+		channel.write( (String) null );
+		channel.flush();
+		assertEquals( "null\n", read( new FileInputStream( file ) ) );
+	}
+	
+	@Test
+	public void testChannelRestart() throws IOException {
+		TestSingleLineRecordWriter writer = channelWriter();
+		writer.write( Arrays.asList( "first", "second" ) );
+		LineCheckpoint state = (LineCheckpoint) writer.getState();
+		assertEquals( 13, state.getByteOffset() );
+		assertEquals( 2, state.getLineNumber() );
+		
+		writer.write( "lost" );
+		writer.flush();
+		
+		writer = channelWriter();
+		writer.truncate( state );
+		assertEquals( 2, writer.getLineNumber() );
+		assertEquals( 13, file.length() );
+		
+		writer.write( "third" );
+		state = (LineCheckpoint) writer.getState();
+		assertEquals( 19, state.getByteOffset() );
+		assertEquals( 3, state.getLineNumber() );
+		assertEquals( "first\nsecond\nthird\n", read( new FileInputStream( file ) ) );
+	}
+	
+	@Test
+	public void testCompressedRestart() throws IOException {
+		BlockCompressedOutputStream out = new BlockCompressedOutputStream( file, null, 1024 );
+		TestSingleLineRecordWriter writer = new TestSingleLineRecordWriter();
+		writer.setCompressedTarget( out, UTF8 );
+		writer.write( Arrays.asList( "first", "second" ) );
+		LineCheckpoint state = (LineCheckpoint) writer.getState();
+		assertEquals( out.getCompressedOffset(), state.getByteOffset() );
+		assertEquals( 2, state.getLineNumber() );
+		writer.write( "lost" );
+		writer.flush();
+		out.close();
+		
+		out = new BlockCompressedOutputStream( file, null, 1024 );
+		writer = new TestSingleLineRecordWriter();
+		writer.setCompressedTarget( out, UTF8 );
+		writer.truncate( state );
+		assertEquals( 2, writer.getLineNumber() );
+		writer.write( "third" );
+		writer.flush();
+		out.close();
+		
+		assertEquals( "first\nsecond\nthird\n", read( new GZIPInputStream( new FileInputStream( file ) ) ) );
+	}
+	
+	@Test
+	public void testLongLineNumber() {
+		TestSingleLineRecordWriter writer = new TestSingleLineRecordWriter();
+		writer.setWriter( new BufferedWriter( new StringWriter() ) );
+		
+		long large = Integer.MAX_VALUE + 10L;
+		writer.truncate( new LineCheckpoint( -1, large ) );
+		writer.write( "a" );
+		assertEquals( large + 1, writer.getLongLineNumber() );
+		assertEquals( large + 1, ((LineCheckpoint) writer.getState()).getLineNumber() );
+	}
+	
+	@Test
+	public void testNullStateTruncatesNothing() throws IOException {
+		TestSingleLineRecordWriter writer = channelWriter();
+		writer.write( "kept" );
+		writer.flush();
+		
+		writer = channelWriter();
+		writer.truncate( null );
+		assertEquals( 5, file.length() );
+		assertEquals( 0, writer.getLineNumber() );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testUnsupportedState() throws IOException {
+		channelWriter().truncate( Long.valueOf( 0L ) );
+	}
+	
+	@Test(expected=BatchException.class)
+	public void testTruncateBufferedWriterAtOffset() {
+		TestSingleLineRecordWriter writer = new TestSingleLineRecordWriter();
+		writer.setWriter( new BufferedWriter( new StringWriter() ) );
+		writer.truncate( new LineCheckpoint( 0, 0 ) );
+	}
+}
@@ -17,6 +17,7 @@
 package com.ibm.doctorbatch.magicsauce.javabatch.mvs;
 
 import static com.ibm.doctorbatch.magicsauce.Constants.RECORD_PARSER_CLASSNAME;
+import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DATASET_BACKEND;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DD_ALLOC;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DD_ALLOC_RESTART;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DD_FREE;
@@ -25,6 +26,7 @@ import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DSPATH;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DS_PARAMS;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DS_PARAMS_RESTART;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.LARGE_DATASET_SUPPORT;
+import static com.ibm.doctorbatch.magicsauce.mvs.Constants.LOCAL_DATASET_DIR;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.MVS_RECORDBYTES_CLASSNAME;
 
 import java.io.Serializable;
@@ -51,6 +53,8 @@ public class AbstractMVSBatchArtifact<T extends RecordBytes> {
 	@Inject @BatchProperty(name=DS_PARAMS) private String datasetParameters;
 	@Inject @BatchProperty(name=DS_PARAMS_RESTART) private String datasetRestartParameters;
 	@Inject @BatchProperty(name=LARGE_DATASET_SUPPORT) private String largeDatasetSupport;
+	@Inject @BatchProperty(name=DATASET_BACKEND) private String datasetBackend;
+	@Inject @BatchProperty(name=LOCAL_DATASET_DIR) private String localDatasetDir;
 
 	@SuppressWarnings("unused")
 	@Inject private StepContext stepContext;
@@ -71,6 +75,8 @@ public class AbstractMVSBatchArtifact<T extends RecordBytes> {
 		if ( datasetParameters != null ) props.put(DS_PARAMS, datasetParameters);
 		if ( datasetRestartParameters != null ) props.put(DS_PARAMS_RESTART, datasetRestartParameters);
 		if ( largeDatasetSupport != null ) props.put(LARGE_DATASET_SUPPORT, largeDatasetSupport);
+		if ( datasetBackend != null ) props.put(DATASET_BACKEND, datasetBackend);
+		if ( localDatasetDir != null ) props.put(LOCAL_DATASET_DIR, localDatasetDir);
 
 		return initializeMVSDataSetManager(props);
 	}
@@ -16,6 +16,8 @@
 
 package com.ibm.doctorbatch.magicsauce.javabatch.mvs;
 
+import static com.ibm.doctorbatch.magicsauce.Constants.READ_AHEAD_SIZE;
+
 import java.io.Serializable;
 
 import javax.batch.api.BatchProperty;
@@ -23,6 +25,8 @@ import javax.batch.api.chunk.ItemReader;
 import javax.inject.Inject;
 
 import com.ibm.doctorbatch.magicsauce.ClassUtil;
+import com.ibm.doctorbatch.magicsauce.Reader;
+import com.ibm.doctorbatch.magicsauce.concurrent.ReadAheadReader;
 import com.ibm.doctorbatch.magicsauce.mvs.MVSDataSetManager;
 import com.ibm.doctorbatch.magicsauce.mvs.MVSRecordReader;
 import com.ibm.etools.marshall.RecordBytes;
@@ -41,6 +45,7 @@ import com.ibm.etools.marshall.RecordBytes;
  *  <li>DD_ALLOC_RESTART: The TSO 'alloc' command used to allocate the dynamic DD card referencing DSNAME within the batch job's address space, when restarting this job after a failure.</li>
  *  <li>DD_FREE: The TSO 'free' command used to free the dynamic DD card referencing DSNAME within the batch job's address space.</li>
  *  <li>RECORD_PARSER_CLASSNAME: The fully qualified name of the class implementing com.ibm.websphere.batch.framework.mvs.RecordParser, used to translate records to java bean instances, and vice-versa.</li>
+ *  <li>READ_AHEAD_SIZE: Optional. When set, up to this many records are read from the data set on a background thread while the chunk is processed (see {@link ReadAheadReader}). The checkpoint is the data set position following the last record returned by readItem(), not the last record read ahead.</li>
  * </ol></p>
  *
  * <p>Example inclusion in JSL:</p>
@@ -68,13 +73,20 @@ import com.ibm.etools.marshall.RecordBytes;
  * @param <T>
  */
 public class MVSRecordItemReader<T extends RecordBytes> extends AbstractMVSBatchArtifact<T> implements ItemReader {
-	private MVSRecordReader<T> magicSauceReader;
+	@Inject @BatchProperty(name=READ_AHEAD_SIZE) private String readAheadSize;
+	
+	private Reader<T> magicSauceReader;
 	
 		
 	@Override
 	public void open(Serializable state)  {
-		magicSauceReader = new MVSRecordReader<T>();
-		magicSauceReader.setDataSetManager((MVSDataSetManager<T>) initializeMVSDataSetManager());
+		MVSRecordReader<T> mvsRecordReader = new MVSRecordReader<T>();
+		mvsRecordReader.setDataSetManager((MVSDataSetManager<T>) initializeMVSDataSetManager());
+		
+		if ( readAheadSize != null && Integer.parseInt(readAheadSize) > 0 )
+			magicSauceReader = new ReadAheadReader<T>( mvsRecordReader, Integer.parseInt(readAheadSize) );
+		else
+			magicSauceReader = mvsRecordReader;
 		
 		magicSauceReader.open( state );
 	}
@@ -84,6 +96,14 @@ public class MVSRecordItemReader<T extends RecordBytes> extends AbstractMVSBatch
 		return magicSauceReader.read();
 	}
 
+	/**
+	 * Returns the data set position following the last record returned by readItem().
+	 */
+	@Override
+	public Serializable checkpointInfo() throws Exception {
+		return magicSauceReader.getState();
+	}
+
 	@Override
 	public void close() throws Exception {
 		magicSauceReader.close();
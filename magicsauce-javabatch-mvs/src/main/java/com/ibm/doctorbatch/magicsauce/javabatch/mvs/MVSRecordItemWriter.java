@@ -16,9 +16,9 @@
 
 package com.ibm.doctorbatch.magicsauce.javabatch.mvs;
 
+import static com.ibm.doctorbatch.magicsauce.Constants.WRITE_BEHIND_SIZE;
+
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import javax.batch.api.BatchProperty;
@@ -26,28 +26,55 @@ import javax.batch.api.chunk.ItemWriter;
 import javax.inject.Inject;
 
 import com.ibm.doctorbatch.magicsauce.ClassUtil;
+import com.ibm.doctorbatch.magicsauce.EmittedRecords;
+import com.ibm.doctorbatch.magicsauce.Writer;
+import com.ibm.doctorbatch.magicsauce.concurrent.WriteBehindWriter;
 import com.ibm.doctorbatch.magicsauce.mvs.MVSDataSetManager;
 import com.ibm.doctorbatch.magicsauce.mvs.MVSRecordWriter;
 import com.ibm.etools.marshall.RecordBytes;
 
 /**
-
+ * <p>This ItemWriter writes records to an MVS data set. It takes the same data set properties
+ * as {@link MVSRecordItemReader}.</p>
+ * 
+ * <p>When the WRITE_BEHIND_SIZE property is set, records are written to the data set in 
+ * batches of that size by a dedicated I/O thread (see {@link WriteBehindWriter}), while the
+ * next chunk is read and processed. checkpointInfo() waits for every record written so far
+ * to reach the data set before returning its position.</p>
+ * 
+ * <p>Items which are EmittedRecords lists, returned by DBMSProcessor for processors which
+ * emit several records per item, are written as their individual records.</p>
+ * 
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
  * @param <T>
  */
 public class MVSRecordItemWriter<T extends RecordBytes> extends AbstractMVSBatchArtifact<T> implements ItemWriter {
-	private MVSRecordWriter<T> magicSauceWriter;
-		
-	private List<? extends T> itemList = new ArrayList<T>();
+	@Inject @BatchProperty(name=WRITE_BEHIND_SIZE) private String writeBehindSize;
+	
+	private Writer<T> magicSauceWriter;
 		
 	@Override
 	public void open(Serializable state)  {
-		magicSauceWriter = new MVSRecordWriter<T>();
-		magicSauceWriter.setDataSetManager((MVSDataSetManager<T>) initializeMVSDataSetManager());
+		MVSRecordWriter<T> mvsRecordWriter = new MVSRecordWriter<T>();
+		mvsRecordWriter.setDataSetManager((MVSDataSetManager<T>) initializeMVSDataSetManager());
+		
+		if ( writeBehindSize != null && Integer.parseInt(writeBehindSize) > 0 )
+			magicSauceWriter = new WriteBehindWriter<T>( mvsRecordWriter, Integer.parseInt(writeBehindSize) );
+		else
+			magicSauceWriter = mvsRecordWriter;
 		
 		magicSauceWriter.open( state );
 	}
 	
+	/**
+	 * Returns the data set position following the last record written. With write-behind,
+	 * waits until every record has been written to the data set.
+	 */
+	@Override
+	public Serializable checkpointInfo() throws Exception {
+		return magicSauceWriter.getState();
+	}
+	
 	@Override
 	public void close() throws Exception {
 		magicSauceWriter.close();
@@ -55,9 +82,6 @@ public class MVSRecordItemWriter<T extends RecordBytes> extends AbstractMVSBatch
 
 	@Override
 	public void writeItems(List<Object> records) throws Exception {
-		itemList.clear();
-		Collections.copy(records, itemList);
-		
-		magicSauceWriter.write( itemList );
+		magicSauceWriter.write( EmittedRecords.<T>flatten( records ) );
 	}
 }
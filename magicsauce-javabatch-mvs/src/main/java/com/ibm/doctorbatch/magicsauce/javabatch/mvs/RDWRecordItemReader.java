@@ -17,11 +17,15 @@
 package com.ibm.doctorbatch.magicsauce.javabatch.mvs;
 
 import static com.ibm.doctorbatch.magicsauce.Constants.RECORD_PARSER_CLASSNAME;
+import static com.ibm.doctorbatch.magicsauce.mvs.Constants.BULK_READ_SIZE;
 
 import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 import javax.batch.api.BatchProperty;
@@ -34,15 +38,30 @@ import com.ibm.doctorbatch.magicsauce.mvs.RecordBytesParser;
 import com.ibm.etools.marshall.RecordBytes;
 import com.ibm.jzos.RDWInputRecordStream;
 
+/**
+ * <p>This ItemReader reads records from MVS datasets which have been FTP'd in "RDW" mode.
+ * Records are read from the file BULK_READ_SIZE at a time (10 by default), each into its
+ * own RecordBytes instance, and handed out one per call to readItem(). The checkpoint is 
+ * the number of records handed out, so records read ahead are never lost on restart.
+ * When the record class implements SlicedRecordBytes, the records read together share one
+ * block buffer.</p>
+ * 
+ * @param <T> The record type read by this reader
+ */
 public class RDWRecordItemReader<T extends RecordBytes> implements ItemReader {
 	private int currentRecordInd = 0;
 	private RecordBytesParser<T> recordParser;
 	private RDWInputRecordStream rdwInputStream;
+	private int bulkReadSize;
+	private final List<T> prefetched = new ArrayList<T>();
+	private int next;
+	private byte[] buffer;
 	
 	@Inject @BatchProperty(name="FILE_NAME") private String fileName;
 	@Inject @BatchProperty(name="RECORD_LENGTH") private String recordLength;
 	@Inject @BatchProperty(name=RECORD_PARSER_CLASSNAME) private String recordParserClassName;
 	@Inject @BatchProperty(name="MVS_RECORDBYTES_CLASSNAME") private String recordBytesClassName;
+	@Inject @BatchProperty(name=BULK_READ_SIZE) private String bulkReadSizeProperty;
 
 	
 	@Override
@@ -87,6 +106,10 @@ public class RDWRecordItemReader<T extends RecordBytes> implements ItemReader {
 		recordParser = ClassUtil.getInstanceForClass(recordParserClassName);
 		recordParser.initialize(props);
 		
+		bulkReadSize = ( bulkReadSizeProperty == null ) ? 10 : Math.max( 1, Integer.parseInt(bulkReadSizeProperty) );
+		prefetched.clear();
+		next = 0;
+		
 		try {
 			BufferedInputStream bufferedInStream = new BufferedInputStream(new FileInputStream(fileName));
 			this.rdwInputStream = new RDWInputRecordStream( bufferedInStream );
@@ -107,7 +130,16 @@ public class RDWRecordItemReader<T extends RecordBytes> implements ItemReader {
 		T currentRecord = null;
 		
 		try {
-			currentRecord = fetchRecord(rdwInputStream, recordParser);
+			if ( next == prefetched.size() ) {
+				prefetched.clear();
+				next = 0;
+				fetchRecords(rdwInputStream, recordParser, bulkReadSize, prefetched);
+			}
+			
+			if ( next < prefetched.size() ) {
+				currentRecord = prefetched.get(next);
+				prefetched.set(next++, null);
+			}
     	} finally {
 	    	currentRecordInd++;
     	}
@@ -115,21 +147,77 @@ public class RDWRecordItemReader<T extends RecordBytes> implements ItemReader {
     	return currentRecord;
 	}
 
+	/**
+	 * Reads up to max records into the given list, each into its own RecordBytes instance.
+	 * 
+	 * @return The number of records read; fewer than max only at the end of the file
+	 */
+	protected int fetchRecords( RDWInputRecordStream input, RecordBytesParser<T> recordParser, int max, List<T> into ) {
+		int count = 0;
+		int lrecl = Integer.parseInt(this.recordLength);
+		
+		try {
+			if ( recordParser.isSliced() ) {
+				byte[] block = null;
+				int offset = 0;
+				while ( count < max ) {
+					if ( block == null || offset == block.length ) {
+						block = new byte[ Math.min(max - count, RecordBytesParser.SLICE_BLOCK_RECORDS) * lrecl ];
+						offset = 0;
+					}
+					
+					if ( input.read( block, offset, lrecl ) == -1 )
+						break;
+					
+					into.add( recordParser.parseRecordToNewObject(block, offset, lrecl) );
+					offset += lrecl;
+					++count;
+				}
+				
+				return count;
+			}
+			
+			while ( count < max ) {
+				byte[] recordBytes = new byte[ lrecl ];
+				if ( input.read( recordBytes ) == -1 )
+					break;
+				
+				into.add( recordParser.parseRecordToNewObject(recordBytes) );
+				++count;
+			}
+		} catch (IOException e) {
+			throw new BatchException("Unexpected error while reading record", e);
+		}
+		
+		return count;
+	}
+
 
 	protected T fetchRecord( RDWInputRecordStream input, RecordBytesParser<T> recordParser ) {
-    	byte[] recordBytes = null;
-    	
+		byte[] recordBytes;
     	try {
-    		recordBytes = new byte[ Integer.parseInt(this.recordLength) ];
+    		// Only sliced records may share the read buffer
+    		int lrecl = Integer.parseInt(this.recordLength);
+    		if ( !recordParser.isSliced() )
+    			recordBytes = new byte[ lrecl ];
+    		else if ( buffer != null && buffer.length == lrecl )
+    			recordBytes = buffer;
+    		else
+    			recordBytes = buffer = new byte[ lrecl ];
     		
     		int nread = input.read( recordBytes );
 			if ( nread == -1 )
 				return null;
+			if ( nread < lrecl )
+				Arrays.fill( recordBytes, Math.max(nread, 0), lrecl, (byte) 0 );
 		} catch (IOException e) {
 			throw new BatchException("Unexpected error while reading record", e);
 		} 
 
-		T record = recordParser.parseRecordToObject(recordBytes);
+		if ( !recordParser.isSliced() )
+			return recordParser.parseRecordToObject(recordBytes);
+		
+		T record = recordParser.parseRecordToObject(recordBytes, 0, recordBytes.length);
     	return record;
 	}
 }
@@ -31,6 +31,7 @@ import javax.inject.Inject;
 
 import com.ibm.doctorbatch.magicsauce.BatchException;
 import com.ibm.doctorbatch.magicsauce.ClassUtil;
+import com.ibm.doctorbatch.magicsauce.EmittedRecords;
 import com.ibm.doctorbatch.magicsauce.mvs.RecordBytesParser;
 import com.ibm.etools.marshall.RecordBytes;
 import com.ibm.jzos.RDWOutputRecordStream;
@@ -111,11 +112,13 @@ public class RDWRecordItemWriter<T extends RecordBytes> implements ItemWriter {
     	currentRecordInd++;
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Writes the items, expanding EmittedRecords lists into their individual records.
+	 */
 	@Override
 	public void writeItems(List<Object> items) throws Exception {
-		for ( Object t : items )
-			write((T)t);
+		for ( T t : EmittedRecords.<T>flatten( items ) )
+			write( t );
 	}
 	
 	protected void writeRecord( RecordBytesParser<T> recordProcessor, T record, RDWOutputRecordStream bos ) {
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.javabatch.etl;
+
+import static com.ibm.doctorbatch.magicsauce.Constants.RECORD_PROCESSOR;
+
+import java.io.Serializable;
+import java.util.List;
+
+import javax.batch.api.BatchProperty;
+import javax.batch.api.chunk.ItemWriter;
+import javax.batch.runtime.context.StepContext;
+import javax.inject.Inject;
+
+import com.ibm.doctorbatch.magicsauce.EmittedRecords;
+import com.ibm.doctorbatch.magicsauce.EmittingRecordProcessor;
+import com.ibm.doctorbatch.magicsauce.MagicSauceLogger;
+import com.ibm.doctorbatch.magicsauce.PartialBatchException;
+import com.ibm.doctorbatch.magicsauce.RecordProcessor;
+import com.ibm.doctorbatch.magicsauce.RecordProcessorUtil;
+
+/**
+ * <p>BatchProcessorItemWriter processes each chunk with a single call to the processBatch
+ * method of a BatchRecordProcessor, specified by the RECORD_PROCESSOR step property, and
+ * then writes the processed records. A JSR-352 ItemProcessor is called once per item, so
+ * a chunk can only be processed as a whole in the writer; use this class in place of 
+ * {@link DBMSProcessor}, with no processor in the chunk, to let record processors batch 
+ * their lookups and rule calls across the chunk. Record processors which are not 
+ * BatchRecordProcessors are called once per item. When RECORD_PROCESSOR is not set, the
+ * processors named by RECORD_PROCESSOR.1 to RECORD_PROCESSOR.N are run as a 
+ * RecordProcessorChain. Items processed to null are filtered, and not written. 
+ * EmittingRecordProcessors are called once per item, and every record they emit is 
+ * written.</p>
+ * 
+ * <p>When a record fails, its own exception is rethrown, rather than the 
+ * PartialBatchException from processBatch, so the skippable and retryable exception 
+ * classes configured for the step apply to it as they do to an ItemProcessor.</p>
+ * 
+ * <p>Subclasses write the processed records in writeProcessedItems, and may override
+ * open, close and checkpointInfo, calling the superclass methods.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ *
+ * @param <R> The input record type
+ * @param <P> The output, processed record type
+ */
+public abstract class BatchProcessorItemWriter<R,P> implements ItemWriter {
+	private RecordProcessor<R, P> recordProcessor;
+	
+	@Inject StepContext stepContext;
+	@Inject @BatchProperty(name=RECORD_PROCESSOR) private String processorClassName;
+
+	@Override
+	public void open(Serializable checkpoint) throws Exception {
+		MagicSauceLogger.getInstance().trace( "Instantiating record processor: {0}", processorClassName );
+		recordProcessor = RecordProcessorUtil.createRecordProcessor( processorClassName, stepContext.getProperties() );
+		recordProcessor.initialize( stepContext.getProperties() );
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void writeItems(List<Object> items) throws Exception {
+		List<R> inputs = EmittedRecords.flatten( items );
+		EmittedRecords<P> records = new EmittedRecords<P>( inputs.size() );
+		
+		if ( recordProcessor instanceof EmittingRecordProcessor<?,?> ) {
+			for ( R input : inputs )
+				RecordProcessorUtil.process( recordProcessor, input, records );
+		} else {
+			List<P> processed;
+			try {
+				processed = RecordProcessorUtil.processBatch( recordProcessor, inputs );
+			} catch ( PartialBatchException pbe ) {
+				if ( pbe.getCause() instanceof Exception )
+					throw (Exception) pbe.getCause();
+				throw pbe;
+			}
+			
+			for ( P p : processed )
+				records.emit( p );
+		}
+		
+		writeProcessedItems( records );
+	}
+	
+	/**
+	 * Writes the processed records of a chunk, in the order of the items read.
+	 */
+	protected abstract void writeProcessedItems( List<P> records ) throws Exception;
+
+	@Override
+	public Serializable checkpointInfo() throws Exception {
+		return null;
+	}
+
+	@Override
+	public void close() throws Exception {
+		if ( recordProcessor != null ) {
+			recordProcessor.tearDown();
+			recordProcessor = null;
+		}
+	}
+	
+	protected RecordProcessor<R, P> getRecordProcessor() {
+		return recordProcessor;
+	}
+	
+	void setRecordProcessor( RecordProcessor<R, P> processor ) {
+		this.recordProcessor = processor;
+	}
+}
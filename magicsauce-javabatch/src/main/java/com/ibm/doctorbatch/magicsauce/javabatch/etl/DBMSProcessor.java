@@ -23,11 +23,19 @@ import javax.batch.api.chunk.ItemProcessor;
 import javax.batch.runtime.context.StepContext;
 import javax.inject.Inject;
 
-import com.ibm.doctorbatch.magicsauce.ClassUtil;
+import com.ibm.doctorbatch.magicsauce.EmittedRecords;
+import com.ibm.doctorbatch.magicsauce.EmittingRecordProcessor;
 import com.ibm.doctorbatch.magicsauce.RecordProcessor;
+import com.ibm.doctorbatch.magicsauce.RecordProcessorUtil;
 /**
  * ETLProcessor is a JSR-352 ItemProcessor implementation that utilizes a RecordProcessBehavior
  * implementation, specified by the RECORD_PROCESS_BEHAVIOR job step property, for its implementation.
+ * When RECORD_PROCESSOR is not set, the processors named by RECORD_PROCESSOR.1 to RECORD_PROCESSOR.N
+ * are run as a RecordProcessorChain.
+ * 
+ * <p>An EmittingRecordProcessor may emit any number of records per item. No records filters
+ * the item, one record is returned as is, and several are returned as one EmittedRecords 
+ * list, which the framework's ItemWriters expand (see EmittedRecords.flatten).</p>
  * 
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
  *
@@ -53,7 +61,7 @@ public class DBMSProcessor<R,P> implements ItemProcessor {
 	public Object processItem(Object record) throws Exception {
 		if ( recordProcessor == null ) {
 			try {
-				recordProcessor = ClassUtil.getInstanceForClass( processorClassName );
+				recordProcessor = RecordProcessorUtil.createRecordProcessor( processorClassName, stepContext.getProperties() );
 				recordProcessor.initialize(stepContext.getProperties());
 			} catch ( Throwable t ) {
 				t.printStackTrace();
@@ -61,6 +69,15 @@ public class DBMSProcessor<R,P> implements ItemProcessor {
 			}
 		}
 
+		if ( recordProcessor instanceof EmittingRecordProcessor<?,?> ) {
+			EmittedRecords<P> emitted = new EmittedRecords<P>( 1 );
+			((EmittingRecordProcessor<R,P>) recordProcessor).process( (R) record, emitted );
+			
+			if ( emitted.size() > 1 )
+				return emitted;
+			return emitted.isEmpty() ? null : emitted.get(0);
+		}
+		
 		return (P) recordProcessor.process((R) record);
 	}
 
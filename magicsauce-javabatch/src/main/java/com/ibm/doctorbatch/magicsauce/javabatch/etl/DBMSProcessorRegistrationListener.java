@@ -21,9 +21,9 @@ import javax.batch.api.listener.StepListener;
 import javax.batch.runtime.context.StepContext;
 import javax.inject.Inject;
 
-import com.ibm.doctorbatch.magicsauce.ClassUtil;
 import com.ibm.doctorbatch.magicsauce.MagicSauceLogger;
 import com.ibm.doctorbatch.magicsauce.RecordProcessor;
+import com.ibm.doctorbatch.magicsauce.RecordProcessorUtil;
 
 /**
  * Instantiates a RecordProcessor instance for this job step, and injects it 
@@ -46,10 +46,10 @@ public class DBMSProcessorRegistrationListener implements StepListener {
 	public void beforeStep() throws Exception {
 		RecordProcessor recordProcessor = null;
 
-		MagicSauceLogger.getInstance().trace( "Instantiating record processor: " + processorClassName );
-		recordProcessor = ClassUtil.getInstanceForClass( processorClassName );
+		MagicSauceLogger.getInstance().trace( "Instantiating record processor: {0}", processorClassName );
+		recordProcessor = RecordProcessorUtil.createRecordProcessor( processorClassName, stepContext.getProperties() );
 
-		MagicSauceLogger.getInstance().trace( "Initializing record processor: " + processorClassName );
+		MagicSauceLogger.getInstance().trace( "Initializing record processor: {0}", processorClassName );
 		recordProcessor.initialize(stepContext.getProperties());
 		
 		DBMSProcessor.getDMBSProcessor().setRecordProcessor(recordProcessor);
@@ -16,8 +16,8 @@
 
 /**
  * <h1>Magic Sauce - Java Batch ETL</h1>
- * <p>This package provides a Java Batch (JSR-352) ItemProcessor adapter for Magic Sauce 
- * batch applications.</p>
+ * <p>This package provides Java Batch (JSR-352) ItemProcessor and ItemWriter adapters for 
+ * Magic Sauce batch applications.</p>
  * </p>
  */
 package com.ibm.doctorbatch.magicsauce.javabatch.etl;
\ No newline at end of file
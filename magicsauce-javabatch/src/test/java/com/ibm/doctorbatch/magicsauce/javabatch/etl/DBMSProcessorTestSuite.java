@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.javabatch.etl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.ibm.doctorbatch.magicsauce.EmittedRecords;
+import com.ibm.doctorbatch.magicsauce.EmittingRecordProcessor;
+import com.ibm.doctorbatch.magicsauce.RecordEmitter;
+import com.ibm.doctorbatch.magicsauce.RecordProcessor;
+
+public class DBMSProcessorTestSuite {
+	/*
+	 * Emits each ','-separated part of the record.
+	 */
+	private static class Split implements EmittingRecordProcessor<String,String> {
+		@Override
+		public void initialize( Properties jobStepProperties ) {
+		}
+		
+		@Override
+		public String process( String record ) {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public void process( String record, RecordEmitter<? super String> emitter ) {
+			for ( String part : record.split( "," ) ) {
+				if ( !part.isEmpty() )
+					emitter.emit( part );
+			}
+		}
+		
+		@Override
+		public int getReturnCode() {
+			return 0;
+		}
+		
+		@Override
+		public void tearDown() {
+		}
+	}
+	
+	private static class Upper implements RecordProcessor<String,String> {
+		@Override
+		public void initialize( Properties jobStepProperties ) {
+		}
+		
+		@Override
+		public String process( String record ) {
+			return record.toUpperCase();
+		}
+		
+		@Override
+		public int getReturnCode() {
+			return 0;
+		}
+		
+		@Override
+		public void tearDown() {
+		}
+	}
+	
+	private static DBMSProcessor<String,String> processor( RecordProcessor<String,String> recordProcessor ) {
+		DBMSProcessor<String,String> processor = new DBMSProcessor<String,String>();
+		processor.setRecordProcessor( recordProcessor );
+		return processor;
+	}
+	
+	@Test
+	public void testPlainProcessor() throws Exception {
+		assertEquals( "AB", processor( new Upper() ).processItem( "ab" ) );
+	}
+	
+	@Test
+	public void testEmittedNothing() throws Exception {
+		assertNull( processor( new Split() ).processItem( ",," ) );
+	}
+	
+	@Test
+	public void testEmittedOne() throws Exception {
+		assertEquals( "a", processor( new Split() ).processItem( "a," ) );
+	}
+	
+	@Test
+	public void testEmittedSeveral() throws Exception {
+		Object item = processor( new Split() ).processItem( "a,b,c" );
+		assertTrue( item instanceof EmittedRecords<?> );
+		assertEquals( Arrays.asList( "a", "b", "c" ), item );
+		
+		// The item writers expand it back into records
+		assertEquals( Arrays.<Object>asList( "x", "a", "b", "c" ), EmittedRecords.flatten( Arrays.asList( "x", item ) ) );
+	}
+}
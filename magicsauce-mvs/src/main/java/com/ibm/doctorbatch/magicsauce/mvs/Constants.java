@@ -26,9 +26,13 @@ public class Constants {
 	public final static String DD_FREE = "DD_FREE";
 	public final static String DS_MODE = "DS_MODE";
 	public final static String LARGE_DATASET_SUPPORT = "LARGE_DATASET_SUPPORT";
+	public final static String DATASET_BACKEND = "DATASET_BACKEND";
+	public final static String LOCAL_DATASET_DIR = "LOCAL_DATASET_DIR";
 	
 	public final static String FILE_NAME = "FILE_NAME";
 	public final static String RECORD_LENGTH = "RECORD_LENGTH";
+	public final static String BULK_READ_SIZE = "BULK_READ_SIZE";
 	
 	public final static String MVS_RECORDBYTES_CLASSNAME = "MVS_RECORDBYTES_CLASSNAME";
+	public final static String MVS_RECORDBYTES_POOL_SIZE = "MVS_RECORDBYTES_POOL_SIZE";
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.mvs;
+
+import java.io.IOException;
+
+/**
+ * <p>DataSet is an open, record oriented data set, as returned by
+ * {@link DataSetBackend#open(String, String)}. Its methods follow those of JZOS' ZFile when
+ * opened with type=record: each read or write transfers one record, and tell() returns a
+ * position which may later be passed to seek(long).</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ */
+public interface DataSet {
+
+	/**
+	 * Returns the logical record length. For variable length records, this is the maximum
+	 * record length, including the 4 byte record descriptor word.
+	 */
+	public int getLrecl() throws IOException;
+
+	/**
+	 * Reads the next record into buffer.
+	 * 
+	 * @return The number of bytes read, or -1 at the end of the data set.
+	 */
+	public int read( byte[] buffer ) throws IOException;
+
+	/**
+	 * Reads the next record into buffer, starting at offset. Record bytes beyond length are
+	 * discarded.
+	 * 
+	 * @return The number of bytes read, or -1 at the end of the data set.
+	 */
+	public int read( byte[] buffer, int offset, int length ) throws IOException;
+
+	public void write( byte[] buffer ) throws IOException;
+
+	/**
+	 * Writes length bytes of buffer, starting at offset, as one record.
+	 */
+	public void write( byte[] buffer, int offset, int length ) throws IOException;
+
+	public void flush() throws IOException;
+
+	/**
+	 * Returns the position of the next record, to be passed to seek(long).
+	 */
+	public long tell() throws IOException;
+
+	/**
+	 * Repositions the data set at a position returned by tell().
+	 */
+	public void seek( long position ) throws IOException;
+
+	/**
+	 * Returns the number of records read or written since the data set was opened.
+	 */
+	public long getRecordCount() throws IOException;
+
+	public void close() throws IOException;
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.mvs;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * <p>DataSetBackend performs the data set operations MVSDataSetManager needs: resolving data
+ * set names, allocating and freeing DD cards, and opening data sets. The backend is chosen
+ * with the DATASET_BACKEND property; {@link ZFileDataSetBackend}, the default, uses JZOS,
+ * while {@link LocalDataSetBackend} emulates data sets with local files so that jobs can be
+ * run and profiled off z/OS.</p>
+ *
+ * <p>Implementations must provide a public no-argument constructor.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ */
+public interface DataSetBackend {
+
+	public void initialize( Properties props );
+
+	/**
+	 * Returns the path used to open the data set with the given fully qualified name; on
+	 * z/OS this is <b>//'<i>dsname</i>'</b>.
+	 */
+	public String getQualifiedName( String dsname );
+
+	/**
+	 * Executes a TSO 'alloc' command, as passed to BPXWDYN.
+	 */
+	public void allocate( String command ) throws IOException;
+
+	/**
+	 * Executes a TSO 'free' command, as passed to BPXWDYN.
+	 */
+	public void free( String command ) throws IOException;
+
+	/**
+	 * Opens a data set.
+	 * 
+	 * @param path A path as accepted by fopen(), including //'<i>dsname</i>' and dd:<i>ddname</i>
+	 * @param options The fopen() mode and options, for example "rb,type=record,recfm=fb,lrecl=80"
+	 */
+	public DataSet open( String path, String options ) throws IOException;
+}
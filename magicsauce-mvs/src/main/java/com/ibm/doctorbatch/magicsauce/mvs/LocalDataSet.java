@@ -0,0 +1,340 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.mvs;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * <p>LocalDataSet emulates a record oriented, sequential data set in a local file, for
+ * {@link LocalDataSetBackend}. Records are stored as they would be read from z/OS with
+ * type=record:
+ * <ul>
+ *  <li>RECFM=F and FB: every record is LRECL bytes. Shorter records are padded with zeros.</li>
+ *  <li>RECFM=V and VB: every record is preceded by a 4 byte record descriptor word, holding
+ *  the big-endian length of the record including the RDW, followed by two zero bytes. LRECL
+ *  is the maximum length, including the RDW. This is the layout read and written by
+ *  RDWInputRecordStream and RDWOutputRecordStream.</li>
+ * </ul>
+ * Blocking is not emulated, so FB and VB files hold the same bytes as F and V files.</p>
+ *
+ * <p>tell() returns the byte offset of the next record, and seek(long) accepts any offset
+ * returned by tell(). Reads and writes go through a buffer of at least DEFAULT_BUFFER_SIZE
+ * bytes, so each record does not cost a system call.</p>
+ *
+ * <p>In a data set opened for append ("a"), records are always written at the end of the
+ * file; one opened with "a+" is read from the start of the file. In a data set opened for
+ * update ("r+" or "w+"), the first write after it is opened or repositioned truncates the
+ * file at that record, so output rewritten on restart never leaves records from the failed
+ * run behind it.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ */
+public class LocalDataSet implements DataSet {
+	public final static int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	public final static int MAX_LRECL = 32760;
+
+	private final static int RDW_LENGTH = 4;
+
+	private final File file;
+	private final String recfm;
+	private final int lrecl;
+	private final boolean variable;
+	private final boolean readable;
+	private final boolean writable;
+	private final boolean append;
+
+	private RandomAccessFile raf;
+	private FileChannel channel;
+	private final byte[] bytes;
+	private final ByteBuffer buffer;
+
+	/*
+	 * File offset of bytes[0]. When reading, bytes[pos..limit) holds unread data; when
+	 * writing, bytes[0..pos) holds records not yet written to the file.
+	 */
+	private long bufferStart;
+	private int pos;
+	private int limit;
+	private boolean writing;
+	private boolean truncate;
+	private long recordCount;
+
+	/**
+	 * Opens a local data set.
+	 * 
+	 * @param mode An fopen() mode: "r", "w" or "a", optionally followed by "b" and "+"
+	 * @param recfm F, FB, V or VB
+	 * @param lrecl The logical record length
+	 */
+	public LocalDataSet( File file, String mode, String recfm, int lrecl ) throws IOException {
+		this.file = file;
+		this.recfm = normalizeRecfm( recfm );
+		this.variable = this.recfm.startsWith("V");
+		this.lrecl = lrecl;
+
+		if ( lrecl <= (variable ? RDW_LENGTH : 0) || lrecl > MAX_LRECL )
+			throw new IOException( "Invalid LRECL " + lrecl + " for RECFM=" + this.recfm + " data set " + file );
+
+		char access = ( mode.length() > 0 ? Character.toLowerCase(mode.charAt(0)) : '?' );
+		boolean update = mode.indexOf('+') >= 0;
+		if ( access != 'r' && access != 'w' && access != 'a' )
+			throw new IOException( "Invalid open mode \"" + mode + "\" for data set " + file );
+
+		this.readable = ( access == 'r' || update );
+		this.writable = ( access != 'r' || update );
+		this.append = ( access == 'a' );
+
+		if ( access == 'r' && !file.isFile() )
+			throw new FileNotFoundException( "Data set " + file + " not found" );
+
+		raf = new RandomAccessFile( file, writable ? "rw" : "r" );
+		channel = raf.getChannel();
+
+		// "a+" reads from the start of the file; writes always go to its end
+		if ( access == 'w' )
+			channel.truncate( 0L );
+		else if ( access == 'a' && !update )
+			bufferStart = channel.size();
+
+		this.truncate = ( access == 'r' && update );
+		this.bytes = new byte[ Math.max(DEFAULT_BUFFER_SIZE, lrecl + RDW_LENGTH) ];
+		this.buffer = ByteBuffer.wrap( bytes );
+	}
+
+	/**
+	 * Returns the record format as one of F, FB, V or VB, dropping the carriage control
+	 * (A or M) and standard (S) attributes, which do not change how records are stored.
+	 */
+	public static String normalizeRecfm( String recfm ) throws IOException {
+		String normal = recfm.toUpperCase().replace(",", "").replace(" ", "");
+		normal = normal.replace("A", "").replace("M", "");
+		if ( normal.startsWith("F") )
+			normal = normal.replace("S", "");
+
+		if ( normal.equals("F") || normal.equals("FB") || normal.equals("V") || normal.equals("VB") )
+			return normal;
+
+		throw new IOException( "RECFM=" + recfm + " is not emulated; only F, FB, V and VB records are supported" );
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public String getRecfm() {
+		return recfm;
+	}
+
+	@Override
+	public int getLrecl() {
+		return lrecl;
+	}
+
+	@Override
+	public int read( byte[] buffer ) throws IOException {
+		return read( buffer, 0, buffer.length );
+	}
+
+	@Override
+	public int read( byte[] buffer, int offset, int length ) throws IOException {
+		checkOpen();
+		if ( !readable )
+			throw new IOException( "Data set " + file + " is not open for input" );
+
+		if ( writing ) {
+			flushBuffer();
+			writing = false;
+		}
+
+		int start;
+		int recordLength;
+		int size;
+
+		if ( variable ) {
+			int available = fill( RDW_LENGTH );
+			if ( available == 0 )
+				return -1;
+			if ( available < RDW_LENGTH )
+				throw new IOException( "Truncated record descriptor word at offset " + tell() + " of " + file );
+
+			size = ((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF);
+			if ( size < RDW_LENGTH || size > lrecl )
+				throw new IOException( "Invalid record descriptor word (length " + size + ") at offset " + tell() + " of " + file );
+			if ( fill( size ) < size )
+				throw new IOException( "Truncated record at offset " + tell() + " of " + file );
+
+			start = pos + RDW_LENGTH;
+			recordLength = size - RDW_LENGTH;
+		} else {
+			int available = fill( lrecl );
+			if ( available == 0 )
+				return -1;
+
+			// A short record at the end of the file is returned as it is
+			start = pos;
+			recordLength = size = Math.min( available, lrecl );
+		}
+
+		int n = Math.min( length, recordLength );
+		System.arraycopy( bytes, start, buffer, offset, n );
+		pos += size;
+		++recordCount;
+
+		return n;
+	}
+
+	@Override
+	public void write( byte[] buffer ) throws IOException {
+		write( buffer, 0, buffer.length );
+	}
+
+	@Override
+	public void write( byte[] buffer, int offset, int length ) throws IOException {
+		checkOpen();
+		if ( !writable )
+			throw new IOException( "Data set " + file + " is not open for output" );
+
+		int size = ( variable ? length + RDW_LENGTH : lrecl );
+		if ( length + (variable ? RDW_LENGTH : 0) > lrecl )
+			throw new IOException( "Record of " + length + " bytes exceeds RECFM=" + recfm + ",LRECL=" + lrecl + " of data set " + file );
+
+		if ( !writing ) {
+			bufferStart = ( append ? channel.size() : bufferStart + pos );
+			pos = limit = 0;
+			writing = true;
+			if ( truncate ) {
+				channel.truncate( bufferStart );
+				truncate = false;
+			}
+		}
+
+		if ( bytes.length - pos < size )
+			flushBuffer();
+
+		int at = pos;
+		if ( variable ) {
+			bytes[at++] = (byte) (size >>> 8);
+			bytes[at++] = (byte) size;
+			bytes[at++] = 0;
+			bytes[at++] = 0;
+		}
+
+		System.arraycopy( buffer, offset, bytes, at, length );
+		if ( !variable && length < lrecl )
+			Arrays.fill( bytes, at + length, at + lrecl, (byte) 0 );
+
+		pos += size;
+		++recordCount;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		checkOpen();
+		if ( writing )
+			flushBuffer();
+	}
+
+	@Override
+	public long tell() throws IOException {
+		checkOpen();
+		return bufferStart + pos;
+	}
+
+	@Override
+	public void seek( long position ) throws IOException {
+		flush();
+		if ( position < 0 || position > channel.size() )
+			throw new IOException( "Position " + position + " is outside of data set " + file + " (" + channel.size() + " bytes)" );
+
+		bufferStart = position;
+		pos = limit = 0;
+		writing = false;
+		truncate = writable && !append;
+	}
+
+	@Override
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if ( raf == null )
+			return;
+
+		try {
+			flush();
+		} finally {
+			raf.close();
+			raf = null;
+			channel = null;
+		}
+	}
+
+	/*
+	 * Makes at least needed bytes available at bytes[pos], unless the end of the file is
+	 * reached first, and returns the number of bytes available.
+	 */
+	private int fill( int needed ) throws IOException {
+		int available = limit - pos;
+		if ( available >= needed )
+			return available;
+
+		if ( pos > 0 ) {
+			System.arraycopy( bytes, pos, bytes, 0, available );
+			bufferStart += pos;
+			pos = 0;
+			limit = available;
+		}
+
+		while ( limit < needed ) {
+			buffer.limit( bytes.length ).position( limit );
+			int n = channel.read( buffer, bufferStart + limit );
+			if ( n < 0 )
+				break;
+			limit += n;
+		}
+
+		return limit - pos;
+	}
+
+	/*
+	 * Writes buffered records to the file, leaving the buffer empty at the current position.
+	 */
+	private void flushBuffer() throws IOException {
+		if ( writing ) {
+			buffer.limit( pos ).position( 0 );
+			while ( buffer.hasRemaining() )
+				bufferStart += channel.write( buffer, bufferStart );
+		} else {
+			bufferStart += pos;
+		}
+
+		pos = limit = 0;
+	}
+
+	private void checkOpen() throws IOException {
+		if ( raf == null )
+			throw new IOException( "Data set " + file + " is closed" );
+	}
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.mvs;
+
+import static com.ibm.doctorbatch.magicsauce.mvs.Constants.LOCAL_DATASET_DIR;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>LocalDataSetBackend emulates MVS data sets with plain files, so that MVSRecordReader,
+ * MVSRecordWriter and the BDS and JSR-352 artifacts built on them can be run, tested and
+ * profiled off z/OS. Select it by setting DATASET_BACKEND to this class name.</p>
+ *
+ * <p>Data set names map to files in the directory given by LOCAL_DATASET_DIR (by default,
+ * the working directory): <b>//'HLQ.DATA'</b> is the file HLQ.DATA, and the member
+ * <b>//'HLQ.PDS(MEMBER)'</b> is the file MEMBER in the directory HLQ.PDS. Paths which do not
+ * start with // or dd: are used as file paths. Relative GDG generations are not emulated.</p>
+ *
+ * <p>DD_ALLOC and DD_FREE commands maintain a DD table shared by every backend instance in
+ * the JVM, as BPXWDYN does for the address space. The FI (or DD), DA (or DSN), PATH, RECFM
+ * and LRECL keywords and the NEW, OLD, SHR and MOD dispositions of 'alloc' are recognized;
+ * other keywords, such as SPACE, are ignored. As on z/OS, NEW fails if the data set exists,
+ * OLD, SHR and MOD fail if it does not, and a data set allocated with MOD is extended when
+ * opened for writing. Freeing a DD name which is not allocated does nothing, since
+ * MVSDataSetManager frees its DD card both after opening and when closing.</p>
+ *
+ * <p>Records are stored as described in {@link LocalDataSet}. The RECFM and LRECL of each
+ * data set are cataloged in a properties file named after it, with the suffix ".dcb", so
+ * existing data sets can be opened without recfm and lrecl options, as on z/OS. Only
+ * type=record opens are supported.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ */
+public class LocalDataSetBackend implements DataSetBackend {
+	public final static String ATTRIBUTES_SUFFIX = ".dcb";
+
+	private final static ConcurrentMap<String, Allocation> ddTable = new ConcurrentHashMap<String, Allocation>();
+
+	private File directory = new File( System.getProperty("user.dir") );
+
+	@Override
+	public void initialize( Properties props ) {
+		String dir = props.getProperty( LOCAL_DATASET_DIR );
+		if ( dir != null )
+			directory = new File( dir );
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory( File directory ) {
+		this.directory = directory;
+	}
+
+	@Override
+	public String getQualifiedName( String dsname ) {
+		return "//'" + unquote( dsname.trim() ) + "'";
+	}
+
+	@Override
+	public void allocate( String command ) throws IOException {
+		Map<String, String> keywords = parseCommand( command );
+		String ddname = getDDName( keywords, command );
+
+		File file;
+		String path = keywords.get( "path" );
+		String dsname = firstOf( keywords, "da", "dsn", "dsname", "dataset" );
+		if ( path != null )
+			file = new File( unquote(path) );
+		else if ( dsname != null )
+			file = getFile( dsname );
+		else
+			throw new IOException( "No data set name or path in \"" + command + "\"" );
+
+		String recfm = keywords.get( "recfm" );
+		int lrecl = parseLrecl( keywords.get("lrecl"), command );
+
+		if ( keywords.containsKey("new") ) {
+			if ( file.exists() )
+				throw new IOException( "Data set " + file + " already exists: \"" + command + "\"" );
+
+			File parent = file.getParentFile();
+			if ( parent != null && !parent.isDirectory() && !parent.mkdirs() )
+				throw new IOException( "Unable to create directory " + parent );
+			if ( !file.createNewFile() )
+				throw new IOException( "Unable to create data set " + file );
+			if ( recfm != null && lrecl > 0 )
+				writeAttributes( file, LocalDataSet.normalizeRecfm(recfm), lrecl );
+		} else if ( !file.isFile() ) {
+			throw new FileNotFoundException( "Data set " + file + " not found: \"" + command + "\"" );
+		}
+
+		ddTable.put( ddname, new Allocation(file, recfm, lrecl, keywords.containsKey("mod")) );
+	}
+
+	@Override
+	public void free( String command ) throws IOException {
+		Map<String, String> keywords = parseCommand( command );
+		String ddname = getDDName( keywords, command );
+
+		ddTable.remove( ddname );
+	}
+
+	/**
+	 * Returns the file allocated to a DD name, or null if it is not allocated.
+	 */
+	public static File getAllocatedFile( String ddname ) {
+		Allocation allocation = ddTable.get( ddname.toUpperCase() );
+		return ( allocation == null ? null : allocation.file );
+	}
+
+	@Override
+	public DataSet open( String path, String options ) throws IOException {
+		Allocation target = resolve( path );
+
+		String[] tokens = options.split(",");
+		String mode = tokens[0].trim();
+		String recfm = null;
+		int lrecl = 0;
+		boolean record = false;
+
+		for ( int i = 1; i < tokens.length; ++i ) {
+			String token = tokens[i].trim();
+			int eq = token.indexOf('=');
+			if ( eq < 0 )
+				continue;
+
+			String key = token.substring(0, eq).trim().toLowerCase();
+			String value = token.substring(eq + 1).trim();
+			if ( key.equals("type") )
+				record = value.equalsIgnoreCase("record");
+			else if ( key.equals("recfm") && !value.equals("*") )
+				recfm = value;
+			else if ( key.equals("lrecl") && !value.equals("*") )
+				lrecl = parseLrecl( value, options );
+		}
+
+		if ( !record )
+			throw new IOException( "Only type=record is emulated; cannot open " + path + " with \"" + options + "\"" );
+		if ( mode.startsWith("r") && !target.file.isFile() )
+			throw new FileNotFoundException( "Data set " + path + " not found" );
+
+		// Attributes come from the open options, then the allocation, then the catalog
+		if ( recfm == null )
+			recfm = target.recfm;
+		if ( lrecl == 0 )
+			lrecl = target.lrecl;
+		if ( recfm == null || lrecl == 0 ) {
+			Properties dcb = readAttributes( target.file );
+			if ( recfm == null )
+				recfm = dcb.getProperty( "RECFM" );
+			if ( lrecl == 0 )
+				lrecl = parseLrecl( dcb.getProperty("LRECL"), options );
+		}
+
+		if ( recfm == null || lrecl == 0 )
+			throw new IOException( "The RECFM and LRECL of " + path + " are not known; specify recfm and lrecl when opening or allocating it" );
+
+		if ( target.mod && mode.startsWith("w") )
+			mode = "a" + mode.substring(1);
+
+		LocalDataSet dataSet = new LocalDataSet( target.file, mode, recfm, lrecl );
+		if ( !mode.startsWith("r") )
+			writeAttributes( target.file, dataSet.getRecfm(), lrecl );
+
+		return dataSet;
+	}
+
+	/**
+	 * Returns the file emulating the named data set.
+	 */
+	public File getFile( String dsname ) throws IOException {
+		String name = unquote( dsname.trim() ).toUpperCase();
+
+		int paren = name.indexOf('(');
+		if ( paren < 0 )
+			return new File( directory, name );
+
+		if ( !name.endsWith(")") )
+			throw new IOException( "Invalid data set name " + dsname );
+
+		String member = name.substring( paren + 1, name.length() - 1 ).trim();
+		if ( member.length() == 0 || "+-0123456789".indexOf(member.charAt(0)) >= 0 )
+			throw new IOException( "Relative generations are not emulated: " + dsname );
+
+		return new File( new File(directory, name.substring(0, paren)), member );
+	}
+
+	private Allocation resolve( String path ) throws IOException {
+		String trimmed = path.trim();
+
+		if ( trimmed.regionMatches(true, 0, "dd:", 0, 3) ) {
+			String ddname = trimmed.substring(3).trim().toUpperCase();
+			Allocation allocation = ddTable.get( ddname );
+			if ( allocation == null )
+				throw new IOException( "DD " + ddname + " is not allocated" );
+			return allocation;
+		}
+
+		if ( trimmed.startsWith("//") )
+			return new Allocation( getFile(trimmed.substring(2)), null, 0, false );
+
+		return new Allocation( new File(trimmed), null, 0, false );
+	}
+
+	private static String getDDName( Map<String, String> keywords, String command ) throws IOException {
+		String ddname = firstOf( keywords, "fi", "file", "dd", "ddname" );
+		if ( ddname == null || ddname.trim().length() == 0 )
+			throw new IOException( "No DD name in \"" + command + "\"" );
+
+		return ddname.trim().toUpperCase();
+	}
+
+	private static String firstOf( Map<String, String> keywords, String... names ) {
+		for ( String name : names ) {
+			String value = keywords.get( name );
+			if ( value != null )
+				return value;
+		}
+		return null;
+	}
+
+	private static int parseLrecl( String lrecl, String source ) throws IOException {
+		if ( lrecl == null )
+			return 0;
+
+		try {
+			return Integer.parseInt( lrecl.trim() );
+		} catch ( NumberFormatException nfe ) {
+			throw new IOException( "Invalid LRECL \"" + lrecl + "\" in \"" + source + "\"" );
+		}
+	}
+
+	private static String unquote( String name ) {
+		if ( name.length() >= 2 && name.startsWith("'") && name.endsWith("'") )
+			return name.substring( 1, name.length() - 1 );
+		return name;
+	}
+
+	/*
+	 * Splits a TSO command into its keywords, in lower case, and their values. Keywords
+	 * without a value, such as NEW or SHR, map to the empty string.
+	 */
+	static Map<String, String> parseCommand( String command ) {
+		Map<String, String> keywords = new HashMap<String, String>();
+		int length = command.length();
+		int i = 0;
+
+		while ( i < length ) {
+			char c = command.charAt(i);
+			if ( !Character.isLetterOrDigit(c) ) {
+				++i;
+				continue;
+			}
+
+			int start = i;
+			while ( i < length && Character.isLetterOrDigit(command.charAt(i)) )
+				++i;
+			String keyword = command.substring(start, i).toLowerCase();
+
+			int j = i;
+			while ( j < length && command.charAt(j) == ' ' )
+				++j;
+
+			if ( j < length && command.charAt(j) == '(' ) {
+				int depth = 1;
+				boolean quoted = false;
+				int k = j + 1;
+				for ( ; k < length; ++k ) {
+					char d = command.charAt(k);
+					if ( d == '\'' )
+						quoted = !quoted;
+					else if ( !quoted && d == '(' )
+						++depth;
+					else if ( !quoted && d == ')' && --depth == 0 )
+						break;
+				}
+
+				keywords.put( keyword, command.substring(j + 1, Math.min(k, length)).trim() );
+				i = k + 1;
+			} else {
+				keywords.put( keyword, "" );
+			}
+		}
+
+		return keywords;
+	}
+
+	private static File getAttributesFile( File file ) {
+		return new File( file.getPath() + ATTRIBUTES_SUFFIX );
+	}
+
+	private static Properties readAttributes( File file ) throws IOException {
+		Properties dcb = new Properties();
+		File attributes = getAttributesFile( file );
+		if ( attributes.isFile() ) {
+			InputStream in = new FileInputStream( attributes );
+			try {
+				dcb.load( in );
+			} finally {
+				in.close();
+			}
+		}
+		return dcb;
+	}
+
+	private static void writeAttributes( File file, String recfm, int lrecl ) throws IOException {
+		Properties dcb = new Properties();
+		dcb.setProperty( "RECFM", recfm );
+		dcb.setProperty( "LRECL", String.valueOf(lrecl) );
+
+		OutputStream out = new FileOutputStream( getAttributesFile(file) );
+		try {
+			dcb.store( out, null );
+		} finally {
+			out.close();
+		}
+	}
+
+	/*
+	 * A DD table entry, or the resolved target of an open.
+	 */
+	private static class Allocation {
+		final File file;
+		final String recfm;
+		final int lrecl;
+		final boolean mod;
+
+		Allocation( File file, String recfm, int lrecl, boolean mod ) {
+			this.file = file;
+			this.recfm = recfm;
+			this.lrecl = lrecl;
+			this.mod = mod;
+		}
+	}
+}
@@ -17,6 +17,7 @@
 package com.ibm.doctorbatch.magicsauce.mvs;
 
 import static com.ibm.doctorbatch.magicsauce.Constants.RECORD_PARSER_CLASSNAME;
+import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DATASET_BACKEND;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DD_ALLOC;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DD_ALLOC_RESTART;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DD_FREE;
@@ -27,15 +28,14 @@ import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DS_PARAMS;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.DS_PARAMS_RESTART;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.LARGE_DATASET_SUPPORT;
 
+import java.io.IOException;
 import java.util.Properties;
 
 import com.ibm.doctorbatch.magicsauce.BatchException;
 import com.ibm.doctorbatch.magicsauce.ClassUtil;
 import com.ibm.doctorbatch.magicsauce.MagicSauceLogger;
 import com.ibm.etools.marshall.RecordBytes;
-import com.ibm.jzos.RcException;
 import com.ibm.jzos.ZFile;
-import com.ibm.jzos.ZFileException;
 
 /**
  * <p>MVSDataSetManager provides reusable logic for interacting with MVS Data Sets. It's intended for use
@@ -52,6 +52,7 @@ import com.ibm.jzos.ZFileException;
  *  <li>DD_ALLOC_RESTART: The TSO 'alloc' command used to allocate the dynamic DD card referencing DSNAME within the batch job's address space, when restarting this job after a failure.</li>
  *  <li>DD_FREE: The TSO 'free' command used to free the dynamic DD card referencing DSNAME within the batch job's address space.</li>
  *  <li>RECORD_PARSER_CLASSNAME: The fully qualified name of the class implementing com.ibm.websphere.batch.framework.mvs.RecordParser, used to translate records to java bean instances, and vice-versa.</li>
+ *  <li>DATASET_BACKEND: Optional parameter. The fully qualified name of the DataSetBackend used to allocate and open the dataset. Defaults to ZFileDataSetBackend; specify LocalDataSetBackend to emulate datasets with local files off z/OS.</li>
  * </ol></p>
  * 
  * <p>Note that DD_ALLOC, DD_ALLOC_RESTART and DD_FREE are optional parameters. If they are omitted, then the BPXWDYN call 
@@ -60,6 +61,10 @@ import com.ibm.jzos.ZFileException;
  * JCL when this job is triggered via WSGRID. If you do not specify DD_ALLOC, you must not specify DD_FREE; if you 
  * specify DD_ALLOC, you should also specify DD_FREE.</p>
  * 
+ * <p>open() throws a BatchException whenever the dataset cannot be opened, whether or not DD_ALLOC was 
+ * given. Earlier versions only rethrew open failures after a successful DD_ALLOC, and otherwise left the 
+ * manager without an open dataset.</p>
+ * 
  * <p>Known limitation: There is a known issue when when your DD_ALLOC statement attempts to allocate a GDG dataset
  * using a relative generation indicator, such as <code>'HLQ.TESTDATA.OUTPUT(+1)'</code>. While the generation will 
  * be allocated, it may not be cataloged prior to the subsequent open call, if your DSPATH refers to the dataset by name
@@ -102,9 +107,14 @@ public class MVSDataSetManager<T extends RecordBytes> implements DataSetManager<
 	private String ds_parameters_restart = "rb+,recfm=fb,type=record,lrecl=80";
 	
 	/*
-	 * This ZFile instance for interacting with the dataset
+	 * The backend used to allocate and open the dataset
+	 */
+	private DataSetBackend backend;
+	
+	/*
+	 * The open dataset
 	 */
-	private ZFile zFile;
+	private DataSet dataSet;
 	
 	/*
 	 * Determines if we're using byte-count offsets or not.
@@ -131,8 +141,22 @@ public class MVSDataSetManager<T extends RecordBytes> implements DataSetManager<
 		return this.recordParser;
 	}
 	
+	public DataSet getDataSet() {
+		return this.dataSet;
+	}
+	
+	/**
+	 * Returns the ZFile of the open dataset, or null if the dataset was not opened through
+	 * ZFileDataSetBackend.
+	 */
 	public ZFile getZFile() {
-		return this.zFile;
+		if ( dataSet instanceof ZFileDataSet )
+			return ((ZFileDataSet) dataSet).getZFile();
+		return null;
+	}
+	
+	public DataSetBackend getBackend() {
+		return this.backend;
 	}
 	
 	public String getDataSetName() {
@@ -154,14 +178,15 @@ public class MVSDataSetManager<T extends RecordBytes> implements DataSetManager<
 	public void initialize(Properties props, boolean restart) {
 		this.restart = restart;
 		
-
+		backend = ClassUtil.getInstanceForClass( props.getProperty(DATASET_BACKEND, ZFileDataSetBackend.class.getName()) );
+		backend.initialize( props );
 		
 		String dspath = props.getProperty( DSPATH );		
 		if ( dspath != null ) {
 			this.dsname = dspath;
 		} else {
 			this.dsname = props.getProperty( DSNAME );
-			this.dsname = ZFile.getSlashSlashQuotedDSN(this.dsname,true);
+			this.dsname = backend.getQualifiedName(this.dsname);
 		}
 
 		// DS Parameters used by calls to "fopen" through the ZFile.open() method.
@@ -217,11 +242,11 @@ public class MVSDataSetManager<T extends RecordBytes> implements DataSetManager<
 	@Override
 	public void flush() {
 		try {
-			if ( zFile != null )
-				zFile.flush();
-		} catch (ZFileException zfEx) {
+			if ( dataSet != null )
+				dataSet.flush();
+		} catch (IOException zfEx) {
 			MVSUtility.logZFileExceptionDetails(zfEx, dsname);
-			throw new BatchException("Unexpected error while trying to flush", zfEx.getCause());
+			throw new BatchException("Unexpected error while trying to flush", zfEx);
 		}
 	}
 
@@ -233,11 +258,11 @@ public class MVSDataSetManager<T extends RecordBytes> implements DataSetManager<
 		try {
 			flush();
 			if (useSeekAndTell)
-				return zFile.tell();
+				return dataSet.tell();
 			else {
-				return zFile.getRecordCount();
+				return dataSet.getRecordCount();
 			}
-		} catch (ZFileException zfe) {
+		} catch (IOException zfe) {
 			MVSUtility.logZFileExceptionDetails(zfe, dsname);
 			throw new BatchException(
 					"Failed to retrieve the current position of the zFile.",
@@ -252,15 +277,15 @@ public class MVSDataSetManager<T extends RecordBytes> implements DataSetManager<
 	public void setPosition(long position) {
 		try {
 			if (useSeekAndTell) {
-				zFile.seek(position, 0);
+				dataSet.seek(position);
 			} else {
-				byte[] buf = new byte[zFile.getLrecl()];
+				byte[] buf = new byte[dataSet.getLrecl()];
 				for (int i = 0; i < position; i++) {
-					zFile.read(buf);
+					dataSet.read(buf);
 				}
 				flush();
 			}
-		} catch (ZFileException zfe) {
+		} catch (IOException zfe) {
 			throw new BatchException("Failed to set position of zFile", zfe);
 		}
 	}
@@ -280,7 +305,7 @@ public class MVSDataSetManager<T extends RecordBytes> implements DataSetManager<
 			if ( allocate != null && !allocate.trim().isEmpty() ) {
 				MagicSauceLogger.getInstance().info( "Executing BPXWDYN command: " + allocate );
 
-				ZFile.bpxwdyn(allocate);
+				backend.allocate(allocate);
 				successAlloc = true;
 
 				if (dsparams.trim().startsWith("w")) {
@@ -289,21 +314,18 @@ public class MVSDataSetManager<T extends RecordBytes> implements DataSetManager<
 			}
 			
 			MagicSauceLogger.getInstance().info( "Opening dataset " + dsname + " with dsparams: " + dsparams );
-			zFile = new ZFile( dsname, dsparams );
-		} catch (ZFileException zfe) {
-			MVSUtility.logZFileExceptionDetails(zfe, dsname);			
-			rethrow = new BatchException("Unexpected error while opening DS", zfe.getCause());
-		} catch (RcException rce) {
-			MagicSauceLogger.getInstance().severe("RcException: " + rce.getMessage() + " RC#: " + rce.getRc() );			
-			rethrow = new BatchException("Unexpected error while opening DS", rce.getCause());
+			dataSet = backend.open( dsname, dsparams );
+		} catch (IOException zfe) {
+			MVSUtility.logZFileExceptionDetails(zfe, dsname);
+			MagicSauceLogger.getInstance().severe(zfe.getMessage());
+			rethrow = new BatchException("Unexpected error while opening DS", zfe);
 		} finally {
-			if (successAlloc) {
+			if (successAlloc)
 				freeDDCard();
-				
-				if ( rethrow != null ) 
-					throw rethrow;
-			}
 		}
+		
+		if ( rethrow != null ) 
+			throw rethrow;
 	}
 	
 	/* (non-Javadoc)
@@ -312,10 +334,10 @@ public class MVSDataSetManager<T extends RecordBytes> implements DataSetManager<
 	@Override
 	public void close() {
 		try {
-			zFile.close();
-		} catch (ZFileException zfEx) {
+			dataSet.close();
+		} catch (IOException zfEx) {
 			MVSUtility.logZFileExceptionDetails(zfEx, dsname);
-			throw new BatchException("Unexpected error while trying to close", zfEx.getCause());
+			throw new BatchException("Unexpected error while trying to close", zfEx);
 		} finally {
 			freeDDCard();
 		}
@@ -325,9 +347,9 @@ public class MVSDataSetManager<T extends RecordBytes> implements DataSetManager<
 	public void freeDDCard() {
 		if (!restart && tsoFree != null && tsoFree.trim().length() > 0) {
 			try {
-				ZFile.bpxwdyn( tsoFree );
-			} catch ( RcException rce ) {
-				MagicSauceLogger.getInstance().exception("Could not execute the \"DD_FREE\" command from xJCL: \""+tsoFree+"\": " + rce.getMessage() + " with RC: " + rce.getRc(), rce );
+				backend.free( tsoFree );
+			} catch ( IOException rce ) {
+				MagicSauceLogger.getInstance().exception("Could not execute the \"DD_FREE\" command from xJCL: \""+tsoFree+"\": " + rce.getMessage(), rce );
 			}
 		}
 	}
@@ -16,29 +16,40 @@
 
 package com.ibm.doctorbatch.magicsauce.mvs;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
 
 import com.ibm.doctorbatch.magicsauce.BatchException;
-import com.ibm.doctorbatch.magicsauce.Reader;
+import com.ibm.doctorbatch.magicsauce.BulkReader;
 import com.ibm.doctorbatch.magicsauce.mvs.MVSDataSetManager;
 import com.ibm.doctorbatch.magicsauce.mvs.MVSUtility;
 import com.ibm.doctorbatch.magicsauce.mvs.RecordBytesParser;
 import com.ibm.etools.marshall.RecordBytes;
-import com.ibm.jzos.ZFile;
-import com.ibm.jzos.ZFileException;
 
 /**
  * <p>This ItemReader reads records from an MVS data set. This ItemReader records one record
  * per invocation of read(). To customize that behavior, extend this class and override the fetchRecord(...)
- * method. Requires the following ItemReader properites:
+ * method. Requires the following ItemReader properites:</p>
+ * 
+ * <p>read(int, List) reads many records in one call, each into its own RecordBytes 
+ * instance (see RecordBytesParser.parseRecordToNewObject). When the record class implements
+ * SlicedRecordBytes, the records are read into shared block buffers and each record is bound
+ * to its slice of the block.</p>
+ * 
+ * <p>When the record class implements SlicedRecordBytes, read() reads each record into the
+ * same buffer, which is bound to the parser's single RecordBytes instance. Other record 
+ * classes are given a new array per record.</p>
  * 
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
  * @param <T>
  */
-public  class MVSRecordReader<T extends RecordBytes> implements Reader<T> {
-	private ZFile file;
+public  class MVSRecordReader<T extends RecordBytes> implements BulkReader<T> {
+	private DataSet file;
 	private RecordBytesParser<T> parser;
 	private MVSDataSetManager<T> mvsDataSetManager;
+	private byte[] buffer;
 
 	public void setDataSetManager( MVSDataSetManager<T> datasetManager ) {
 		this.mvsDataSetManager = datasetManager;
@@ -48,7 +59,7 @@ public  class MVSRecordReader<T extends RecordBytes> implements Reader<T> {
 	public void open(Serializable state)  {
 		mvsDataSetManager.open();
 		mvsDataSetManager.setPosition( ((Long) state).longValue() );
-		this.file = mvsDataSetManager.getZFile();
+		this.file = mvsDataSetManager.getDataSet();
 		this.parser = mvsDataSetManager.getRecordParser();
 	}
 	
@@ -57,19 +68,76 @@ public  class MVSRecordReader<T extends RecordBytes> implements Reader<T> {
 		return fetchRecord(file, parser);
 	}
 
-	protected T fetchRecord(ZFile file, RecordBytesParser<T> recordParser) {
-		byte[] recordBytes = null;
+	/**
+	 * Reads up to max records into the given list.
+	 */
+	@Override
+	public int read(int max, List<? super T> into) {
+		int count = 0;
+		
+		try {
+			int lrecl = file.getLrecl();
+			if ( parser.isSliced() ) {
+				byte[] block = null;
+				int offset = 0;
+				while ( count < max ) {
+					if ( block == null || offset == block.length ) {
+						block = new byte[ Math.min(max - count, RecordBytesParser.SLICE_BLOCK_RECORDS) * lrecl ];
+						offset = 0;
+					}
+					
+					if ( -1 == file.read(block, offset, lrecl) )
+						break;
+					
+					into.add( parser.parseRecordToNewObject(block, offset, lrecl) );
+					offset += lrecl;
+					++count;
+				}
+				
+				return count;
+			}
+			
+			while ( count < max ) {
+				byte[] recordBytes = new byte[lrecl];
+				if ( -1 == file.read(recordBytes) )
+					break;
+				
+				into.add( parser.parseRecordToNewObject(recordBytes) );
+				++count;
+			}
+		} catch (IOException zfe) {
+			MVSUtility.logZFileExceptionDetails(zfe, mvsDataSetManager.getDataSetName() );
+			throw new BatchException("Unexpected error while fetching record", zfe);
+		}
+		
+		return count;
+	}
 
+	protected T fetchRecord(DataSet file, RecordBytesParser<T> recordParser) {
+		byte[] recordBytes;
 		try {
-			recordBytes = new byte[file.getLrecl()];
-			if ( -1 == file.read(recordBytes))
+			int lrecl = file.getLrecl();
+			if ( !recordParser.isSliced() )
+				recordBytes = new byte[lrecl];
+			else if ( buffer != null && buffer.length == lrecl )
+				recordBytes = buffer;
+			else
+				recordBytes = buffer = new byte[lrecl];
+			
+			int nread = file.read(recordBytes);
+			if ( -1 == nread )
 				return null;
-		} catch (ZFileException zfe) {
+			if ( nread < lrecl )
+				Arrays.fill(recordBytes, nread, lrecl, (byte) 0);
+		} catch (IOException zfe) {
 			MVSUtility.logZFileExceptionDetails(zfe, mvsDataSetManager.getDataSetName() );
-			throw new BatchException("Unexpected error while fetching record", zfe.getCause());
+			throw new BatchException("Unexpected error while fetching record", zfe);
 		}
 
-		T currentRecord = recordParser.parseRecordToObject(recordBytes);
+		if ( !recordParser.isSliced() )
+			return recordParser.parseRecordToObject(recordBytes);
+		
+		T currentRecord = recordParser.parseRecordToObject(recordBytes, 0, recordBytes.length);
 		return currentRecord;
 	}
 
@@ -16,17 +16,16 @@
 
 package com.ibm.doctorbatch.magicsauce.mvs;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
 
 import com.ibm.doctorbatch.magicsauce.BatchException;
 import com.ibm.doctorbatch.magicsauce.Writer;
 import com.ibm.etools.marshall.RecordBytes;
-import com.ibm.jzos.ZFile;
-import com.ibm.jzos.ZFileException;
 
 public class MVSRecordWriter<T extends RecordBytes> implements Writer<T> {
-	private ZFile file;
+	private DataSet file;
 	private RecordBytesParser<T> parser;
 	private MVSDataSetManager<T> mvsDataSetManager;
 
@@ -38,7 +37,7 @@ public class MVSRecordWriter<T extends RecordBytes> implements Writer<T> {
 	public void open(Serializable state)  {
 		mvsDataSetManager.open();
 		mvsDataSetManager.setPosition( ((Long) state).longValue() );
-		this.file = mvsDataSetManager.getZFile();
+		this.file = mvsDataSetManager.getDataSet();
 		this.parser = mvsDataSetManager.getRecordParser();
 	}
 
@@ -48,10 +47,10 @@ public class MVSRecordWriter<T extends RecordBytes> implements Writer<T> {
 		byte[] bytes = parser.parseObjectToRecord(record);
 		try {
 			file.write( bytes );
-		} catch (ZFileException zfe) {
+		} catch (IOException zfe) {
 			MVSUtility.logZFileExceptionDetails(zfe, mvsDataSetManager.getDataSetName() );
 			throw new BatchException(zfe);
-		}	
+		}
 	}
 
 
@@ -16,12 +16,16 @@
 
 package com.ibm.doctorbatch.magicsauce.mvs;
 
+import java.util.Arrays;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.PooledRecordParser;
 import com.ibm.doctorbatch.magicsauce.RecordParser;
+import com.ibm.doctorbatch.magicsauce.RecordPool;
+import com.ibm.doctorbatch.magicsauce.SlicedRecordParser;
 import com.ibm.etools.marshall.RecordBytes;
 
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.*;
@@ -44,15 +48,33 @@ import static com.ibm.doctorbatch.magicsauce.mvs.Constants.*;
  * 
  * <p>Use of this class is compatible with PJM. However, since the underlying instance is reused through
  * the entire job run, the instance returned by "getRecord()" should never be cached or stored between 
- * invocations.</p>
+ * invocations. Readers which return several records at once, such as the bulk read of 
+ * MVSRecordReader, use parseRecordToNewObject instead, which creates an instance per record.</p>
+ * 
+ * <p>Records may also be parsed from a slice of a larger buffer. When the record class implements
+ * {@link SlicedRecordBytes} it is bound to the slice directly; otherwise the slice is copied, so 
+ * a plain RecordBytes instance never refers to a buffer the caller reuses. Readers check isSliced()
+ * to decide whether to read records into a shared buffer, or into a new array per record.</p>
+ * 
+ * <p>When the MVS_RECORDBYTES_POOL_SIZE property is set, instances passed to release(...) are
+ * kept, up to that number, and reused by parseRecordToNewObject. The pool belongs to this 
+ * parser, so only code which reads and writes through the same parser instance benefits 
+ * from it; see {@link PooledRecordParser}.</p>
  * 
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
  *
  */
-public class RecordBytesParser<T extends RecordBytes> implements RecordParser<T, byte[]> {
+public class RecordBytesParser<T extends RecordBytes> implements SlicedRecordParser<T>, PooledRecordParser<T, byte[]> {
 	private String className;
 	private Class<?> clazz;
 	private T instance;
+	private RecordPool<T> pool;
+	
+	/**
+	 * The number of records readers read into one block buffer when the record class is
+	 * sliced.
+	 */
+	public final static int SLICE_BLOCK_RECORDS = 64;
 	
 	private final static Logger LOG = Logger.getLogger( RecordBytesParser.class.getCanonicalName() );
 
@@ -67,6 +89,9 @@ public class RecordBytesParser<T extends RecordBytes> implements RecordParser<T,
 		try {
 			this.clazz = Class.forName(className);
 			this.instance = (T) this.clazz.newInstance();
+			
+			int poolSize = Integer.parseInt( p.getProperty(MVS_RECORDBYTES_POOL_SIZE, "0") );
+			this.pool = ( poolSize > 0 ) ? new RecordPool<T>( poolSize ) : null;
 		} catch (ClassNotFoundException e) {
 			LOG.log( Level.SEVERE, "Could not find record bytes implementation class " + className + " for use with RecordBytesParser.", e );
 			throw new BatchException( "Could not initialize the RecordBytesParser because required class " + className + " was not found. Please check the xJCL configuration, and try again.", e );
@@ -87,6 +112,84 @@ public class RecordBytesParser<T extends RecordBytes> implements RecordParser<T,
 		return this.instance;
 	}
 
+	/**
+	 * Binds the RecordBytes instance to the given slice, or to a copy of it if the record 
+	 * class is not sliced, and returns it for processing.
+	 */
+	@Override
+	public T parseRecordToObject(byte[] buffer, int offset, int length) {
+		bind( this.instance, buffer, offset, length );
+		return this.instance;
+	}
+
+	/**
+	 * Creates a new instance of the RecordBytes class over the given bytes, for callers 
+	 * which hold more than one record at a time. A released instance is reused if pooling 
+	 * is enabled.
+	 */
+	public T parseRecordToNewObject(byte[] bytes) {
+		T record = newRecord();
+		record.setBytes( bytes );
+		return record;
+	}
+
+	/**
+	 * Creates a new instance of the RecordBytes class over the given slice. Sliced records
+	 * refer to the buffer, so it must not be reused while the record is in use.
+	 */
+	public T parseRecordToNewObject(byte[] buffer, int offset, int length) {
+		T record = newRecord();
+		bind( record, buffer, offset, length );
+		return record;
+	}
+	
+	/**
+	 * Returns true if the record class implements SlicedRecordBytes, so records parsed from 
+	 * a slice refer to the buffer rather than to a copy.
+	 */
+	public boolean isSliced() {
+		return SlicedRecordBytes.class.isAssignableFrom( this.clazz );
+	}
+	
+	private void bind(T record, byte[] buffer, int offset, int length) {
+		if ( record instanceof SlicedRecordBytes )
+			((SlicedRecordBytes) record).setBytes( buffer, offset, length );
+		else
+			record.setBytes( Arrays.copyOfRange(buffer, offset, offset + length) );
+	}
+	
+	/**
+	 * Keeps the record for reuse by parseRecordToNewObject if pooling is enabled and the 
+	 * pool is not full. The instance returned by parseRecordToObject is never pooled.
+	 */
+	@Override
+	public void release(T record) {
+		if ( this.pool != null && record != this.instance )
+			this.pool.offer( record );
+	}
+	
+	/**
+	 * Returns the number of records currently available for reuse.
+	 */
+	public int getPooledCount() {
+		return ( this.pool == null ) ? 0 : this.pool.size();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private T newRecord() {
+		T pooled = ( this.pool == null ) ? null : this.pool.take();
+		if ( pooled != null )
+			return pooled;
+		
+		try {
+			return (T) this.clazz.newInstance();
+		} catch (IllegalAccessException e) {
+			throw new BatchException( "Could not create a record because class " + className + " could not be instantiated.", e );
+		} catch (InstantiationException e) {
+			throw new BatchException( "Could not create a record because class " + className + " could not be instantiated.", e );
+		}
+	}
+
 	/**
 	 * Returns the current byte buffer of the RecordBytes instance.
 	 */
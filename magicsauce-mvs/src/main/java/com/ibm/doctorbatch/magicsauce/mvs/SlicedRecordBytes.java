@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.ibm.doctorbatch.magicsauce.mvs;
+
+import com.ibm.etools.marshall.RecordBytes;
+
+/**
+ * <p>A RecordBytes implementation which can bind to a slice of a larger buffer, rather than
+ * to a byte[] holding exactly one record. Record classes which read their fields relative to
+ * an offset can implement it, and {@link RecordBytesParser} then binds them to the readers'
+ * block buffers directly, without copying the record.</p>
+ * 
+ * <p>getBytes() of a sliced record must still return a byte[] holding exactly the record;
+ * implementations copy the slice out when it does not span the whole buffer.</p>
+ * 
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ */
+public interface SlicedRecordBytes extends RecordBytes {
+	/**
+	 * Binds this record to length bytes of buffer, starting at offset.
+	 */
+	public void setBytes( byte[] buffer, int offset, int length );
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.mvs;
+
+import java.io.IOException;
+
+import com.ibm.jzos.ZFile;
+
+/**
+ * <p>A DataSet opened through JZOS' ZFile.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ */
+public class ZFileDataSet implements DataSet {
+	private final ZFile zFile;
+
+	public ZFileDataSet( ZFile zFile ) {
+		this.zFile = zFile;
+	}
+
+	public ZFile getZFile() {
+		return zFile;
+	}
+
+	@Override
+	public int getLrecl() throws IOException {
+		return zFile.getLrecl();
+	}
+
+	@Override
+	public int read( byte[] buffer ) throws IOException {
+		return zFile.read( buffer );
+	}
+
+	@Override
+	public int read( byte[] buffer, int offset, int length ) throws IOException {
+		return zFile.read( buffer, offset, length );
+	}
+
+	@Override
+	public void write( byte[] buffer ) throws IOException {
+		zFile.write( buffer );
+	}
+
+	@Override
+	public void write( byte[] buffer, int offset, int length ) throws IOException {
+		zFile.write( buffer, offset, length );
+	}
+
+	@Override
+	public void flush() throws IOException {
+		zFile.flush();
+	}
+
+	@Override
+	public long tell() throws IOException {
+		return zFile.tell();
+	}
+
+	@Override
+	public void seek( long position ) throws IOException {
+		zFile.seek( position, 0 );
+	}
+
+	@Override
+	public long getRecordCount() throws IOException {
+		return zFile.getRecordCount();
+	}
+
+	@Override
+	public void close() throws IOException {
+		zFile.close();
+	}
+}
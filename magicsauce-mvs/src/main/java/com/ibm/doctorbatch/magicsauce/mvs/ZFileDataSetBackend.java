@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.mvs;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import com.ibm.jzos.RcException;
+import com.ibm.jzos.ZFile;
+
+/**
+ * <p>The default DataSetBackend, which opens data sets through JZOS' ZFile and allocates
+ * DD cards with BPXWDYN. Requires z/OS.</p>
+ *
+ * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
+ */
+public class ZFileDataSetBackend implements DataSetBackend {
+
+	@Override
+	public void initialize( Properties props ) {
+	}
+
+	@Override
+	public String getQualifiedName( String dsname ) {
+		return ZFile.getSlashSlashQuotedDSN(dsname, true);
+	}
+
+	@Override
+	public void allocate( String command ) throws IOException {
+		bpxwdyn( command );
+	}
+
+	@Override
+	public void free( String command ) throws IOException {
+		bpxwdyn( command );
+	}
+
+	@Override
+	public DataSet open( String path, String options ) throws IOException {
+		return new ZFileDataSet( new ZFile(path, options) );
+	}
+
+	private void bpxwdyn( String command ) throws IOException {
+		try {
+			ZFile.bpxwdyn( command );
+		} catch ( RcException rce ) {
+			throw new IOException( "BPXWDYN command \"" + command + "\" failed: " + rce.getMessage() + " RC#: " + rce.getRc(), rce );
+		}
+	}
+}
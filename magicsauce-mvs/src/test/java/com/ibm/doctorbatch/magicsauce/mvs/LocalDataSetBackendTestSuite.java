@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.mvs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LocalDataSetBackendTestSuite {
+	private File directory;
+	private LocalDataSetBackend backend;
+	
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile( "datasets", ".test" );
+		directory.delete();
+		directory.mkdirs();
+		
+		Properties props = new Properties();
+		props.setProperty( "LOCAL_DATASET_DIR", directory.getAbsolutePath() );
+		backend = new LocalDataSetBackend();
+		backend.initialize( props );
+	}
+	
+	@After
+	public void tearDown() throws IOException {
+		backend.free( "free fi(TESTDD)" );
+		delete( directory );
+	}
+	
+	private static void delete( File file ) {
+		File[] children = file.listFiles();
+		if ( children != null )
+			for ( File child : children )
+				delete( child );
+		file.delete();
+	}
+	
+	private void write( String path, String options, String... records ) throws IOException {
+		DataSet ds = backend.open( path, options );
+		try {
+			for ( String record : records )
+				ds.write( record.getBytes() );
+		} finally {
+			ds.close();
+		}
+	}
+	
+	private long length( String dsname ) throws IOException {
+		return backend.getFile( dsname ).length();
+	}
+	
+	@Test
+	public void testDataSetNames() throws IOException {
+		assertEquals( new File(directory, "HLQ.DATA"), backend.getFile("'hlq.data'") );
+		assertEquals( new File(new File(directory, "HLQ.PDS"), "MEMBER"), backend.getFile("HLQ.PDS(MEMBER)") );
+		assertEquals( "//'HLQ.DATA'", backend.getQualifiedName("'HLQ.DATA'") );
+	}
+	
+	@Test(expected=IOException.class)
+	public void testRelativeGenerations() throws IOException {
+		backend.getFile( "HLQ.GDG(+1)" );
+	}
+	
+	@Test
+	public void testAllocNew() throws IOException {
+		backend.allocate( "alloc fi(TESTDD) da('HLQ.NEW') new recfm(F,B) lrecl(10)" );
+		assertEquals( backend.getFile("HLQ.NEW"), LocalDataSetBackend.getAllocatedFile("TESTDD") );
+		assertTrue( backend.getFile("HLQ.NEW").isFile() );
+		
+		Properties dcb = new Properties();
+		FileInputStream in = new FileInputStream( backend.getFile("HLQ.NEW").getPath() + LocalDataSetBackend.ATTRIBUTES_SUFFIX );
+		try {
+			dcb.load( in );
+		} finally {
+			in.close();
+		}
+		assertEquals( "FB", dcb.getProperty("RECFM") );
+		assertEquals( "10", dcb.getProperty("LRECL") );
+		
+		try {
+			backend.allocate( "alloc fi(OTHERDD) da('HLQ.NEW') new" );
+			fail( "Expected NEW to fail for an existing data set" );
+		} catch ( IOException expected ) {
+		}
+		assertNull( LocalDataSetBackend.getAllocatedFile("OTHERDD") );
+	}
+	
+	@Test
+	public void testAllocOldAndShr() throws IOException {
+		for ( String disp : new String[] { "old", "shr", "mod" } ) {
+			try {
+				backend.allocate( "alloc fi(TESTDD) da('HLQ.MISSING') " + disp );
+				fail( "Expected " + disp + " to fail for a data set which does not exist" );
+			} catch ( FileNotFoundException expected ) {
+			}
+		}
+		
+		write( "//'HLQ.OLD'", "wb,type=record,recfm=F,lrecl=4", "aaaa" );
+		backend.allocate( "alloc fi(TESTDD) da('HLQ.OLD') shr" );
+		
+		DataSet ds = backend.open( "dd:TESTDD", "rb,type=record" );
+		assertEquals( "Expected the cataloged LRECL", 4, ds.getLrecl() );
+		assertEquals( 4, ds.read(new byte[4]) );
+		ds.close();
+		
+		backend.free( "free fi(TESTDD)" );
+		assertNull( LocalDataSetBackend.getAllocatedFile("TESTDD") );
+		backend.allocate( "alloc fi(TESTDD) da('HLQ.OLD') old" );
+		write( "dd:TESTDD", "wb,type=record", "bbbb" );
+		assertEquals( "Expected OLD to replace the data set", 4, length("HLQ.OLD") );
+	}
+	
+	@Test
+	public void testAllocModAppends() throws IOException {
+		write( "//'HLQ.MOD'", "wb,type=record,recfm=F,lrecl=4", "aaaa" );
+		
+		backend.allocate( "alloc fi(TESTDD) da('HLQ.MOD') mod" );
+		write( "dd:TESTDD", "wb,type=record", "bbbb" );
+		assertEquals( "Expected MOD to extend the data set", 8, length("HLQ.MOD") );
+	}
+	
+	@Test
+	public void testCatalogedAttributes() throws IOException {
+		write( "//'HLQ.VB'", "wb,type=record,recfm=VB,lrecl=20", "abc" );
+		
+		DataSet ds = backend.open( "//'HLQ.VB'", "rb,type=record" );
+		assertEquals( 20, ds.getLrecl() );
+		assertEquals( 3, ds.read(new byte[20]) );
+		ds.close();
+		
+		try {
+			backend.open( "//'HLQ.UNKNOWN'", "wb,type=record" );
+			fail( "Expected the RECFM and LRECL of a new data set to be required" );
+		} catch ( IOException expected ) {
+		}
+	}
+	
+	@Test(expected=IOException.class)
+	public void testTypeRecordRequired() throws IOException {
+		backend.open( "//'HLQ.DATA'", "wb,recfm=F,lrecl=4" );
+	}
+	
+	@Test
+	public void testFreeUnallocated() throws IOException {
+		backend.free( "free fi(NOTALLOC)" );
+	}
+}
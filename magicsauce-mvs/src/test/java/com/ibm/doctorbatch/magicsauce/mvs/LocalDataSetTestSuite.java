@@ -0,0 +1,200 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.mvs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LocalDataSetTestSuite {
+	private File file;
+	
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile( "dataset", ".test" );
+	}
+	
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+	
+	private static byte[] bytes( String s ) {
+		return s.getBytes();
+	}
+	
+	private byte[] contents() throws IOException {
+		RandomAccessFile raf = new RandomAccessFile( file, "r" );
+		try {
+			byte[] data = new byte[ (int) raf.length() ];
+			raf.readFully( data );
+			return data;
+		} finally {
+			raf.close();
+		}
+	}
+	
+	private void write( String mode, String recfm, int lrecl, String... records ) throws IOException {
+		LocalDataSet ds = new LocalDataSet( file, mode, recfm, lrecl );
+		try {
+			for ( String record : records )
+				ds.write( bytes(record) );
+		} finally {
+			ds.close();
+		}
+	}
+	
+	@Test
+	public void testFixedPadding() throws IOException {
+		write( "wb", "FB", 4, "ab", "cdef" );
+		assertArrayEquals( "Expected short records to be padded with zeros", new byte[] { 'a', 'b', 0, 0, 'c', 'd', 'e', 'f' }, contents() );
+		
+		LocalDataSet ds = new LocalDataSet( file, "rb", "FB", 4 );
+		byte[] record = new byte[4];
+		assertEquals( 4, ds.read(record) );
+		assertArrayEquals( new byte[] { 'a', 'b', 0, 0 }, record );
+		assertEquals( 4, ds.read(record) );
+		assertEquals( -1, ds.read(record) );
+		assertEquals( 2, ds.getRecordCount() );
+		ds.close();
+	}
+	
+	@Test
+	public void testFixedShortLastRecord() throws IOException {
+		RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+		raf.write( bytes("abcdef") );
+		raf.close();
+		
+		LocalDataSet ds = new LocalDataSet( file, "rb", "F", 4 );
+		byte[] record = new byte[4];
+		assertEquals( 4, ds.read(record) );
+		assertEquals( "Expected the short last record as it is", 2, ds.read(record) );
+		assertEquals( 'e', record[0] );
+		assertEquals( 'f', record[1] );
+		assertEquals( -1, ds.read(record) );
+		ds.close();
+	}
+	
+	@Test
+	public void testVariableFraming() throws IOException {
+		write( "wb", "VB", 8, "abc", "defg", "" );
+		assertArrayEquals( "Expected each record to be preceded by its RDW", 
+				new byte[] { 0, 7, 0, 0, 'a', 'b', 'c', 0, 8, 0, 0, 'd', 'e', 'f', 'g', 0, 4, 0, 0 }, contents() );
+		
+		LocalDataSet ds = new LocalDataSet( file, "rb", "VB", 8 );
+		byte[] record = new byte[8];
+		assertEquals( 3, ds.read(record) );
+		assertEquals( 4, ds.read(record) );
+		assertEquals( "Expected an empty record", 0, ds.read(record) );
+		assertEquals( -1, ds.read(record) );
+		ds.close();
+	}
+	
+	@Test
+	public void testVariableLreclCheck() throws IOException {
+		LocalDataSet ds = new LocalDataSet( file, "wb", "V", 8 );
+		try {
+			ds.write( bytes("abcde") );
+			fail( "Expected a record longer than LRECL less the RDW to be rejected" );
+		} catch ( IOException expected ) {
+		}
+		ds.write( bytes("abcd") );
+		ds.close();
+		
+		ds = new LocalDataSet( file, "rb", "V", 7 );
+		try {
+			ds.read( new byte[8] );
+			fail( "Expected a record descriptor word longer than LRECL to be rejected" );
+		} catch ( IOException expected ) {
+		} finally {
+			ds.close();
+		}
+	}
+	
+	@Test(expected=IOException.class)
+	public void testInvalidVariableLrecl() throws IOException {
+		new LocalDataSet( file, "wb", "VB", 4 );
+	}
+	
+	@Test
+	public void testTellSeek() throws IOException {
+		LocalDataSet ds = new LocalDataSet( file, "wb", "VB", 16 );
+		ds.write( bytes("first") );
+		long second = ds.tell();
+		ds.write( bytes("second") );
+		long third = ds.tell();
+		ds.write( bytes("third") );
+		ds.close();
+		
+		ds = new LocalDataSet( file, "rb", "VB", 16 );
+		byte[] record = new byte[16];
+		ds.seek( third );
+		assertEquals( 5, ds.read(record) );
+		assertEquals( "third", new String(record, 0, 5) );
+		
+		ds.seek( second );
+		assertEquals( second, ds.tell() );
+		assertEquals( 6, ds.read(record) );
+		assertEquals( "second", new String(record, 0, 6) );
+		assertEquals( third, ds.tell() );
+		ds.close();
+	}
+	
+	@Test
+	public void testRestartTruncation() throws IOException {
+		write( "wb", "F", 4, "aaaa", "bbbb", "cccc" );
+		
+		LocalDataSet ds = new LocalDataSet( file, "rb+", "F", 4 );
+		byte[] record = new byte[4];
+		ds.read( record );
+		long restart = ds.tell();
+		ds.seek( restart );
+		ds.write( bytes("dddd") );
+		ds.close();
+		
+		assertArrayEquals( "Expected the records after the restart position to be removed", bytes("aaaadddd"), contents() );
+	}
+	
+	@Test
+	public void testAppend() throws IOException {
+		write( "wb", "F", 4, "aaaa" );
+		write( "ab", "F", 4, "bbbb" );
+		assertArrayEquals( bytes("aaaabbbb"), contents() );
+	}
+	
+	@Test
+	public void testAppendUpdateReadsFromStart() throws IOException {
+		write( "wb", "F", 4, "aaaa", "bbbb" );
+		
+		LocalDataSet ds = new LocalDataSet( file, "ab+", "F", 4 );
+		byte[] record = new byte[4];
+		assertEquals( 4, ds.read(record) );
+		assertArrayEquals( "Expected a+ to read from the start of the file", bytes("aaaa"), record );
+		
+		ds.write( bytes("cccc") );
+		ds.close();
+		assertArrayEquals( "Expected a+ to write at the end of the file", bytes("aaaabbbbcccc"), contents() );
+	}
+}
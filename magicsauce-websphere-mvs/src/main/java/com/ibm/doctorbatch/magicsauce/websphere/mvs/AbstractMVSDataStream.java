@@ -18,6 +18,7 @@ package com.ibm.doctorbatch.magicsauce.websphere.mvs;
 
 import java.util.Properties;
 
+import com.ibm.doctorbatch.magicsauce.mvs.DataSet;
 import com.ibm.doctorbatch.magicsauce.mvs.MVSDataSetManager;
 import com.ibm.doctorbatch.magicsauce.mvs.RecordBytesParser;
 import com.ibm.doctorbatch.magicsauce.websphere.AbstractBatchDataStream;
@@ -37,6 +38,7 @@ import com.ibm.jzos.ZFile;
  *  <li>DD_ALLOC_RESTART: The TSO 'alloc' command used to allocate the dynamic DD card referencing DSNAME within the batch job's address space, when restarting this job after a failure.</li>
  *  <li>DD_FREE: The TSO 'free' command used to free the dynamic DD card referencing DSNAME within the batch job's address space.</li>
  *  <li>RECORD_PARSER_CLASSNAME: The fully qualified name of the class implementing com.ibm.websphere.batch.framework.mvs.RecordParser, used to translate records to java bean instances, and vice-versa.</li>
+ *  <li>DATASET_BACKEND: Optional. The DataSetBackend used to allocate and open the dataset; specify com.ibm.doctorbatch.magicsauce.mvs.LocalDataSetBackend, with LOCAL_DATASET_DIR, to run against local files off z/OS.</li>
  * </ol></p>
  * 
  * <p>Note that DD_ALLOC, DD_ALLOC_RESTART and DD_FREE are optional parameters. If they are omitted, then the BPXWDYN call 
@@ -86,6 +88,13 @@ public abstract class AbstractMVSDataStream<T extends RecordBytes> extends Abstr
 		// Nothing to do here
 	}
 
+	public DataSet getDataSet() {
+		return mvsDataSetManager.getDataSet();
+	}
+	
+	/**
+	 * Returns null unless the dataset was opened through ZFileDataSetBackend.
+	 */
 	public ZFile getZFile() {
 		return mvsDataSetManager.getZFile();
 	}
@@ -16,11 +16,16 @@
 
 package com.ibm.doctorbatch.magicsauce.websphere.mvs;
 
+import static com.ibm.doctorbatch.magicsauce.Constants.READ_AHEAD_SIZE;
+
+import java.util.List;
 import java.util.Properties;
 
+import com.ibm.doctorbatch.magicsauce.BulkReader;
 import com.ibm.doctorbatch.magicsauce.ClassUtil;
+import com.ibm.doctorbatch.magicsauce.concurrent.ReadAheadReader;
 import com.ibm.doctorbatch.magicsauce.mvs.MVSRecordReader;
-import com.ibm.doctorbatch.magicsauce.websphere.etl.Readable;
+import com.ibm.doctorbatch.magicsauce.websphere.etl.BulkReadable;
 import com.ibm.etools.marshall.RecordBytes;
 import com.ibm.websphere.batch.BatchDataStream;
 
@@ -28,15 +33,21 @@ import com.ibm.websphere.batch.BatchDataStream;
  * <p>This batch data stream reads records from an MVS data set. See {@link AbstractMVSDataStream} for
  * properties and usage. This BDS reads a single MVS record per invocation of read(), 
  * to customize this behavior, you may either extend AbstractMVSDataStream directly, or 
- * extend this class and override fetchRecord( ZFile, RecordParser ).</p>
+ * extend this class and override fetchRecord( DataSet, RecordBytesParser ).</p>
+ * 
+ * <p>When the READ_AHEAD_SIZE property is set, up to that many records are read from the
+ * data set on a background thread while the job step processes the current records (see
+ * {@link ReadAheadReader}). The checkpoint counts records handed to the job step, so it 
+ * is unaffected by read-ahead.</p>
  * 
  * @see AbstractMVSDataStream
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
  * @param <T>
  */
-public class MVSRecordReaderBDS<T extends RecordBytes> extends AbstractMVSDataStream<T> implements Readable<T>, BatchDataStream {
+public class MVSRecordReaderBDS<T extends RecordBytes> extends AbstractMVSDataStream<T> implements BulkReadable<T>, BatchDataStream {
 	private MVSRecordReader<T> magicSauceReader;
 	private String magicSauceReaderClassName;
+	private BulkReader<T> reader;
 	private long recordCount;
 	
 	@Override
@@ -46,17 +57,31 @@ public class MVSRecordReaderBDS<T extends RecordBytes> extends AbstractMVSDataSt
 		magicSauceReaderClassName = props.getProperty("magicSauceReaderClassName");
 		magicSauceReader = ClassUtil.getInstanceForClass( magicSauceReaderClassName );
 		magicSauceReader.setDataSetManager( super.getMVSDataSetManager() );
+		
+		String readAheadSize = props.getProperty(READ_AHEAD_SIZE);
+		if ( readAheadSize != null && Integer.parseInt(readAheadSize) > 0 )
+			reader = new ReadAheadReader<T>( magicSauceReader, Integer.parseInt(readAheadSize) );
+		else
+			reader = magicSauceReader;
 	}
 	
 	@Override
 	public T read() {
-		T value = magicSauceReader.read();
+		T value = reader.read();
 		if ( value != null )
 			++recordCount;
 		
 		return value;
 	}
 
+	@Override
+	public int read(int max, List<? super T> into) {
+		int count = reader.read(max, into);
+		recordCount += count;
+		
+		return count;
+	}
+
 	/**
 	 * Allocates a dynamic DD card using the DD_ALLOC (or DD_ALLOC_RESTART) statement,
 	 * and then opens the file using the ds_parameters (or ds_parameters_restart) options, 
@@ -64,17 +89,20 @@ public class MVSRecordReaderBDS<T extends RecordBytes> extends AbstractMVSDataSt
 	 */
 	@Override
 	public void open() {
-		magicSauceReader.open(null);
+		reader.open(null);
 	}
 	
 	@Override
 	public void close() {
-		magicSauceReader.close();
+		reader.close();
 	}
 	
 	@Override
 	public String externalizeCheckpointInformation() {
-		return Long.toString( recordCount );
+		long start = System.nanoTime();
+		String token = Long.toString( recordCount );
+		recordCheckpoint( start );
+		return token;
 	}
 
 	@Override
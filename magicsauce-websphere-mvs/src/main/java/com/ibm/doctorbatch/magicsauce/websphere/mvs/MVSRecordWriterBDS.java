@@ -16,10 +16,14 @@
 
 package com.ibm.doctorbatch.magicsauce.websphere.mvs;
 
+import static com.ibm.doctorbatch.magicsauce.Constants.WRITE_BEHIND_SIZE;
+
 import java.util.List;
 import java.util.Properties;
 
 import com.ibm.doctorbatch.magicsauce.ClassUtil;
+import com.ibm.doctorbatch.magicsauce.Writer;
+import com.ibm.doctorbatch.magicsauce.concurrent.WriteBehindWriter;
 import com.ibm.doctorbatch.magicsauce.mvs.MVSRecordWriter;
 import com.ibm.doctorbatch.magicsauce.websphere.etl.Writable;
 import com.ibm.etools.marshall.RecordBytes;
@@ -29,7 +33,11 @@ import com.ibm.websphere.batch.BatchDataStream;
  * <p>This batch data stream reads records from an MVS data set. See {@link AbstractMVSDataStream} for
  * properties and usage. This BDS reads a single MVS record per invocation of read(), 
  * to customize this behavior, you may either extend AbstractMVSDataStream directly, or 
- * extend this class and override fetchRecord( ZFile, RecordParser ).</p>
+ * extend this class and override fetchRecord( DataSet, RecordBytesParser ).</p>
+ * 
+ * <p>When the WRITE_BEHIND_SIZE property is set, records are written to the data set in 
+ * batches of that size by a dedicated I/O thread (see {@link WriteBehindWriter}). The
+ * checkpoint waits for every record written so far to reach the data set.</p>
  * 
  * @see AbstractMVSDataStream
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
@@ -38,6 +46,7 @@ import com.ibm.websphere.batch.BatchDataStream;
 public class MVSRecordWriterBDS<T extends RecordBytes> extends AbstractMVSDataStream<T> implements Writable<T>, BatchDataStream {
 	private MVSRecordWriter<T> magicSauceWriter;
 	private String magicSauceReaderClassName;
+	private Writer<T> writer;
 	private long recordCount;
 	
 	@Override
@@ -47,13 +56,19 @@ public class MVSRecordWriterBDS<T extends RecordBytes> extends AbstractMVSDataSt
 		magicSauceReaderClassName = props.getProperty("magicSauceReaderClassName");
 		magicSauceWriter = ClassUtil.getInstanceForClass( magicSauceReaderClassName );
 		magicSauceWriter.setDataSetManager( super.getMVSDataSetManager() );
+		
+		String writeBehindSize = props.getProperty(WRITE_BEHIND_SIZE);
+		if ( writeBehindSize != null && Integer.parseInt(writeBehindSize) > 0 )
+			writer = new WriteBehindWriter<T>( magicSauceWriter, Integer.parseInt(writeBehindSize) );
+		else
+			writer = magicSauceWriter;
 	}
 	
 	@Override
 	public void write(T record) {
 		if ( record != null )
 		{
-			magicSauceWriter.write( record );
+			writer.write( record );
 			++recordCount;
 		}
 	}
@@ -65,17 +80,23 @@ public class MVSRecordWriterBDS<T extends RecordBytes> extends AbstractMVSDataSt
 	 */
 	@Override
 	public void open() {
-		magicSauceWriter.open(null);
+		writer.open(null);
 	}
 	
 	@Override
 	public void close() {
-		magicSauceWriter.close();
+		writer.close();
 	}
 	
 	@Override
 	public String externalizeCheckpointInformation() {
-		return Long.toString( recordCount );
+		long start = System.nanoTime();
+		if ( writer instanceof WriteBehindWriter<?> )
+			((WriteBehindWriter<?>) writer).flush();
+		
+		String token = Long.toString( recordCount );
+		recordCheckpoint( start );
+		return token;
 	}
 
 	@Override
@@ -25,13 +25,15 @@ import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 import com.ibm.doctorbatch.magicsauce.BatchException;
 import com.ibm.doctorbatch.magicsauce.ClassUtil;
 import com.ibm.doctorbatch.magicsauce.mvs.RecordBytesParser;
 import com.ibm.doctorbatch.magicsauce.websphere.AbstractBatchDataStream;
-import com.ibm.doctorbatch.magicsauce.websphere.etl.Readable;
+import com.ibm.doctorbatch.magicsauce.websphere.etl.BulkReadable;
 import com.ibm.etools.marshall.RecordBytes;
 import com.ibm.jzos.RDWInputRecordStream;
 import com.ibm.websphere.batch.BatchDataStream;
@@ -55,10 +57,15 @@ import com.ibm.websphere.batch.BatchDataStream;
  * word on the records. This allows this input BDS to process both fixed-block and variable-block record 
  * types.</p>
  * 
+ * <p>read() binds each record to the parser's single RecordBytes instance. When the record 
+ * class implements SlicedRecordBytes, each record is read into the same buffer; otherwise 
+ * each is read into a new array. read(int, List) creates a RecordBytes instance per record; 
+ * when the record class implements SlicedRecordBytes, the records share block buffers.</p>
+ * 
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch) *
  * @param <T> The record type read by this reader
  */
-public class RDWRecordReader<T extends RecordBytes> extends AbstractBatchDataStream implements Readable<T>, BatchDataStream {
+public class RDWRecordReader<T extends RecordBytes> extends AbstractBatchDataStream implements BulkReadable<T>, BatchDataStream {
 
 	private RecordBytesParser<T> recordParser;
 	 
@@ -66,6 +73,7 @@ public class RDWRecordReader<T extends RecordBytes> extends AbstractBatchDataStr
 	private String fileName;
 	private int recordLength;
 	private long currentRecordInd;
+	private byte[] buffer;
 	
 	public RDWRecordReader() {
 		
@@ -145,8 +153,10 @@ public class RDWRecordReader<T extends RecordBytes> extends AbstractBatchDataStr
 
 	@Override
 	public String externalizeCheckpointInformation() {
-		
-		return Long.toString(currentRecordInd);
+		long start = System.nanoTime();
+		String token = Long.toString(currentRecordInd);
+		recordCheckpoint( start );
+		return token;
 	}
 
 	@Override
@@ -169,19 +179,29 @@ public class RDWRecordReader<T extends RecordBytes> extends AbstractBatchDataStr
 	}
 	
 	protected T fetchRecord( RDWInputRecordStream input, RecordBytesParser<T> recordParser ) {
-    	byte[] recordBytes = null;
-    	
+		byte[] recordBytes;
     	try {
-    		recordBytes = new byte[ this.recordLength ];
+    		// Only sliced records may share the read buffer
+    		if ( !recordParser.isSliced() )
+    			recordBytes = new byte[ this.recordLength ];
+    		else if ( buffer != null )
+    			recordBytes = buffer;
+    		else
+    			recordBytes = buffer = new byte[ this.recordLength ];
     		
     		int nread = input.read( recordBytes );
 			if ( nread == -1 )
 				return null;
+			if ( nread < recordBytes.length )
+				Arrays.fill( recordBytes, Math.max(nread, 0), recordBytes.length, (byte) 0 );
 		} catch (IOException e) {
 			throw new BatchException("Unexpected error while reading record", e);
 		} 
 
-		T record = recordParser.parseRecordToObject(recordBytes);
+		if ( !recordParser.isSliced() )
+			return recordParser.parseRecordToObject(recordBytes);
+		
+		T record = recordParser.parseRecordToObject(recordBytes, 0, recordBytes.length);
     	return record;
 	}
 	
@@ -199,6 +219,51 @@ public class RDWRecordReader<T extends RecordBytes> extends AbstractBatchDataStr
     	return currentRecord;
 	}
 
+	/**
+	 * Reads up to max records into the given list, each into its own RecordBytes instance.
+	 */
+	@Override
+	public int read(int max, List<? super T> into) {
+		int count = 0;
+		
+		try {
+			if ( recordParser.isSliced() ) {
+				byte[] block = null;
+				int offset = 0;
+				while ( count < max ) {
+					if ( block == null || offset == block.length ) {
+						block = new byte[ Math.min(max - count, RecordBytesParser.SLICE_BLOCK_RECORDS) * this.recordLength ];
+						offset = 0;
+					}
+					
+					if ( rdwInputStream.read( block, offset, this.recordLength ) == -1 )
+						break;
+					
+					into.add( recordParser.parseRecordToNewObject(block, offset, this.recordLength) );
+					offset += this.recordLength;
+					++count;
+				}
+				
+				return count;
+			}
+			
+			while ( count < max ) {
+				byte[] recordBytes = new byte[ this.recordLength ];
+				if ( rdwInputStream.read( recordBytes ) == -1 )
+					break;
+				
+				into.add( recordParser.parseRecordToNewObject(recordBytes) );
+				++count;
+			}
+		} catch (IOException e) {
+			throw new BatchException("Unexpected error while reading record", e);
+		} finally {
+			currentRecordInd += count;
+		}
+		
+		return count;
+	}
+
 	protected void setPosition(long position) {
 		try {
 			currentRecordInd = position;
@@ -20,17 +20,21 @@ package com.ibm.doctorbatch.magicsauce.websphere.mvs;
 import static com.ibm.doctorbatch.magicsauce.Constants.RECORD_PARSER_CLASSNAME;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.FILE_NAME;
 import static com.ibm.doctorbatch.magicsauce.mvs.Constants.RECORD_LENGTH;
+import static com.ibm.doctorbatch.magicsauce.Constants.WRITE_BEHIND_SIZE;
 
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.io.Serializable;
 import java.util.List;
 import java.util.Properties;
 
 import com.ibm.doctorbatch.magicsauce.BatchException;
 import com.ibm.doctorbatch.magicsauce.ClassUtil;
+import com.ibm.doctorbatch.magicsauce.Writer;
+import com.ibm.doctorbatch.magicsauce.concurrent.WriteBehindWriter;
 import com.ibm.doctorbatch.magicsauce.mvs.RecordBytesParser;
 import com.ibm.doctorbatch.magicsauce.websphere.AbstractBatchDataStream;
 import com.ibm.doctorbatch.magicsauce.websphere.etl.Writable;
@@ -42,6 +46,10 @@ import com.ibm.websphere.batch.BatchDataStream;
  * This batch data stream writes record structures to a flat on Unix, Linux, or Windows platforms. The 
  * output file is written as a native z/OS variable-block record format. 
  * 
+ * <p>When the WRITE_BEHIND_SIZE property is set, records are written to the file in batches
+ * of that size by a dedicated I/O thread (see {@link WriteBehindWriter}). The checkpoint 
+ * waits for every record written so far to reach the file.</p>
+ * 
  * @author Timothy C. Fanelli (tfanelli@us.ibm.com, tim@fanel.li, doc@torbat.ch)
  *
  * @param <T> The record type written by this batch data stream implementation.
@@ -57,6 +65,8 @@ public class RDWRecordWriter<T extends RecordBytes> extends AbstractBatchDataStr
 	private String fileName;
 	private int recordLength;
 	private long currentRecordInd;
+	private int writeBehindSize;
+	private WriteBehindWriter<T> writeBehind;
 	
 	public RDWRecordWriter() {
 		
@@ -99,6 +109,8 @@ public class RDWRecordWriter<T extends RecordBytes> extends AbstractBatchDataStr
 		String recordParserClassName = props.getProperty( RECORD_PARSER_CLASSNAME );
 		recordParser = ClassUtil.getInstanceForClass(recordParserClassName);
 		recordParser.initialize(props);
+		
+		writeBehindSize = Integer.parseInt(props.getProperty(WRITE_BEHIND_SIZE, "0"));
 	}
 	
 	
@@ -113,6 +125,11 @@ public class RDWRecordWriter<T extends RecordBytes> extends AbstractBatchDataStr
 				throw new BatchException(e);
 			}
 			
+			if ( writeBehindSize > 0 ) {
+				writeBehind = new WriteBehindWriter<T>( new StreamWriter(), writeBehindSize );
+				writeBehind.open(null);
+			}
+			
 
 		} catch(IOException ioEx) {
 			throw new BatchException("Unexpected error while opening file", ioEx.getCause());
@@ -121,6 +138,16 @@ public class RDWRecordWriter<T extends RecordBytes> extends AbstractBatchDataStr
 
 	@Override
 	public void close() {
+		try {
+			if ( writeBehind != null )
+				writeBehind.close();
+		} finally {
+			writeBehind = null;
+			closeStream();
+		}
+	}
+	
+	private void closeStream() {
 		try {
 			this.rdwOutputStream.close();
 		} catch (IOException ioe) {
@@ -131,7 +158,12 @@ public class RDWRecordWriter<T extends RecordBytes> extends AbstractBatchDataStr
 
 	@Override
 	public String externalizeCheckpointInformation() {
+		long start = System.nanoTime();
+		if ( writeBehind != null )
+			writeBehind.flush();
+		
 		String retval = String.valueOf(getCurrentPosition());
+		recordCheckpoint( start );
 		return retval;
 	}
 
@@ -160,7 +192,10 @@ public class RDWRecordWriter<T extends RecordBytes> extends AbstractBatchDataStr
 	
 	@Override
 	public void write(T record) {
-		writeRecord( this.recordParser, record, this.rdwOutputStream );
+		if ( writeBehind != null )
+			writeBehind.write( record );
+		else
+			writeRecord( this.recordParser, record, this.rdwOutputStream );
     	currentRecordInd++;
 	}
 	
@@ -208,6 +243,34 @@ public class RDWRecordWriter<T extends RecordBytes> extends AbstractBatchDataStr
 		for ( T t : records )
 			write(t);
 	}
+	
+	/*
+	 * Writes records to the RDW stream from the write-behind I/O thread. The stream itself 
+	 * is opened and closed by this data stream.
+	 */
+	private final class StreamWriter implements Writer<T> {
+		@Override
+		public void open(Serializable state) {
+		}
+
+		@Override
+		public void close() {
+		}
 
+		@Override
+		public Serializable getState() {
+			return null;
+		}
+
+		@Override
+		public void write(T record) {
+			writeRecord( recordParser, record, rdwOutputStream );
+		}
 
+		@Override
+		public void write(List<? extends T> records) {
+			for ( T t : records )
+				write(t);
+		}
+	}
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.websphere.etl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import com.ibm.doctorbatch.magicsauce.BatchRecordProcessor;
+import com.ibm.doctorbatch.magicsauce.PartialBatchException;
+import com.ibm.doctorbatch.magicsauce.SkipRecordException;
+import com.ibm.doctorbatch.magicsauce.websphere.mvs.TestRecord;
+
+/*
+ * Echoes batches of records, and skips the record with the given count.
+ */
+public class BatchEchoProcessBehavior implements BatchRecordProcessor<TestRecord, TestRecord> {
+	private int throwSkipRecordOn = -1;
+	private int processCounter = 0;
+	
+	@Override
+	public void initialize(Properties jobStepProperties) {
+		
+	}
+	
+	public void throwSkipRecordOn( int count ) {
+		this.throwSkipRecordOn = count;
+	}
+	
+	public int getProcessed() {
+		return processCounter;
+	}
+
+	@Override
+	public List<TestRecord> processBatch(List<? extends TestRecord> records) {
+		List<TestRecord> processed = new ArrayList<TestRecord>( records.size() );
+		for ( TestRecord record : records ) {
+			try {
+				processed.add( process(record) );
+			} catch ( SkipRecordException sre ) {
+				throw new PartialBatchException( processed.size(), processed, sre );
+			}
+		}
+		return processed;
+	}
+
+	@Override
+	public TestRecord process(TestRecord record) {
+		++processCounter;
+		
+		if ( throwSkipRecordOn == processCounter ) {
+			throw new SkipRecordException( record );
+		} 
+		
+		return record;
+	}
+
+	@Override
+	public int getReturnCode() {
+		return 0;
+	}
+
+	@Override
+	public void tearDown() {
+		
+	}
+}
@@ -170,7 +170,72 @@ public class ETLJobStepTestSuite extends RDWRecordTestSuiteFixture {
 		assertTrue( TestSkipRecordObserver.wasUpdated() );
 	}
 	
+	@Test
+	public void testETLSkipRecordCompletesUnitOfWork() {
+		EchoProcessBehavior epb = (EchoProcessBehavior) testJobStep.getRecordProcessBehavior();
+		epb.throwSkipRecordOn(new Random().nextInt(unitOfWorkSize)+1);
+		
+		assertEquals( BatchConstants.STEP_CONTINUE, testJobStep.processJobStep() );
+		assertTrue( TestSkipRecordObserver.wasUpdated() );
+		assertEquals( "Expected the whole unit of work to be read", unitOfWorkSize, testReader.getCurrentPosition() );
+		assertEquals( "Expected every record but the skipped one to be written", unitOfWorkSize - 1, testWriter.getCurrentPosition() );
+		
+		assertEquals( BatchConstants.STEP_CONTINUE, testJobStep.processJobStep() );
+		assertEquals( "Expected no records carried over to the next unit of work", 2*unitOfWorkSize, testReader.getCurrentPosition() );
+		assertEquals( 2*unitOfWorkSize - 1, testWriter.getCurrentPosition() );
+	}
+	
 
+	@Test
+	public void testETLEmittingRecordProcessor() {
+		testJobStep.destroyJobStep();
+		
+		Properties jobStepProperties = new Properties();
+		jobStepProperties.put(RECORD_PROCESSOR, SplitProcessBehavior.class.getName());
+		jobStepProperties.put(UNIT_OF_WORK_SIZE, Integer.toString(unitOfWorkSize));
+		
+		testJobStep = new ETLTestJobStep();
+		testJobStep.setProperties( jobStepProperties );
+		testJobStep.createJobStep();
+		
+		int rc = -1;
+		do {
+			rc = testJobStep.processJobStep();
+		} while (rc == BatchConstants.STEP_CONTINUE );
+		
+		SplitProcessBehavior spb = (SplitProcessBehavior) testJobStep.getRecordProcessBehavior();
+		assertEquals( BatchConstants.STEP_COMPLETE, rc );
+		assertEquals( "Expected every record emitted to be written", spb.getEmitted(), testWriter.getCurrentPosition() );
+		assertEquals( "Expected as many records written as read", testReader.getCurrentPosition(), testWriter.getCurrentPosition() );
+	}
+	
+	@Test
+	public void testETLBatchRecordProcessorSkipRecord() {
+		testJobStep.destroyJobStep();
+		
+		Properties jobStepProperties = new Properties();
+		jobStepProperties.put(RECORD_PROCESSOR, BatchEchoProcessBehavior.class.getName());
+		jobStepProperties.put(UNIT_OF_WORK_SIZE, Integer.toString(unitOfWorkSize));
+		jobStepProperties.put("SKIP_RECORD_OBSERVER.1", TestSkipRecordObserver.class.getName());
+		
+		testJobStep = new ETLTestJobStep();
+		testJobStep.setProperties( jobStepProperties );
+		testJobStep.createJobStep();
+		
+		BatchEchoProcessBehavior bpb = (BatchEchoProcessBehavior) testJobStep.getRecordProcessBehavior();
+		bpb.throwSkipRecordOn(new Random().nextInt(unitOfWorkSize)+1);
+		
+		int rc = -1;
+		do {
+			rc = testJobStep.processJobStep();
+		} while (rc == BatchConstants.STEP_CONTINUE );
+		
+		assertEquals( BatchConstants.STEP_COMPLETE, rc );
+		assertTrue( TestSkipRecordObserver.wasUpdated() );
+		assertEquals( "Expected each record to be processed once", testReader.getCurrentPosition(), bpb.getProcessed() );
+		assertEquals( "Expected every record but the skipped one to be written", testReader.getCurrentPosition() - 1, testWriter.getCurrentPosition() );
+	}
+	
 	@Test(expected=BatchException.class)
 	public void testETLMaximumSkipRecord() {
 		EchoProcessBehavior epb = (EchoProcessBehavior) testJobStep.getRecordProcessBehavior();
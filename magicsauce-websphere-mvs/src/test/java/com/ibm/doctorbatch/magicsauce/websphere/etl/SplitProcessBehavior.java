@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.websphere.etl;
+
+import java.util.Properties;
+
+import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.EmittingRecordProcessor;
+import com.ibm.doctorbatch.magicsauce.RecordEmitter;
+import com.ibm.doctorbatch.magicsauce.websphere.mvs.TestRecord;
+
+/*
+ * Emits records with even ids twice, and filters records with odd ids.
+ */
+public class SplitProcessBehavior implements EmittingRecordProcessor<TestRecord, TestRecord> {
+	private int emitted = 0;
+	
+	@Override
+	public void initialize(Properties jobStepProperties) {
+		
+	}
+
+	@Override
+	public void process(TestRecord record, RecordEmitter<? super TestRecord> emitter) {
+		if ( record.getId() % 2 == 0 ) {
+			emitter.emit( record );
+			emitter.emit( record );
+			emitted += 2;
+		}
+	}
+
+	@Override
+	public TestRecord process(TestRecord record) {
+		throw new BatchException( "Expected process(record, emitter) to be called" );
+	}
+	
+	public int getEmitted() {
+		return emitted;
+	}
+
+	@Override
+	public int getReturnCode() {
+		return 0;
+	}
+
+	@Override
+	public void tearDown() {
+		
+	}
+}
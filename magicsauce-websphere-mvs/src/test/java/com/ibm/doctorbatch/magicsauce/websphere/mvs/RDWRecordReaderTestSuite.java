@@ -17,10 +17,14 @@
 package com.ibm.doctorbatch.magicsauce.websphere.mvs;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import org.junit.Before;
@@ -35,6 +39,7 @@ public class RDWRecordReaderTestSuite {
 	
 	
 	private RDWRecordReader<TestRecord> recordReader;
+	private byte[] data;
 
 	@Before
 	public void setup() {
@@ -52,7 +57,8 @@ public class RDWRecordReaderTestSuite {
 		testWriter.write( new TestRecord(4, "test string 4" ) );
 		testWriter.write( new TestRecord(5, "test string 5" ) );
 		
-		recordReader = new RDWRecordReader<TestRecord>( new ByteArrayInputStream( outputStream.toByteArray() ), TestRecord.LRECL, parser );
+		data = outputStream.toByteArray();
+		recordReader = new RDWRecordReader<TestRecord>( new ByteArrayInputStream( data ), TestRecord.LRECL, parser );
 	}
 	
 	@Test
@@ -66,6 +72,18 @@ public class RDWRecordReaderTestSuite {
 		assertNull("Expected null returned at EOF.", recordReader.read());
 	}
 
+	@Test
+	public void testReadDoesNotShareBuffer() {
+		byte[] first = recordReader.read().getBytes();
+		byte[] second = recordReader.read().getBytes();
+		
+		assertNotSame("Expected a new array per record", first, second);
+		
+		TestRecord tr = new TestRecord();
+		tr.setBytes( first );
+		assertEquals("Expected the first record's bytes to be left intact", 1, tr.getId());
+	}
+
 	@Test
 	public void testPositioning() {
 		recordReader.setPosition(3);
@@ -74,4 +92,72 @@ public class RDWRecordReaderTestSuite {
 		assertEquals("Expected record 4", 4, tr.getId());
 		assertEquals("Expected record 4", "test string 4", tr.getValue().trim());
 	}
+
+	@Test
+	public void testBulkRead() {
+		List<TestRecord> records = new ArrayList<TestRecord>();
+		assertEquals("Expected all 5 records", 5, recordReader.read(10, records));
+		
+		for ( int i = 0; i < 5; ++i ) {
+			TestRecord tr = records.get(i);
+			assertEquals("Test Record " +i+ "has unexpected id", i+1, tr.getId());
+			assertEquals("Test Record " +i+ "has unexpected value", "test string " + (i+1), tr.getValue().trim());
+		}
+		
+		assertNotSame("Expected a new record instance per record", records.get(0), records.get(1));
+		assertEquals("Expected position after the last record", 5, recordReader.getCurrentPosition());
+		assertEquals("Expected no records at EOF", 0, recordReader.read(10, records));
+	}
+
+	@Test
+	public void testSlicedBulkRead() {
+		RecordBytesParser<SlicedTestRecord> parser = new RecordBytesParser<SlicedTestRecord>();
+		Properties p = new Properties();
+		p.put( "MVS_RECORDBYTES_CLASSNAME", SlicedTestRecord.class.getName());
+		parser.initialize(p);
+		
+		RDWRecordReader<SlicedTestRecord> slicedReader = new RDWRecordReader<SlicedTestRecord>( new ByteArrayInputStream( data ), TestRecord.LRECL, parser );
+		List<SlicedTestRecord> records = new ArrayList<SlicedTestRecord>();
+		assertEquals("Expected all 5 records", 5, slicedReader.read(10, records));
+		
+		for ( int i = 0; i < 5; ++i ) {
+			SlicedTestRecord tr = records.get(i);
+			assertEquals("Test Record " +i+ "has unexpected id", i+1, tr.getId());
+			assertEquals("Test Record " +i+ "has unexpected value", "test string " + (i+1), tr.getValue().trim());
+		}
+		
+		assertNotSame("Expected a new record instance per record", records.get(0), records.get(1));
+		assertSame("Expected records to share a block buffer", records.get(0).getBuffer(), records.get(4).getBuffer());
+	}
+
+	@Test
+	public void testPooledBulkRead() {
+		RecordBytesParser<TestRecord> parser = new RecordBytesParser<TestRecord>();
+		Properties p = new Properties();
+		p.put( "MVS_RECORDBYTES_CLASSNAME", TestRecord.class.getName());
+		p.put( "MVS_RECORDBYTES_POOL_SIZE", "2");
+		parser.initialize(p);
+		
+		RDWRecordReader<TestRecord> pooledReader = new RDWRecordReader<TestRecord>( new ByteArrayInputStream( data ), TestRecord.LRECL, parser );
+		RDWRecordWriter<TestRecord> pooledWriter = new RDWRecordWriter<TestRecord>( new ByteArrayOutputStream(), TestRecord.LRECL, parser );
+		
+		List<TestRecord> first = new ArrayList<TestRecord>();
+		assertEquals("Expected 3 records", 3, pooledReader.read(3, first));
+		pooledWriter.write( first );
+		assertEquals("Expected the writer not to release records", 0, parser.getPooledCount());
+		for ( TestRecord tr : first )
+			parser.release( tr );
+		assertEquals("Expected the pool to keep up to 2 released records", 2, parser.getPooledCount());
+		
+		List<TestRecord> second = new ArrayList<TestRecord>();
+		assertEquals("Expected the last 2 records", 2, pooledReader.read(10, second));
+		assertEquals("Expected the pooled records to be reused", 0, parser.getPooledCount());
+		assertSame("Expected the most recently released record to be reused first", first.get(1), second.get(0));
+		assertSame("Expected a released record to be reused", first.get(0), second.get(1));
+		assertEquals("Expected a reused record to hold the new record's data", 4, second.get(0).getId());
+		assertEquals("Expected a reused record to hold the new record's data", 5, second.get(1).getId());
+		
+		parser.release( parser.parseRecordToObject( new byte[TestRecord.LRECL] ) );
+		assertEquals("Expected the shared instance not to be pooled", 0, parser.getPooledCount());
+	}
 }
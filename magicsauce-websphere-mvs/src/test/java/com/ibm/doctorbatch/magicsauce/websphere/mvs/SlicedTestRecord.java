@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 IBM Corp.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ibm.doctorbatch.magicsauce.websphere.mvs;
+
+import java.util.Arrays;
+
+import com.ibm.doctorbatch.magicsauce.mvs.SlicedRecordBytes;
+import com.ibm.etools.marshall.util.MarshallIntegerUtils;
+import com.ibm.etools.marshall.util.MarshallStringUtils;
+
+/*
+ * The TestRecord layout, read relative to an offset into a shared buffer.
+ */
+public class SlicedTestRecord implements SlicedRecordBytes {
+	private byte[] buffer;
+	private int offset;
+	
+	public SlicedTestRecord() {
+		
+	}
+	
+	public int getId() {
+		return MarshallIntegerUtils.unmarshallFourByteIntegerFromBuffer(
+				buffer, 
+				offset, 
+				true, 
+				MarshallIntegerUtils.SIGN_CODING_TWOS_COMPLEMENT );
+	}
+	
+	public String getValue() {
+		return MarshallStringUtils.unmarshallFixedLengthStringFromBuffer(buffer, offset + 4, "IBM-037", 48);
+	}
+	
+	byte[] getBuffer() {
+		return buffer;
+	}
+	
+	@Override
+	public byte[] getBytes() {
+		if ( offset == 0 && buffer.length == TestRecord.LRECL )
+			return buffer;
+		return Arrays.copyOfRange(buffer, offset, offset + TestRecord.LRECL);
+	}
+
+	@Override
+	public int getSize() {
+		return TestRecord.LRECL;
+	}
+
+	@Override
+	public void setBytes(byte[] arg0) {
+		setBytes(arg0, 0, arg0.length);
+	}
+
+	@Override
+	public void setBytes(byte[] buffer, int offset, int length) {
+		this.buffer = buffer;
+		this.offset = offset;
+	}
+}
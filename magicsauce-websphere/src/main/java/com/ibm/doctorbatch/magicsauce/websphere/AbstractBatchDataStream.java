@@ -23,6 +23,8 @@ import javax.naming.InitialContext;
 import javax.naming.NamingException;
 
 import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.metrics.Phase;
+import com.ibm.doctorbatch.magicsauce.metrics.StepMetrics;
 import com.ibm.websphere.batch.BatchDataStream;
 import com.ibm.websphere.batch.devframework.configuration.BDSFrameworkConstants;
 
@@ -88,6 +90,17 @@ public abstract class AbstractBatchDataStream implements BatchDataStream {
 		return jobStepId;
 	}
 
+	/**
+	 * Records the time since start, from System.nanoTime(), taken to externalize this 
+	 * stream's checkpoint, in the CHECKPOINT phase of the job step's metrics, if the job 
+	 * step has bound any.
+	 */
+	protected void recordCheckpoint( long start ) {
+		StepMetrics metrics = StepMetrics.forStep( jobStepId );
+		if ( metrics != null )
+			metrics.record( Phase.CHECKPOINT, System.nanoTime() - start, 1L );
+	}
+
 	/**
 	 * @return the restart
 	 */
@@ -20,13 +20,19 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.ibm.batch.api.BatchConstants;
 import com.ibm.doctorbatch.magicsauce.BatchException;
 import com.ibm.doctorbatch.magicsauce.ClassUtil;
+import com.ibm.doctorbatch.magicsauce.MagicSauceLogger;
 import com.ibm.doctorbatch.magicsauce.SkipRecordException;
+import com.ibm.doctorbatch.magicsauce.concurrent.AsyncLogHandler;
+import com.ibm.doctorbatch.magicsauce.metrics.StepMetrics;
 
+import static com.ibm.doctorbatch.magicsauce.Constants.ASYNC_LOG_SIZE;
+import static com.ibm.doctorbatch.magicsauce.Constants.STEP_METRICS;
 import static com.ibm.doctorbatch.magicsauce.websphere.Constants.*;
 
 /**
@@ -58,6 +64,19 @@ import static com.ibm.doctorbatch.magicsauce.websphere.Constants.*;
  * If the limit is set, and reached, the SkipRecordException will be wrapped in a BatchException, 
  * and rethrown out of processJobStep to terminate the job and place it in a restartable state.</p>
  * 
+ * <p>Set the ASYNC_LOG_SIZE property to log through an {@link AsyncLogHandler} with room for
+ * that many records, so that logging skipped records and tolerable exceptions does not 
+ * hold up the job step thread on handler I/O. The handler is installed by createJobStep 
+ * and removed by destroyJobStep; job steps running at the same time share one handler.</p>
+ * 
+ * <p>Each job step keeps a {@link StepMetrics}, available to subclasses through 
+ * getStepMetrics(), which counts the skipped records along with whatever the subclass 
+ * measures. The metrics are bound to the job step id, so that the batch data streams of
+ * the step record the time taken to externalize their checkpoints, in the CHECKPOINT 
+ * phase. The metrics are published as an MBean named 
+ * com.ibm.doctorbatch.magicsauce:type=StepMetrics,name=&lt;job step id&gt; from createJobStep
+ * until destroyJobStep, unless the STEP_METRICS property is set to false.</p>
+ * 
  * <p>Here is an example xJCL snippet showing this job step (note: the bds sections
  * are templated out, and classes referenced under com.customer.* are user-provided)</p>
  * <pre>{@code
@@ -98,6 +117,9 @@ public abstract class AbstractSkipRecordJobStep extends AbstractJobStep {
 
 	private int currentTolerableExceptions;
 	private int currentSkippedRecords;
+	
+	private StepMetrics stepMetrics;
+	private boolean asyncLogging;
 
 	private final static Logger LOG = Logger.getLogger( AbstractSkipRecordJobStep.class.getName() );
 
@@ -121,6 +143,23 @@ public abstract class AbstractSkipRecordJobStep extends AbstractJobStep {
 		currentTolerableExceptions = 0;
 		maxSkippedRecords = Integer.valueOf(getProperty(MAX_SKIP_RECORDS, "-1"));
 		maxTolerableExceptions = Integer.valueOf(getProperty(MAX_EXCEPTIONS, "-1"));
+		
+		int asyncLogSize = Integer.parseInt(getProperty(ASYNC_LOG_SIZE, "0"));
+		asyncLogging = ( asyncLogSize > 0 );
+		if ( asyncLogging ) {
+			AsyncLogHandler.install( LOG, asyncLogSize );
+			MagicSauceLogger.getInstance().enableAsyncLogging( asyncLogSize );
+		}
+		
+		stepMetrics = new StepMetrics( getJobStepId() );
+		stepMetrics.bind();
+		if ( Boolean.parseBoolean(getProperty(STEP_METRICS, "true")) ) {
+			try {
+				stepMetrics.register();
+			} catch ( BatchException be ) {
+				LOG.log( Level.WARNING, "{0}: step metrics are not available through JMX: {1}", new Object[] { getJobStepId(), be.getCause() } );
+			}
+		}
 
 		String observerClassName = getProperty(SKIP_RECORD_OBSERVER, "");
 		if ( !observerClassName.isEmpty() )
@@ -155,15 +194,46 @@ public abstract class AbstractSkipRecordJobStep extends AbstractJobStep {
 
 	private void registerSkipMetricsObserver() {
 		this.addObserver( new Observer() {
-			/**
-			 * UDPATE SKIP RECORD METRICS HERE!!!
-			 */
 			public void update(Observable observable, Object data) {
-				
-
+				stepMetrics.recordSkip();
 			}
 		});
 	}
+	
+	/**
+	 * destroyJobStep logs the step metrics, removes their MBean, and removes the 
+	 * asynchronous log handlers installed by createJobStep. When overriding 
+	 * destroyJobStep, you must call super.destroyJobStep().
+	 * 
+	 * @return 0
+	 */
+	@Override
+	public int destroyJobStep() {
+		if ( stepMetrics != null ) {
+			LOG.info( stepMetrics.toString() );
+			stepMetrics.unbind();
+			try {
+				stepMetrics.unregister();
+			} catch ( BatchException be ) {
+				LOG.log( Level.WARNING, "{0}: {1}", new Object[] { getJobStepId(), be } );
+			}
+		}
+		
+		if ( asyncLogging ) {
+			asyncLogging = false;
+			MagicSauceLogger.getInstance().disableAsyncLogging();
+			AsyncLogHandler.uninstall( LOG );
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Returns the metrics of this job step, which are created by createJobStep.
+	 */
+	protected StepMetrics getStepMetrics() {
+		return stepMetrics;
+	}
 
 	// TODO need to explore if this is necessary
 	private void registerListedExceptions() {
@@ -229,16 +299,37 @@ public abstract class AbstractSkipRecordJobStep extends AbstractJobStep {
 		try {
 			result = doUnitOfWork();		
 		} 
-		catch ( SkipRecordException sre ) {
+		catch ( LimitReachedException lre ) {
+			throw lre;
+		}
+		catch ( Throwable t ) {
+			recordFailed( t );
+		}
+
+		return result;
+	}
+	
+	/**
+	 * Handles the failure of a record as processJobStep handles exceptions thrown out of 
+	 * doUnitOfWork: the registered observers are notified of a SkipRecordException, and 
+	 * registered tolerable exceptions are counted. Job steps which process many records per
+	 * unit of work call this for each failed record, so that the unit of work can carry on 
+	 * with the records after it.
+	 * 
+	 * @throws BatchException If MAX_SKIP_RECORDS or MAX_EXCEPTIONS is reached; this exception
+	 * is rethrown by processJobStep to terminate the job step.
+	 */
+	protected void recordFailed( Throwable t ) {
+		if ( t instanceof SkipRecordException ) {
 			setChanged();
-			notifyObservers( sre );
+			notifyObservers( t );
 			
 			if ( maxSkippedRecords != -1 && ++currentSkippedRecords >= maxSkippedRecords ) {
-				LOG.warning( getJobStepId() + ": terminating job because maxSkippedRecords was reached." );
-				throw new BatchException(sre.getMessage(), sre);
-			}			
+				LOG.log( Level.WARNING, "{0}: terminating job because maxSkippedRecords was reached.", getJobStepId() );
+				throw new LimitReachedException(t.getMessage(), t);
+			}
 		}
-		catch ( Throwable t ){
+		else {
 			boolean isRegisteredExceptionType = false;
 			// Can I cast this "t" object to any of the registered exception types?
 			for ( Class<?> registeredExceptionType : this.exceptionClasses ) {
@@ -252,18 +343,28 @@ public abstract class AbstractSkipRecordJobStep extends AbstractJobStep {
 			}
 			
 			if ( isRegisteredExceptionType ) {
-				LOG.warning( "Registered tolerable exception of type '"+t.getClass().getName()+"' occurred, with message: " + t.getCause() );
+				LOG.log( Level.WARNING, "Registered tolerable exception of type ''{0}'' occurred, with message: {1}", new Object[] { t.getClass().getName(), t.getCause() } );
 				if ( maxTolerableExceptions != -1 ) {
 					if ( ++currentTolerableExceptions >= maxTolerableExceptions ) {
-						LOG.warning( getJobStepId() + ": terminating job because maxTolerableExceptions ("+maxTolerableExceptions+") was reached." );
-						throw new BatchException(t.getMessage(), t);
+						LOG.log( Level.WARNING, "{0}: terminating job because maxTolerableExceptions ({1}) was reached.", new Object[] { getJobStepId(), maxTolerableExceptions } );
+						throw new LimitReachedException(t.getMessage(), t);
 					} else {
-						LOG.warning( currentTolerableExceptions + " tolerable exceptions have occurred out of " + maxTolerableExceptions + " maximum allowed." );
+						LOG.log( Level.WARNING, "{0} tolerable exceptions have occurred out of {1} maximum allowed.", new Object[] { currentTolerableExceptions, maxTolerableExceptions } );
 					}	
 				} 
 			}
 		}
+	}
+	
+	/*
+	 * Thrown when MAX_SKIP_RECORDS or MAX_EXCEPTIONS is reached, and never handled as the 
+	 * failure of a record.
+	 */
+	private static class LimitReachedException extends BatchException {
+		private static final long serialVersionUID = 1L;
 
-		return result;
+		LimitReachedException( String message, Throwable cause ) {
+			super( message, cause );
+		}
 	}
 }
@@ -21,10 +21,18 @@ import java.util.ArrayList;
 
 import com.ibm.batch.api.BatchJobStepInterface;
 import com.ibm.doctorbatch.magicsauce.BatchException;
+import com.ibm.doctorbatch.magicsauce.BatchRecordProcessor;
 import com.ibm.doctorbatch.magicsauce.ClassUtil;
+import com.ibm.doctorbatch.magicsauce.EmittedRecords;
+import com.ibm.doctorbatch.magicsauce.EmittingRecordProcessor;
+import com.ibm.doctorbatch.magicsauce.PartialBatchException;
 import com.ibm.doctorbatch.magicsauce.Reader;
 import com.ibm.doctorbatch.magicsauce.RecordProcessor;
+import com.ibm.doctorbatch.magicsauce.RecordProcessorUtil;
 import com.ibm.doctorbatch.magicsauce.Writer;
+import com.ibm.doctorbatch.magicsauce.metrics.Phase;
+import com.ibm.doctorbatch.magicsauce.metrics.RecordSizer;
+import com.ibm.doctorbatch.magicsauce.metrics.StepMetrics;
 import com.ibm.doctorbatch.magicsauce.websphere.AbstractSkipRecordJobStep;
 import com.ibm.websphere.batch.BatchConstants;
 
@@ -43,7 +51,11 @@ import static com.ibm.doctorbatch.magicsauce.websphere.Constants.*;
  * <p>The transform logic is encapsulated in an instance of RecordProcessBehavior,
  * and defined to this job step by setting the RecordProcessBehavior 
  * class' fully qualified class-name in the job step's RECORD_PROCESS_BEHAVIOR
- * property.</p>
+ * property. Several processors can be chained instead, by setting the RECORD_PROCESSOR.1,
+ * RECORD_PROCESSOR.2, ..., RECORD_PROCESSOR.N properties (see RecordProcessorChain). Records
+ * for which the processor returns null are filtered, and not written. An 
+ * EmittingRecordProcessor may emit any number of output records per input record; all are 
+ * written, in the order emitted, by the same unit of work.</p>
  * 
  * <p>Additionally, you can control the size of a unit of work - the number of 
  * record processed per invocation of doUnitOfWork (or processJobStep), by 
@@ -54,6 +66,24 @@ import static com.ibm.doctorbatch.magicsauce.websphere.Constants.*;
  * with recordCount of 100, this job step will process 10,000 records from 
  * the reader before the container commits the global transaction.</p>
  * 
+ * <p>When the reader implements BulkReadable, each unit of work is read in a single 
+ * call. Records read before the end of the input are processed and written as a final, 
+ * partial unit of work. If the record processor is a BatchRecordProcessor, such as 
+ * ParallelRecordProcessor, each such unit is passed to processBatch in a single call. When
+ * a record of the unit fails, the results of the records before it are kept, the failed 
+ * record is skipped (or counted as a tolerable exception) as usual, and the records after 
+ * it are passed to processBatch again, so no record is processed twice.</p>
+ * 
+ * <p>A skipped record does not end the unit of work: the records after it are processed,
+ * and the records processed before and after it are written by the same unit of work. 
+ * Every record read by a unit of work is therefore written, or skipped, before the 
+ * container takes a checkpoint of the reader's position.</p>
+ * 
+ * <p>The time taken by the reader, the record processor and the writer is recorded per 
+ * record in the job step's StepMetrics, along with the number of records each handled. To
+ * count bytes read and written as well, set the RECORD_SIZER property to the class name of
+ * a RecordSizer which accepts both the input and the output records.</p>
+ * 
  * <p>Here is an example xJCL snippet showing this job step (note: the bds sections
  * are templated out, and classes referenced under com.customer.* are user-provided)</p>
  * <pre>{@code
@@ -102,6 +132,9 @@ public class ETLJobStep<R,P> extends AbstractSkipRecordJobStep implements BatchJ
 	private Writable<P> writer;
 	private int unitOfWorkSize = 1;
 	private RecordProcessor<R,P> recordProcessor;
+	private final List<R> inputs = new ArrayList<R>();
+	private StepMetrics metrics;
+	private RecordSizer<Object> sizer;
 	
 	@Override
 	public void createJobStep() {
@@ -114,46 +147,154 @@ public class ETLJobStep<R,P> extends AbstractSkipRecordJobStep implements BatchJ
 		writer = getBatchDataStream( writerStream );
 
 		try {
-			recordProcessor = ClassUtil.getInstanceForClass( getProperty( RECORD_PROCESSOR ) );
+			recordProcessor = RecordProcessorUtil.createRecordProcessor( getProperty( RECORD_PROCESSOR ), getProperties() );
 			recordProcessor.initialize( getProperties() );
 		} catch ( Throwable t ) {
 			t.printStackTrace();
 			throw new BatchException(t);
 		}
 		unitOfWorkSize = Integer.parseInt(getProperty(UNIT_OF_WORK_SIZE, "1"));
+		
+		metrics = getStepMetrics();
+		String sizerClassName = getProperty( RECORD_SIZER, "" );
+		if ( !sizerClassName.isEmpty() )
+			sizer = ClassUtil.getInstanceForClass( sizerClassName );
 	}
 	
 	@Override
 	public int destroyJobStep() {
-		if ( recordProcessor != null ) {
-			recordProcessor.tearDown();
-			return recordProcessor.getReturnCode();
+		try {
+			if ( recordProcessor != null ) {
+				recordProcessor.tearDown();
+				return recordProcessor.getReturnCode();
+			}
+			
+			return 0;
+		} finally {
+			super.destroyJobStep();
 		}
-		
-		return 0;
 	}
 
 	@Override
 	protected int doUnitOfWork() {
-		List<P> records = new ArrayList<P>( unitOfWorkSize );
+		if ( !(reader instanceof BulkReadable<?>) )
+			return doRecordAtATimeUnitOfWork();
+		
+		inputs.clear();
+		
+		long start = System.nanoTime();
+		boolean endOfInput = ( ((BulkReadable<R>) reader).read( unitOfWorkSize, inputs ) < unitOfWorkSize );
+		metrics.record( Phase.READ, System.nanoTime() - start, inputs.size() );
+		addBytes( Phase.READ, inputs );
+		
+		// Failed records are handled as they occur, so every record read is processed by 
+		// this unit of work, and none is left over once the reader's position is checkpointed.
+		EmittedRecords<P> records = new EmittedRecords<P>( inputs.size() );
+		if ( recordProcessor instanceof BatchRecordProcessor<?,?> && !(recordProcessor instanceof EmittingRecordProcessor<?,?>) ) {
+			int next = 0;
+			while ( next < inputs.size() )
+				next = processBatch( next, records );
+		} 
+		else {
+			for ( int i = 0; i < inputs.size(); ++i )
+				process( inputs.get(i), records );
+		}
+		inputs.clear();
+	
+		if ( !records.isEmpty() )
+			write( records );
+
+		return ( endOfInput ? BatchConstants.STEP_COMPLETE : BatchConstants.STEP_CONTINUE );
+	}
+	
+	/*
+	 * Readers which only read one record at a time may reuse the record instance, so each 
+	 * record is processed before the next is read.
+	 */
+	private int doRecordAtATimeUnitOfWork() {
+		EmittedRecords<P> records = new EmittedRecords<P>( unitOfWorkSize );
 		for ( int i = 0; i < unitOfWorkSize; ++i ) 
 		{
+			long start = System.nanoTime();
 			R input = reader.read();
 			
 			if ( input == null ) {
+				if ( !records.isEmpty() )
+					write( records );
 				return BatchConstants.STEP_COMPLETE;
 			}
+			
+			metrics.record( Phase.READ, System.nanoTime() - start, 1L );
+			if ( sizer != null )
+				metrics.addBytes( Phase.READ, sizer.sizeOf(input) );
 
-			records.add(recordProcessor.process( input ));
+			process( input, records );
 		}
 	
-		writer.write(records);
-
-		
+		write( records );
 		
 		return BatchConstants.STEP_CONTINUE;
 	}
 	
+	/*
+	 * Processes one record. If it fails, the records it emitted are discarded, and it is 
+	 * handled as a failed record, so the unit of work carries on with the next record.
+	 */
+	private void process( R input, EmittedRecords<P> records ) {
+		int emitted = records.size();
+		long start = System.nanoTime();
+		try {
+			RecordProcessorUtil.process( recordProcessor, input, records );
+		} catch ( RuntimeException re ) {
+			records.subList( emitted, records.size() ).clear();
+			recordFailed( re );
+		} finally {
+			metrics.record( Phase.PROCESS, System.nanoTime() - start, 1L );
+		}
+	}
+	
+	/*
+	 * Processes the records from next on with one call to processBatch, and returns the 
+	 * index of the first record not processed. If a record fails, the results of the records
+	 * before it are kept, and it is handled as a failed record.
+	 */
+	@SuppressWarnings("unchecked")
+	private int processBatch( int next, EmittedRecords<P> records ) {
+		List<R> batch = inputs.subList( next, inputs.size() );
+		long start = System.nanoTime();
+		try {
+			for ( P processed : ((BatchRecordProcessor<R,P>) recordProcessor).processBatch( batch ) )
+				records.emit( processed );
+			metrics.record( Phase.PROCESS, System.nanoTime() - start, batch.size() );
+			return inputs.size();
+		} catch ( RuntimeException re ) {
+			PartialBatchException partial = PartialBatchException.of( re );
+			metrics.record( Phase.PROCESS, System.nanoTime() - start, partial.getFailedIndex() + 1 );
+			for ( Object processed : partial.getProcessed() )
+				records.emit( (P) processed );
+			
+			recordFailed( partial.getCause() );
+			return next + partial.getFailedIndex() + 1;
+		}
+	}
+	
+	private void write( List<P> records ) {
+		long start = System.nanoTime();
+		writer.write( records );
+		metrics.record( Phase.WRITE, System.nanoTime() - start, records.size() );
+		addBytes( Phase.WRITE, records );
+	}
+	
+	private void addBytes( Phase phase, List<?> records ) {
+		if ( sizer == null )
+			return;
+		
+		long bytes = 0L;
+		for ( int i = 0; i < records.size(); ++i )
+			bytes += sizer.sizeOf( records.get(i) );
+		metrics.addBytes( phase, bytes );
+	}
+	
 	
 	/*
 	 * For unit testing support only.